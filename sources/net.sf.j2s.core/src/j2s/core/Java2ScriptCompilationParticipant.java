@@ -5,6 +5,11 @@ import j2s.CorePlugin;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.IPath;
@@ -150,47 +155,156 @@ public class Java2ScriptCompilationParticipant extends org.eclipse.jdt.core.comp
 			boolean breakOnError = j2sCompiler.doBreakOnError();
 			System.out.println("J2S building JavaScript " + projectName + " "
 					+ project.getProject().getLocation() + " " + new Date());
-			int ntotal = 0, nerror = 0, nExcluded = 0;
+			int nThreads = j2sCompiler.getThreadCount();
+			int batchSize = j2sCompiler.getBatchSize();
+			int[] counts = new int[3]; // ntotal, nerror, nExcluded
+			long t0 = System.currentTimeMillis();
 			for (int j = 0; j < contexts.size(); j++) {
 				BuildContext[] files = contexts.get(j);
 				System.out.println("J2S building JavaScript for " + files.length + " file" + plural(files.length));
 				String trailer = CorePlugin.VERSION + " " + new Date();
-				for (int i = 0, n = files.length; i < n; i++) {
-					IFile f = files[i].getFile();
-					String filePath = f.getLocation().toString();
-					if (j2sCompiler.excludeFile(f)) {
-						if (j2sCompiler.isDebugging)
-						System.out.println("J2S excluded " + filePath);
-						nExcluded++;
-					} else {
-						if (j2sCompiler.isDebugging)
-						System.out.println("J2S transpiling (" + (i + 1) + "/" + n + ") " + filePath);
-						try {
-							if (j2sCompiler.compileToJavaScript(f, trailer)) {
-								ntotal++;
-							} else {
-								nerror++;
-								System.out.println("J2S Error processing " + filePath);
-								if (breakOnError)
-									break;
-							}
-						} catch (Exception e) {
-							System.out.println("J2S Exception " + e);
-							e.printStackTrace(System.out);
-							e.printStackTrace(System.err);
-						}
-					}
-				}
+				List<IFile[]> batches = getBatches(j2sCompiler, files, batchSize, counts);
+				if (nThreads > 1 && batches.size() > 1)
+					compileParallel(j2sCompiler, batches, trailer, breakOnError, nThreads, counts);
+				else
+					compileSerial(j2sCompiler, batches, trailer, breakOnError, counts);
 			}
+			long ms = System.currentTimeMillis() - t0;
+			int ntotal = counts[0], nerror = counts[1], nExcluded = counts[2];
 			j2sCompiler.finalizeProject();
 			contexts = null;
 			System.out.println("J2S buildFinished " + ntotal + " file" + plural(ntotal) + " transpiled for "
 					+ project.getProject().getLocation());
-			System.out.println("J2S buildFinished nerror=" + nerror + " nExcluded=" + nExcluded + " " + new Date());
+			System.out.println("J2S buildFinished nerror=" + nerror + " nExcluded=" + nExcluded + " threads="
+					+ nThreads + " batch.size=" + batchSize + " time=" + ms + " ms" + " " + new Date());
 		}
 		isCleanBuild = false;
 	}
 
+	/**
+	 * Remove excluded files, add dependent files, and split the rest into
+	 * batches for Java2ScriptCompiler.compileToJavaScript(IFile[], String).
+	 * 
+	 * @param j2sCompiler
+	 * @param files
+	 * @param batchSize   maximum number of files per batch
+	 * @param counts      nExcluded (counts[2]) is updated
+	 * @return list of batches, in file order
+	 */
+	private static List<IFile[]> getBatches(Java2ScriptCompiler j2sCompiler, BuildContext[] files, int batchSize,
+			int[] counts) {
+		List<IFile> included = new ArrayList<>(files.length);
+		for (int i = 0, n = files.length; i < n; i++) {
+			IFile f = files[i].getFile();
+			if (j2sCompiler.excludeFile(f)) {
+				if (j2sCompiler.isDebugging)
+					System.out.println("J2S excluded " + f.getLocation());
+				counts[2]++;
+			} else {
+				included.add(f);
+			}
+		}
+		included = j2sCompiler.addDependentFiles(included);
+		List<IFile[]> batches = new ArrayList<>();
+		if (batchSize < 1)
+			batchSize = 1;
+		for (int i = 0, n = included.size(); i < n; i += batchSize) {
+			batches.add(included.subList(i, Math.min(n, i + batchSize)).toArray(new IFile[0]));
+		}
+		return batches;
+	}
+
+	private static void compileSerial(Java2ScriptCompiler j2sCompiler, List<IFile[]> batches, String trailer,
+			boolean breakOnError, int[] counts) {
+		for (int i = 0, n = batches.size(); i < n; i++) {
+			IFile[] batch = batches.get(i);
+			if (addResults(batch, j2sCompiler.compileToJavaScript(batch, trailer), counts) && breakOnError)
+				break;
+		}
+	}
+
+	/**
+	 * Transpile batches of files on nThreads worker threads. Each file still gets
+	 * its own visitor, so the .js output is the same as for compileSerial.
+	 * Results are reported in file order.
+	 * 
+	 * With j2s.break.on.error, batches after the one with the first failing file
+	 * that have not yet been started are skipped, as they would be in a serial
+	 * build. Batches already in progress on other threads are allowed to finish.
+	 * 
+	 * @param j2sCompiler
+	 * @param batches
+	 * @param trailer
+	 * @param breakOnError
+	 * @param nThreads
+	 * @param counts       ntotal, nerror, nExcluded, updated
+	 */
+	private static void compileParallel(Java2ScriptCompiler j2sCompiler, List<IFile[]> batches, String trailer,
+			boolean breakOnError, int nThreads, int[] counts) {
+		int n = batches.size();
+		AtomicInteger firstError = new AtomicInteger(n);
+		List<Future<int[]>> results = new ArrayList<>(n);
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(nThreads, n));
+		try {
+			for (int i = 0; i < n; i++) {
+				final int index = i;
+				final IFile[] batch = batches.get(i);
+				results.add(pool.submit(() -> {
+					if (breakOnError && index > firstError.get())
+						return null;
+					int[] ret = j2sCompiler.compileToJavaScript(batch, trailer);
+					for (int j = 0; j < ret.length; j++) {
+						if (ret[j] == Java2ScriptCompiler.RESULT_ERROR) {
+							firstError.accumulateAndGet(index, Math::min);
+							break;
+						}
+					}
+					return ret;
+				}));
+			}
+			for (int i = 0; i < n; i++) {
+				try {
+					int[] ret = results.get(i).get();
+					if (ret != null)
+						addResults(batches.get(i), ret, counts);
+				} catch (Exception e) {
+					System.out.println("J2S Exception " + e);
+					e.printStackTrace(System.out);
+					e.printStackTrace(System.err);
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * 
+	 * @param batch
+	 * @param results
+	 * @param counts
+	 * @return true if any file in this batch had an error
+	 */
+	private static boolean addResults(IFile[] batch, int[] results, int[] counts) {
+		boolean haveError = false;
+		for (int i = 0; i < batch.length; i++) {
+			switch (results[i]) {
+			case Java2ScriptCompiler.RESULT_OK:
+				counts[0]++;
+				break;
+			case Java2ScriptCompiler.RESULT_ERROR:
+				counts[1]++;
+				haveError = true;
+				System.out.println("J2S Error processing " + batch[i].getLocation());
+				break;
+			default:
+				// exception (already reported) or skipped
+				break;
+			}
+		}
+		return haveError;
+	}
+
 	public static String plural(int n) {
 		return (n == 1 ? "" : "s");
 	}
@@ -7,8 +7,8 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -67,6 +67,39 @@ public abstract class Java2ScriptCompiler {
 	protected static final String J2S_COMPILER_MODE_DEFAULT = "nodebug";
 	protected static final String J2S_COMPILER_MODE_DEBUG = "debug";
 
+	/**
+	 * number of worker threads used to transpile the files of a build; 1 (the
+	 * default) transpiles serially on the build thread; 0 or "auto" uses one
+	 * thread per available processor
+	 * 
+	 */
+	protected static final String J2S_COMPILER_THREADS = "j2s.compiler.threads";
+	protected static final String J2S_COMPILER_THREADS_DEFAULT = "1";
+
+	/**
+	 * maximum number of files parsed together, sharing one binding environment;
+	 * 1 (the default) parses each file on its own
+	 * 
+	 */
+	protected static final String J2S_COMPILER_BATCH_SIZE = "j2s.compiler.batch.size";
+	protected static final String J2S_COMPILER_BATCH_SIZE_DEFAULT = "1";
+
+	/**
+	 * keep content hashes of site files in [site]/.j2s-manifest and do not
+	 * rewrite files that have not changed
+	 * 
+	 */
+	protected static final String J2S_OUTPUT_MANIFEST = "j2s.output.manifest";
+	protected static final String J2S_OUTPUT_MANIFEST_DEFAULT = "true";
+
+	/**
+	 * per-file results of compileToJavaScript(IFile[], String)
+	 */
+	public final static int RESULT_OK = 0;
+	public final static int RESULT_ERROR = 1;
+	public final static int RESULT_EXCEPTION = 2;
+	public final static int RESULT_SKIPPED = 3;
+
 	private static final String J2S_TESTING = "j2s.testing";
 
 	private static final String J2S_TESTING_DEFAULT = "false";
@@ -84,6 +117,57 @@ public abstract class Java2ScriptCompiler {
 
 	abstract public boolean compileToJavaScript(IFile javaSource, String trailer);
 
+	/**
+	 * Transpile a batch of files. This default implementation just transpiles
+	 * them one at a time; subclasses may parse the batch all at once.
+	 * 
+	 * Once a file fails and j2s.break.on.error is set, the rest of the batch is
+	 * skipped.
+	 * 
+	 * @param javaSources
+	 * @param trailer
+	 * @return one of RESULT_OK, RESULT_ERROR, RESULT_EXCEPTION, or RESULT_SKIPPED
+	 *         for each file
+	 */
+	public int[] compileToJavaScript(IFile[] javaSources, String trailer) {
+		int[] results = new int[javaSources.length];
+		boolean haveError = false;
+		for (int i = 0; i < javaSources.length; i++) {
+			IFile f = javaSources[i];
+			if (haveError && breakOnError) {
+				results[i] = RESULT_SKIPPED;
+				continue;
+			}
+			if (isDebugging)
+				System.out.println("J2S transpiling " + f.getLocation());
+			try {
+				results[i] = (compileToJavaScript(f, trailer) ? RESULT_OK : RESULT_ERROR);
+			} catch (Exception e) {
+				results[i] = RESULT_EXCEPTION;
+				logException(e);
+			}
+			haveError |= (results[i] == RESULT_ERROR);
+		}
+		return results;
+	}
+
+	/**
+	 * Add any files that must be transpiled again because files they depend on
+	 * are being built.
+	 * 
+	 * @param files the files Eclipse is building
+	 * @return files, or a new list including them
+	 */
+	protected List<IFile> addDependentFiles(List<IFile> files) {
+		return files;
+	}
+
+	protected static void logException(Exception e) {
+		System.out.println("J2S Exception " + e);
+		e.printStackTrace(System.out);
+		e.printStackTrace(System.err);
+	}
+
 	abstract public void finalizeProject();
 
 	/*
@@ -114,10 +198,23 @@ public abstract class Java2ScriptCompiler {
 
 	protected ASTParser astParser;
 
+	/**
+	 * one parser per worker thread when nThreads > 1; ASTParser is not thread-safe
+	 */
+	private ThreadLocal<ASTParser> threadParsers;
+
+	private int javaLanguageLevel;
+
+	protected int nThreads = 1;
+
+	protected int batchSize = 1;
+
 	protected IJavaProject project;
 
 	protected int nResources;
 
+	private Java2ScriptOutputManifest outputManifest;
+
 
 	/**
 	 * This will activate @j2sDebug blocks, at least in SwingJS
@@ -137,6 +234,45 @@ public abstract class Java2ScriptCompiler {
 		return breakOnError;
 	}
 
+	/**
+	 * 
+	 * @return the number of threads to use for compileToJavaScript; always 1
+	 *         unless this compiler allows parallel transpiling
+	 */
+	public int getThreadCount() {
+		return nThreads;
+	}
+
+	/**
+	 * Set the number of transpiling threads, creating per-thread parsers if
+	 * necessary.
+	 * 
+	 * @param n 0 for one per processor
+	 */
+	protected void setThreadCount(int n) {
+		nThreads = (n <= 0 ? Runtime.getRuntime().availableProcessors() : n);
+		threadParsers = null;
+		if (nThreads > 1) {
+			final int level = javaLanguageLevel;
+			threadParsers = ThreadLocal.withInitial(() -> ASTParser.newParser(level));
+			System.out.println("J2S transpiling with " + nThreads + " threads");
+		}
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Subclasses that can safely run compileToJavaScript on several files at
+	 * once should return true.
+	 * 
+	 * @return false by default
+	 */
+	protected boolean allowsParallelBuild() {
+		return false;
+	}
+
 	// We copy all non .java files from any directory from which we loaded a
 	// java file into the site directory
 	private final HashSet<String> copiedResourcePackages = new HashSet<String>();
@@ -268,7 +404,20 @@ public abstract class Java2ScriptCompiler {
 	 */
 	protected boolean initializeProject(IJavaProject project, boolean isCleanBuild, int javaLanguageLevel) {
 		this.project = project;
-		projectFolder = project.getProject().getLocation().toOSString();
+		return initializeProject(project.getProject().getLocation().toOSString(), isCleanBuild, javaLanguageLevel);
+	}
+
+	/**
+	 * Also the entry point for a headless build, where there is no IJavaProject
+	 * and project remains null.
+	 * 
+	 * @param projectFolder
+	 * @param isCleanBuild
+	 * @param javaLanguageLevel
+	 * @return true if this is a j2s project and is enabled
+	 */
+	protected boolean initializeProject(String projectFolder, boolean isCleanBuild, int javaLanguageLevel) {
+		this.projectFolder = projectFolder;
 		startBuild(isCleanBuild);
 		props = getPropsForDir(activeJ2SFile.getParent(), j2sConfigFileName, 0);
 		System.out.println(this.getClass().getName() + " " + activeJ2SFile + " " + props);
@@ -292,17 +441,41 @@ public abstract class Java2ScriptCompiler {
 		try {
 			astParser = ASTParser.newParser(jslLevel);
 			System.out.println("J2S compiler version set to " + jslLevel);
+			this.javaLanguageLevel = jslLevel;
 		} catch (@SuppressWarnings("unused") Exception e) {
 			System.out.println("J2S compiler version " + jslLevel + " could not be set; using 8");
 			astParser = ASTParser.newParser(jslLevel);
 		}
 
+		nThreads = 1;
+		threadParsers = null;
+		if (allowsParallelBuild()) {
+			String threads = getProperty(J2S_COMPILER_THREADS, J2S_COMPILER_THREADS_DEFAULT);
+			try {
+				nThreads = ("auto".equalsIgnoreCase(threads) ? 0 : Integer.parseInt(threads.trim()));
+			} catch (@SuppressWarnings("unused") Exception e) {
+				System.out.println("J2S j2s.compiler.threads should be a number or \"auto\"; using 1");
+				nThreads = 1;
+			}
+			setThreadCount(nThreads);
+		}
+
+		try {
+			String size = getProperty(J2S_COMPILER_BATCH_SIZE, J2S_COMPILER_BATCH_SIZE_DEFAULT);
+			batchSize = Math.max(1, Integer.parseInt(size.trim()));
+		} catch (@SuppressWarnings("unused") Exception e) {
+			System.out.println("J2S j2s.compiler.batch.size should be a positive number; using 1");
+			batchSize = 1;
+		}
+
 		testing = "true".equalsIgnoreCase(getProperty(J2S_TESTING, J2S_TESTING_DEFAULT));
 
 		breakOnError = !"false".equalsIgnoreCase(getProperty(J2S_BREAK_ON_ERROR, J2S_BREAK_ON_ERROR_DEFAULT));
 
 		siteFolder = getProperty(J2S_SITE_DIRECTORY, J2S_SITE_DIRECTORY_DEFAULT);
 		siteFolder = projectFolder + "/" + siteFolder;
+		outputManifest = new Java2ScriptOutputManifest(siteFolder,
+				!"false".equalsIgnoreCase(getProperty(J2S_OUTPUT_MANIFEST, J2S_OUTPUT_MANIFEST_DEFAULT)));
 
 //		outputPath = getProperty(J2S_OUTPUT_PATH, null);
 //		if (outputPath == null) {
@@ -340,6 +513,24 @@ public abstract class Java2ScriptCompiler {
 		return true;
 	}
 
+	/**
+	 * The parser to use for the current thread.
+	 * 
+	 * @return astParser when building serially; otherwise a parser owned by the
+	 *         calling worker thread
+	 */
+	protected ASTParser getASTParser() {
+		return (threadParsers == null ? astParser : threadParsers.get());
+	}
+
+	/**
+	 * 
+	 * @return the AST.JLSx level used for all parsers
+	 */
+	protected int getJavaLanguageLevel() {
+		return javaLanguageLevel;
+	}
+
 	private boolean isEnabled() {
 		String status = getProperty(J2S_COMPILER_STATUS, J2S_COMPILER_STATUS_DEFAULT);
 		return (J2S_COMPILER_STATUS_ENABLE.equalsIgnoreCase(status)
@@ -384,7 +575,8 @@ public abstract class Java2ScriptCompiler {
 			File folder = new File(j2sPath, packageName.replace('.', File.separatorChar));
 			j2sPath = folder.getAbsolutePath();
 			if (!folder.exists() || !folder.isDirectory()) {
-				if (!folder.mkdirs()) {
+				// another transpiling thread may have just created it
+				if (!folder.mkdirs() && !folder.isDirectory()) {
 					throw new RuntimeException("J2S failed to create folder " + j2sPath); //$NON-NLS-1$
 				}
 			}
@@ -392,7 +584,48 @@ public abstract class Java2ScriptCompiler {
 		File f = new File(j2sPath, elementName + ".js");
 		if (isDebugging)
 			System.out.println("J2S Compiler creating " + js.length() + " " + f);
-		writeToFile(f, js);
+		// the trailer's "//Created yyyy-MM-dd HH:mm:ss" changes every build
+		int pt = js.lastIndexOf("//Created ");
+		writeOutputFile(f, js, pt < 0 ? null : js.substring(pt, Math.min(js.length(), pt + 29)));
+	}
+
+	/**
+	 * Write a generated file to the site directory, unless the output manifest
+	 * shows that it already has this content.
+	 * 
+	 * @param f
+	 * @param data
+	 * @param timestamp the last occurrence of this string in data is ignored when
+	 *                  comparing; may be null
+	 */
+	protected void writeOutputFile(File f, String data, String timestamp) {
+		if (data == null)
+			return;
+		byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+		int pt = (timestamp == null ? -1 : data.lastIndexOf(timestamp));
+		String hash = Java2ScriptOutputManifest.getHash(pt < 0 ? bytes
+				: (data.substring(0, pt) + data.substring(pt + timestamp.length())).getBytes(StandardCharsets.UTF_8));
+		if (outputManifest.isCurrent(f, hash, bytes.length)) {
+			if (isDebugging)
+				System.out.println("J2S unchanged: " + f);
+			return;
+		}
+		try (FileOutputStream os = new FileOutputStream(f)) {
+			os.write(bytes);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+		outputManifest.setCurrent(f, hash, bytes.length);
+	}
+
+	/**
+	 * Save the output manifest and report how many files were written and
+	 * skipped. Called from finalizeProject.
+	 */
+	protected void finalizeOutput() {
+		if (outputManifest != null)
+			outputManifest.save();
 	}
 
 	protected static String getFileContents(File file) {
@@ -467,10 +700,14 @@ public abstract class Java2ScriptCompiler {
 						if (!copiedResourcePackages.contains(path)) {
 							//
 							copiedResourcePackages.add(path);
-							n++;
 							File fnew = new File(p, f.getName());
-							Files.copy(f.toPath(), fnew.toPath(),
-									StandardCopyOption.REPLACE_EXISTING);
+							byte[] bytes = Files.readAllBytes(f.toPath());
+							String hash = Java2ScriptOutputManifest.getHash(bytes);
+							if (outputManifest.isCurrent(fnew, hash, bytes.length))
+								continue;
+							n++;
+							Files.write(fnew.toPath(), bytes);
+							outputManifest.setCurrent(fnew, hash, bytes.length);
 							if (isDebugging)
 								System.out.println("J2S copied to site: " + path + " as " + fnew.toPath());
 						}
@@ -483,7 +720,14 @@ public abstract class Java2ScriptCompiler {
 		return n;
 	}
 
-	protected void copyAllResources(String packageName, String sourceLocation) {		
+	/**
+	 * Synchronized because copiedResourcePackages and nResources are shared by
+	 * all transpiling threads.
+	 * 
+	 * @param packageName
+	 * @param sourceLocation
+	 */
+	protected synchronized void copyAllResources(String packageName, String sourceLocation) {		
 		int pt = packageName.indexOf(".");
 		if (pt >= 0)
 			packageName = packageName.substring(0, pt);
@@ -0,0 +1,136 @@
+package j2s.core;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+
+/**
+ * Content hashes of the files written to the site directory, kept between
+ * builds in [site]/.j2s-manifest.
+ *
+ * Before a generated .js file or a copied resource is written, its hash and
+ * length are checked against the manifest and the file on disk. If both
+ * match, the file is left alone, so its timestamp does not change and browser
+ * and CDN caches and rsync deployments see only files that actually changed.
+ *
+ * Delete .j2s-manifest (or set j2s.output.manifest=false) to force every file
+ * to be written.
+ *
+ * All methods are synchronized, as files are written from all transpiling
+ * threads.
+ *
+ */
+class Java2ScriptOutputManifest {
+
+	final static String MANIFEST_FILE = ".j2s-manifest";
+
+	private final File manifestFile;
+	private final String sitePath;
+	private final boolean enabled;
+
+	private final Properties hashes = new Properties();
+	private boolean isChanged;
+
+	private int nWritten, nSkipped;
+	private long bytesWritten, bytesSkipped;
+
+	/**
+	 *
+	 * @param siteFolder
+	 * @param enabled    if false, nothing is ever skipped and no manifest file is
+	 *                   saved; only the counts are kept
+	 */
+	Java2ScriptOutputManifest(String siteFolder, boolean enabled) {
+		File site = new File(siteFolder).getAbsoluteFile();
+		sitePath = site.getPath().replace('\\', '/') + "/";
+		manifestFile = new File(site, MANIFEST_FILE);
+		this.enabled = enabled;
+		if (enabled && manifestFile.exists()) {
+			try (FileInputStream is = new FileInputStream(manifestFile)) {
+				hashes.load(is);
+			} catch (IOException e) {
+				System.out.println("J2S could not read " + manifestFile + " " + e.getMessage());
+				hashes.clear();
+			}
+		}
+	}
+
+	/**
+	 * Check whether f already holds this content. If so, it is counted as
+	 * skipped.
+	 *
+	 * @param f
+	 * @param hash   from getHash
+	 * @param length the number of bytes that would be written
+	 * @return true if f need not be written
+	 */
+	synchronized boolean isCurrent(File f, String hash, long length) {
+		if (!enabled || !(hash + " " + length).equals(hashes.getProperty(getKey(f))) || f.length() != length)
+			return false;
+		nSkipped++;
+		bytesSkipped += length;
+		return true;
+	}
+
+	/**
+	 * Record that f has just been written.
+	 *
+	 * @param f
+	 * @param hash
+	 * @param length
+	 */
+	synchronized void setCurrent(File f, String hash, long length) {
+		nWritten++;
+		bytesWritten += length;
+		if (enabled && hash != null) {
+			hashes.setProperty(getKey(f), hash + " " + length);
+			isChanged = true;
+		}
+	}
+
+	/**
+	 * Save the manifest if anything was written, and report the counts.
+	 */
+	synchronized void save() {
+		if (isChanged) {
+			try (FileOutputStream os = new FileOutputStream(manifestFile)) {
+				hashes.store(os, "J2S output hashes; delete to force all files to be written");
+			} catch (IOException e) {
+				System.out.println("J2S could not write " + manifestFile + " " + e.getMessage());
+			}
+			isChanged = false;
+		}
+		System.out.println("J2S output wrote " + nWritten + " file" + Java2ScriptCompilationParticipant.plural(nWritten)
+				+ " (" + bytesWritten + " bytes), skipped " + nSkipped + " unchanged file"
+				+ Java2ScriptCompilationParticipant.plural(nSkipped) + " (" + bytesSkipped + " bytes)");
+	}
+
+	private String getKey(File f) {
+		String path = f.getAbsolutePath().replace('\\', '/');
+		return (path.startsWith(sitePath) ? path.substring(sitePath.length()) : path);
+	}
+
+	/**
+	 *
+	 * @param bytes
+	 * @return SHA-1 of bytes as hex, or null if that is not available
+	 */
+	static String getHash(byte[] bytes) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(bytes);
+			StringBuilder sb = new StringBuilder(digest.length * 2);
+			for (int i = 0; i < digest.length; i++) {
+				int b = digest[i] & 0xFF;
+				sb.append(Character.forDigit(b >> 4, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			return sb.toString();
+		} catch (@SuppressWarnings("unused") NoSuchAlgorithmException e) {
+			return null;
+		}
+	}
+
+}
@@ -157,7 +157,8 @@ public class J2SLegacyCompiler extends Java2ScriptCompiler {
 		}
 		elementName = fixPackageName(elementName);
 		File jsFile = new File(outputPath, elementName + ".js"); // $NON-NLS-1
-		writeToFile(jsFile, js);		
+		// the trailer ends with the build date
+		writeOutputFile(jsFile, js, trailer.substring(trailer.indexOf(' ') + 1));
 		
 		// 5. copy all resources to the package directory (if not already copied)
 		
@@ -197,6 +198,7 @@ public class J2SLegacyCompiler extends Java2ScriptCompiler {
 	@Override
 	public void finalizeProject() {
 		System.out.println("J2S Jmol finalized for " + projectFolder + " " + nResources + " resources copied");
+		finalizeOutput();
 	}
 
 }
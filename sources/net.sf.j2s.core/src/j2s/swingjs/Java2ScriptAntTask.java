@@ -0,0 +1,81 @@
+package j2s.swingjs;
+
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.Task;
+
+/**
+ * Ant front end for Java2ScriptHeadlessCompiler. For example:
+ *
+ * <pre>
+ * &lt;taskdef name="j2s" classname="j2s.swingjs.Java2ScriptAntTask"
+ *     classpath="[j2s.core.jar and jdt core jars]" /&gt;
+ * &lt;j2s projectdir="." srcdir="src" classpath="lib/a.jar;lib/b.jar" threads="0" /&gt;
+ * </pre>
+ *
+ * Attributes are the same as the command-line options: projectdir (default
+ * the Ant basedir), srcdir, classpath, clean, threads, batchsize, encoding
+ * (default UTF-8), and includejavaruntime (default true; false is
+ * -nojavaruntime). The task fails the build if any file fails to transpile and
+ * failonerror is true (the default).
+ *
+ */
+public class Java2ScriptAntTask extends Task {
+
+	private String projectDir;
+	private String srcDir;
+	private String classPath = "";
+	private boolean clean;
+	private int threads = -1;
+	private int batchSize = -1;
+	private boolean failOnError = true;
+	private String encoding = Java2ScriptHeadlessCompiler.DEFAULT_ENCODING;
+	private boolean includeJavaRuntime = true;
+
+	public void setProjectDir(String dir) {
+		projectDir = dir;
+	}
+
+	public void setSrcDir(String dir) {
+		srcDir = dir;
+	}
+
+	public void setClasspath(String path) {
+		classPath = path;
+	}
+
+	public void setClean(boolean tf) {
+		clean = tf;
+	}
+
+	public void setThreads(int n) {
+		threads = n;
+	}
+
+	public void setBatchSize(int n) {
+		batchSize = n;
+	}
+
+	public void setFailOnError(boolean tf) {
+		failOnError = tf;
+	}
+
+	public void setEncoding(String name) {
+		encoding = name;
+	}
+
+	public void setIncludeJavaRuntime(boolean tf) {
+		includeJavaRuntime = tf;
+	}
+
+	@Override
+	public void execute() throws BuildException {
+		String dir = (projectDir == null ? getProject().getBaseDir().getPath() : projectDir);
+		int nErrors = Java2ScriptHeadlessCompiler.transpile(dir, srcDir, classPath, clean, threads, batchSize,
+				encoding, includeJavaRuntime);
+		if (nErrors < 0)
+			throw new BuildException("J2S transpiler is not enabled for " + dir);
+		if (nErrors > 0 && failOnError)
+			throw new BuildException("J2S " + nErrors + " file" + (nErrors == 1 ? "" : "s") + " failed to transpile");
+	}
+
+}
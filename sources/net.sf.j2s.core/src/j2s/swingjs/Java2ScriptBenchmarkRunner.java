@@ -0,0 +1,308 @@
+package j2s.swingjs;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.script.Bindings;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+
+/**
+ * Runs a benchmark class such as test.Test_Bench on the JVM and as transpiled
+ * JavaScript, with no browser and no network, and reports operations per
+ * second for each side.
+ *
+ * The benchmark class prints one "BENCH [tab] name [tab] ops/sec" line per
+ * benchmark. The Java side runs in a new JVM with the given classpath. The
+ * JavaScript side runs site/swingjs/js/j2sHost.js either in a JavaScript engine
+ * embedded in this JVM through javax.script (GraalJS, as "graal.js") or in
+ * node.
+ *
+ * Results can be saved, and compared with a saved baseline from an earlier
+ * release. A drop of more than the threshold on either side is reported as a
+ * regression, and the exit code is then 1. A missing baseline file is not an
+ * error.
+ *
+ * See the benchmark target in build-SwingJS-site.xml.
+ *
+ * Usage:
+ *
+ * java -cp j2s.core.jar j2s.swingjs.Java2ScriptBenchmarkRunner [-site site]
+ * [-cp bin] [-main test.Test_Bench] [-engine auto|node|graal.js|none]
+ * [-jvm false] [-save results.properties] [-baseline old.properties]
+ * [-threshold 10] [-- benchmark arguments...]
+ *
+ * The default engine, auto, uses graal.js if it is on the classpath, and
+ * otherwise node.
+ *
+ */
+public class Java2ScriptBenchmarkRunner {
+
+	private final static String BENCH = "BENCH\t";
+
+	private String siteDir = "site";
+	private String classPath = "bin";
+	private String mainClass = "test.Test_Bench";
+	private String engine = "auto";
+	private boolean runJVM = true;
+	private List<String> benchArgs = new ArrayList<>();
+
+	/**
+	 * name to {JVM, JS} ops/sec; -1 if not run
+	 */
+	private final Map<String, double[]> htResults = new LinkedHashMap<>();
+
+	public static void main(String[] args) {
+		Java2ScriptBenchmarkRunner runner = new Java2ScriptBenchmarkRunner();
+		String save = null, baseline = null;
+		double threshold = 10;
+		try {
+			for (int i = 0; i < args.length; i++) {
+				switch (args[i]) {
+				case "-site":
+					runner.siteDir = args[++i];
+					break;
+				case "-cp":
+				case "-classpath":
+					runner.classPath = args[++i];
+					break;
+				case "-main":
+					runner.mainClass = args[++i];
+					break;
+				case "-engine":
+					runner.engine = args[++i];
+					break;
+				case "-jvm":
+					runner.runJVM = !"false".equals(args[++i]);
+					break;
+				case "-save":
+					save = args[++i];
+					break;
+				case "-baseline":
+					baseline = args[++i];
+					break;
+				case "-threshold":
+					threshold = Double.parseDouble(args[++i]);
+					break;
+				case "--":
+					while (++i < args.length)
+						runner.benchArgs.add(args[i]);
+					break;
+				default:
+					throw new IllegalArgumentException(args[i]);
+				}
+			}
+		} catch (Exception e) {
+			System.err.println("J2S bad argument " + e.getMessage());
+			System.err.println("Usage: java j2s.swingjs.Java2ScriptBenchmarkRunner [-site site] [-cp bin]"
+					+ " [-main test.Test_Bench] [-engine auto|node|graal.js|none] [-jvm false]"
+					+ " [-save file] [-baseline file] [-threshold percent] [-- benchmark args...]");
+			System.exit(2);
+		}
+		try {
+			if (runner.runJVM)
+				runner.runJVM();
+			if (!"none".equals(runner.engine))
+				runner.runJS();
+			runner.report();
+			if (save != null)
+				runner.save(new File(save));
+			if (baseline != null && runner.compare(new File(baseline), threshold) > 0)
+				System.exit(1);
+		} catch (Exception e) {
+			System.err.println("J2S benchmark failed: " + e);
+			System.exit(2);
+		}
+	}
+
+	private void runJVM() throws IOException, InterruptedException {
+		System.out.println("J2S benchmarking " + mainClass + " on the JVM");
+		List<String> cmd = new ArrayList<>();
+		cmd.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+		cmd.add("-cp");
+		cmd.add(classPath);
+		cmd.add(mainClass);
+		cmd.addAll(benchArgs);
+		runProcess(cmd, 0);
+	}
+
+	private void runJS() throws Exception {
+		File jsDir = new File(siteDir, "swingjs/js");
+		File j2sDir = new File(siteDir, "swingjs/j2s");
+		File hostFile = new File(jsDir, "j2sHost.js");
+		if (!hostFile.exists())
+			throw new IOException("no " + hostFile);
+		ScriptEngine js = null;
+		if (!"node".equals(engine))
+			js = new ScriptEngineManager().getEngineByName("auto".equals(engine) ? "graal.js" : engine);
+		if (js == null && !"auto".equals(engine) && !"node".equals(engine))
+			throw new IOException("no JavaScript engine " + engine);
+		if (js == null) {
+			System.out.println("J2S benchmarking " + mainClass + " in node");
+			List<String> cmd = new ArrayList<>();
+			cmd.add("node");
+			cmd.add(hostFile.getPath());
+			cmd.add("-j2s");
+			cmd.add(j2sDir.getPath());
+			cmd.add(mainClass);
+			cmd.addAll(benchArgs);
+			runProcess(cmd, 1);
+			return;
+		}
+		System.out.println("J2S benchmarking " + mainClass + " in " + js.getFactory().getEngineName());
+		Bindings bindings = js.getBindings(ScriptContext.ENGINE_SCOPE);
+		// GraalJS: allow the host object to be used
+		bindings.put("polyglot.js.allowHostAccess", Boolean.TRUE);
+		bindings.put("J2SHost", new Host(jsDir.getAbsolutePath(), j2sDir.getAbsolutePath(), mainClass,
+				String.join("\n", benchArgs)));
+		js.eval(new String(Files.readAllBytes(hostFile.toPath()), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * The J2SHost object for j2sHost.js in an embedded engine.
+	 */
+	public class Host {
+		public final String jsPath, j2sPath, main, args;
+
+		Host(String jsPath, String j2sPath, String main, String args) {
+			this.jsPath = jsPath;
+			this.j2sPath = j2sPath;
+			this.main = main;
+			this.args = args;
+		}
+
+		public String read(String path) {
+			if (path.startsWith("file://"))
+				path = path.substring(7);
+			try {
+				return new String(Files.readAllBytes(new File(path).toPath()), StandardCharsets.UTF_8);
+			} catch (@SuppressWarnings("unused") IOException e) {
+				return null;
+			}
+		}
+
+		public void print(String s) {
+			addOutput(s, 1);
+		}
+
+		public void printErr(String s) {
+			System.err.println(s);
+		}
+	}
+
+	private void runProcess(List<String> cmd, int side) throws IOException, InterruptedException {
+		ProcessBuilder pb = new ProcessBuilder(cmd);
+		pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+		Process p = pb.start();
+		try (BufferedReader br = new BufferedReader(
+				new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = br.readLine()) != null)
+				addOutput(line, side);
+		}
+		int exit = p.waitFor();
+		if (exit != 0)
+			throw new IOException(cmd.get(0) + " exited with " + exit);
+	}
+
+	/**
+	 * Echo one line of output, keeping any result it reports.
+	 *
+	 * @param line
+	 * @param side 0 for JVM, 1 for JavaScript
+	 */
+	void addOutput(String line, int side) {
+		System.out.println(line);
+		if (!line.startsWith(BENCH))
+			return;
+		String[] fields = line.split("\t");
+		if (fields.length < 3)
+			return;
+		double[] r = htResults.computeIfAbsent(fields[1], k -> new double[] { -1, -1 });
+		try {
+			r[side] = Double.parseDouble(fields[2]);
+		} catch (@SuppressWarnings("unused") NumberFormatException e) {
+			// ignore
+		}
+	}
+
+	private void report() {
+		System.out.println();
+		System.out.println(String.format("%-20s %15s %15s %10s", "benchmark", "JVM ops/s", "JS ops/s", "JS/JVM"));
+		for (Map.Entry<String, double[]> e : htResults.entrySet()) {
+			double[] r = e.getValue();
+			System.out.println(String.format("%-20s %15s %15s %10s", e.getKey(), format(r[0]), format(r[1]),
+					r[0] > 0 && r[1] >= 0 ? String.format("%.4f", r[1] / r[0]) : "-"));
+		}
+	}
+
+	private static String format(double ops) {
+		return (ops < 0 ? "-" : String.format("%.0f", ops));
+	}
+
+	private void save(File f) throws IOException {
+		Properties p = new Properties();
+		for (Map.Entry<String, double[]> e : htResults.entrySet()) {
+			double[] r = e.getValue();
+			if (r[0] >= 0)
+				p.setProperty(e.getKey() + ".jvm", format(r[0]));
+			if (r[1] >= 0)
+				p.setProperty(e.getKey() + ".js", format(r[1]));
+		}
+		try (FileOutputStream os = new FileOutputStream(f)) {
+			p.store(os, "J2S benchmark results for " + mainClass + ": ops/sec");
+		}
+		System.out.println("J2S writing " + f);
+	}
+
+	/**
+	 *
+	 * @param f
+	 * @param threshold percent
+	 * @return the number of regressions
+	 * @throws IOException
+	 */
+	private int compare(File f, double threshold) throws IOException {
+		if (!f.exists()) {
+			System.out.println("J2S no baseline " + f);
+			return 0;
+		}
+		Properties p = new Properties();
+		try (FileInputStream is = new FileInputStream(f)) {
+			p.load(is);
+		}
+		System.out.println();
+		System.out.println("J2S compared with " + f);
+		int nRegressions = 0;
+		for (Map.Entry<String, double[]> e : htResults.entrySet()) {
+			double[] r = e.getValue();
+			for (int side = 0; side < 2; side++) {
+				String key = e.getKey() + (side == 0 ? ".jvm" : ".js");
+				String old = p.getProperty(key);
+				if (old == null || r[side] < 0)
+					continue;
+				double was = Double.parseDouble(old);
+				double change = (was == 0 ? 0 : (r[side] - was) * 100 / was);
+				boolean isRegression = (change < -threshold);
+				if (isRegression)
+					nRegressions++;
+				System.out.println(String.format("%-24s %15s -> %15s %+7.1f%%%s", key, old, format(r[side]), change,
+						isRegression ? " REGRESSION" : ""));
+			}
+		}
+		return nRegressions;
+	}
+
+}
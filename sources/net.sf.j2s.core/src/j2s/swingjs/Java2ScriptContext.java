@@ -0,0 +1,238 @@
+package j2s.swingjs;
+
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Settings and caches shared by all Java2ScriptVisitors of one build.
+ *
+ * Created by Java2ScriptSwingJSCompiler.initializeProject from the .j2s
+ * options and handed to every visitor, including the temporary visitors used
+ * for inner classes. Nothing here is static, so visitors for different files
+ * (or different projects) can run at the same time without sharing state, and
+ * nothing carries over from one build to the next.
+ *
+ * Once the build has started, only htStringLiteralCache and the method logs
+ * are written to, and those are synchronized.
+ *
+ */
+public class Java2ScriptContext {
+
+	/**
+	 * includes @j2sDebug blocks; from j2s.compiler.mode=debug in .j2s
+	 *
+	 */
+	boolean isDebugging;
+
+	boolean exactLong = true;
+
+	/**
+	 * exact longs are number or BigInt, not number or [r,m,s]; from
+	 * j2s.compiler.long=bigint in .j2s
+	 *
+	 */
+	boolean bigIntLong;
+
+	boolean allowAsyncThread;
+
+	/**
+	 * drop if and ?: branches that static final constants rule out, and private
+	 * methods that are then never called; from j2s.compiler.fold.constants in
+	 * .j2s (default true)
+	 *
+	 */
+	boolean foldConstants = true;
+
+	/**
+	 * list of annotations to ignore or null to ignore ALL
+	 *
+	 */
+	String ignoredAnnotations = ";" + Java2ScriptSwingJSCompiler.J2S_COMPILER_IGNORED_ANNOTATIONS_DEFAULT + ";";
+
+	List<String> lstMethodsDeclared;
+	Map<String, String> htMethodsCalled;
+	boolean logAllCalls;
+
+	final Map<String, String> htStringLiteralCache = new Hashtable<>();
+
+	private Map<String, String> htClassReplacements;
+	private List<String> lstPackageReplacements;
+
+	private String[] nonQualifiedPackages;
+
+	public Java2ScriptContext() {
+		setNonQualifiedNamePackages(null);
+	}
+
+	public Java2ScriptContext setDebugging(boolean isDebugging) {
+		this.isDebugging = isDebugging;
+		return this;
+	}
+
+	public Java2ScriptContext setExactLong(boolean doHandle) {
+		exactLong = doHandle;
+		return this;
+	}
+
+	public Java2ScriptContext setBigIntLong(boolean tf) {
+		bigIntLong = tf;
+		return this;
+	}
+
+	public Java2ScriptContext setFoldConstants(boolean tf) {
+		foldConstants = tf;
+		return this;
+	}
+
+	public Java2ScriptContext setAllowAsyncThread(boolean tf) {
+		allowAsyncThread = tf;
+		return this;
+	}
+
+	public Java2ScriptContext setAnnotating(String ignoredAnnotations) {
+		this.ignoredAnnotations = (ignoredAnnotations == null ? null : ";" + ignoredAnnotations + ";");
+		return this;
+	}
+
+	public Java2ScriptContext setLogging(List<String> lstMethodsDeclared, Map<String, String> htMethodsCalled,
+			boolean logAllCalls) {
+		this.lstMethodsDeclared = lstMethodsDeclared;
+		this.htMethodsCalled = htMethodsCalled;
+		this.logAllCalls = logAllCalls;
+		if (lstMethodsDeclared != null)
+			lstMethodsDeclared.clear();
+		if (logAllCalls)
+			htMethodsCalled.clear();
+		return this;
+	}
+
+	/**
+	 * .j2s option j2s.class.replacements
+	 *
+	 * @param keyValues semicolon-separated list of from->to pairs, for example
+	 *                  org.apache.log4j.->jalview.javascript.log4j.
+	 */
+	public Java2ScriptContext setClassReplacements(String keyValues) {
+		htClassReplacements = null;
+		lstPackageReplacements = null;
+		if (keyValues == null)
+			return this;
+		htClassReplacements = new Hashtable<String, String>();
+		lstPackageReplacements = new ArrayList<String>();
+		String[] pairs = keyValues.split(";");
+		for (int i = pairs.length; --i >= 0;) {
+			pairs[i] = pairs[i].trim();
+			if (pairs[i].length() == 0)
+				continue;
+			String[] kv = pairs[i].split("->");
+			htClassReplacements.put(kv[0], kv[1]);
+			if (kv[0].endsWith("."))
+				lstPackageReplacements.add(kv[0]);
+			Java2ScriptVisitor.log("class replacement " + kv[0] + " --> " + kv[1]);
+		}
+		return this;
+	}
+
+	String checkClassReplacement(String className) {
+		if (htClassReplacements != null) {
+			String rep = htClassReplacements.get(className);
+			if (rep == null && lstPackageReplacements != null) {
+				for (int i = lstPackageReplacements.size(); --i >= 0;) {
+					rep = lstPackageReplacements.get(i);
+					if (className.startsWith(rep)) {
+						rep = htClassReplacements.get(rep) + className.substring(rep.length());
+						break;
+					}
+					if (i == 0)
+						rep = null;
+				}
+
+			}
+			if (rep != null) {
+				Java2ScriptVisitor.log(className + " -> " + rep);
+				return rep;
+			}
+		}
+		return className;
+	}
+
+	/**
+	 * classes and packages that do not accept $ in their method names
+	 *
+	 */
+	private final static String defaultNonQualified
+	// Math and Date both are minor extensions
+	// of JavaScript, so they are not qualified
+			= // "java.lang.Math;" +
+				// MAYBE NOT! + "java.util.Date;"
+				// swingjs.api.js and javajs.api.js contain
+				// interfaces to JavaScript methods and so
+				// are not parameterized.
+
+			"*.api.js;"
+	// netscape.JSObject interface includes 8 methods
+	// that do not need to be parameterized.
+	// + "netscape.*;"
+	;
+
+	/**
+	 * .j2s option j2s.compiler.nonqualified.packages/classes
+	 *
+	 * @param names semicolon-separated list. For example,
+	 *              org.jmol.api.js;jspecview.api.js
+	 */
+	public Java2ScriptContext setNonQualifiedNamePackages(String names) {
+		names = defaultNonQualified + (names == null ? "" : names);
+		nonQualifiedPackages = names.replace(";;", ";").trim().split(";");
+		for (int i = nonQualifiedPackages.length; --i >= 0;) {
+			String s = nonQualifiedPackages[i];
+			if (s.length() == 0)
+				continue;
+			if (s.startsWith("*."))
+				s = s.substring(1);
+			if (s.endsWith("."))
+				s = s.substring(0, s.length() - 1);
+			nonQualifiedPackages[i] = (s.endsWith("*") ? s.substring(0, s.length() - 1) : s + ".").trim();
+		}
+		return this;
+	}
+
+	/**
+	 * Check to see if this class is in a package for which we exclude parameter
+	 * qualification
+	 *
+	 * @param className
+	 * @return
+	 */
+	boolean isPackageOrClassNonqualified(String className) {
+		if (className.indexOf("$") >= 0)
+			return false; // inner class
+		className += ".";
+		for (int i = nonQualifiedPackages.length; --i >= 0;) {
+			String s = nonQualifiedPackages[i];
+			if (s.length() > 0 && s.startsWith(".") ? className.contains(s) : className.startsWith(s)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	boolean isMethodNonqualified(String className, String methodName, String key) {
+		if (className.equals("java.lang.Math")) {
+			switch (methodName) {
+			case "ulp":
+			case "nextDown":
+			case "nextUp":
+			case "nextAfter":
+			case "getExponent":
+				return false;
+			default:
+				return (key.indexOf("J") < 0);
+			}
+		}
+		return (isPackageOrClassNonqualified(className));
+	}
+
+}
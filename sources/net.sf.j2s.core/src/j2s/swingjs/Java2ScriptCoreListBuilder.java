@@ -0,0 +1,240 @@
+package j2s.swingjs;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds core file lists for build-SwingJS-site.xml call-core from class load
+ * traces recorded in real sessions, in place of a hand-maintained
+ * _j2sclasslist.txt.
+ *
+ * A trace is the text of Clazz.getClassTrace() from a page run with Info.core
+ * = "NONE" (so that every class is loaded individually and recorded): one
+ * class file per line, in load order, with "#tier" wherever a new tier began.
+ * The first mark is made when the application reports that it is ready.
+ * Sorted lists from the older Clazz.ClassFilesLoaded.sort() also work, but
+ * then there is no order or tier information.
+ *
+ * Classes are ordered by tier (the earliest tier in any trace) and then by
+ * their average relative position in the traces. With -tiers, startup classes
+ * go to _j2sclasslist_[name].txt and the rest to _j2sclasslist_[name]2.txt,
+ * and the startup list ends with core/core[name]2.lazy.js, which registers
+ * the second core file so that it is loaded only when first needed.
+ *
+ * Usage:
+ *
+ * java -cp j2s.core.jar j2s.swingjs.Java2ScriptCoreListBuilder -name myapp
+ * [-j2s site/swingjs/j2s] [-out dir] [-min n] [-tiers] trace1.txt trace2.txt
+ * ...
+ *
+ * A directory in place of a trace file means all of the .txt files in it.
+ *
+ * -j2s: classes with no .js file there are dropped, and the .lazy.js file is
+ * written there
+ *
+ * -min: include only classes found in at least n traces (default 1)
+ *
+ * Then, for example, Info.core = "myapp" loads site/swingjs/j2s/core/coremyapp.z.js.
+ *
+ */
+public class Java2ScriptCoreListBuilder {
+
+	private final static String TIER_MARK = "#tier";
+
+	private static class Entry {
+		int tier = Integer.MAX_VALUE;
+		int nTraces;
+		double position;
+	}
+
+	private final Map<String, Entry> htEntries = new LinkedHashMap<>();
+	private int nTraces;
+
+	public static void main(String[] args) {
+		String name = null, j2sDir = null, outDir = ".";
+		int min = 1;
+		boolean tiers = false;
+		List<String> traces = new ArrayList<>();
+		try {
+			for (int i = 0; i < args.length; i++) {
+				switch (args[i]) {
+				case "-name":
+					name = args[++i];
+					break;
+				case "-j2s":
+					j2sDir = args[++i];
+					break;
+				case "-out":
+					outDir = args[++i];
+					break;
+				case "-min":
+					min = Integer.parseInt(args[++i]);
+					break;
+				case "-tiers":
+					tiers = true;
+					break;
+				default:
+					if (args[i].startsWith("-"))
+						throw new IllegalArgumentException(args[i]);
+					traces.add(args[i]);
+				}
+			}
+		} catch (Exception e) {
+			System.err.println("J2S bad argument " + e.getMessage());
+			name = null;
+		}
+		if (tiers && j2sDir == null) {
+			System.err.println("J2S -tiers requires -j2s");
+			name = null;
+		}
+		if (name == null || traces.size() == 0) {
+			System.err.println("Usage: java j2s.swingjs.Java2ScriptCoreListBuilder -name coreName"
+					+ " [-j2s site/swingjs/j2s] [-out dir] [-min n] [-tiers] trace.txt...");
+			System.exit(2);
+		}
+		try {
+			Java2ScriptCoreListBuilder builder = new Java2ScriptCoreListBuilder();
+			for (int i = 0; i < traces.size(); i++) {
+				File f = new File(traces.get(i));
+				File[] files = (f.isDirectory() ? f.listFiles((dir, n) -> n.endsWith(".txt")) : new File[] { f });
+				for (int j = 0; j < files.length; j++)
+					builder.addTrace(new String(Files.readAllBytes(files[j].toPath()), StandardCharsets.UTF_8));
+			}
+			builder.write(name, j2sDir == null ? null : new File(j2sDir), new File(outDir), min, tiers);
+		} catch (IOException e) {
+			System.err.println("J2S " + e);
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Add one trace.
+	 *
+	 * @param trace
+	 */
+	public void addTrace(String trace) {
+		String[] lines = trace.split("\r?\n");
+		List<String> files = new ArrayList<>();
+		List<Integer> fileTiers = new ArrayList<>();
+		int tier = 0;
+		for (int i = 0; i < lines.length; i++) {
+			String line = lines[i].trim();
+			if (line.equals(TIER_MARK)) {
+				tier++;
+				continue;
+			}
+			if (line.length() == 0 || line.startsWith("#"))
+				continue;
+			files.add(toFileName(line));
+			fileTiers.add(Integer.valueOf(tier));
+		}
+		Map<String, Boolean> seen = new HashMap<>();
+		int n = files.size();
+		for (int i = 0; i < n; i++) {
+			String f = files.get(i);
+			if (seen.put(f, Boolean.TRUE) != null)
+				continue;
+			Entry e = htEntries.get(f);
+			if (e == null)
+				htEntries.put(f, e = new Entry());
+			e.tier = Math.min(e.tier, fileTiers.get(i).intValue());
+			e.position += (double) i / n;
+			e.nTraces++;
+		}
+		nTraces++;
+	}
+
+	/**
+	 * java.util.Map, java/util/Map, or java/util/Map.js to java/util/Map.js
+	 *
+	 * @param line
+	 * @return
+	 */
+	private static String toFileName(String line) {
+		if (line.endsWith(".js"))
+			line = line.substring(0, line.length() - 3);
+		return line.replace('.', '/') + ".js";
+	}
+
+	/**
+	 *
+	 * @param min
+	 * @param j2sDir
+	 * @return {startup, later} class files found in at least min traces, each
+	 *         ordered by tier and then average position
+	 */
+	private List<List<String>> getOrderedLists(int min, File j2sDir) {
+		List<Map.Entry<String, Entry>> list = new ArrayList<>();
+		for (Map.Entry<String, Entry> e : htEntries.entrySet()) {
+			if (e.getValue().nTraces < min)
+				continue;
+			if (j2sDir != null && !new File(j2sDir, e.getKey()).exists()) {
+				System.out.println("J2S no such class file " + e.getKey());
+				continue;
+			}
+			list.add(e);
+		}
+		list.sort((a, b) -> {
+			Entry ea = a.getValue(), eb = b.getValue();
+			return (ea.tier != eb.tier ? Integer.compare(ea.tier, eb.tier)
+					: Double.compare(ea.position / ea.nTraces, eb.position / eb.nTraces));
+		});
+		List<List<String>> tiers = new ArrayList<>();
+		tiers.add(new ArrayList<String>());
+		tiers.add(new ArrayList<String>());
+		for (int i = 0; i < list.size(); i++)
+			tiers.get(list.get(i).getValue().tier == 0 ? 0 : 1).add(list.get(i).getKey());
+		return tiers;
+	}
+
+	/**
+	 * Write _j2sclasslist_[name].txt and, if split, _j2sclasslist_[name]2.txt.
+	 *
+	 * @param name
+	 * @param j2sDir site/swingjs/j2s, or null if not splitting
+	 * @param outDir
+	 * @param min    minimum number of traces a class must appear in
+	 * @param split  separate startup and later classes
+	 * @throws IOException
+	 */
+	public void write(String name, File j2sDir, File outDir, int min, boolean split) throws IOException {
+		List<List<String>> tiers = getOrderedLists(min, j2sDir);
+		List<String> startup = tiers.get(0);
+		List<String> later = tiers.get(1);
+		if (!split || j2sDir == null) {
+			startup.addAll(later);
+			later.clear();
+		}
+		if (later.size() > 0) {
+			String lazyFile = "core/core" + name + "2.lazy.js";
+			StringBuilder sb = new StringBuilder("Clazz._registerLazyCore(\"" + name + "2\",[");
+			for (int i = 0; i < later.size(); i++) {
+				String f = later.get(i);
+				sb.append(i == 0 ? "\n\"" : ",\n\"").append(f.substring(0, f.length() - 3).replace('/', '.'))
+						.append("\"");
+			}
+			sb.append("]);\n");
+			File f = new File(j2sDir, lazyFile);
+			f.getParentFile().mkdirs();
+			Files.write(f.toPath(), sb.toString().getBytes(StandardCharsets.UTF_8));
+			startup.add(lazyFile);
+			writeList(new File(outDir, "_j2sclasslist_" + name + "2.txt"), later);
+		}
+		writeList(new File(outDir, "_j2sclasslist_" + name + ".txt"), startup);
+		System.out.println("J2S core " + name + " from " + nTraces + " trace" + (nTraces == 1 ? "" : "s") + ": "
+				+ startup.size() + " startup and " + later.size() + " later class files");
+	}
+
+	private static void writeList(File f, List<String> list) throws IOException {
+		Files.write(f.toPath(), (String.join("\n", list) + "\n").getBytes(StandardCharsets.UTF_8));
+		System.out.println("J2S writing " + f);
+	}
+
+}
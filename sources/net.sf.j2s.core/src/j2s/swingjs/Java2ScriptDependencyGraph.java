@@ -0,0 +1,334 @@
+package j2s.swingjs;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
+import org.eclipse.jdt.core.dom.AnonymousClassDeclaration;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.Expression;
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.IVariableBinding;
+import org.eclipse.jdt.core.dom.LambdaExpression;
+import org.eclipse.jdt.core.dom.MethodReference;
+import org.eclipse.jdt.core.dom.SimpleName;
+
+/**
+ * Which source files must be transpiled again when other source files change,
+ * kept between builds in [site]/.j2s-deps.
+ *
+ * The JavaScript for a class depends on more than Eclipse's structural delta
+ * tracks: constants from other classes are inlined, method names are qualified
+ * by the parameter types declared in other classes, $I$ import tables list the
+ * classes that are loaded, and synthetic bridges and interface $defaults$ depend
+ * on every superclass and superinterface.
+ *
+ * For each transpiled file we record its modification time, the top-level
+ * classes it declares, and the top-level project classes (from source, not jar
+ * files) its JavaScript refers to. Dependencies on inlined constants are marked
+ * with "=", because a change there can pass on through the constants of the
+ * dependent class: if A.X = B.Y and C uses A.X, a change to B requires C to be
+ * rebuilt, even though A's source has not changed.
+ *
+ * Only the dependency sets are kept in memory; the reverse map is built as
+ * needed. Access to the entries is synchronized, as files are added from all
+ * transpiling threads.
+ *
+ */
+class Java2ScriptDependencyGraph {
+
+	final static String DEPENDENCY_FILE = ".j2s-deps";
+
+	private final File graphFile;
+	private final String projectPath;
+
+	/**
+	 * project-relative source path to {modified, declared classes, dependencies}
+	 */
+	private final Map<String, String[]> htEntries = new HashMap<>();
+	private boolean isChanged;
+
+	/**
+	 *
+	 * @param projectFolder
+	 * @param siteFolder
+	 * @param isClean       start empty; everything is about to be transpiled
+	 */
+	Java2ScriptDependencyGraph(String projectFolder, String siteFolder, boolean isClean) {
+		projectPath = new File(projectFolder).getAbsolutePath().replace('\\', '/') + "/";
+		graphFile = new File(siteFolder, DEPENDENCY_FILE);
+		if (isClean || !graphFile.exists())
+			return;
+		Properties p = new Properties();
+		try (FileInputStream is = new FileInputStream(graphFile)) {
+			p.load(is);
+		} catch (IOException e) {
+			System.out.println("J2S could not read " + graphFile + " " + e.getMessage());
+			return;
+		}
+		for (String key : p.stringPropertyNames()) {
+			String[] entry = p.getProperty(key).split("\\|", -1);
+			if (entry.length == 3)
+				htEntries.put(key, entry);
+		}
+	}
+
+	boolean isEmpty() {
+		return htEntries.isEmpty();
+	}
+
+	/**
+	 * Record the dependencies of a file that has just been transpiled.
+	 *
+	 * @param sourceLocation full path to the .java file
+	 * @param root
+	 */
+	void update(String sourceLocation, CompilationUnit root) {
+		Set<String> declared = new TreeSet<>();
+		for (Object type : root.types()) {
+			ITypeBinding binding = ((AbstractTypeDeclaration) type).resolveBinding();
+			if (binding != null)
+				declared.add(binding.getErasure().getQualifiedName());
+		}
+		DependencyCollector collector = new DependencyCollector();
+		root.accept(collector);
+		for (String name : declared)
+			collector.htDependencies.remove(name);
+		StringBuilder sb = new StringBuilder();
+		for (Map.Entry<String, Boolean> e : collector.htDependencies.entrySet())
+			sb.append(sb.length() == 0 ? "" : ",").append(e.getValue().booleanValue() ? "=" : "").append(e.getKey());
+		String[] entry = new String[] { "" + new File(sourceLocation).lastModified(), String.join(",", declared),
+				sb.toString() };
+		synchronized (this) {
+			htEntries.put(getKey(sourceLocation), entry);
+			isChanged = true;
+		}
+	}
+
+	/**
+	 * Forget a file that has been deleted or failed to transpile, so that it is
+	 * considered changed next time.
+	 *
+	 * @param sourceLocation
+	 */
+	synchronized void remove(String sourceLocation) {
+		if (htEntries.remove(getKey(sourceLocation)) != null)
+			isChanged = true;
+	}
+
+	/**
+	 *
+	 * @param sourceLocation
+	 * @return true if this file is not in the graph or has been modified since it
+	 *         was last transpiled
+	 */
+	synchronized boolean isModified(String sourceLocation) {
+		String[] entry = htEntries.get(getKey(sourceLocation));
+		return (entry == null || !entry[0].equals("" + new File(sourceLocation).lastModified()));
+	}
+
+	/**
+	 * Find all files that must be transpiled along with the given changed files.
+	 *
+	 * @param sourceLocations full paths of changed files
+	 * @return full paths of additional files to transpile, not including any of
+	 *         sourceLocations
+	 */
+	synchronized List<String> getDependents(List<String> sourceLocations) {
+		// reverse map: class name to files referring to it
+		Map<String, List<String>> htUsers = new HashMap<>();
+		Map<String, List<String>> htConstantUsers = new HashMap<>();
+		Map<String, String[]> htDeclared = new HashMap<>();
+		for (Map.Entry<String, String[]> e : htEntries.entrySet()) {
+			String[] entry = e.getValue();
+			htDeclared.put(e.getKey(), split(entry[1]));
+			String[] deps = split(entry[2]);
+			for (int i = 0; i < deps.length; i++) {
+				String name = deps[i];
+				boolean isConstant = name.startsWith("=");
+				if (isConstant)
+					name = name.substring(1);
+				(isConstant ? htConstantUsers : htUsers).computeIfAbsent(name, k -> new ArrayList<>()).add(e.getKey());
+			}
+		}
+		Set<String> changed = new LinkedHashSet<>();
+		for (int i = 0; i < sourceLocations.size(); i++)
+			changed.add(getKey(sourceLocations.get(i)));
+		Set<String> dependents = new LinkedHashSet<>();
+		// Files reached by a constant dependency pass the change on; others do not.
+		Set<String> queued = new LinkedHashSet<>(changed);
+		List<String> queue = new ArrayList<>(changed);
+		while (!queue.isEmpty()) {
+			String key = queue.remove(queue.size() - 1);
+			String[] declared = htDeclared.get(key);
+			if (declared == null)
+				continue;
+			for (int i = 0; i < declared.length; i++) {
+				List<String> users = htConstantUsers.get(declared[i]);
+				if (users != null)
+					for (int j = users.size(); --j >= 0;) {
+						String user = users.get(j);
+						if (!changed.contains(user))
+							dependents.add(user);
+						if (queued.add(user))
+							queue.add(user);
+					}
+				users = htUsers.get(declared[i]);
+				if (users != null)
+					for (int j = users.size(); --j >= 0;) {
+						String user = users.get(j);
+						if (!changed.contains(user))
+							dependents.add(user);
+					}
+			}
+		}
+		List<String> list = new ArrayList<>();
+		for (String key : dependents) {
+			File f = new File(key);
+			if (!f.isAbsolute())
+				f = new File(projectPath, key);
+			if (f.exists())
+				list.add(f.getAbsolutePath().replace('\\', '/'));
+			else
+				remove(key);
+		}
+		return list;
+	}
+
+	synchronized void save() {
+		if (!isChanged)
+			return;
+		Properties p = new Properties();
+		for (Map.Entry<String, String[]> e : htEntries.entrySet())
+			p.setProperty(e.getKey(), String.join("|", e.getValue()));
+		try (FileOutputStream os = new FileOutputStream(graphFile)) {
+			p.store(os, "J2S source file: modified|declared classes|classes referenced (= for inlined constants)");
+		} catch (IOException e) {
+			System.out.println("J2S could not write " + graphFile + " " + e.getMessage());
+		}
+		isChanged = false;
+	}
+
+	private String getKey(String sourceLocation) {
+		String path = sourceLocation.replace('\\', '/');
+		return (path.startsWith(projectPath) ? path.substring(projectPath.length()) : path);
+	}
+
+	private static String[] split(String list) {
+		return (list.length() == 0 ? new String[0] : list.split(","));
+	}
+
+	/**
+	 * Collects every top-level project class referred to in a compilation unit:
+	 * types named, declaring classes of fields and methods used, the functional
+	 * interfaces of lambdas and method references, and all ancestors of the
+	 * classes declared here.
+	 *
+	 */
+	private static class DependencyCollector extends ASTVisitor {
+
+		/**
+		 * class name to whether any of its constants are inlined
+		 */
+		final Map<String, Boolean> htDependencies = new HashMap<>();
+
+		@Override
+		public boolean visit(SimpleName node) {
+			IBinding binding = node.resolveBinding();
+			if (binding == null)
+				return false;
+			switch (binding.getKind()) {
+			case IBinding.TYPE:
+				add((ITypeBinding) binding, false);
+				break;
+			case IBinding.VARIABLE:
+				IVariableBinding v = (IVariableBinding) binding;
+				if (v.isField())
+					add(v.getDeclaringClass(), v.getConstantValue() != null);
+				break;
+			case IBinding.METHOD:
+				IMethodBinding m = (IMethodBinding) binding;
+				add(m.getDeclaringClass(), false);
+				ITypeBinding[] params = m.getMethodDeclaration().getParameterTypes();
+				for (int i = 0; i < params.length; i++)
+					add(params[i], false);
+				break;
+			}
+			return false;
+		}
+
+		@Override
+		public boolean visit(AnonymousClassDeclaration node) {
+			addAncestors(node.resolveBinding());
+			return true;
+		}
+
+		@Override
+		public void preVisit(ASTNode node) {
+			// the functional interface of a lambda or any of the four kinds of
+			// method reference
+			if (node instanceof LambdaExpression || node instanceof MethodReference)
+				addAncestors(((Expression) node).resolveTypeBinding());
+		}
+
+		@Override
+		public void endVisit(CompilationUnit node) {
+			for (Object type : node.types())
+				addDeclaredAncestors((AbstractTypeDeclaration) type);
+		}
+
+		private void addDeclaredAncestors(AbstractTypeDeclaration type) {
+			addAncestors(type.resolveBinding());
+			for (Object o : type.bodyDeclarations())
+				if (o instanceof AbstractTypeDeclaration)
+					addDeclaredAncestors((AbstractTypeDeclaration) o);
+		}
+
+		private void addAncestors(ITypeBinding type) {
+			if (type == null)
+				return;
+			add(type, false);
+			addAncestors(type.getSuperclass());
+			ITypeBinding[] interfaces = type.getInterfaces();
+			for (int i = 0; i < interfaces.length; i++)
+				addAncestors(interfaces[i]);
+		}
+
+		private void add(ITypeBinding type, boolean isConstant) {
+			if (type == null)
+				return;
+			if (type.isArray())
+				type = type.getElementType();
+			if (type.isPrimitive() || type.isTypeVariable() || type.isWildcardType() || type.isCapture())
+				return;
+			type = type.getErasure();
+			while (type.getDeclaringClass() != null)
+				type = type.getDeclaringClass();
+			if (!type.isFromSource())
+				return;
+			String name = type.getQualifiedName();
+			if (name.length() == 0)
+				return;
+			// any use of a constant is enough to pass changes on
+			Boolean was = htDependencies.get(name);
+			if (was == null || isConstant && !was.booleanValue())
+				htDependencies.put(name, Boolean.valueOf(isConstant));
+		}
+
+	}
+
+}
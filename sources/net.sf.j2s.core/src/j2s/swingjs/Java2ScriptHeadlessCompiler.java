@@ -0,0 +1,357 @@
+package j2s.swingjs;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.compiler.IProblem;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.FileASTRequestor;
+
+import j2s.CorePlugin;
+
+/**
+ * Runs the SwingJS transpiler outside of Eclipse, using only the JDT core
+ * jars: no workbench, no workspace, and no CompilationParticipant.
+ *
+ * Reads the project's .j2s file just as the plugin does, walks one or more
+ * source directories for .java files, and parses them with
+ * ASTParser.createASTs(String[], ...) against the given classpath. Output goes
+ * to the same j2s.site.directory as an Eclipse build.
+ *
+ * Usage:
+ *
+ * java -cp j2s.core.jar:[jdt core jars] j2s.swingjs.Java2ScriptHeadlessCompiler
+ *
+ * -project dir (required; the directory containing .j2s)
+ *
+ * -src dir[;dir...] (default: [project]/src)
+ *
+ * -cp path[;path...] (jars and class directories for binding resolution)
+ *
+ * -clean (full build; enables method logging. Otherwise only modified files
+ * and the files that depend on them are transpiled.)
+ *
+ * -threads n, -batch n (override j2s.compiler.threads and
+ * j2s.compiler.batch.size)
+ *
+ * -encoding name (of the .java files; default UTF-8, whatever the platform
+ * default is)
+ *
+ * -nojavaruntime (do not put the running JVM's boot classpath ahead of -cp;
+ * needed when -src holds its own java.* classes, as for the SwingJS runtime)
+ *
+ * A file with compile errors is reported and counted as failed, and no
+ * JavaScript is written for it.
+ *
+ * See also Java2ScriptAntTask.
+ *
+ */
+public class Java2ScriptHeadlessCompiler extends Java2ScriptSwingJSCompiler {
+
+	private String[] sourcePath;
+	private String[] classPath;
+	private String encoding = DEFAULT_ENCODING;
+	private boolean includeJavaRuntime = true;
+
+	public final static String DEFAULT_ENCODING = "UTF-8";
+
+	private int nErrors;
+
+	public Java2ScriptHeadlessCompiler(File j2sFile) {
+		super(j2sFile);
+	}
+
+	public static void main(String[] args) {
+		String projectDir = null, src = null, cp = "", encoding = DEFAULT_ENCODING;
+		boolean isClean = false, includeJavaRuntime = true;
+		int threads = -1, batch = -1;
+		try {
+			for (int i = 0; i < args.length; i++) {
+				switch (args[i]) {
+				case "-project":
+					projectDir = args[++i];
+					break;
+				case "-src":
+					src = args[++i];
+					break;
+				case "-cp":
+				case "-classpath":
+					cp = args[++i];
+					break;
+				case "-clean":
+					isClean = true;
+					break;
+				case "-threads":
+					threads = Integer.parseInt(args[++i]);
+					break;
+				case "-batch":
+					batch = Integer.parseInt(args[++i]);
+					break;
+				case "-encoding":
+					encoding = args[++i];
+					break;
+				case "-nojavaruntime":
+					includeJavaRuntime = false;
+					break;
+				default:
+					throw new IllegalArgumentException(args[i]);
+				}
+			}
+		} catch (Exception e) {
+			System.err.println("J2S bad argument " + e.getMessage());
+			projectDir = null;
+		}
+		if (projectDir == null) {
+			System.err.println("Usage: java j2s.swingjs.Java2ScriptHeadlessCompiler -project dir"
+					+ " [-src dir;dir...] [-cp path;path...] [-clean] [-threads n] [-batch n]"
+					+ " [-encoding name] [-nojavaruntime]");
+			System.exit(2);
+		}
+		int nErrors = transpile(projectDir, src, cp, isClean, threads, batch, encoding, includeJavaRuntime);
+		System.exit(nErrors < 0 ? 2 : nErrors > 0 ? 1 : 0);
+	}
+
+	/**
+	 * Transpile a project. Used by main and by Java2ScriptAntTask.
+	 *
+	 * @param projectDir directory containing the .j2s file
+	 * @param src        semicolon- or path-separator-separated source
+	 *                   directories; null for projectDir/src
+	 * @param cp         classpath, separated the same way
+	 * @param isClean
+	 * @param threads    -1 to use j2s.compiler.threads
+	 * @param batch      -1 to use j2s.compiler.batch.size
+	 * @param encoding   of the source files; null for UTF-8
+	 * @param includeJavaRuntime false to resolve java.* only from src and cp
+	 * @return number of files that failed, or -1 if the project is not enabled
+	 */
+	public static int transpile(String projectDir, String src, String cp, boolean isClean, int threads,
+			int batch, String encoding, boolean includeJavaRuntime) {
+		File dir = new File(projectDir).getAbsoluteFile();
+		File j2sFile = new File(dir, J2S_CONFIG_SWINGJS);
+		if (!j2sFile.exists()) {
+			System.err.println("J2S no " + J2S_CONFIG_SWINGJS + " file found in " + dir);
+			return -1;
+		}
+		Java2ScriptHeadlessCompiler compiler = new Java2ScriptHeadlessCompiler(j2sFile);
+		compiler.sourcePath = splitPath(src == null ? new File(dir, "src").getPath() : src, dir);
+		compiler.classPath = splitPath(cp, dir);
+		if (encoding != null)
+			compiler.encoding = encoding;
+		compiler.includeJavaRuntime = includeJavaRuntime;
+		if (!compiler.initializeProject(dir.getPath(), isClean)) {
+			System.out.println("J2S project disabled");
+			return -1;
+		}
+		if (threads >= 0)
+			compiler.setThreadCount(threads);
+		if (batch > 0)
+			compiler.batchSize = batch;
+		long t0 = System.currentTimeMillis();
+		compiler.transpileAll();
+		System.out.println("J2S headless build finished for " + dir + " nerror=" + compiler.nErrors + " threads="
+				+ compiler.nThreads + " batch.size=" + compiler.batchSize + " time="
+				+ (System.currentTimeMillis() - t0) + " ms " + new Date());
+		return compiler.nErrors;
+	}
+
+	private static String[] splitPath(String path, File dir) {
+		if (path == null || path.trim().length() == 0)
+			return new String[0];
+		String[] paths = path.split("[;" + File.pathSeparator + "]");
+		List<String> list = new ArrayList<>();
+		for (int i = 0; i < paths.length; i++) {
+			String p = paths[i].trim();
+			if (p.length() == 0)
+				continue;
+			File f = new File(p);
+			if (!f.isAbsolute())
+				f = new File(dir, p);
+			list.add(f.getAbsolutePath());
+		}
+		return list.toArray(new String[list.size()]);
+	}
+
+	private void transpileAll() {
+		List<String> files = new ArrayList<>();
+		for (int i = 0; i < sourcePath.length; i++)
+			addJavaFiles(new File(sourcePath[i]), files);
+		if (!isCleanBuild && !dependencyGraph.isEmpty())
+			files = getChangedFiles(files);
+		System.out.println("J2S " + CorePlugin.VERSION + " transpiling " + files.size() + " file"
+				+ (files.size() == 1 ? "" : "s") + " from " + String.join(";", sourcePath));
+		List<String[]> batches = new ArrayList<>();
+		for (int i = 0, n = files.size(); i < n; i += batchSize)
+			batches.add(files.subList(i, Math.min(n, i + batchSize)).toArray(new String[0]));
+		if (nThreads <= 1 || batches.size() <= 1) {
+			for (int i = 0; i < batches.size(); i++) {
+				if (transpileBatch(batches.get(i)) && breakOnError)
+					break;
+			}
+		} else {
+			ExecutorService pool = Executors.newFixedThreadPool(Math.min(nThreads, batches.size()));
+			try {
+				List<Future<Boolean>> results = new ArrayList<>();
+				for (int i = 0; i < batches.size(); i++) {
+					String[] batch = batches.get(i);
+					results.add(pool.submit(() -> Boolean.valueOf(transpileBatch(batch))));
+				}
+				for (int i = 0; i < results.size(); i++)
+					results.get(i).get();
+			} catch (Exception e) {
+				logException(e);
+			} finally {
+				pool.shutdown();
+			}
+		}
+		finalizeProject();
+	}
+
+	/**
+	 * Without -clean, only files modified since they were last transpiled, and
+	 * the files that depend on them, are transpiled.
+	 * 
+	 * @param files all source files
+	 * @return the files to transpile, in their original order
+	 */
+	private List<String> getChangedFiles(List<String> files) {
+		List<String> changed = new ArrayList<>();
+		for (int i = 0, n = files.size(); i < n; i++) {
+			if (dependencyGraph.isModified(files.get(i)))
+				changed.add(files.get(i));
+		}
+		Set<String> rebuild = new HashSet<>(changed);
+		rebuild.addAll(dependencyGraph.getDependents(changed));
+		List<String> list = new ArrayList<>();
+		for (int i = 0, n = files.size(); i < n; i++) {
+			if (rebuild.contains(files.get(i)))
+				list.add(files.get(i));
+		}
+		System.out.println("J2S " + changed.size() + " modified file" + (changed.size() == 1 ? "" : "s") + " and "
+				+ (list.size() - changed.size()) + " dependent file" + (list.size() - changed.size() == 1 ? "" : "s"));
+		return list;
+	}
+
+	private void addJavaFiles(File dir, List<String> files) {
+		File[] list = dir.listFiles();
+		if (list == null)
+			return;
+		for (int i = 0; i < list.length; i++) {
+			File f = list[i];
+			String path = f.getAbsolutePath().replace('\\', '/');
+			if (f.isDirectory()) {
+				if (!excludeFile(path + "/"))
+					addJavaFiles(f, files);
+			} else if (path.endsWith(".java") && !excludeFile(path)) {
+				files.add(path);
+			}
+		}
+	}
+
+	/**
+	 * Parse and transpile one batch of files with a single createASTs call.
+	 *
+	 * @param files
+	 * @return true if any file failed
+	 */
+	private boolean transpileBatch(String[] files) {
+		if (breakOnError && nErrors > 0)
+			return true;
+		boolean[] haveError = new boolean[1];
+		ASTParser parser = getASTParser();
+		configureParser(parser);
+		parser.createASTs(files, getEncodings(files.length), new String[0], new FileASTRequestor() {
+			@Override
+			public void acceptAST(String sourceFilePath, CompilationUnit root) {
+				if (haveError[0] && breakOnError)
+					return;
+				String path = sourceFilePath.replace('\\', '/');
+				if (isDebugging)
+					System.out.println("J2S transpiling " + path);
+				boolean ok;
+				try {
+					if (reportErrors(path, root)) {
+						// keep any earlier .js; try again in the next build
+						dependencyGraph.remove(path);
+						ok = false;
+					} else {
+						ok = transpile(path, root);
+					}
+				} catch (Exception e) {
+					logException(e);
+					ok = false;
+				}
+				if (!ok) {
+					System.out.println("J2S Error processing " + path);
+					haveError[0] = true;
+					synchronized (Java2ScriptHeadlessCompiler.this) {
+						nErrors++;
+					}
+				}
+			}
+		}, null);
+		return haveError[0];
+	}
+
+	/**
+	 * Report compile errors. A file with errors still has an AST, and the
+	 * visitor would quietly write broken JavaScript from it: calls to
+	 * unresolved types, or, for a file read in the wrong encoding, garbled
+	 * names. In Eclipse the Problems view shows these; here nothing else would.
+	 * 
+	 * @param path
+	 * @param root
+	 * @return true if root has any errors
+	 */
+	private boolean reportErrors(String path, CompilationUnit root) {
+		boolean haveError = false;
+		IProblem[] problems = root.getProblems();
+		for (int i = 0; i < problems.length; i++) {
+			IProblem p = problems[i];
+			if (p.isError()) {
+				System.out.println("J2S " + path + ":" + p.getSourceLineNumber() + " " + p.getMessage());
+				haveError = true;
+			}
+		}
+		return haveError;
+	}
+
+	/**
+	 * @param n
+	 * @return the source encoding, n times
+	 */
+	private String[] getEncodings(int n) {
+		String[] encodings = new String[n];
+		Arrays.fill(encodings, encoding);
+		return encodings;
+	}
+
+	/**
+	 * ASTParser resets itself after every createAST(s) call, so this must be
+	 * done each time.
+	 *
+	 * @param parser
+	 */
+	private void configureParser(ASTParser parser) {
+		int level = getJavaLanguageLevel();
+		String version = (level <= 8 ? "1." + level : "" + level);
+		Map<String, String> options = JavaCore.getOptions();
+		JavaCore.setComplianceOptions(version, options);
+		parser.setCompilerOptions(options);
+		parser.setKind(ASTParser.K_COMPILATION_UNIT);
+		parser.setEnvironment(classPath, sourcePath, getEncodings(sourcePath.length), includeJavaRuntime);
+		parser.setResolveBindings(true);
+	}
+
+}
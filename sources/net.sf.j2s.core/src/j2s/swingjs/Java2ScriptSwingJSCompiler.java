@@ -3,16 +3,24 @@ package j2s.swingjs;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTRequestor;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 
 import j2s.CorePlugin;
@@ -77,6 +85,20 @@ public class Java2ScriptSwingJSCompiler extends Java2ScriptCompiler {
 	private static final String J2S_CLASS_REPLACEMENTS = "j2s.class.replacements";
 	private static final String J2S_CLASS_REPLACEMENTS_DEFAULT = "<none>";
 
+	/**
+	 * array (default) or bigint; how 64-bit longs beyond +/-2^53 are represented
+	 * in JavaScript
+	 */
+	private static final String J2S_COMPILER_LONG = "j2s.compiler.long";
+	private static final String J2S_COMPILER_LONG_DEFAULT = "array";
+
+	/**
+	 * fold static final constants in if and ?: conditions, dropping dead
+	 * branches and then unused private methods
+	 */
+	private static final String J2S_COMPILER_FOLD_CONSTANTS = "j2s.compiler.fold.constants";
+	private static final String J2S_COMPILER_FOLD_CONSTANTS_DEFAULT = "true";
+
 	/**
 	 * An alternative .j2s config file somewhere else on the system. For example,
 	 * 
@@ -101,6 +123,16 @@ public class Java2ScriptSwingJSCompiler extends Java2ScriptCompiler {
 
 	private boolean allowAsyncThread;
 
+	/**
+	 * settings and caches shared by all visitors of the current build
+	 */
+	private Java2ScriptContext context;
+
+	/**
+	 * which files depend on which classes, from this and earlier builds
+	 */
+	Java2ScriptDependencyGraph dependencyGraph;
+
 	public boolean doBreakOnError() {
 		return breakOnError;
 	}
@@ -109,6 +141,15 @@ public class Java2ScriptSwingJSCompiler extends Java2ScriptCompiler {
 		super(true, f);
 	}
 
+	/**
+	 * Each file gets its own Java2ScriptVisitor, so files can be transpiled on
+	 * several threads at once. See j2s.compiler.threads.
+	 */
+	@Override
+	protected boolean allowsParallelBuild() {
+		return true;
+	}
+
 	/**
 	 * only for CompilationParticipant
 	 * 
@@ -166,8 +207,22 @@ public class Java2ScriptSwingJSCompiler extends Java2ScriptCompiler {
 	 */
 	@SuppressWarnings({ "deprecation" })
 	public boolean initializeProject(IJavaProject project, boolean isCleanBuild) {
-		if (!super.initializeProject(project, isCleanBuild, AST.JLS8))
-			return false;
+		return super.initializeProject(project, isCleanBuild, AST.JLS8) && initializeSwingJS();
+	}
+
+	/**
+	 * from Java2ScriptHeadlessCompiler, with no Eclipse workspace
+	 * 
+	 * @param projectFolder the directory containing .j2s
+	 * @param isCleanBuild
+	 * @return true if this is a j2s project and is enabled
+	 */
+	@SuppressWarnings({ "deprecation" })
+	public boolean initializeProject(String projectFolder, boolean isCleanBuild) {
+		return super.initializeProject(projectFolder, isCleanBuild, AST.JLS8) && initializeSwingJS();
+	}
+
+	private boolean initializeSwingJS() {
 		System.out.println("Swingjs initializeProject " + props);
 		nResources = nSources = nJS = nHTML = 0;
  
@@ -175,6 +230,7 @@ public class Java2ScriptSwingJSCompiler extends Java2ScriptCompiler {
 
 		j2sPath = siteFolder + "/swingjs/j2s";
 		System.out.println("J2S writing to " + j2sPath);
+		dependencyGraph = new Java2ScriptDependencyGraph(projectFolder, siteFolder, isCleanBuild);
 		// method declarations and invocations are only logged
 		// when the designated files are deleted prior to building
 
@@ -182,7 +238,7 @@ public class Java2ScriptSwingJSCompiler extends Java2ScriptCompiler {
 		File file;
 		if (logDeclared != null) {
 			if (!(file = new File(projectFolder, logDeclared)).exists()) {
-				lstMethodsDeclared = new ArrayList<String>();
+				lstMethodsDeclared = Collections.synchronizedList(new ArrayList<String>());
 				System.err.println("logging methods declared to " + file);
 			}
 			logDeclared = projectFolder + "/" + logDeclared;
@@ -217,6 +273,13 @@ public class Java2ScriptSwingJSCompiler extends Java2ScriptCompiler {
 
 		String classReplacements = getProperty(J2S_CLASS_REPLACEMENTS, J2S_CLASS_REPLACEMENTS_DEFAULT);
 
+		boolean bigIntLong = "bigint".equalsIgnoreCase(getProperty(J2S_COMPILER_LONG, J2S_COMPILER_LONG_DEFAULT));
+		if (bigIntLong)
+			System.out.println("J2S using BigInt for long");
+
+		boolean foldConstants = !"false"
+				.equalsIgnoreCase(getProperty(J2S_COMPILER_FOLD_CONSTANTS, J2S_COMPILER_FOLD_CONSTANTS_DEFAULT));
+
 		String htmlTemplateFile = getProperty(J2S_TEMPLATE_HTML, J2S_TEMPLATE_HTML_DEFAULT);
 		if (htmlTemplate == null) {
 			file = new File(projectFolder, htmlTemplateFile);
@@ -229,17 +292,18 @@ public class Java2ScriptSwingJSCompiler extends Java2ScriptCompiler {
 			System.out.println("J2S using HTML template " + file);
 		}
 
-		Java2ScriptVisitor.setAnnotating(ignoredAnnotations);
-		Java2ScriptVisitor.setDebugging(isDebugging);
-		Java2ScriptVisitor.setExactLong(true); // no other option anymore; exactLong is great!
-		Java2ScriptVisitor.setAllowAsyncThread(allowAsyncThread);
-		Java2ScriptVisitor.setLogging(lstMethodsDeclared, htMethodsCalled, logAllCalls);
-
-		Java2ScriptVisitor.NameMapper.setNonQualifiedNamePackages(nonqualifiedPackages);
-		Java2ScriptVisitor.NameMapper.setClassReplacements(classReplacements);
+		// everything the visitors need from .j2s, fresh for each build
 
-		if (isCleanBuild)
-			Java2ScriptVisitor.startCleanBuild();
+		context = new Java2ScriptContext()
+				.setAnnotating(ignoredAnnotations)
+				.setDebugging(isDebugging)
+				.setExactLong(true) // no other option anymore; exactLong is great!
+				.setBigIntLong(bigIntLong)
+				.setFoldConstants(foldConstants)
+				.setAllowAsyncThread(allowAsyncThread)
+				.setLogging(lstMethodsDeclared, htMethodsCalled, logAllCalls)
+				.setNonQualifiedNamePackages(nonqualifiedPackages)
+				.setClassReplacements(classReplacements);
 
 		return true;
 	}
@@ -253,18 +317,89 @@ public class Java2ScriptSwingJSCompiler extends Java2ScriptCompiler {
 	 * @param javaSource
 	 */
 	public boolean compileToJavaScript(IFile javaSource, String trailer) {
-		nSources++;
-		String sourceLocation = javaSource.getLocation().toString();
-		org.eclipse.jdt.core.ICompilationUnit createdUnit = JavaCore.createCompilationUnitFrom(javaSource);
+		ICompilationUnit createdUnit = JavaCore.createCompilationUnitFrom(javaSource);
+		ASTParser astParser = getASTParser();
 		astParser.setSource(createdUnit);
 		// note: next call must come before each createAST call
 		astParser.setResolveBindings(true);
 		CompilationUnit root = (CompilationUnit) astParser.createAST(null);
+		return transpile(javaSource.getLocation().toString(), root);
+	}
+
+	/**
+	 * j2s.compiler.batch.size > 1
+	 * 
+	 * Parse a batch of files with one ASTParser.createASTs call. Bindings for
+	 * the JDK and project types they share are then resolved only once for the
+	 * whole batch rather than once per file. Each AST is transpiled as soon as
+	 * the parser hands it over and is not retained.
+	 * 
+	 * Unlike setSource(ICompilationUnit), createASTs does not pick up the
+	 * project from its units, so the parser must be given the project, and its
+	 * compiler options, explicitly; otherwise JDT has nothing to resolve
+	 * bindings against.
+	 * 
+	 */
+	@Override
+	public int[] compileToJavaScript(IFile[] javaSources, String trailer) {
+		int n = javaSources.length;
+		if (n == 1)
+			return super.compileToJavaScript(javaSources, trailer);
+		int[] results = new int[n];
+		Arrays.fill(results, RESULT_SKIPPED);
+		ICompilationUnit[] units = new ICompilationUnit[n];
+		Map<ICompilationUnit, Integer> htIndex = new HashMap<>();
+		for (int i = 0; i < n; i++) {
+			units[i] = JavaCore.createCompilationUnitFrom(javaSources[i]);
+			htIndex.put(units[i], Integer.valueOf(i));
+		}
+		ASTParser astParser = getASTParser();
+		astParser.setProject(project);
+		astParser.setCompilerOptions(project.getOptions(true));
+		astParser.setResolveBindings(true);
+		astParser.createASTs(units, new String[0], new ASTRequestor() {
+
+			private boolean haveError;
+
+			@Override
+			public void acceptAST(ICompilationUnit source, CompilationUnit root) {
+				Integer index = htIndex.get(source);
+				if (index == null || haveError && breakOnError)
+					return;
+				int i = index.intValue();
+				IFile javaSource = javaSources[i];
+				if (isDebugging)
+					System.out.println("J2S transpiling " + javaSource.getLocation());
+				try {
+					results[i] = (transpile(javaSource.getLocation().toString(), root) ? RESULT_OK : RESULT_ERROR);
+				} catch (Exception e) {
+					results[i] = RESULT_EXCEPTION;
+					logException(e);
+				}
+				haveError |= (results[i] == RESULT_ERROR);
+			}
+
+		}, null);
+		return results;
+	}
+
+	/**
+	 * Run the visitor over a parsed compilation unit and write its .js, .html,
+	 * and resource files.
+	 * 
+	 * @param sourceLocation full path to the .java file, using '/'
+	 * @param root
+	 * @return false if the visitor failed
+	 */
+	protected boolean transpile(String sourceLocation, CompilationUnit root) {
+		synchronized (this) {
+			nSources++;
+		}
 		// If the Java2ScriptVisitor is ever extended, it is important to set the
 		// project.
 		// Java2ScriptVisitor#addClassOrInterface uses
-		// getClass().newInstance().setproject(project).
-		Java2ScriptVisitor visitor = new Java2ScriptVisitor().setProject(project, testing);
+		// getClass().newInstance().setProject(project, testing, context).
+		Java2ScriptVisitor visitor = new Java2ScriptVisitor().setProject(project, testing, context);
 		try {
 
 			// transpile the code
@@ -285,13 +420,15 @@ public class Java2ScriptSwingJSCompiler extends Java2ScriptCompiler {
 			if (packageName != null) {
 				copyAllResources(packageName, sourceLocation);
 			}
+			dependencyGraph.update(sourceLocation, root);
 			return true;
 		} catch (Throwable e) {
 			e.printStackTrace();
 			e.printStackTrace(System.out);
+			dependencyGraph.remove(sourceLocation);
 			// find the file and delete it.
 			String outPath = j2sPath;
-			String rootName = root.getJavaElement().getElementName();
+			String rootName = sourceLocation.substring(sourceLocation.lastIndexOf('/') + 1);
 			rootName = rootName.substring(0, rootName.lastIndexOf('.'));
 			String packageName = visitor.getMyPackageName();
 			if (packageName != null) {
@@ -307,22 +444,53 @@ public class Java2ScriptSwingJSCompiler extends Java2ScriptCompiler {
 		}
 	}
 
+	/**
+	 * Add the files that depend on the files Eclipse is about to build, using
+	 * the dependency graph of earlier builds. Eclipse only rebuilds dependents
+	 * of structural changes; inlined constants, method name qualification, and
+	 * synthetic bridges can change the JavaScript of other files as well.
+	 */
+	@Override
+	protected List<IFile> addDependentFiles(List<IFile> files) {
+		if (isCleanBuild || dependencyGraph.isEmpty() || files.size() == 0)
+			return files;
+		List<String> locations = new ArrayList<>();
+		for (int i = 0, n = files.size(); i < n; i++)
+			locations.add(files.get(i).getLocation().toString());
+		List<String> dependents = dependencyGraph.getDependents(locations);
+		if (dependents.size() == 0)
+			return files;
+		IWorkspaceRoot root = files.get(0).getWorkspace().getRoot();
+		List<IFile> list = new ArrayList<>(files);
+		for (int i = 0, n = dependents.size(); i < n; i++) {
+			IFile f = root.getFileForLocation(new Path(dependents.get(i)));
+			if (f != null && f.exists() && !excludeFile(f.getFullPath().toString()))
+				list.add(f);
+		}
+		int n = list.size() - files.size();
+		System.out.println("J2S adding " + n + " dependent file" + Java2ScriptCompilationParticipant.plural(n));
+		return list;
+	}
+
 	//// private methods ////
 
-	private void logMethods(String logCalled, String logDeclared, boolean doAppend) {
+	private synchronized void logMethods(String logCalled, String logDeclared, boolean doAppend) {
 		if (htMethodsCalled != null)
 			try {
 				File file = new File(logCalled);
 				file.createNewFile();
 				FileOutputStream fos = new FileOutputStream(file, doAppend);
-				for (String key : htMethodsCalled.keySet()) {
-					String val = htMethodsCalled.get(key);
-					fos.write(key.getBytes());
-					if (!val.equals("-")) {
-						fos.write(',');
-						fos.write(val.getBytes());
+				// other transpiling threads may be adding to this Hashtable
+				synchronized (htMethodsCalled) {
+					for (String key : htMethodsCalled.keySet()) {
+						String val = htMethodsCalled.get(key);
+						fos.write(key.getBytes());
+						if (!val.equals("-")) {
+							fos.write(',');
+							fos.write(val.getBytes());
+						}
+						fos.write('\n');
 					}
-					fos.write('\n');
 				}
 				fos.close();
 			} catch (Exception e) {
@@ -333,9 +501,11 @@ public class Java2ScriptSwingJSCompiler extends Java2ScriptCompiler {
 				File file = new File(logDeclared);
 				file.createNewFile();
 				FileOutputStream fos = new FileOutputStream(file, true);
-				for (int i = 0, n = lstMethodsDeclared.size(); i < n; i++) {
-					fos.write(lstMethodsDeclared.get(i).getBytes());
-					fos.write('\n');
+				synchronized (lstMethodsDeclared) {
+					for (int i = 0, n = lstMethodsDeclared.size(); i < n; i++) {
+						fos.write(lstMethodsDeclared.get(i).getBytes());
+						fos.write('\n');
+					}
 				}
 				fos.close();
 			} catch (Exception e) {
@@ -401,7 +571,24 @@ public class Java2ScriptSwingJSCompiler extends Java2ScriptCompiler {
 				+ "# a System.property of your choice that points to an alternative .j2s configuration file\n"
 				+ "# that can be used in place of this .j2s file for ALL configuration settings.\n"
 				+ "# This look-up can be iterated at most 5 times.\n"
-				+ "#j2s.config.altfileproperty=j2s.config.filename\n";
+				+ "#j2s.config.altfileproperty=j2s.config.filename\n\n"
+				+ "# number of threads used to transpile files; 1 (default) is serial; 0 or auto\n"
+				+ "# uses one thread per processor. Output is the same either way.\n"
+				+ "#j2s.compiler.threads=" + J2S_COMPILER_THREADS_DEFAULT + "\n\n"
+				+ "# number of files parsed together so that they share resolved bindings; faster\n"
+				+ "# for large builds, at the cost of memory. 1 (default) parses each file alone.\n"
+				+ "#j2s.compiler.batch.size=" + J2S_COMPILER_BATCH_SIZE_DEFAULT + "\n\n"
+				+ "# content hashes of site files are kept in site/.j2s-manifest so that unchanged .js,\n"
+				+ "# .html, and resource files are not rewritten. Set false to always write them.\n"
+				+ "#j2s.output.manifest=" + J2S_OUTPUT_MANIFEST_DEFAULT + "\n\n"
+				+ "# how longs beyond +/-2^53 are held in JavaScript: array (default) or bigint, which\n"
+				+ "# uses the browser's BigInt and is faster for hashes and random number generators.\n"
+				+ "# Either works with the other in the same page.\n"
+				+ "#j2s.compiler.long=" + J2S_COMPILER_LONG_DEFAULT + "\n\n"
+				+ "# drop if and ?: branches ruled out by static final constants (if (DEBUG) {...}),\n"
+				+ "# and private methods that are then never called. The savings are logged per class.\n"
+				+ "# Branches holding @j2sNative and similar blocks are always kept.\n"
+				+ "#j2s.compiler.fold.constants=" + J2S_COMPILER_FOLD_CONSTANTS_DEFAULT + "\n";
 	}
 
 	/**
@@ -421,9 +608,10 @@ public class Java2ScriptSwingJSCompiler extends Java2ScriptCompiler {
 				+ "	j2sPath: 'swingjs/j2s',\n" + "	console:'sysoutdiv',\n" + "	allowjavascript: true\n" + "}\n"
 				+ "</script>\n" + "</head>\n" + "<body>\n" + "<script>\n" + "SwingJS.getApplet('testApplet', Info)\n"
 				+ "getClassList = function(){J2S._saveFile('_j2sclasslist.txt', Clazz.ClassFilesLoaded.sort().join('\\n'))}\n"
+				+ "getClassTrace = function(){J2S._saveFile('_j2sclasstrace.txt', Clazz.getClassTrace())}\n"
 				+ "</script>\n" + "<div style=\"position:absolute;left:900px;top:30px;width:600px;height:300px;\">\n"
 				+ "<div spellcheck=\"false\" id=\"sysoutdiv\" contentEditable=\"true\" style=\"border:1px solid green;width:100%;height:95%;overflow:auto\"></div>\n"
-				+ "This is System.out. <a href=\"javascript:testApplet._clearConsole()\">clear it</a>  <a href='javascript:J2S.getProfile()'>start/stop profiling</a><br>see <a href=___j2sflags.htm>___j2sflags.htm</a> for SwingJS URL command-line options<br><a href=\"javascript:getClassList()\">get _j2sClassList.txt</a>\n"
+				+ "This is System.out. <a href=\"javascript:testApplet._clearConsole()\">clear it</a>  <a href='javascript:J2S.getProfile()'>start/stop profiling</a><br>see <a href=___j2sflags.htm>___j2sflags.htm</a> for SwingJS URL command-line options<br><a href=\"javascript:getClassList()\">get _j2sClassList.txt</a>  <a href=\"javascript:getClassTrace()\">get _j2sclasstrace.txt</a>\n"
 				+ "</div>\n" + "</body>\n" + "</html>\n";
 	}
 
@@ -436,7 +624,7 @@ public class Java2ScriptSwingJSCompiler extends Java2ScriptCompiler {
 	 * @param template
 	 * @param isApplet
 	 */
-	private void addHTML(ArrayList<String> appList, String siteFolder, String template, boolean isApplet) {
+	private synchronized void addHTML(ArrayList<String> appList, String siteFolder, String template, boolean isApplet) {
 		if (appList == null || template == null)
 			return;
 		for (int i = appList.size(); --i >= 0;) {
@@ -448,7 +636,7 @@ public class Java2ScriptSwingJSCompiler extends Java2ScriptCompiler {
 			String _CODE_ = (isApplet ? cl : "null");
 			template = template.replace("_NAME_", _NAME_).replace("_CODE_", _CODE_).replace("_MAIN_", _MAIN_);
 			System.out.println("J2S creating " + siteFolder + "/" + fname);
-			writeToFile(new File(siteFolder, fname), template);
+			writeOutputFile(new File(siteFolder, fname), template, null);
 			nHTML++;
 		}
 	}
@@ -460,6 +648,8 @@ public class Java2ScriptSwingJSCompiler extends Java2ScriptCompiler {
 						+ ", created " + nJS + " .js file" + Java2ScriptCompilationParticipant.plural(nJS) + " and "
 						+ nHTML + " .html file" + Java2ScriptCompilationParticipant.plural(nHTML) + ", copied "
 						+ nResources + " resource" + Java2ScriptCompilationParticipant.plural(nResources));
+		dependencyGraph.save();
+		finalizeOutput();
 	}
 
 }
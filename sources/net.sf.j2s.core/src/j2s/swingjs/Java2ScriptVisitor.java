@@ -12,11 +12,13 @@ package j2s.swingjs;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -254,57 +256,17 @@ public class Java2ScriptVisitor extends ASTVisitor {
 
 	static final int NOT_JAXB = 0x10;
 
-	static Map<String, String> htClassReplacements;
-	static List<String> lstPackageReplacements;
-
-	private static List<String> global_lstMethodsDeclared;
-	private static Map<String, String> global_htMethodsCalled;
-	private static boolean global_logAllCalls;
-
-	private static Map<String, String> htStringLiteralCache = new Hashtable<>();
-
 	/**
-	 * includes @j2sDebug blocks; from j2s.compiler.mode=debug in .j2s
-	 * 
+	 * per-build settings and caches; see Java2ScriptContext
 	 */
-	static boolean global_j2sFlag_isDebugging = false;
-
-	/**
-	 * list of annotations to ignore or null to ignore ALL
-	 * 
-	 */
-	private static String global_ignoredAnnotations = Java2ScriptSwingJSCompiler.J2S_COMPILER_IGNORED_ANNOTATIONS_DEFAULT;
-
-	public static void setDebugging(boolean isDebugging) {
-		global_j2sFlag_isDebugging = isDebugging;
-	}
-
-	static boolean global_j2sFlag_exact_long = true;
+	private Java2ScriptContext global_context;
 
 	public boolean isLongExact() {
-		return !class_noLongExact && global_j2sFlag_exact_long;
-	}
-
-	public static void setExactLong(boolean doHandle) {
-		global_j2sFlag_exact_long = doHandle;
+		return !class_noLongExact && global_context.exactLong;
 	}
 
-	static boolean global_j2sFlag_allow_async_thread = true;
-
 	public boolean allowAsyncThread() {
-		return global_j2sFlag_allow_async_thread;
-	}
-
-	public static void setAllowAsyncThread(boolean tf) {
-		global_j2sFlag_allow_async_thread = tf;
-	}
-
-	public static void setAnnotating(String ignoredAnnotations) {
-		global_ignoredAnnotations = (ignoredAnnotations == null ? null : ";" + ignoredAnnotations + ";");
-	}
-
-	public static void startCleanBuild() {
-		htStringLiteralCache = new Hashtable<>();
+		return global_context.allowAsyncThread;
 	}
 
 	/**
@@ -355,7 +317,17 @@ public class Java2ScriptVisitor extends ASTVisitor {
 	 */
 	private Map<IVariableBinding, String> package_htFinalVarToJ2sName = new Hashtable<>();
 	private Map<String, Set<IVariableBinding>> package_htClassKeyToVisitedFinalVars = new Hashtable<>();
-	private Set<IVariableBinding> class_visitedFinalVars = new HashSet<IVariableBinding>();
+
+	/**
+	 * constant folding: sorted start positions of the @j2s javadocs and their
+	 * text, and the keys of the private methods that may be called; null if not
+	 * folding
+	 * 
+	 */
+	private int[] package_j2sDocPositions;
+	private String package_j2sDocText = "";
+	private Set<String> package_livePrivateMethods;
+	private Set<IVariableBinding> class_visitedFinalVars = new LinkedHashSet<IVariableBinding>();
 
 	/**
 	 * a flag to indicate that the expression being evaluated is an ArrayAccess type
@@ -372,6 +344,12 @@ public class Java2ScriptVisitor extends ASTVisitor {
 	private boolean class_isAnonymousOrLocal;
 	private boolean class_noLongExact;
 
+	/**
+	 * constant folding counts, reported and cleared at the end of each named
+	 * class
+	 */
+	private int class_nFolded, class_nMethodsDropped, class_nBytesDropped;
+
 	/**
 	 * default constructor found by visit(MethodDeclaration)
 	 */
@@ -398,12 +376,17 @@ public class Java2ScriptVisitor extends ASTVisitor {
 		package_includes = parent.package_includes;
 		package_haveStaticArgsReversal = parent.package_haveStaticArgsReversal;
 		package_mapBlockJavadoc = parent.package_mapBlockJavadoc;
+		package_privateVars = parent.package_privateVars;
 
 		// final and effectively final references
 
 		package_htFinalVarToJ2sName = parent.package_htFinalVarToJ2sName;
 		package_htClassKeyToVisitedFinalVars = parent.package_htClassKeyToVisitedFinalVars;
 		
+		package_j2sDocPositions = parent.package_j2sDocPositions;
+		package_j2sDocText = parent.package_j2sDocText;
+		package_livePrivateMethods = parent.package_livePrivateMethods;
+
 		package_outerFinalKey = parent.package_outerFinalKey;
 
 		// flag for wrapping lambda Class::method syntax with $$ function
@@ -437,9 +420,10 @@ public class Java2ScriptVisitor extends ASTVisitor {
 //		}
 	}
 
-	public Java2ScriptVisitor setProject(IJavaProject project, boolean testing) {
+	public Java2ScriptVisitor setProject(IJavaProject project, boolean testing, Java2ScriptContext context) {
 		this.global_testing = testing;
 		this.global_project = project;
+		this.global_context = context;
 		return this;
 	}
 
@@ -621,6 +605,9 @@ public class Java2ScriptVisitor extends ASTVisitor {
 
 	public boolean visit(CompilationUnit node) {
 		resetPrivateVars();
+		package_j2sDocPositions = (global_context.foldConstants ? new int[0] : null);
+		package_j2sDocText = "";
+		package_livePrivateMethods = null;
 		return true;
 	}
 
@@ -695,7 +682,7 @@ public class Java2ScriptVisitor extends ASTVisitor {
 			if (javadoc != null) {
 				List<Javadoc> list = new ArrayList<Javadoc>();
 				list.add(javadoc);
-				return !NativeDoc.addJ2sJavadocs(buffer, list, false);
+				return !NativeDoc.addJ2sJavadocs(buffer, list, false, global_context.isDebugging);
 			}
 		}
 		return true;
@@ -764,6 +751,7 @@ public class Java2ScriptVisitor extends ASTVisitor {
 		String prefix = null, postfix = null;
 		int pt = -1, pt1 = -1;
 		boolean isDefault = false;
+		boolean useFactory = false;
 		if ("String".equals(finalQualifiedClassName)) {
 			// special treatment for String -- see j2sSwingJS.js
 			buffer.append(" String.instantialize(");
@@ -779,6 +767,7 @@ public class Java2ScriptVisitor extends ASTVisitor {
 			else
 				buffer.append(" new ").append(finalQualifiedClassName).append("(");
 		} else {
+			useFactory = (lambdaArity < 0 && constructorMethodBinding != null && hasNewFactory(javaClass));
 			pt = openNew(javaClass, javaClassName, null, constructorMethodBinding,
 					lambdaArity >= 0 ? METHOD_LAMBDA_C : METHOD_NOTSPECIAL);
 			pt1 = buffer.length();
@@ -802,11 +791,61 @@ public class Java2ScriptVisitor extends ASTVisitor {
 			IMethodBinding constructorMethodDeclaration = (constructorMethodBinding == null ? null
 					: constructorMethodBinding.getMethodDeclaration());
 			addMethodParameterList(arguments, constructorMethodDeclaration, prefix, postfix, METHOD_CONSTRUCTOR);
-			checkStaticParams2(pt, pt1, true);
+			if (!useFactory)
+				checkStaticParams2(pt, pt1, true);
 		}
+		if (useFactory)
+			setNewFactoryCall(pt, pt1);
 		buffer.append(")");
 	}
 
+	/**
+	 * Classes that get a C$.$new$ factory (see appendNewFactory): top-level and
+	 * static nested classes that can be instantiated. Not interfaces, enums,
+	 * abstract, anonymous, local, or inner classes.
+	 * 
+	 * @param b
+	 * @return
+	 */
+	private static boolean hasNewFactory(ITypeBinding b) {
+		b = b.getTypeDeclaration();
+		return b.isClass() && !b.isAnonymous() && !b.isLocal() && (b.isTopLevel() || isStatic(b))
+				&& !Modifier.isAbstract(b.getModifiers());
+	}
+
+	/**
+	 * Change
+	 * 
+	 * Clazz.new_($I$(3,1).c$$I$I,[x,y]
+	 * 
+	 * to
+	 * 
+	 * $I$(3,1).$new$($I$(3,1).c$$I$I,[x,y]
+	 * 
+	 * and Clazz.new_($I$(3,1) to $I$(3,1).$new$(
+	 * 
+	 * There is no need to reverse the arguments as for Clazz.new_, because the
+	 * factory does not initialize the class; it falls back to Clazz.new_ if the
+	 * class still needs initializing, and by then the arguments have been
+	 * evaluated.
+	 * 
+	 * The method invocation has not been closed at this point.
+	 * 
+	 * @param pt  start of the constructor reference
+	 * @param pt1 end of the constructor reference
+	 */
+	private void setNewFactoryCall(int pt, int pt1) {
+		String f = buffer.substring(pt, pt1);
+		String args = buffer.substring(pt1);
+		int ptc = f.lastIndexOf(".c$");
+		if (ptc < 0 && args.length() > 0)
+			return;
+		buffer.setLength(pt - "Clazz.new_(".length());
+		buffer.append(ptc < 0 ? f : f.substring(0, ptc)).append(".$new$(");
+		if (ptc >= 0)
+			buffer.append(f).append(args);
+	}
+
 
 	/**
 	 * 3.2.9.v1c
@@ -1029,7 +1068,9 @@ public class Java2ScriptVisitor extends ASTVisitor {
 		class_isAnonymousOrLocal = true;
 				
 		Set<IVariableBinding> lastVisitedVars = class_visitedFinalVars;
-		Set<IVariableBinding> myVisitedVars = class_visitedFinalVars = new HashSet<>();
+		// in order of first use, so that {a:a,b:b,...} is the same in every build;
+		// bindings hash by identity
+		Set<IVariableBinding> myVisitedVars = class_visitedFinalVars = new LinkedHashSet<>();
 		this.package_currentFinalKey = key;
 		package_htClassKeyToVisitedFinalVars.put(key, myVisitedVars);
 		if (lambdaType != NOT_LAMBDA) {
@@ -1258,6 +1299,17 @@ public class Java2ScriptVisitor extends ASTVisitor {
 	}
 
 	public boolean visit(IfStatement node) {
+		Boolean test = (hasJ2SDoc(node) ? null : getFoldedCondition(node.getExpression()));
+		if (test != null) {
+			Statement live = (test.booleanValue() ? node.getThenStatement() : node.getElseStatement());
+			class_nFolded++;
+			class_nBytesDropped += node.getLength() - (live == null ? 0 : live.getLength());
+			if (live != null)
+				live.accept(this);
+			else if (!(node.getParent() instanceof Block))
+				buffer.append("{}\n");
+			return false;
+		}
 		buffer.append("if (");
 		appendBoxingNode(node.getExpression(), false, null, false, false);
 		buffer.append(") ");
@@ -1475,7 +1527,7 @@ public class Java2ScriptVisitor extends ASTVisitor {
 		boolean isPrivate = isPrivate(mBinding);
 		boolean isPrivateAndNotStatic = isPrivate && !isStatic;
 		String privateVar = (isPrivateAndNotStatic ? getPrivateVar(declaringClass, false) : null);
-		boolean doLogMethodCalled = (!isPrivate && global_htMethodsCalled != null);
+		boolean doLogMethodCalled = (!isPrivate && global_context.htMethodsCalled != null);
 		boolean needBname = (
 				!isStatic 
 				&& (lambdaArity < 0 
@@ -1978,6 +2030,20 @@ public class Java2ScriptVisitor extends ASTVisitor {
 		buffer.append("\nC$.$clinit$=2;\n");
 	}
 
+	/**
+	 * C$.$new$(constructor, [args]) is the allocation fast path for new Foo(...).
+	 * Each class gets its own copy, so that "new C$" is monomorphic. It falls
+	 * back to Clazz.new_ until the class has been initialized, or if
+	 * Clazz._fastNew is false.
+	 * 
+	 * Clazz.newClass adds a default C$.$new$ that just calls Clazz.new_, for
+	 * classes transpiled before this.
+	 */
+	private void appendNewFactory() {
+		buffer.append("C$.$new$=function(c,a){if(C$.$clinit$>0||!Clazz._fastNew)return a?Clazz.new_(c,a):Clazz.new_(C$);"
+				+ "Clazz._newCount++;var o=(a?new C$(a):new C$());a&&c.apply(o,a);return o};\n");
+	}
+
 	/**
 	 * Add Clazz.newInterface(...) or Clazz.newClass(...) for all classes and
 	 * interfaces, including Enum and anonymous.
@@ -2023,7 +2089,7 @@ public class Java2ScriptVisitor extends ASTVisitor {
 
 			Java2ScriptVisitor tempVisitor = null;
 			try {
-				tempVisitor = getClass().newInstance().setProject(global_project, global_testing).setInnerGlobals(this,
+				tempVisitor = getClass().newInstance().setProject(global_project, global_testing, global_context).setInnerGlobals(this,
 						node);
 			} catch (@SuppressWarnings("unused") Exception e) {
 				// impossible
@@ -2075,6 +2141,8 @@ public class Java2ScriptVisitor extends ASTVisitor {
 				if (NativeDoc.hasJ2STag(((TypeDeclaration) node).getJavadoc(), "@j2sNoLongExact"))
 					setNoLongExact(true);
 			}
+			if (package_j2sDocPositions != null && package_livePrivateMethods == null)
+				package_livePrivateMethods = new PrivateMethodScanner().getLiveMethods(node.getRoot());
 		}
 		if (isAnonymous) {
 			oldShortClassName = class_shortName;
@@ -2389,6 +2457,8 @@ public class Java2ScriptVisitor extends ASTVisitor {
 
 			appendClinit();
 		}
+		if (isClass && hasNewFactory(binding))
+			appendNewFactory();
 		if (lstStatic.size() > 0 || isEnum) {
 			// create $static$ (Java's <clinit>)
 
@@ -2480,6 +2550,12 @@ public class Java2ScriptVisitor extends ASTVisitor {
 					IMethodBinding method = mnode.resolveBinding();
 					if (method == null || !checkAnnotations(mnode, CHECK_J2S_IGNORE_AND_ANNOTATIONS))
 						continue;
+					if (package_livePrivateMethods != null && isDroppable(mnode, method)
+							&& !package_livePrivateMethods.contains(method.getMethodDeclaration().getKey())) {
+						class_nMethodsDropped++;
+						class_nBytesDropped += mnode.getLength();
+						continue;
+					}
 					if (methods != null) {
 						String mname = method.getName();
 						if (xml_annotationType == NOT_JAXB || mname.startsWith("set") || mname.startsWith("get")
@@ -2562,6 +2638,9 @@ public class Java2ScriptVisitor extends ASTVisitor {
 
 		lambdaCount = lc;
 
+		if (!isAnonymous)
+			reportFolding();
+
 		return isStatic;
 	}
 
@@ -3376,6 +3455,16 @@ public class Java2ScriptVisitor extends ASTVisitor {
 		Expression expThen = node.getThenExpression();
 		Expression expElse = node.getElseExpression();
 		Expression exp = node.getExpression();
+		Boolean test = (hasJ2SDoc(node) ? null : getFoldedCondition(exp));
+		if (test != null) {
+			Expression live = (test.booleanValue() ? expThen : expElse);
+			class_nFolded++;
+			class_nBytesDropped += node.getLength() - live.getLength();
+			buffer.append("(");
+			addExpressionAsTargetType(live, binding, "e", null);
+			buffer.append(")");
+			return false;
+		}
 		exp.accept(this);
 		if (exp.resolveUnboxing())
 			buffer.append(".booleanValue$()");
@@ -3876,6 +3965,7 @@ public class Java2ScriptVisitor extends ASTVisitor {
 			buffer.append(s);
 		} else {
 			// \1 doesn't work for JavaScript strict mode
+			Map<String, String> htStringLiteralCache = global_context.htStringLiteralCache;
 			String v = htStringLiteralCache.get(s);
 			if (v == null) {
 				htStringLiteralCache.put(s, v = !po0.matcher(s).find() ? s : replaceOctal(s));
@@ -4393,7 +4483,7 @@ public class Java2ScriptVisitor extends ASTVisitor {
 				// or it is not compatible
 				) {
 					String close;
-					if (NameMapper
+					if (global_context
 							.isPackageOrClassNonqualified(methodDeclaration.getDeclaringClass().getQualifiedName())) {
 						// calls to DOMNode.setAttrs(DOMNode node, Object... attr) need not be wrapped
 						// by a Java array type
@@ -4735,6 +4825,7 @@ public class Java2ScriptVisitor extends ASTVisitor {
 	 * 16 to put us over the 64-bit size of a long.
 	 * 
 	 * The idea here is to generate this constant already in its JavaScript form.
+	 * With j2s.compiler.long=bigint, that is a BigInt literal such as (-1234n).
 	 * 
 	 * long modulo 0x10000
 	 * 
@@ -4745,6 +4836,8 @@ public class Java2ScriptVisitor extends ASTVisitor {
 		if (val instanceof Long) {
 			long l = ((Long) val).longValue();
 			if (l > JAVASCRIPT_MAX_LONG || l < -JAVASCRIPT_MAX_LONG) {
+				if (global_context.bigIntLong)
+					return "(" + l + "n)";
 				boolean isNeg = (l < 0);
 				if (isNeg) {
 					l = -l;
@@ -5077,7 +5170,7 @@ public class Java2ScriptVisitor extends ASTVisitor {
 			log("J2S Error: exact long operator not found for " + op);
 			break;
 		}
-		return "Long." + op + "(";
+		return (global_context.bigIntLong ? "Long.$b." : "Long.") + op + "(";
 	}
 
 	/**
@@ -5434,7 +5527,7 @@ public class Java2ScriptVisitor extends ASTVisitor {
 		String[] parts = name.split("\\.");
 		String s = packageName + "." + parts[0];
 		int len = parts.length;
-		String ret = "'" + stripJavaLang(NameMapper.checkClassReplacement(s)) + "'";
+		String ret = "'" + stripJavaLang(global_context.checkClassReplacement(s)) + "'";
 		// add inner classes
 		for (int i = 1; i < len; i++)
 			ret += ",'." + parts[i] + "'";
@@ -5502,7 +5595,7 @@ public class Java2ScriptVisitor extends ASTVisitor {
 				return "C$." + name.substring(myJavaClassName.length() + 1);
 			}
 		}
-		name = stripJavaLang(NameMapper.checkClassReplacement(name));
+		name = stripJavaLang(global_context.checkClassReplacement(name));
 		return ((flags & FINAL_P) == 0 ? name : checkPackageP$Name(name));
 	}
 
@@ -5758,10 +5851,10 @@ public class Java2ScriptVisitor extends ASTVisitor {
 	 * @param className
 	 * @return
 	 */
-	private static String ensureMethod$Name(String j2sName, IMethodBinding mBinding, String className) {
+	private String ensureMethod$Name(String j2sName, IMethodBinding mBinding, String className) {
 		if (isPrivate(mBinding) && !isStatic(mBinding) || NameMapper.fieldNameCoversMethod(j2sName)
 				|| j2sName.indexOf("$", 2) >= 0 || j2sName.equals("c$") || className != null
-						&& NameMapper.isMethodNonqualified(className, mBinding.getName(), mBinding.getKey()))
+						&& global_context.isMethodNonqualified(className, mBinding.getName(), mBinding.getKey()))
 			return j2sName;
 		// c() must be changed to c$$, not c$, which is the constructor
 		return (j2sName.equals("c") ? "c$$" : j2sName + "$");
@@ -5887,7 +5980,7 @@ public class Java2ScriptVisitor extends ASTVisitor {
 		case "java.lang.String":
 			return "S";
 		default:
-			return stripJavaLang(NameMapper.checkClassReplacement(className)).replace('.', '_');
+			return stripJavaLang(global_context.checkClassReplacement(className)).replace('.', '_');
 		}
 	}
 
@@ -6029,6 +6122,236 @@ public class Java2ScriptVisitor extends ASTVisitor {
 		return true;
 	}
 
+	/**
+	 * The value of an if or ?: condition that is known at compile time, such as
+	 * a static final boolean flag, for dropping the branch not taken. Not with
+	 * j2s.compiler.fold.constants=false. The callers also check that there is no
+	 * @j2s javadoc anywhere in the statement or expression, since SwingJS code
+	 * often puts JavaScript-only code in a branch that Java sees as dead.
+	 * 
+	 * @param exp
+	 * @return TRUE, FALSE, or null if not known or not folding
+	 */
+	private Boolean getFoldedCondition(Expression exp) {
+		return (package_j2sDocPositions == null || hasJ2SDoc(exp) ? null : getConstantCondition(exp));
+	}
+
+	/**
+	 * JDT's constant value, or the value of !x, (x), x && y, or x || y where
+	 * that is settled by constants without evaluating anything else, as in
+	 * DEBUG && isOK().
+	 * 
+	 * @param exp
+	 * @return TRUE, FALSE, or null
+	 */
+	private Boolean getConstantCondition(Expression exp) {
+		Object value = getConstant(exp);
+		if (value instanceof Boolean)
+			return (Boolean) value;
+		switch (exp.getNodeType()) {
+		case ASTNode.PARENTHESIZED_EXPRESSION:
+			return getConstantCondition(((ParenthesizedExpression) exp).getExpression());
+		case ASTNode.PREFIX_EXPRESSION:
+			PrefixExpression pe = (PrefixExpression) exp;
+			if (pe.getOperator() != PrefixExpression.Operator.NOT)
+				return null;
+			Boolean b = getConstantCondition(pe.getOperand());
+			return (b == null ? null : Boolean.valueOf(!b.booleanValue()));
+		case ASTNode.INFIX_EXPRESSION:
+			InfixExpression ie = (InfixExpression) exp;
+			boolean isAnd = (ie.getOperator() == InfixExpression.Operator.CONDITIONAL_AND);
+			if (!isAnd && ie.getOperator() != InfixExpression.Operator.CONDITIONAL_OR)
+				return null;
+			List<Expression> operands = new ArrayList<Expression>();
+			operands.add(ie.getLeftOperand());
+			operands.add(ie.getRightOperand());
+			for (Object o : ie.extendedOperands())
+				operands.add((Expression) o);
+			// false && ... or true || ...; anything not constant before that must
+			// still be evaluated
+			for (int i = 0; i < operands.size(); i++) {
+				Boolean v = getConstantCondition(operands.get(i));
+				if (v == null)
+					return null;
+				if (v.booleanValue() != isAnd)
+					return v;
+			}
+			return Boolean.valueOf(isAnd);
+		}
+		return null;
+	}
+
+	/**
+	 * 
+	 * @param node
+	 * @return true if an @j2s javadoc starts within this node
+	 */
+	private boolean hasJ2SDoc(ASTNode node) {
+		int[] a = package_j2sDocPositions;
+		if (a == null || a.length == 0)
+			return false;
+		int start = node.getStartPosition();
+		int i = Arrays.binarySearch(a, start);
+		if (i < 0)
+			i = -i - 1;
+		return (i < a.length && a[i] < start + node.getLength());
+	}
+
+	/**
+	 * A private method, not a constructor, with no annotations or @j2s javadoc,
+	 * and not one that serialization looks for by name, may be left out if
+	 * nothing calls it.
+	 * 
+	 * @param node
+	 * @param method
+	 * @return true if this method may be left out
+	 */
+	private boolean isDroppable(MethodDeclaration node, IMethodBinding method) {
+		if (!Modifier.isPrivate(method.getModifiers()) || node.isConstructor() || method.getAnnotations().length > 0
+				|| hasJ2SDoc(node))
+			return false;
+		switch (method.getName()) {
+		case "readObject":
+		case "writeObject":
+		case "readObjectNoData":
+		case "readResolve":
+		case "writeReplace":
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Log what constant folding left out of the class just finished, if
+	 * anything.
+	 */
+	private void reportFolding() {
+		if (class_nFolded + class_nMethodsDropped == 0)
+			return;
+		log("J2S folded " + class_nFolded + " constant condition(s) and dropped " + class_nMethodsDropped
+				+ " unused private method(s) in " + class_fullName + ", " + class_nBytesDropped
+				+ " bytes of source not transpiled");
+		class_nFolded = class_nMethodsDropped = class_nBytesDropped = 0;
+	}
+
+	/**
+	 * Finds the private methods of a compilation unit that may be called: those
+	 * referenced from code outside any private method, those named in a string
+	 * literal or an @j2s javadoc, and then, in turn, those referenced from any
+	 * of these. References in branches that constant folding drops do not
+	 * count.
+	 * 
+	 */
+	private class PrivateMethodScanner extends ASTVisitor {
+
+		private final Set<String> roots = new HashSet<String>();
+
+		/**
+		 * method references made by each droppable method, by its key
+		 */
+		private final Map<String, Set<String>> refsByMethod = new HashMap<String, Set<String>>();
+
+		private final Map<String, String> namesByMethod = new HashMap<String, String>();
+
+		private final Set<String> literals = new HashSet<String>();
+
+		private Set<String> refs = roots;
+
+		Set<String> getLiveMethods(ASTNode root) {
+			root.accept(this);
+			List<String> todo = new ArrayList<String>(roots);
+			for (Map.Entry<String, String> e : namesByMethod.entrySet()) {
+				String name = e.getValue();
+				if (literals.contains(name) || package_j2sDocText.indexOf(name) >= 0)
+					todo.add(e.getKey());
+			}
+			Set<String> live = new HashSet<String>();
+			while (!todo.isEmpty()) {
+				String key = todo.remove(todo.size() - 1);
+				if (live.add(key) && refsByMethod.containsKey(key))
+					todo.addAll(refsByMethod.get(key));
+			}
+			return live;
+		}
+
+		private void add(IMethodBinding b) {
+			if (b != null)
+				refs.add(b.getMethodDeclaration().getKey());
+		}
+
+		@Override
+		public boolean visit(MethodDeclaration node) {
+			IMethodBinding b = node.resolveBinding();
+			if (b == null || !isDroppable(node, b))
+				return true;
+			String key = b.getMethodDeclaration().getKey();
+			Set<String> old = refs;
+			refsByMethod.put(key, refs = new HashSet<String>());
+			namesByMethod.put(key, b.getName());
+			if (node.getBody() != null)
+				node.getBody().accept(this);
+			refs = old;
+			return false;
+		}
+
+		@Override
+		public boolean visit(IfStatement node) {
+			Boolean test = (hasJ2SDoc(node) ? null : getFoldedCondition(node.getExpression()));
+			if (test == null)
+				return true;
+			Statement live = (test.booleanValue() ? node.getThenStatement() : node.getElseStatement());
+			if (live != null)
+				live.accept(this);
+			return false;
+		}
+
+		@Override
+		public boolean visit(ConditionalExpression node) {
+			Boolean test = (hasJ2SDoc(node) ? null : getFoldedCondition(node.getExpression()));
+			if (test == null)
+				return true;
+			(test.booleanValue() ? node.getThenExpression() : node.getElseExpression()).accept(this);
+			return false;
+		}
+
+		@Override
+		public boolean visit(MethodInvocation node) {
+			add(node.resolveMethodBinding());
+			return true;
+		}
+
+		@Override
+		public boolean visit(SuperMethodInvocation node) {
+			add(node.resolveMethodBinding());
+			return true;
+		}
+
+		@Override
+		public boolean visit(ExpressionMethodReference node) {
+			add(node.resolveMethodBinding());
+			return true;
+		}
+
+		@Override
+		public boolean visit(TypeMethodReference node) {
+			add(node.resolveMethodBinding());
+			return true;
+		}
+
+		@Override
+		public boolean visit(SuperMethodReference node) {
+			add(node.resolveMethodBinding());
+			return true;
+		}
+
+		@Override
+		public boolean visit(StringLiteral node) {
+			literals.add(node.getLiteralValue());
+			return false;
+		}
+
+	}
+
 	private void addString(String str, StringBuffer sb) {
 		int length = str.length();
 		sb.append('"');
@@ -6099,6 +6422,18 @@ public class Java2ScriptVisitor extends ASTVisitor {
 		if (list.isEmpty())
 			return;
 
+		if (package_j2sDocPositions != null) {
+			int[] a = new int[list.size()];
+			StringBuffer sb = new StringBuffer();
+			for (int i = 0; i < a.length; i++) {
+				a[i] = list.get(i).getStartPosition();
+				sb.append(list.get(i)).append('\n');
+			}
+			Arrays.sort(a);
+			package_j2sDocPositions = a;
+			package_j2sDocText = sb.toString();
+		}
+
 		// now add all the associated elements
 
 		try {
@@ -6158,7 +6493,7 @@ public class Java2ScriptVisitor extends ASTVisitor {
 				|| (j2sJavadoc = getJ2sJavadoc(node, DOC_CHECK_ONLY)) == null || node instanceof InfixExpression
 						&& ((InfixExpression) node).getLeftOperand() instanceof ParenthesizedExpression)
 			return false;
-		boolean ret = NativeDoc.addJ2sJavadocs(buffer, j2sJavadoc, node instanceof Block);
+		boolean ret = NativeDoc.addJ2sJavadocs(buffer, j2sJavadoc, node instanceof Block, global_context.isDebugging);
 		j2sJavadoc.clear();
 		return ret;
 	}
@@ -6194,7 +6529,7 @@ public class Java2ScriptVisitor extends ASTVisitor {
 		if (mode == DOC_ADD_POST) {
 			docs = package_mapBlockJavadoc.remove(Integer.valueOf(-1 * node.getStartPosition()));
 			if (docs != null)
-				NativeDoc.addJ2sJavadocs(buffer, docs, false);
+				NativeDoc.addJ2sJavadocs(buffer, docs, false, global_context.isDebugging);
 		} else {
 			docs = package_mapBlockJavadoc.get(Integer.valueOf(node.getStartPosition()));
 		}
@@ -6239,7 +6574,8 @@ public class Java2ScriptVisitor extends ASTVisitor {
 		if (idx >= 0) {
 			return (mode == CHECK_ANNOTATIONS_ONLY || !name.substring(idx).startsWith("J2SIgnore"));
 		}
-		if (global_ignoredAnnotations == null || global_ignoredAnnotations.indexOf(";" + name + ";") >= 0) {
+		String ignoredAnnotations = global_context.ignoredAnnotations;
+		if (ignoredAnnotations == null || ignoredAnnotations.indexOf(";" + name + ";") >= 0) {
 			return true;
 		}
 		String qname = name;
@@ -6283,17 +6619,6 @@ public class Java2ScriptVisitor extends ASTVisitor {
 
 	/////////////////////////////
 
-	public static void setLogging(List<String> lstMethodsDeclared, Map<String, String> htMethodsCalled,
-			boolean logAllCalls) {
-		global_lstMethodsDeclared = lstMethodsDeclared;
-		global_htMethodsCalled = htMethodsCalled;
-		global_logAllCalls = logAllCalls;
-		if (lstMethodsDeclared != null)
-			lstMethodsDeclared.clear();
-		if (logAllCalls)
-			htMethodsCalled.clear();
-	}
-
 	private void logMethodDeclared(String name) {
 		if (name.startsWith("[")) {
 			String[] names = name.substring(0, name.length() - 1).split(",");
@@ -6304,21 +6629,21 @@ public class Java2ScriptVisitor extends ASTVisitor {
 		if (name.startsWith("'"))
 			name = name.substring(1, name.length() - 1);
 		name = fixLogName(class_fullName) + "." + name;
-		if (global_lstMethodsDeclared != null)
-			global_lstMethodsDeclared.add(name);
+		if (global_context.lstMethodsDeclared != null)
+			global_context.lstMethodsDeclared.add(name);
 	}
 
 	private void logMethodCalled(String name) {
 		name = fixLogName(name);
 		String myName = fixLogName(class_fullName);
-		if (global_logAllCalls)
-			global_htMethodsCalled.put(name + "," + myName, "-");
+		if (global_context.logAllCalls)
+			global_context.htMethodsCalled.put(name + "," + myName, "-");
 		else
-			global_htMethodsCalled.put(name, myName);
+			global_context.htMethodsCalled.put(name, myName);
 	}
 
 	private String fixLogName(String name) {
-		name = NameMapper.checkClassReplacement(name);
+		name = global_context.checkClassReplacement(name);
 		int pt = name.indexOf("<");
 		return (pt > 0 ? name.substring(0, pt) : name);
 	}
@@ -6366,7 +6691,7 @@ public class Java2ScriptVisitor extends ASTVisitor {
 		String[] parts = js.split(ELEMENT_KEY + eq);
 		String header = parts[0];
 		String header_noIncludes = header.replace(",I$=[[]]", "");
-		header = header.replace(",I$=[]", privateVarString
+		header = header.replace(",I$=[]", package_privateVars.privateVarString
 				+ (package_includes.length() == 0 ? "" : package_includes.append("]]," + "I$0=I$[0],$I$=function"
 				// 3.2.9-v1e:
 						+ (package_haveStaticArgsReversal[0] ? "(i,n,m){return m?$I$(i)[n].apply(null,m):"
@@ -6574,7 +6899,7 @@ public class Java2ScriptVisitor extends ASTVisitor {
 		String methodName = mBinding.getName();
 		if (j2sName == null)
 			j2sName = methodName;
-		if (NameMapper.isMethodNonqualified(getUnreplacedJavaClassNameQualified(mBinding.getDeclaringClass()),
+		if (global_context.isMethodNonqualified(getUnreplacedJavaClassNameQualified(mBinding.getDeclaringClass()),
 				methodName, mBinding.getKey())) {
 			return j2sName;
 		}
@@ -6665,127 +6990,6 @@ public class Java2ScriptVisitor extends ASTVisitor {
 			return knownClassHash.contains(qualifiedName);
 		}
 
-		public static void setClassReplacements(String keyValues) {
-			// j2s.class.replacements=org.apache.log4j.*:jalview.jslogger.;
-			htClassReplacements = null;
-			if (keyValues == null)
-				return;
-			htClassReplacements = new Hashtable<String, String>();
-			lstPackageReplacements = new ArrayList<String>();
-			String[] pairs = keyValues.split(";");
-			for (int i = pairs.length; --i >= 0;) {
-				pairs[i] = pairs[i].trim();
-				if (pairs[i].length() == 0)
-					continue;
-				String[] kv = pairs[i].split("->");
-				htClassReplacements.put(kv[0], kv[1]);
-				if (kv[0].endsWith("."))
-					lstPackageReplacements.add(kv[0]);
-				log("class replacement " + kv[0] + " --> " + kv[1]);
-			}
-		}
-
-		static String checkClassReplacement(String className) {
-			if (htClassReplacements != null) {
-				String rep = htClassReplacements.get(className);
-				if (rep == null && lstPackageReplacements != null) {
-					for (int i = lstPackageReplacements.size(); --i >= 0;) {
-						rep = lstPackageReplacements.get(i);
-						if (className.startsWith(rep)) {
-							rep = htClassReplacements.get(rep) + className.substring(rep.length());
-							break;
-						}
-						if (i == 0)
-							rep = null;
-					}
-
-				}
-				if (rep != null) {
-					log(className + " -> " + rep);
-					return rep;
-				}
-			}
-			return className;
-		}
-
-		/**
-		 * classes and packages that do not accept $ in their method names
-		 * 
-		 */
-		private final static String defaultNonQualified
-		// Math and Date both are minor extensions
-		// of JavaScript, so they are not qualified
-				= // "java.lang.Math;" +
-					// MAYBE NOT! + "java.util.Date;"
-					// swingjs.api.js and javajs.api.js contain
-					// interfaces to JavaScript methods and so
-					// are not parameterized.
-
-				"*.api.js;"
-		// netscape.JSObject interface includes 8 methods
-		// that do not need to be parameterized.
-		// + "netscape.*;"
-		;
-
-		private static String[] nonQualifiedPackages;
-
-		/**
-		 * .j2s option j2s.compiler.nonqualified.packages/classes
-		 * 
-		 * @param names semicolon-separated list. For example,
-		 *              org.jmol.api.js;jspecview.api.js
-		 */
-		public static void setNonQualifiedNamePackages(String names) {
-			names = defaultNonQualified + (names == null ? "" : names);
-			nonQualifiedPackages = names.replace(";;", ";").trim().split(";");
-			for (int i = nonQualifiedPackages.length; --i >= 0;) {
-				String s = nonQualifiedPackages[i];
-				if (s.length() == 0)
-					continue;
-				if (s.startsWith("*."))
-					s = s.substring(1);
-				if (s.endsWith("."))
-					s = s.substring(0, s.length() - 1);
-				nonQualifiedPackages[i] = (s.endsWith("*") ? s.substring(0, s.length() - 1) : s + ".").trim();
-			}
-		}
-
-		/**
-		 * Check to see if this class is in a package for which we exclude parameter
-		 * qualification
-		 * 
-		 * @param className
-		 * @return
-		 */
-		static boolean isPackageOrClassNonqualified(String className) {
-			if (className.indexOf("$") >= 0)
-				return false; // inner class
-			className += ".";
-			for (int i = nonQualifiedPackages.length; --i >= 0;) {
-				String s = nonQualifiedPackages[i];
-				if (s.length() > 0 && s.startsWith(".") ? className.contains(s) : className.startsWith(s)) {
-					return true;
-				}
-			}
-			return false;
-		}
-
-		static boolean isMethodNonqualified(String className, String methodName, String key) {
-			if (className.equals("java.lang.Math")) {
-				switch (methodName) {
-				case "ulp":
-				case "nextDown":
-				case "nextUp":
-				case "nextAfter":
-				case "getExponent":
-					return false;
-				default:
-					return (key.indexOf("J") < 0);
-				}
-			}
-			return (isPackageOrClassNonqualified(className));
-		}
-
 		/**
 		 * Check for special direct Clazz method calls, avoiding loading the entire
 		 * class.
@@ -6928,8 +7132,6 @@ public class Java2ScriptVisitor extends ASTVisitor {
 		String qname;
 		protected Annotation annotation;
 
-		private static Java2ScriptVisitor visitor;
-
 		protected ClassAnnotation(String qname, Annotation annotation, ASTNode node) {
 			this.annotation = annotation;
 			this.qname = qname;
@@ -6941,7 +7143,6 @@ public class Java2ScriptVisitor extends ASTVisitor {
 				List<ClassAnnotation> class_annotations, List<EnumConstantDeclaration> enums,
 				List<FieldDeclaration> fields, List<IMethodBinding> methods, List<AbstractTypeDeclaration> innerClasses,
 				StringBuffer buf) {
-			ClassAnnotation.visitor = visitor;
 			boolean isPackage = (fields == null && enums == null);
 			int nn = 0, ptBuf = 0, ptBuf1 = 0;
 			ASTNode lastNode = null;
@@ -6953,7 +7154,7 @@ public class Java2ScriptVisitor extends ASTVisitor {
 				ClassAnnotation a = class_annotations.get(i);
 				String str = a.annotation.toString();
 				IAnnotationBinding b = a.annotation.resolveAnnotationBinding();
-				if (b != null && global_j2sFlag_isDebugging)
+				if (b != null && visitor.global_context.isDebugging)
 					log("annotation " + str);
 				// TODO -- make this clearer
 				boolean isXML = str.startsWith("@Xml");
@@ -7068,7 +7269,7 @@ public class Java2ScriptVisitor extends ASTVisitor {
 			if (nn > 0) {
 				addTrailingFragments(fragments, buf, ptBuf);
 				if (!isPackage && accessType != NOT_JAXB)
-					addImplicitJAXBFieldsAndMethods(accessType, buf, enums, fields, methods, innerClasses, propOrder);
+					addImplicitJAXBFieldsAndMethods(visitor, accessType, buf, enums, fields, methods, innerClasses, propOrder);
 				buf.append("]]]}\n");
 			}
 		}
@@ -7124,13 +7325,13 @@ public class Java2ScriptVisitor extends ASTVisitor {
 		 * @param innerClasses
 		 * @param propOrder
 		 */
-		private static void addImplicitJAXBFieldsAndMethods(int accessType, StringBuffer buf,
+		private static void addImplicitJAXBFieldsAndMethods(Java2ScriptVisitor visitor, int accessType, StringBuffer buf,
 				List<EnumConstantDeclaration> enums, List<FieldDeclaration> fields, List<IMethodBinding> methods,
 				List<AbstractTypeDeclaration> innerClasses, String propOrder) {
 			for (int i = 0; i < innerClasses.size(); i++) {
 				ITypeBinding type = innerClasses.get(i).resolveBinding();
 				if (isStatic(type)) {
-					addJAXBAnnotation(null, type, "!XmlInner", buf);
+					addJAXBAnnotation(visitor, null, type, "!XmlInner", buf);
 				}
 			}
 
@@ -7143,7 +7344,7 @@ public class Java2ScriptVisitor extends ASTVisitor {
 					IVariableBinding v = con.resolveVariable();
 					String varName = v.getName();
 					ITypeBinding type = v.getType();
-					addJAXBAnnotation(varName, type, "@XmlEnumValue", buf);
+					addJAXBAnnotation(visitor, varName, type, "@XmlEnumValue", buf);
 				}
 				return;
 			default:
@@ -7165,9 +7366,9 @@ public class Java2ScriptVisitor extends ASTVisitor {
 							if (propOrder != null && propOrder.indexOf("\"" + varName + "\"") < 0)
 								continue;
 							ITypeBinding type = v.getType();
-							addJAXBAnnotation(varName, type, "@XmlElement", buf);
+							addJAXBAnnotation(visitor, varName, type, "@XmlElement", buf);
 							if (isUnspecified)
-								addJAXBAnnotation(varName, type, "!XmlPublic(" + isPublic + ")", buf);
+								addJAXBAnnotation(visitor, varName, type, "!XmlPublic(" + isPublic + ")", buf);
 						}
 					}
 				}
@@ -7185,16 +7386,16 @@ public class Java2ScriptVisitor extends ASTVisitor {
 						if (varName.startsWith("set"))
 							varName = (m = m2).getName();
 						ITypeBinding type = m.getReturnType();
-						addJAXBAnnotation("M:" + varName, type, "@XmlElement", buf);
+						addJAXBAnnotation(visitor, "M:" + varName, type, "@XmlElement", buf);
 						if (isUnspecified)
-							addJAXBAnnotation("M:" + varName, type, "!XmlPublic(" + isPublic + ")", buf);
+							addJAXBAnnotation(visitor, "M:" + varName, type, "!XmlPublic(" + isPublic + ")", buf);
 					}
 				}
 				break;
 			}
 		}
 
-		private static void addJAXBAnnotation(String varName, ITypeBinding type, String str, StringBuffer buf) {
+		private static void addJAXBAnnotation(Java2ScriptVisitor visitor, String varName, ITypeBinding type, String str, StringBuffer buf) {
 			String className = visitor.getFinalJ2SClassName(type.getQualifiedName(), FINAL_BRACKETS);
 			buf.append("]],\n  [[");
 			buf.append("'" + varName + "'");
@@ -7284,7 +7485,7 @@ public class Java2ScriptVisitor extends ASTVisitor {
 		 * @param isBlock
 		 * @return true if code was added
 		 */
-		static boolean addJ2sJavadocs(StringBuffer buffer, List<Javadoc> list, boolean isBlock) {
+		static boolean addJ2sJavadocs(StringBuffer buffer, List<Javadoc> list, boolean isBlock, boolean isDebugging) {
 			boolean didAdd = false;
 			int n = list.size();
 			for (int i = 0; i < n; i++) {
@@ -7293,7 +7494,7 @@ public class Java2ScriptVisitor extends ASTVisitor {
 				if (tags != null && tags.size() > 0
 						&& (isBlock && getTag(tags, "@j2sIgnore") != null
 								&& addJ2SSourceForTag(buffer, null, i == 0, i == n - 1, true)
-								|| isBlock && global_j2sFlag_isDebugging
+								|| isBlock && isDebugging
 										&& addJ2SSourceForTag(buffer, getTag(tags, "@j2sDebug"), i == 0, i == n - 1,
 												false)
 								|| addJ2SSourceForTag(buffer, getTag(tags, "@j2sNative"), isBlock && i == 0,
@@ -7618,11 +7819,25 @@ public class Java2ScriptVisitor extends ASTVisitor {
 	 * var to use for a private method -- p$1, p$2, p$3 etc. -- depending upon the
 	 * class being referred to.
 	 * 
+	 * It is held per compilation unit and shared with inner-class visitors
+	 * through setInnerGlobals, so that visitors for different files can run
+	 * concurrently.
+	 * 
 	 */
-	private static Map<String, String> classToPrivateVar = new Hashtable<String, String>();
-	private static String privateVarString = "";
-	private static int privateClassCount = 0;
-	private static int privateVarCount = 0;
+	private PrivateVars package_privateVars = new PrivateVars();
+
+	private static class PrivateVars {
+		Map<String, String> classToPrivateVar = new Hashtable<String, String>();
+		String privateVarString = "";
+		int privateClassCount = 0;
+		int privateVarCount = 0;
+
+		void reset() {
+			privateVarCount = privateClassCount = 0;
+			privateVarString = "";
+			classToPrivateVar.clear();
+		}
+	}
 
 	/**
 	 * p$1, p$2, etc.
@@ -7634,6 +7849,8 @@ public class Java2ScriptVisitor extends ASTVisitor {
 	 * @return
 	 */
 	private String getPrivateVar(IBinding binding, boolean isClassCompare) {
+		PrivateVars pv = package_privateVars;
+		Map<String, String> classToPrivateVar = pv.classToPrivateVar;
 		String key = binding.getKey(), key0 = null, key1 = null;
 		if (isClassCompare)
 			key = "_" + key;
@@ -7647,12 +7864,12 @@ public class Java2ScriptVisitor extends ASTVisitor {
 			p$ = classToPrivateVar.get(key = key.substring(0, key.indexOf("[") + 1) + "]");
 		}
 		if (p$ == null) {
-			classToPrivateVar.put(key, p$ = "p$" + (isClassCompare ? ++privateClassCount : ++privateVarCount));
+			classToPrivateVar.put(key, p$ = "p$" + (isClassCompare ? ++pv.privateClassCount : ++pv.privateVarCount));
 			classToPrivateVar.put(key0, p$);
 			if (!isClassCompare) {
 				if (key1 != null)
 					classToPrivateVar.put(key1, p$);
-				privateVarString += "," + p$ + "={}";
+				pv.privateVarString += "," + p$ + "={}";
 			}
 		}
 		return p$;
@@ -7708,9 +7925,7 @@ public class Java2ScriptVisitor extends ASTVisitor {
 	}
 
 	private void resetPrivateVars() {
-		privateVarCount = privateClassCount = 0;
-		privateVarString = "";
-		classToPrivateVar.clear();
+		package_privateVars.reset();
 	}
 
 	///////////////// debugging //////////////////////////
@@ -0,0 +1,186 @@
+package j2s.swingjs;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.adaptor.EclipseStarter;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+
+import j2s.core.Java2ScriptCompiler;
+
+/**
+ * Transpiles a two-file batch through
+ * Java2ScriptSwingJSCompiler.compileToJavaScript(IFile[], String), the
+ * j2s.compiler.batch.size &gt; 1 path of an Eclipse build.
+ *
+ * That path needs a workspace and a Java project, so main starts an OSGi
+ * framework, installs the j2s.core plugin and the Eclipse bundles it needs,
+ * and attaches this class to j2s.core as a fragment so that it runs inside
+ * the plugin:
+ *
+ * java -cp org.eclipse.osgi.jar:[this test's classes] j2s.swingjs.Test_BatchCompile
+ * [j2s.core plugin jar or directory] [bundle jars...]
+ *
+ * Bundle jars may also be given as one path list. They must include
+ * org.eclipse.jdt.core and everything it requires, including
+ * org.apache.felix.scr. The project is created in a new temporary workspace,
+ * with the running JVM's jrt-fs.jar as its JRE.
+ *
+ */
+public class Test_BatchCompile {
+
+	public static void main(String[] args) throws Exception {
+		File workDir = Files.createTempDirectory("j2sbatch").toFile();
+		Map<String, String> props = new HashMap<>();
+		props.put("osgi.instance.area", new File(workDir, "workspace").toURI().toString());
+		props.put("osgi.configuration.area", new File(workDir, "configuration").toURI().toString());
+		props.put("osgi.noShutdown", "true");
+		props.put("eclipse.ignoreApp", "true");
+		EclipseStarter.setInitialProperties(props);
+		BundleContext context = EclipseStarter.startup(new String[0], null);
+		int nFailed;
+		try {
+			List<Bundle> bundles = new ArrayList<>();
+			Bundle j2sCore = context.installBundle(new File(args[0]).toURI().toString());
+			bundles.add(j2sCore);
+			for (int i = 1; i < args.length; i++)
+				for (String path : args[i].split(File.pathSeparator))
+					if (path.length() > 0 && !path.contains("org.eclipse.osgi"))
+						bundles.add(context.installBundle(new File(path).toURI().toString()));
+			bundles.add(context.installBundle(createFragment(workDir).toURI().toString()));
+			for (Bundle b : bundles)
+				if (b.getHeaders().get("Fragment-Host") == null)
+					b.start(Bundle.START_ACTIVATION_POLICY);
+			// the copy inside j2s.core, not one from main's class loader
+			nFailed = ((Integer) j2sCore.loadClass(InPlugin.class.getName()).getMethod("test").invoke(null)).intValue();
+		} finally {
+			EclipseStarter.shutdown();
+		}
+		System.out.println(nFailed == 0 ? "Test_BatchCompile OK" : "Test_BatchCompile FAILED " + nFailed);
+		System.exit(nFailed == 0 ? 0 : 1);
+	}
+
+	/**
+	 * Put this class and InPlugin into a fragment of j2s.core, so that InPlugin
+	 * can see the plugin's classes and everything the plugin requires.
+	 * 
+	 * @param dir
+	 * @return the fragment jar
+	 * @throws IOException
+	 */
+	private static File createFragment(File dir) throws IOException {
+		Manifest m = new Manifest();
+		Attributes a = m.getMainAttributes();
+		a.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		a.putValue("Bundle-ManifestVersion", "2");
+		a.putValue("Bundle-SymbolicName", "j2s.core.test");
+		a.putValue("Bundle-Version", "1.0.0");
+		a.putValue("Fragment-Host", "j2s.core");
+		File f = new File(dir, "j2s.core.test.jar");
+		try (JarOutputStream jar = new JarOutputStream(new FileOutputStream(f), m)) {
+			for (Class<?> c : new Class<?>[] { Test_BatchCompile.class, InPlugin.class }) {
+				String name = c.getName().replace('.', '/') + ".class";
+				try (InputStream is = c.getClassLoader().getResourceAsStream(name)) {
+					jar.putNextEntry(new JarEntry(name));
+					byte[] buf = new byte[8192];
+					for (int n; (n = is.read(buf)) > 0;)
+						jar.write(buf, 0, n);
+				}
+			}
+		}
+		return f;
+	}
+
+	/**
+	 * The test itself, which needs the workspace and so only runs inside the
+	 * fragment
+	 */
+	public static class InPlugin {
+
+		static int nFailed;
+
+		static void check(boolean ok, String what) {
+			if (!ok) {
+				nFailed++;
+				System.out.println("failed: " + what);
+			}
+		}
+
+		/**
+		 * @return the number of failed checks
+		 * @throws Exception
+		 */
+		public static int test() throws Exception {
+			IWorkspace workspace = ResourcesPlugin.getWorkspace();
+			IProject project = workspace.getRoot().getProject("j2sbatch");
+			IProjectDescription desc = workspace.newProjectDescription("j2sbatch");
+			desc.setNatureIds(new String[] { JavaCore.NATURE_ID });
+			project.create(desc, null);
+			project.open(null);
+			project.setDefaultCharset("UTF-8", null);
+			File dir = project.getLocation().toFile();
+			write(new File(dir, ".j2s"),
+					"j2s.compiler.status=enable\nj2s.site.directory=site\nj2s.compiler.batch.size=2\n");
+			write(new File(dir, "src/test/A.java"),
+					"package test;\n\npublic class A {\n\tpublic static int twice(int i) {\n\t\treturn i * 2;\n\t}\n}\n");
+			write(new File(dir, "src/test/B.java"), "package test;\n\npublic class B {\n\tpublic static void main(String[] args) {\n"
+					+ "\t\tSystem.out.println(\"秘\" + A.twice(21));\n\t}\n}\n");
+			project.refreshLocal(IResource.DEPTH_INFINITE, null);
+			IJavaProject javaProject = JavaCore.create(project);
+			javaProject.setRawClasspath(new IClasspathEntry[] { JavaCore.newSourceEntry(new Path("/j2sbatch/src")),
+					JavaCore.newLibraryEntry(new Path(System.getProperty("java.home") + "/lib/jrt-fs.jar"), null, null) },
+					new Path("/j2sbatch/bin"), null);
+
+			Java2ScriptSwingJSCompiler compiler = new Java2ScriptSwingJSCompiler(new File(dir, ".j2s"));
+			check(compiler.initializeProject(javaProject, true), "initializeProject");
+			check(compiler.getBatchSize() == 2, "batch size");
+			IFile[] batch = new IFile[] { project.getFile("src/test/A.java"), project.getFile("src/test/B.java") };
+			int[] results = compiler.compileToJavaScript(batch, "test");
+			for (int i = 0; i < batch.length; i++)
+				check(results[i] == Java2ScriptCompiler.RESULT_OK, batch[i].getName() + " result " + results[i]);
+			compiler.finalizeProject();
+
+			File j2s = new File(dir, "site/swingjs/j2s/test");
+			String a = read(new File(j2s, "A.js")), b = read(new File(j2s, "B.js"));
+			check(a.contains("'twice$I'"), "A.js twice$I");
+			// A.twice(21) is only given its signature if bindings were resolved
+			check(b.contains("twice$I(21)"), "B.js twice$I(21)");
+			check(b.contains("秘"), "B.js UTF-8");
+			return nFailed;
+		}
+
+		private static void write(File f, String s) throws IOException {
+			f.getParentFile().mkdirs();
+			Files.write(f.toPath(), s.getBytes(StandardCharsets.UTF_8));
+		}
+
+		private static String read(File f) throws IOException {
+			return (f.exists() ? new String(Files.readAllBytes(f.toPath()), StandardCharsets.UTF_8) : "");
+		}
+
+	}
+
+}
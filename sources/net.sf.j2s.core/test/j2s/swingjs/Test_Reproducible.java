@@ -0,0 +1,142 @@
+package j2s.swingjs;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Transpiles the same sources twice with Java2ScriptHeadlessCompiler, once
+ * serially one file at a time and once on two threads in batches, and checks
+ * that every file written is byte-for-byte the same, apart from the time in
+ * each .js trailer's "//Created yyyy-MM-dd HH:mm:ss". The output manifests must
+ * list the same hashes, so that neither build would rewrite what the other
+ * wrote. .j2s-deps, which records source paths and times, is not compared.
+ *
+ * Each source captures many final locals in an anonymous class and a lambda,
+ * so that the {a:a,b:b,...} maps passed to Clazz.new_ would show any order
+ * that depends on hashing by identity.
+ *
+ * java -cp [j2s.core classes]:[jdt core jars]:[this test's classes]
+ * j2s.swingjs.Test_Reproducible
+ *
+ */
+public class Test_Reproducible {
+
+	final static int NFILES = 6, NVARS = 12;
+
+	public static void main(String[] args) throws Exception {
+		File workDir = Files.createTempDirectory("j2srepro").toFile();
+		File src = new File(workDir, "src");
+		for (int i = 0; i < NFILES; i++)
+			write(new File(src, "test/R" + i + ".java"), getSource(i));
+		File[] sites = new File[2];
+		for (int pass = 0; pass < 2; pass++) {
+			File project = new File(workDir, "p" + pass);
+			write(new File(project, ".j2s"), "j2s.compiler.status=enable\nj2s.site.directory=site\n");
+			int nerror = Java2ScriptHeadlessCompiler.transpile(project.getPath(), src.getPath(), null, true,
+					pass == 0 ? 1 : 2, pass == 0 ? 1 : 4, null, true);
+			if (nerror != 0) {
+				System.out.println("Test_Reproducible FAILED: " + nerror + " errors in pass " + pass);
+				System.exit(1);
+			}
+			sites[pass] = new File(project, "site");
+		}
+		int nFailed = 0;
+		Map<String, File> files0 = list(sites[0]), files1 = list(sites[1]);
+		if (!files0.keySet().equals(files1.keySet())) {
+			System.out.println("failed: different files " + files0.keySet() + " " + files1.keySet());
+			nFailed++;
+		}
+		int nJS = 0;
+		for (String name : files0.keySet()) {
+			File f1 = files1.get(name);
+			if (f1 == null || name.equals(".j2s-deps"))
+				continue;
+			byte[] b0 = Files.readAllBytes(files0.get(name).toPath()), b1 = Files.readAllBytes(f1.toPath());
+			boolean same;
+			if (name.endsWith(".js")) {
+				nJS++;
+				same = withoutTime(b0).equals(withoutTime(b1));
+			} else if (name.equals(".j2s-manifest")) {
+				same = getHashes(b0).equals(getHashes(b1));
+			} else {
+				same = Arrays.equals(b0, b1);
+			}
+			if (!same) {
+				System.out.println("failed: " + name + " differs");
+				nFailed++;
+			}
+		}
+		if (nJS < NFILES) {
+			System.out.println("failed: only " + nJS + " .js files");
+			nFailed++;
+		}
+		System.out.println(nFailed == 0 ? "Test_Reproducible OK" : "Test_Reproducible FAILED " + nFailed);
+		System.exit(nFailed == 0 ? 0 : 1);
+	}
+
+	private static String getSource(int i) {
+		StringBuilder decl = new StringBuilder(), sum = new StringBuilder();
+		for (int j = 0; j < NVARS; j++) {
+			decl.append("\t\tfinal int v").append(j).append(" = n + ").append(j).append(";\n");
+			sum.append(j == 0 ? "" : " + ").append('v').append(j);
+		}
+		return "package test;\n\n" //
+				+ "public class R" + i + " {\n\n" //
+				+ "\tpublic static Runnable anon(int n) {\n" + decl //
+				+ "\t\treturn new Runnable() {\n" //
+				+ "\t\t\tpublic void run() {\n" //
+				+ "\t\t\t\tSystem.out.println(" + sum + ");\n" //
+				+ "\t\t\t}\n" //
+				+ "\t\t};\n" //
+				+ "\t}\n\n" //
+				+ "\tpublic static Runnable lambda(int n) {\n" + decl //
+				+ "\t\treturn () -> System.out.println(" + sum + ");\n" //
+				+ "\t}\n" //
+				+ "}\n";
+	}
+
+	private static String withoutTime(byte[] b) {
+		return new String(b, StandardCharsets.UTF_8).replaceAll("//Created \\S+ \\S+", "//Created");
+	}
+
+	/**
+	 * @return the manifest's lines, without the date comment, sorted
+	 */
+	private static List<String> getHashes(byte[] b) {
+		List<String> lines = new ArrayList<>();
+		for (String line : new String(b, StandardCharsets.UTF_8).split("\n"))
+			if (!line.startsWith("#"))
+				lines.add(line);
+		Collections.sort(lines);
+		return lines;
+	}
+
+	private static void write(File f, String s) throws IOException {
+		f.getParentFile().mkdirs();
+		Files.write(f.toPath(), s.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @return every file under dir, by path relative to dir
+	 */
+	private static Map<String, File> list(File dir) throws IOException {
+		Map<String, File> files = new TreeMap<>();
+		String root = dir.getPath() + File.separator;
+		try (Stream<Path> paths = Files.walk(dir.toPath())) {
+			paths.map(p -> p.toFile()).filter(File::isFile)
+					.forEach(f -> files.put(f.getPath().substring(root.length()), f));
+		}
+		return files;
+	}
+
+}
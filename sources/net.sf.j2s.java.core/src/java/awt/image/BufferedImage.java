@@ -47,6 +47,7 @@ import sun.awt.image.OffScreenImageSource;
 import sun.awt.image.PixelConverter;
 import sun.awt.image.ShortComponentRaster;
 import sun.awt.image.SunWritableRaster;
+import swingjs.JSCanvasPixels;
 import swingjs.JSGraphics2D;
 import swingjs.api.JSUtilI;
 import swingjs.api.js.DOMNode;
@@ -264,6 +265,11 @@ public class BufferedImage extends Image implements RenderedImage, Transparency,
 	 */
 	public HTML5Canvas 秘canvas;
 
+	/**
+	 * a canvas copy of TYPE_INT_RGB or TYPE_INT_ARGB pixels, for JSGraphics2D
+	 */
+	private JSCanvasPixels 秘canvasPixels;
+
 	/**
 	 * the Component associated with this image; used to set font, background, and
 	 * foreground color
@@ -2118,6 +2124,8 @@ public class BufferedImage extends Image implements RenderedImage, Transparency,
 		// alpha=imgData.data[3];
 
 		// convert canvas [r g b a r g b a ...] into [argb argb argb ...]
+		if (JSCanvasPixels.toARGB(ctxData, iData, alpha))
+			return;
 		int n = ctxData.length >> 2;
 		for (int i = 0, j = 0; i < n;) {
 			int argb = (ctxData[j++] << 16) | (ctxData[j++] << 8) | ctxData[j++] | alpha;
@@ -2240,6 +2248,19 @@ public class BufferedImage extends Image implements RenderedImage, Transparency,
 		return 秘getPixelsFromRaster(8);
 	}
 
+	/**
+	 * Called by JSGraphics2D with the int[] pixels from get秘pixFromRaster, to draw
+	 * them as a canvas.
+	 * 
+	 * @param pixels width * height ARGB or RGB pixels
+	 * @return a canvas updated with just the pixels that changed
+	 */
+	public HTML5Canvas 秘getCanvasFromPixels(int[] pixels) {
+		if (秘canvasPixels == null || 秘canvasPixels.getWidth() != width || 秘canvasPixels.getHeight() != height)
+			秘canvasPixels = new JSCanvasPixels(width, height);
+		return 秘canvasPixels.update(pixels, 秘isOpaque());
+	}
+
 	/**
 	 * Creates an HTML5 Canvas-compatible int[] {r g b a...} array. We use int[]
 	 * here just because that is what ColorModel.getComponents uses
@@ -55,6 +55,25 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
 	
     String 秘s;
 
+    /**
+     * The characters as char codes, in a Uint16Array with room to grow, in place
+     * of 秘s, which is then null; 秘n of them are in use.
+     * 
+     * Appending to a JavaScript string is fast, but setCharAt, insert, delete,
+     * and the like must copy all of it. So once a builder of at least
+     * MIN_EDIT_LENGTH characters has been edited in place twice, its characters
+     * move to this array, and edits and appends are made there, moving only the
+     * characters after the edit. toString, and any method that does not know
+     * about 秘a, turn it back into 秘s.
+     */
+    int[] 秘a;
+
+    int 秘n;
+
+    private int 秘nEdits;
+
+    private final static int MIN_EDIT_LENGTH = 64;
+
     /**
      * This no-arg constructor is necessary for serialization of subclasses.
      */
@@ -77,7 +96,93 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      */
     @Override
     public int length() {
-        return 秘s.length();//count;
+        return (秘a == null ? 秘s.length() : 秘n);//count;
+    }
+
+    /**
+     * Called by in-place edits before they are made.
+     *
+     * @return true if the edit is to be made to 秘a
+     */
+    private boolean 秘isArray() {
+        if (秘a != null)
+            return true;
+        if (++秘nEdits < 2 || 秘s.length() < MIN_EDIT_LENGTH)
+            return false;
+        /**
+         * @j2sNative
+         * 
+         * var s = this.秘s, n = this.秘n = s.length, a = this.秘a = new Uint16Array(n + (n >> 1) + 16);
+         * for (var i = 0; i < n; i++)
+         *   a[i] = s.charCodeAt(i);
+         * this.秘s = null;
+         */
+        return true;
+    }
+
+    /**
+     * Make 秘s current again, for toString and methods that do not know about
+     * 秘a.
+     */
+    void 秘toS() {
+        if (秘a == null)
+            return;
+        秘s = 秘substring(0, 秘n);
+        秘a = null;
+        秘nEdits = 0;
+    }
+
+    /**
+     * @return characters start through end - 1 of 秘a
+     */
+    private String 秘substring(int start, int end) {
+        String s = "";
+        /**
+         * @j2sNative
+         * 
+         * for (var a = this.秘a, i = start; i < end; i += 8192)
+         *   s += String.fromCharCode.apply(null, a.subarray(i, Math.min(end, i + 8192)));
+         */
+        return s;
+    }
+
+    /**
+     * Make room in 秘a for n characters.
+     */
+    void 秘grow(int n) {
+        /**
+         * @j2sNative
+         * 
+         * var a = this.秘a;
+         * if (n > a.length) {
+         *   (this.秘a = new Uint16Array(n + (n >> 1) + 16)).set(a.subarray(0, this.秘n));
+         * }
+         */
+    }
+
+    /**
+     * Replace characters start through end - 1 of 秘a with str.
+     */
+    private void 秘splice(int start, int end, String str) {
+        int len = str.length();
+        int d = len - (end - start);
+        if (d > 0)
+            秘grow(秘n + d);
+        /**
+         * @j2sNative
+         * 
+         * var a = this.秘a;
+         * if (d != 0)
+         *   a.copyWithin(start + len, end, this.秘n);
+         * for (var i = 0; i < len; i++)
+         *   a[start + i] = str.charCodeAt(i);
+         */
+        秘n += d;
+    }
+
+    private AbstractStringBuilder 秘append(String str) {
+        秘splice(秘n, 秘n, str);
+        return this;
     }
 
     /**
@@ -182,8 +287,21 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
         if (newLength < 0)
             throw new StringIndexOutOfBoundsException(newLength);
         ensureCapacityInternal(newLength);
+        if (秘a != null) {
+            秘grow(newLength);
+            /**
+             * @j2sNative
+             * 
+             * if (newLength > this.秘n)
+             *   this.秘a.fill(0, this.秘n, newLength);
+             */
+            秘n = newLength;
+            return;
+        }
         if (秘s.length() > newLength)
         	秘s = 秘s.substring(0, newLength);
+        while (秘s.length() < newLength)
+            秘s += '\0';
 //        if (count < newLength) {
 //            Arrays.fill(value, count, newLength, '\0');
 //        }
@@ -210,9 +328,9 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      */
     @Override
     public char charAt(int index) {
-        if ((index < 0) || (index >= 秘s.length()))
+        if ((index < 0) || (index >= length()))
             throw new StringIndexOutOfBoundsException(index);
-        return 秘s.charAt(index);
+        return (秘a == null ? 秘s.charAt(index) : (char) 秘a[index]);
 //        return value[index];
     }
 
@@ -238,6 +356,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      *             sequence.
      */
     public int codePointAt(int index) {
+        秘toS();
         if ((index < 0) || (index >= 秘s.length())) {
             throw new StringIndexOutOfBoundsException(index);
         }
@@ -268,6 +387,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      */
     public int codePointBefore(int index) {
         int i = index - 1;
+        秘toS();
         if ((i < 0) || (i >= 秘s.length())) {
             throw new StringIndexOutOfBoundsException(index);
         }
@@ -296,7 +416,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * {@code beginIndex} is larger than {@code endIndex}.
      */
     public int codePointCount(int beginIndex, int endIndex) {
-        if (beginIndex < 0 || endIndex > 秘s.length() || beginIndex > endIndex) {
+        if (beginIndex < 0 || endIndex > length() || beginIndex > endIndex) {
             throw new IndexOutOfBoundsException();
         }
         return endIndex - beginIndex;
@@ -323,7 +443,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      *   {@code codePointOffset} code points.
      */
     public int offsetByCodePoints(int index, int codePointOffset) {
-        if (index < 0 || index + codePointOffset > 秘s.length()) {
+        if (index < 0 || index + codePointOffset > length()) {
             throw new IndexOutOfBoundsException();
         }
         return index + codePointOffset;
@@ -360,6 +480,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      */
     public void getChars(int srcBegin, int srcEnd, char[] dst, int pt)
     {
+        秘toS();
         if (srcBegin < 0)
             throw new StringIndexOutOfBoundsException(srcBegin);
         if ((srcEnd < 0) || (srcEnd > 秘s.length()))
@@ -396,10 +517,12 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      *             negative or greater than or equal to {@code length()}.
      */
     public void setCharAt(int index, char ch) {
-        if ((index < 0) || (index >= 秘s.length()))
+        if ((index < 0) || (index >= length()))
             throw new StringIndexOutOfBoundsException(index);
-        
-        
+        if (秘isArray()) {
+            秘a[index] = ch;
+            return;
+        }
         /**
          * @j2sNative
          * this.秘s = this.秘s.substring(0, index) + ch + this.秘s.substring(index + 1);
@@ -419,6 +542,8 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * @return  a reference to this object.
      */
     public AbstractStringBuilder append(Object obj) {
+        if (秘a != null)
+            return 秘append(String.valueOf(obj));
         /**
          * @j2sNative
          *  this.秘s += (obj == null ? null : obj.toString());
@@ -445,6 +570,8 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * @return  a reference to this object.
      */
     public AbstractStringBuilder append(String str) {
+        if (秘a != null)
+            return 秘append(String.valueOf(str));
         /**
          * @j2sNative
          *  this.秘s += str;
@@ -463,19 +590,12 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
     public AbstractStringBuilder append(StringBuffer sb) {
         if (sb == null)
             return appendNull();
-        
-        
-        
-        /**
-         * @j2sNative
-         * this.秘s += sb.秘s;
-         */
+        return append(sb.toString());
 //        
 //        int len = sb.length();
 //        ensureCapacityInternal(count + len);
 //        sb.getChars(0, len, value, count);
 //        count += len;
-        return this;
     }
 
     /**
@@ -506,8 +626,8 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
     }
 
     AbstractStringBuilder appendNull() {
-        
-        
+        if (秘a != null)
+            return 秘append("null");
         /**
          * @j2sNative
          * this.秘s += "null";
@@ -566,12 +686,8 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
         if (cs instanceof AbstractStringBuilder) {
         	return append(((String) cs).substring(start, end));
         } 
-        for (int i = start; i < end; i++) {
-        	char c = cs.charAt(i);
-            /** @j2sNative
-             *   this.秘s += c;
-             */
-        }
+        for (int i = start; i < end; i++)
+            append(cs.charAt(i));
 //        int len = end - start;
 //        ensureCapacityInternal(count + len);
 //        for (int i = start, j = count; i < end; i++, j++)
@@ -597,8 +713,8 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * @return  a reference to this object.
      */
     public AbstractStringBuilder append(char[] str) {
-        
-        
+        if (秘a != null)
+            return 秘append(String.valueOf(str));
     	/**
     	 * @j2sNative
     	 * 
@@ -634,8 +750,8 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      *         or {@code offset+len > str.length}
      */
     public AbstractStringBuilder append(char str[], int offset, int len) {
-        
-        
+        if (秘a != null)
+            return 秘append(String.valueOf(str, offset, len));
     	/**
     	 * @j2sNative
     	 * 
@@ -661,6 +777,8 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * @return  a reference to this object.
      */
     public AbstractStringBuilder append(boolean b) {
+        if (秘a != null)
+            return 秘append(String.valueOf(b));
         /**
          * @j2sNative
          *  this.秘s += b;
@@ -699,8 +817,8 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      */
     @Override
     public AbstractStringBuilder append(char c) {
-        
-        
+        if (秘a != null)
+            return 秘append(String.valueOf(c));
         	/**
         	 * @j2sNative
         	 * 
@@ -724,6 +842,8 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * @return  a reference to this object.
      */
     public AbstractStringBuilder append(int i) {
+        if (秘a != null)
+            return 秘append(String.valueOf(i));
         /**
          * @j2sNative
          *  this.秘s += i;
@@ -756,6 +876,8 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      */
     public AbstractStringBuilder append(long l) {
     	String s = Long.toString(l);
+        if (秘a != null)
+            return 秘append(s);
         /**
          * @j2sNative
          *  this.秘s += s;
@@ -787,6 +909,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * @return  a reference to this object.
      */
     public AbstractStringBuilder append(float f) {
+        秘toS();
         /**
          * @j2sNative
          *  this.秘s += f;
@@ -808,6 +931,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * @return  a reference to this object.
      */
     public AbstractStringBuilder append(double d) {
+        秘toS();
         /**
          * @j2sNative
          *  this.秘s += d;
@@ -833,12 +957,14 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
     public AbstractStringBuilder delete(int start, int end) {
         if (start < 0)
             throw new StringIndexOutOfBoundsException(start);
-        if (end > 秘s.length())
-            end = 秘s.length();
+        if (end > length())
+            end = length();
         if (start > end)
             throw new StringIndexOutOfBoundsException();
-        
-        
+        if (秘isArray()) {
+            秘splice(start, end, "");
+            return this;
+        }
         /**
          * @j2sNative
          * 
@@ -880,6 +1006,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
 //            value[count] = (char) c;
 //            this.count = count + 1;
 //        } else 
+    	秘toS();
     	try {
 //            if (Character.isValidCodePoint(c)) {
                 
@@ -919,10 +1046,12 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      *              {@code length()}.
      */
     public AbstractStringBuilder deleteCharAt(int index) {
-        if ((index < 0) || (index >= 秘s.length()))
+        if ((index < 0) || (index >= length()))
             throw new StringIndexOutOfBoundsException(index);
-        
-        
+        if (秘isArray()) {
+            秘splice(index, index + 1, "");
+            return this;
+        }
         /**
          * @j2sNative
          * 
@@ -956,7 +1085,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
         if (start < 0)
             throw new StringIndexOutOfBoundsException(start);
         
-        int len = this.秘s.length();
+        int len = length();
         if (start > len)
             throw new StringIndexOutOfBoundsException("start > length()");
         if (start > end)
@@ -970,6 +1099,10 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
 //        System.arraycopy(value, end, value, start + len, count - end);
 //        str.getChars(value, start);
 //        count = newCount;
+        if (秘isArray()) {
+            秘splice(start, end, str);
+            return this;
+        }
         /**
          * @j2sNative
          * 
@@ -990,7 +1123,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      *             less than zero, or greater than the length of this object.
      */
     public String substring(int start) {
-        return substring(start, 秘s.length());
+        return substring(start, length());
     }
 
     /**
@@ -1041,12 +1174,12 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
     public String substring(int start, int end) {
         if (start < 0)
             throw new StringIndexOutOfBoundsException(start);
-        if (end > 秘s.length())
+        if (end > length())
             throw new StringIndexOutOfBoundsException(end);
         if (start > end)
             throw new StringIndexOutOfBoundsException(end - start);
-        
-        
+        if (秘a != null)
+            return 秘substring(start, end);
         /**
          * @j2sNative
          * 
@@ -1081,14 +1214,16 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
     public AbstractStringBuilder insert(int index, char[] str, int offset,
                                         int len)
     {
-        if ((index < 0) || (index > 秘s.length()))
+        if ((index < 0) || (index > length()))
             throw new StringIndexOutOfBoundsException(index);
         if ((offset < 0) || (len < 0) || (offset + len > str.length))
             throw new StringIndexOutOfBoundsException(
                 "offset " + offset + ", len " + len + ", str.length "
                 + str.length);
-        
-        
+        if (秘isArray()) {
+            秘splice(index, index, String.valueOf(str, offset, len));
+            return this;
+        }
         	/**
         	 * @j2sNative
         	 * 
@@ -1156,12 +1291,14 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * @throws     StringIndexOutOfBoundsException  if the index is invalid.
      */
     public AbstractStringBuilder insert(int index, String str) {
-        if ((index < 0) || (index > 秘s.length()))
+        if ((index < 0) || (index > length()))
             throw new StringIndexOutOfBoundsException(index);
         if (str == null)
             str = "null";
-        
-        
+        if (秘isArray()) {
+            秘splice(index, index, str);
+            return this;
+        }
         	/**
         	 * @j2sNative
         	 * 
@@ -1200,21 +1337,12 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * @throws     StringIndexOutOfBoundsException  if the index is invalid.
      */
     public AbstractStringBuilder insert(int index, char[] str) {
-        if ((index < 0) || (index > length()))
-            throw new StringIndexOutOfBoundsException(index);
-        
-        
-        	/**
-        	 * @j2sNative
-        	 * 
-        	 * this.秘s = this.秘s.substring(0, index) + str.join() + this.秘s.substring(index);
-        	 */ 
+        return insert(index, str, 0, str.length);
 //        int len = str.length;
 //        ensureCapacityInternal(count + len);
 //        System.arraycopy(value, index, value, index + len, count - index);
 //        System.arraycopy(str, 0, value, index, len);
 //        count += len;
-        return this;
     }
 
     /**
@@ -1363,18 +1491,11 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * @throws     IndexOutOfBoundsException  if the index is invalid.
      */
     public AbstractStringBuilder insert(int index, char c) {
-        
-        
-        	/**
-        	 * @j2sNative
-        	 * 
-        	 * this.秘s = this.秘s.substring(0, index) + c + this.秘s.substring(index);
-        	 */ 
+        return insert(index, String.valueOf(c));
 //        ensureCapacityInternal(count + 1);
 //        System.arraycopy(value, index, value, index + 1, count - index);
 //        value[index] = c;
 //        count += 1;
-        return this;
     }
 
     /**
@@ -1504,8 +1625,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      *          specified substring, starting at the specified index.
      */
     public int indexOf(String str, int fromIndex) {
-        
-        
+        秘toS();
         	/**
         	 * @j2sNative
         	 * 
@@ -1533,7 +1653,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      *          a substring, {@code -1} is returned.
      */
     public int lastIndexOf(String str) {
-        return lastIndexOf(str, 秘s.length());
+        return lastIndexOf(str, length());
     }
 
     /**
@@ -1552,8 +1672,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      *          specified substring.
      */
     public int lastIndexOf(String str, int fromIndex) {
-        
-        
+        秘toS();
         	/**
         	 * @j2sNative
         	 * 
@@ -1594,7 +1713,10 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
         	/**
         	 * @j2sNative
         	 * 
-        	 * this.秘s.split("").reverse().join("");
+        	 * if (this.秘a)
+        	 *   this.秘a.subarray(0, this.秘n).reverse();
+        	 * else
+        	 *   this.秘s = this.秘s.split("").reverse().join("");
         	 */ 
 //    	
 //    	
@@ -1648,6 +1770,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * Needed by {@code String} for the contentEquals method.
      */
     final char[] getValue() {
+    	秘toS();
     	/**
     	 * @j2sNative return this.秘s.split("");
     	 */
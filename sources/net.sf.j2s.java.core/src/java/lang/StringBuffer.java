@@ -665,6 +665,7 @@ package java.lang;
 
     @Override
     public synchronized String toString() {
+    	秘toS();
     	return 秘s;
 //        if (toStringCache == null) {
 //            toStringCache = Arrays.copyOfRange(value, 0, count);
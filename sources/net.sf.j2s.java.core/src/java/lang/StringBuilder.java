@@ -404,6 +404,7 @@ public final class StringBuilder
 
     @Override
     public String toString() {
+    	秘toS();
     	return 秘s;
 //        // Create a copy, don't share the array
 //        return new String(value, 0, count);
@@ -254,6 +254,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 
 	Map<String, Object> 秘m;
 	boolean 秘allowJS = false;
+	boolean 秘allowNumbers = false;
 
 	/**
 	 * Basic hash bin node, used for most entries. (See below for TreeNode subclass,
@@ -429,6 +430,14 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	 */
 	public static boolean USE_SIMPLE = true;
 
+	/**
+	 * flag developers can use to switch off simple JavaScript Map objects keyed
+	 * by Integer, Short, Byte, Character, or Long, leaving only String keys
+	 * 
+	 * not final, so that it can be managed on the fly in SwingJS
+	 */
+	public static boolean USE_SIMPLE_NUMBERS = true;
+
 	/* ---------------- Public operations -------------- */
 
 	/**
@@ -515,7 +524,13 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 			 * @j2sNative mOriginal.秘m.forEach(function(value, key) {
 			 * 
 			 */
-			me.putVal(NO_RETURN, key, value, false, evict, Map.秘hasKey(me, key));
+			int mode = Map.秘hasKey(me, key);
+			if (mode == INVALID_KEY) {
+				// for example, String keys into a map of Integer keys
+				Map.秘ensureJavaMap(me);
+				mode = NOT_SIMPLE;
+			}
+			me.putVal(mode == NOT_SIMPLE ? hash(key) : NO_RETURN, key, value, false, evict, mode);
 			/**
 			 * @j2sNative });
 			 */
@@ -2459,26 +2474,44 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 	}
 
 	public Entry<K, V> getJSEntry(Entry<K, V> e) {
-        return new Map.Entry<K, V> () {
-			@SuppressWarnings("unused")
-			@Override
-			public K getKey() {
-				Entry<K, V> node = e;
-				return (/** @j2sNative 1 ? node.value[0] : */null);
-			}
+		return new JSEntry<>(this, e);
+	}
 
-			@SuppressWarnings("unused")
-			@Override
-			public V getValue() {
-				Entry<K, V> node = e;
-				return (/** @j2sNative 1 ? node.value[1] : */null);
-			}
+	/**
+	 * SwingJS: an entry of a simple map, reading the [key, value] of a JavaScript
+	 * Map iterator result. A static class, being much quicker to create than an
+	 * anonymous one, keeps entrySet iteration close to the speed of keySet
+	 * iteration.
+	 */
+	static final class JSEntry<K, V> implements Map.Entry<K, V> {
 
-			@Override
-			public V setValue(V value) {
-				return HashMap.this.put(getKey(), value);
-			}
-		};
+		private final HashMap<K, V> map;
+
+		private final Map.Entry<K, V> node;
+
+		JSEntry(HashMap<K, V> map, Map.Entry<K, V> node) {
+			this.map = map;
+			this.node = node;
+		}
+
+		@SuppressWarnings("unused")
+		@Override
+		public K getKey() {
+			Map.Entry<K, V> node = this.node;
+			return (/** @j2sNative 1 ? node.value[0] : */null);
+		}
+
+		@SuppressWarnings("unused")
+		@Override
+		public V getValue() {
+			Map.Entry<K, V> node = this.node;
+			return (/** @j2sNative 1 ? node.value[1] : */null);
+		}
+
+		@Override
+		public V setValue(V value) {
+			return map.put(getKey(), value);
+		}
 	}
 
 	// For conversion from TreeNodes to plain nodes
@@ -3101,6 +3134,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
 
 		秘m = (秘allowJS && HashMap.USE_SIMPLE ? /** @j2sNative new Map() || */
 				null : null);
+		秘allowNumbers = HashMap.USE_SIMPLE_NUMBERS;
 	}
 
 	static final int NO_RETURN = 0;
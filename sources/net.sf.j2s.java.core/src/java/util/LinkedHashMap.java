@@ -422,6 +422,8 @@ public class LinkedHashMap<K,V>
      */
     @Override
 	public boolean containsValue(Object value) {
+        if (Map.秘isSimple(this))
+            return super.containsValue(value);
         for (LinkedHashMap.Entry<K,V> e = head; e != null; e = e.after) {
             V v = e.value;
             if (v == value || (value != null && value.equals(v)))
@@ -447,6 +449,8 @@ public class LinkedHashMap<K,V>
      */
     @Override
 	public V get(Object key) {
+        if (Map.秘isSimple(this))
+            return super.get(key);
         Node<K,V> e;
         if ((e = getNode(hash(key), key)) == null)
             return null;
@@ -460,6 +464,8 @@ public class LinkedHashMap<K,V>
      */
     @Override
 	public V getOrDefault(Object key, V defaultValue) {
+       if (Map.秘isSimple(this))
+           return super.getOrDefault(key, defaultValue);
        Node<K,V> e;
        if ((e = getNode(hash(key), key)) == null)
            return defaultValue;
@@ -548,11 +554,13 @@ public class LinkedHashMap<K,V>
 
     final class LinkedKeySet extends AbstractSet<K> {
         @Override
-		public final int size()                 { return size; }
+		public final int size()                 { return LinkedHashMap.this.size(); }
         @Override
 		public final void clear()               { LinkedHashMap.this.clear(); }
         @Override
 		public final Iterator<K> iterator() {
+            if (Map.秘isSimple(LinkedHashMap.this))
+                return new KeyIterator();
             return new LinkedKeyIterator();
         }
         @Override
@@ -580,6 +588,10 @@ public class LinkedHashMap<K,V>
 		public final void forEach(Consumer<? super K> action) {
             if (action == null)
                 throw new NullPointerException();
+            if (Map.秘isSimple(LinkedHashMap.this)) {
+                super.forEach(action);
+                return;
+            }
             int mc = modCount;
             for (LinkedHashMap.Entry<K,V> e = head; e != null; e = e.after)
                 action.accept(e.key);
@@ -614,11 +626,13 @@ public class LinkedHashMap<K,V>
 
     final class LinkedValues extends AbstractCollection<V> {
         @Override
-		public final int size()                 { return size; }
+		public final int size()                 { return LinkedHashMap.this.size(); }
         @Override
 		public final void clear()               { LinkedHashMap.this.clear(); }
         @Override
 		public final Iterator<V> iterator() {
+            if (Map.秘isSimple(LinkedHashMap.this))
+                return new ValueIterator();
             return new LinkedValueIterator();
         }
         @Override
@@ -632,6 +646,10 @@ public class LinkedHashMap<K,V>
 		public final void forEach(Consumer<? super V> action) {
             if (action == null)
                 throw new NullPointerException();
+            if (Map.秘isSimple(LinkedHashMap.this)) {
+                super.forEach(action);
+                return;
+            }
             int mc = modCount;
             for (LinkedHashMap.Entry<K,V> e = head; e != null; e = e.after)
                 action.accept(e.value);
@@ -667,11 +685,13 @@ public class LinkedHashMap<K,V>
 
     final class LinkedEntrySet extends AbstractSet<Map.Entry<K,V>> {
         @Override
-		public final int size()                 { return size; }
+		public final int size()                 { return LinkedHashMap.this.size(); }
         @Override
 		public final void clear()               { LinkedHashMap.this.clear(); }
         @Override
 		public final Iterator<Map.Entry<K,V>> iterator() {
+            if (Map.秘isSimple(LinkedHashMap.this))
+                return new EntryIterator();
             return new LinkedEntryIterator();
         }
         @Override
@@ -680,6 +700,10 @@ public class LinkedHashMap<K,V>
                 return false;
             Map.Entry<?,?> e = (Map.Entry<?,?>) o;
             Object key = e.getKey();
+            if (containsKey(key) && Map.秘isSimple(LinkedHashMap.this)) {
+                Object v = get(key), value = e.getValue();
+                return (v == value || v != null && v.equals(value));
+            }
             Node<K,V> candidate = getNode(hash(key), key);
             return candidate != null && candidate.equals(e);
         }
@@ -711,6 +735,10 @@ public class LinkedHashMap<K,V>
 		public final void forEach(Consumer<? super Map.Entry<K,V>> action) {
             if (action == null)
                 throw new NullPointerException();
+            if (Map.秘isSimple(LinkedHashMap.this)) {
+                super.forEach(action);
+                return;
+            }
             int mc = modCount;
             for (LinkedHashMap.Entry<K,V> e = head; e != null; e = e.after)
                 action.accept(e);
@@ -725,6 +753,10 @@ public class LinkedHashMap<K,V>
 	public void forEach(BiConsumer<? super K, ? super V> action) {
         if (action == null)
             throw new NullPointerException();
+        if (Map.秘isSimple(this)) {
+            super.forEach(action);
+            return;
+        }
         int mc = modCount;
         for (LinkedHashMap.Entry<K,V> e = head; e != null; e = e.after)
             action.accept(e.key, e.value);
@@ -736,6 +768,10 @@ public class LinkedHashMap<K,V>
 	public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
         if (function == null)
             throw new NullPointerException();
+        if (Map.秘isSimple(this)) {
+            super.replaceAll(function);
+            return;
+        }
         int mc = modCount;
         for (LinkedHashMap.Entry<K,V> e = head; e != null; e = e.after)
             e.value = function.apply(e.key, e.value);
@@ -803,9 +839,18 @@ public class LinkedHashMap<K,V>
 		public final Map.Entry<K,V> next() { return nextNode(); }
     }
 
+	/**
+	 * SwingJS: A JavaScript Map keeps its keys in insertion order, so a plain
+	 * LinkedHashMap in insertion order can use one just as HashMap does. Access
+	 * order and subclasses, which may override removeEldestEntry, need the
+	 * linked entries.
+	 */
 	@Override
 	protected void 秘setJS() {
-		秘m = null;
+		if (!accessOrder && getClass() == LinkedHashMap.class)
+			super.秘setJS();
+		else
+			秘m = null;
 	}
 
 
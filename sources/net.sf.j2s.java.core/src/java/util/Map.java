@@ -1220,9 +1220,12 @@ public interface Map<K,V> {
 	/**
 	 * Determine the type of key within this map.
 	 *  
-	 * We allow null keys for HashMap, but other than that only String keys,
-	 * because although JavaScript Map allows for non-string values, it cannot
-	 * detect the equivalence of Integer.valueOf(n) for a given n.
+	 * We allow null keys for HashMap, and String keys. Although JavaScript Map
+	 * allows for non-string values, it cannot detect the equivalence of
+	 * Integer.valueOf(n) for a given n, so a HashMap that starts out with an
+	 * Integer, Short, Byte, Character, or Long key switches to a map keyed by the
+	 * primitive values of that one class (see 秘newNumberMap). Any other key, or
+	 * a key of another class, is invalid.
 	 * 
 	 * @param map
 	 * @param key
@@ -1238,8 +1241,20 @@ public interface Map<K,V> {
 		 * 
 		 * @j2sNative
 		 * 
-		 * 			return (!map.秘m ? 0 : key != null && typeof key != "string" 
-		 *                ? 1 : map.秘m.has(key) ? 3 : 2); 
+		 * 			var m = map.秘m;
+		 *          if (!m)
+		 *            return 0;
+		 *          var type = m.秘type;
+		 *          if (key == null || (typeof key == "string" ? !type 
+		 *                : !!type && key instanceof type && typeof key.valueOf() != "object"))
+		 *            return (m.has(key) ? 3 : 2);
+		 *          if (m.size > 0 || !map.秘allowNumbers)
+		 *            return 1;
+		 *          m = (typeof key == "string" ? new Map() : C$.秘newNumberMap$O(key));
+		 *          if (!m)
+		 *            return 1;
+		 *          map.秘m = m;
+		 *          return 2;
 		 *
 		 */
 		{
@@ -1247,7 +1262,58 @@ public interface Map<K,V> {
 		}
 	}
 
-	
+	/**
+	 * A stand-in for a JavaScript Map whose keys are all Integer, all Short, all
+	 * Byte, all Character, or all Long, held in a Map keyed by their primitive
+	 * values, so that equal boxes find the same entry. Each entry is a [key,
+	 * value] array holding the first key put, as a Java Node would, so that
+	 * iteration hands back that key rather than creating a new box. A Long whose
+	 * value is not held as a JavaScript number is not allowed.
+	 * 
+	 * @param key the first key
+	 * @return the stand-in, with 秘type the class of key, or null if key is not
+	 *         one of these
+	 */
+	static Object 秘newNumberMap(Object key) {
+		/**
+		 * @j2sNative
+		 * 
+		 * 			var type = (key instanceof Integer ? Integer : key instanceof Short ? Short
+		 *                : key instanceof Byte ? Byte : key instanceof java.lang.Character ? java.lang.Character
+		 *                : key instanceof Long && typeof key.valueOf() == "number" ? Long : null);
+		 *          if (!type)
+		 *            return null;
+		 *          var m = new Map();
+		 *          var v = function(k) { return k == null ? k : k.valueOf() };
+		 *          var part = function(iter, i) {
+		 *            return { next: function() {
+		 *              var n = iter.next();
+		 *              return (n.done ? n : { done: false, value: n.value[i] });
+		 *            }};
+		 *          };
+		 *          return {
+		 *            秘type: type,
+		 *            get size() { return m.size },
+		 *            has: function(k) { return m.has(v(k)) },
+		 *            get: function(k) { var e = m.get(v(k)); return e && e[1] },
+		 *            set: function(k, value) {
+		 *              var e = m.get(v(k));
+		 *              e ? (e[1] = value) : m.set(v(k), [k, value]);
+		 *              return this;
+		 *            },
+		 *            "delete": function(k) { return m["delete"](v(k)) },
+		 *            clear: function() { m.clear() },
+		 *            forEach: function(f) { m.forEach(function(e) { f(e[1], e[0]) }) },
+		 *            entries: function() { return m.values() },
+		 *            keys: function() { return part(m.values(), 0) },
+		 *            values: function() { return part(m.values(), 1) }
+		 *          };
+		 */
+		{
+			return null;
+		}
+	}
+
 	static void 秘set(Map map, Object key, Object value) {
 		/**
 		 * @j2sNative
@@ -215,7 +215,16 @@ class JarFile extends ZipFile {
         return man;
     }
 
-    private native String[] getMetaInfEntryNames();
+    // SwingJS: not native
+    private String[] getMetaInfEntryNames() {
+        List<String> names = new ArrayList<>();
+        for (Enumeration<? extends ZipEntry> e = superEntries(); e.hasMoreElements();) {
+            String name = e.nextElement().getName();
+            if (name.toUpperCase(Locale.ENGLISH).startsWith("META-INF/"))
+                names.add(name);
+        }
+        return (names.isEmpty() ? null : names.toArray(new String[names.size()]));
+    }
 
     /**
      * Returns the <code>JarEntry</code> for the given entry name or
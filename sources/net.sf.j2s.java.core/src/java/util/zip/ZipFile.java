@@ -0,0 +1,95 @@
+package java.util.zip;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javajs.util.ZipArchive;
+
+/**
+ * SwingJS java.util.zip.ZipFile.
+ *
+ * The file is read into memory (it usually is there already in JavaScript),
+ * and then the central directory is read once. Entries are only inflated when
+ * their input stream is asked for. See javajs.util.ZipArchive.
+ *
+ * OPEN_DELETE is ignored.
+ *
+ */
+public class ZipFile implements ZipConstants, Closeable {
+
+	public static final int OPEN_READ = 0x1;
+
+	public static final int OPEN_DELETE = 0x4;
+
+	private final String name;
+	private ZipArchive archive;
+
+	public ZipFile(String name) throws IOException {
+		this(new File(name), OPEN_READ);
+	}
+
+	public ZipFile(File file) throws ZipException, IOException {
+		this(file, OPEN_READ);
+	}
+
+	public ZipFile(File file, int mode) throws IOException {
+		name = file.getPath();
+		FileInputStream fis = new FileInputStream(file);
+		try {
+			archive = new ZipArchive(fis.readAllBytes(), name);
+		} finally {
+			fis.close();
+		}
+	}
+
+	private ZipArchive ensureOpen() {
+		if (archive == null)
+			throw new IllegalStateException("zip file closed");
+		return archive;
+	}
+
+	public ZipEntry getEntry(String name) {
+		if (name == null)
+			throw new NullPointerException("name");
+		ZipEntry e = ensureOpen().getEntry(name);
+		return (e == null && !name.endsWith("/") ? archive.getEntry(name + "/") : e);
+	}
+
+	public InputStream getInputStream(ZipEntry entry) throws IOException {
+		if (entry == null)
+			throw new NullPointerException("entry");
+		return (ensureOpen().getEntry(entry.getName()) == null ? null : archive.getInputStream(entry));
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Enumeration<? extends ZipEntry> entries() {
+		return ensureOpen().entries();
+	}
+
+	public Stream<? extends ZipEntry> stream() {
+		return StreamSupport.stream(Spliterators.spliterator(Collections.list(entries()).iterator(), size(),
+				Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.IMMUTABLE | Spliterator.NONNULL), false);
+	}
+
+	public int size() {
+		return ensureOpen().size();
+	}
+
+	@Override
+	public void close() throws IOException {
+		archive = null;
+	}
+
+}
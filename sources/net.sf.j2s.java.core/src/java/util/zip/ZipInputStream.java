@@ -146,6 +146,7 @@ private boolean isPushback;
 	private void initEntry() {
 		crc.reset();
 		inflater = inf = newInflater();
+		eof = false; // not reset by readEnd if the inflater used up its input exactly
 		if (entry.method == STORED) {
 			remaining = entry.size;
 		}
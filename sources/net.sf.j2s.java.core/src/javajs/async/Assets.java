@@ -1,5 +1,6 @@
 package javajs.async;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -17,6 +18,8 @@ import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
+import javajs.util.RangeZipArchive;
+import javajs.util.ZipArchive;
 import swingjs.api.JSUtilI;
 
 /**
@@ -74,6 +77,13 @@ import swingjs.api.JSUtilI;
  * 
  * If an asset is not found in a zip file, then it will be loaded from its fullPath. 
  * 
+ * With setLazyLoading(true) (or J2S._lazyAssets, j2slazyassets in the page URL),
+ * an http or https zip file asset is not downloaded whole. Only its central
+ * directory is fetched, using HTTP Range requests, and then each entry is
+ * fetched and inflated when getAssetBytes or getAssetStream first asks for it,
+ * and kept within a byte budget (setLazyCacheBudget). A server that does not
+ * do ranges sends the whole file, as before. See javajs.util.RangeZipArchive.
+ * 
  * 
  * 
  * @author hansonr
@@ -108,6 +118,10 @@ public class Assets {
 
 	private static boolean doCacheZipContents = true;
 
+	private static boolean lazyLoading = /** @j2sNative !!J2S._lazyAssets || */false;
+
+	private static long lazyCacheBudget = RangeZipArchive.DEFAULT_BUDGET;
+
 	private static Assets instance = new Assets();
 
 	private Assets() {
@@ -174,7 +188,8 @@ public class Assets {
 	public static URL getAbsoluteURL(String path) {
 		URL url = null;
 		try {
-			url = (path.indexOf("file:") == 0 ? new URL(path) : new File(new File(path).getAbsolutePath()).toURI().toURL());
+			url = (path.indexOf("file:") == 0 || path.indexOf("http:") == 0 || path.indexOf("https:") == 0 ? new URL(path)
+					: new File(new File(path).getAbsolutePath()).toURI().toURL());
 			if (path.indexOf("!/")>=0)
 				url = new URL("jar", null, url.toString());
 		} catch (MalformedURLException e) {
@@ -243,6 +258,31 @@ public class Assets {
 	public static void setDebugging(boolean tf) {
 		debugging = tf;
 	}
+
+	/**
+	 * Fetch only the central directory of http and https zip file assets opened
+	 * from now on, and then their entries as they are needed.
+	 * 
+	 * @param tf
+	 */
+	public static void setLazyLoading(boolean tf) {
+		lazyLoading = tf;
+	}
+
+	public static boolean isLazyLoading() {
+		return lazyLoading;
+	}
+
+	/**
+	 * Set the bytes of inflated entries kept for each lazily loaded zip file
+	 * asset opened from now on.
+	 * 
+	 * @param bytes 0 for no limit
+	 */
+	public static void setLazyCacheBudget(long bytes) {
+		lazyCacheBudget = Math.max(0, bytes);
+	}
+
 	/**
 	 * Completely reset the assets data.
 	 * 
@@ -351,7 +391,9 @@ public class Assets {
 	 * @return
 	 */
 	private static byte[] getAssetBytes(String path, boolean zipOnly) {
-		byte[] bytes = null;
+		byte[] bytes = getLazyAssetBytes(path);
+		if (bytes != null)
+			return bytes;
 		URL url = null;
 		try {
 			url = getInstance()._getURLFromPath(path, true);
@@ -401,6 +443,9 @@ public class Assets {
 	 * @return
 	 */
 	private static InputStream getAssetStream(String path, boolean zipOnly) {
+		byte[] bytes = getLazyAssetBytes(path);
+		if (bytes != null)
+			return new ByteArrayInputStream(bytes);
 		URL url = null;
 		url = getInstance()._getURLFromPath(path, true);
 		if (url == null && !zipOnly) {
@@ -412,6 +457,31 @@ public class Assets {
 		}
 		return null;
 	}
+
+	/**
+	 * Get the bytes of an entry of a lazily loaded zip file asset directly from
+	 * its archive, which fetches, inflates, and caches them.
+	 * 
+	 * @param path
+	 * @return the bytes, or null if not lazy loading or not in such an asset
+	 */
+	private static byte[] getLazyAssetBytes(String path) {
+		if (!lazyLoading)
+			return null;
+		try {
+			ZipEntry ze = findZipEntry(getInstance().getAssetURL(path));
+			if (ze instanceof ZipArchive.Entry && ((ZipArchive.Entry) ze).getArchive() instanceof RangeZipArchive) {
+				byte[] bytes = ((ZipArchive.Entry) ze).getBytes();
+				if (debugging) {
+					System.out.println("Assets.getLazyAssetBytes " + path + (bytes == null ? " null" : " " + bytes.length + " bytes"));
+				}
+				return bytes;
+			}
+		} catch (MalformedURLException e) {
+		}
+		return null;
+	}
+
 	/**
 	 * Determine the path to an asset. If not found in a zip file asset, return the
 	 * absolute path to this resource.
@@ -438,24 +508,17 @@ public class Assets {
 	private URL _getURLFromPath(String fullPath, boolean zipOnly) {
 		URL url = null;
 		try {
-			if (!fullPath.startsWith("/TEMP/")) {
-				if (fullPath.startsWith("/"))
-					fullPath = fullPath.substring(1);
-				for (int i = sortedList.length; --i >= 0;) {
-					if (fullPath.startsWith(sortedList[i])) {
-						url = assetsByPath.get(sortedList[i]).getURL(fullPath);
-						ZipEntry ze = findZipEntry(url);
-						if (ze == null) {
-							url = null;
-							break;
-						}
-						if (isJS) {
-							jsutil.setURLBytes(url, jsutil.getZipBytes(ze));
-						}
-						break;
-					}
+			url = getAssetURL(fullPath);
+			if (url != null) {
+				ZipEntry ze = findZipEntry(url);
+				if (ze == null) {
+					url = null;
+				} else if (isJS) {
+					jsutil.setURLBytes(url, jsutil.getZipBytes(ze));
 				}
 			}
+			if (fullPath.startsWith("/") && !fullPath.startsWith("/TEMP/"))
+				fullPath = fullPath.substring(1);
 			if (url == null && !zipOnly)
 				url = getAbsoluteURL((fullPath.startsWith("TEMP/") ? "/" + fullPath : fullPath));
 		} catch (MalformedURLException e) {
@@ -466,6 +529,25 @@ public class Assets {
 		return url;
 	}
 
+	/**
+	 * The jar URL of a path in the zip file asset that covers it.
+	 * 
+	 * @param fullPath
+	 * @return the URL, or null if no asset covers this path
+	 * @throws MalformedURLException
+	 */
+	private URL getAssetURL(String fullPath) throws MalformedURLException {
+		if (fullPath.startsWith("/TEMP/"))
+			return null;
+		if (fullPath.startsWith("/"))
+			fullPath = fullPath.substring(1);
+		for (int i = sortedList.length; --i >= 0;) {
+			if (fullPath.startsWith(sortedList[i]))
+				return assetsByPath.get(sortedList[i]).getURL(fullPath);
+		}
+		return null;
+	}
+
 	public static ZipEntry findZipEntry(URL url) {
 		if (url == null)
 			return null;
@@ -509,6 +591,13 @@ public class Assets {
 		if (fileNames != null)
 			return fileNames;
 		try {
+			if (lazyLoading && url.getProtocol().startsWith("http") && (!isJS || jsutil.getURLBytes(url) == null)) {
+				try {
+					return readZipContentsLazily(url);
+				} catch (IOException e) {
+					System.out.println("Assets: " + e + "; reading all of " + url);
+				}
+			}
 			// Scan URL zip stream for files.
 			return readZipContents(url.openStream(), url);
 		} catch (Exception ex) {
@@ -576,9 +665,28 @@ public class Assets {
 		HashMap<String, ZipEntry> fileNames = new HashMap<String, ZipEntry>();
 		if (doCacheZipContents)
 			htZipContents.put(url.toString(), fileNames);
+		int n = 0;
+		if (isJS) {
+			// Read just the central directory. Entries are inflated individually by
+			// ZipEntry.getBytes() (JSUtil.getZipBytes) when they are first needed.
+			byte[] bytes = jsutil.readAllBytes(is);
+			is.close();
+			ZipArchive zip = ZipArchive.newArchive(bytes, url.toString());
+			if (zip != null) {
+				for (String fileName : zip.getEntryNames()) {
+					ZipEntry zipEntry = zip.getEntry(fileName);
+					if (zipEntry.isDirectory() || zipEntry.getSize() == 0)
+						continue;
+					n++;
+					fileNames.put(fileName, zipEntry);
+				}
+				System.out.println("Assets: " + n + " zip entries found in " + url + " (" + bytes.length + " bytes)"); //$NON-NLS-1$
+				return fileNames;
+			}
+			is = new ByteArrayInputStream(bytes);
+		}
 		ZipInputStream input = new ZipInputStream(is);
 		ZipEntry zipEntry = null;
-		int n = 0;
 		while ((zipEntry = input.getNextEntry()) != null) {
 			if (zipEntry.isDirectory() || zipEntry.getSize() == 0)
 				continue;
@@ -591,6 +699,32 @@ public class Assets {
 		return fileNames;
 	}
 
+	/**
+	 * Read just the central directory of a zip file on a server, using a Range
+	 * request if the server allows that.
+	 * 
+	 * @param url
+	 * @return entries by name
+	 * @throws IOException
+	 */
+	private Map<String, ZipEntry> readZipContentsLazily(URL url) throws IOException {
+		RangeZipArchive zip = new RangeZipArchive(url, lazyCacheBudget);
+		HashMap<String, ZipEntry> fileNames = new HashMap<String, ZipEntry>();
+		if (doCacheZipContents)
+			htZipContents.put(url.toString(), fileNames);
+		int n = 0;
+		for (String fileName : zip.getEntryNames()) {
+			ZipEntry zipEntry = zip.getEntry(fileName);
+			if (zipEntry.isDirectory() || zipEntry.getSize() == 0)
+				continue;
+			n++;
+			fileNames.put(fileName, zipEntry);
+		}
+		System.out.println("Assets: " + n + " zip entries found in " + url + " (" + zip.getByteCount() + " bytes"
+				+ (zip.isRanged() ? " of central directory)" : ")")); //$NON-NLS-1$
+		return fileNames;
+	}
+
 	private void resort() {
 		sortedList = new String[assetsByPath.size()];
 		int i = 0;
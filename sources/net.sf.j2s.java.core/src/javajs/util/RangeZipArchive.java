@@ -0,0 +1,232 @@
+package javajs.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * A ZipArchive on a web server, read with HTTP Range requests.
+ *
+ * Only the end of the file is fetched at first -- enough for the end of
+ * central directory record and, for most asset files, the whole central
+ * directory. The data of an entry is fetched (from its local header to the
+ * next one) and inflated the first time it is asked for, and the inflated
+ * bytes are kept, least recently used dropped first, within a byte budget.
+ *
+ * A server that ignores the Range header sends the whole file, and then this
+ * is an ordinary ZipArchive over those bytes, still with the cache.
+ *
+ * In JavaScript the requests are synchronous, through J2S.getRange, since
+ * AjaxURLConnection does not send request headers.
+ *
+ */
+public class RangeZipArchive extends ZipArchive {
+
+	public final static long DEFAULT_BUDGET = 16L << 20;
+
+	/**
+	 * end of central directory record, its largest comment, and the ZIP64 end
+	 * record and locator
+	 */
+	private final static int TAIL_SIZE = 22 + 0xFFFF + 56 + 20;
+
+	private final URL url;
+
+	private long budget;
+
+	/**
+	 * inflated bytes by entry name, least recently used first
+	 */
+	private final LinkedHashMap<String, byte[]> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long nCached;
+
+	private int nRequests, nHits, nMisses, nEvictions;
+
+	private long nBytesFetched;
+
+	/**
+	 * status and Content-Range of the last request
+	 */
+	private int status;
+
+	private String contentRange;
+
+	/**
+	 * Fetch the end of the file and read the central directory.
+	 *
+	 * @param url    an http or https URL
+	 * @param budget bytes of inflated entries to keep; 0 for no limit
+	 * @throws IOException if the file cannot be read or is not a zip file
+	 */
+	public RangeZipArchive(URL url, long budget) throws IOException {
+		super(url.toString());
+		this.url = url;
+		this.budget = Math.max(0, budget);
+		byte[] tail = fetch("bytes=-" + TAIL_SIZE);
+		long start = 0;
+		if (status == 206) {
+			// bytes a-b/total, where total may be *
+			long total = -1;
+			int pt = (contentRange == null ? -1 : contentRange.indexOf('/'));
+			if (pt >= 0) {
+				try {
+					total = Long.parseLong(contentRange.substring(pt + 1).trim());
+				} catch (NumberFormatException e) {
+				}
+			}
+			start = (total < 0 ? -1 : total - tail.length);
+		}
+		readCentralDirectory(tail, start);
+	}
+
+	/**
+	 *
+	 * @return true if the server sent just the end of the file
+	 */
+	public boolean isRanged() {
+		return isPartial();
+	}
+
+	/**
+	 *
+	 * @param bytes 0 for no limit
+	 */
+	public void setBudget(long bytes) {
+		synchronized (cache) {
+			budget = Math.max(0, bytes);
+			trim(null);
+		}
+	}
+
+	public long getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Get the bytes of an entry from the cache, or fetch and inflate them.
+	 */
+	@Override
+	public byte[] getBytes(ZipEntry ze) throws IOException {
+		String name = ze.getName();
+		byte[] b;
+		synchronized (cache) {
+			b = cache.get(name);
+			if (b != null) {
+				nHits++;
+				return b;
+			}
+			nMisses++;
+		}
+		b = super.getBytes(ze);
+		if (b.length > 0) {
+			synchronized (cache) {
+				if (cache.put(name, b) == null)
+					nCached += b.length;
+				trim(name);
+			}
+		}
+		return b;
+	}
+
+	/**
+	 * Drop least recently used entries until the cache is within its budget.
+	 *
+	 * @param keep the entry just added, or null
+	 */
+	private void trim(String keep) {
+		if (budget == 0 || nCached <= budget)
+			return;
+		for (Iterator<Map.Entry<String, byte[]>> it = cache.entrySet().iterator(); it.hasNext() && nCached > budget;) {
+			Map.Entry<String, byte[]> e = it.next();
+			if (e.getKey().equals(keep))
+				continue;
+			nCached -= e.getValue().length;
+			nEvictions++;
+			it.remove();
+		}
+	}
+
+	@Override
+	protected synchronized byte[] readRange(long pos, int len) throws IOException {
+		byte[] b = fetch("bytes=" + pos + "-" + (pos + len - 1));
+		if (status != 206 || b.length != len)
+			throw new ZipException(
+					"expected " + len + " bytes at " + pos + " but found " + b.length + " (status " + status + ") in " + url);
+		return b;
+	}
+
+	/**
+	 * One GET with a Range header. A status other than 206 means the server has
+	 * sent the whole file.
+	 *
+	 * @param range
+	 * @return the bytes sent
+	 * @throws IOException
+	 */
+	@SuppressWarnings("unused")
+	private synchronized byte[] fetch(String range) throws IOException {
+		nRequests++;
+		byte[] b = null;
+		String surl = url.toString();
+		/**
+		 * @j2sNative
+		 *
+		 *            var r = J2S.getRange(surl, range);
+		 *            if (r) {
+		 *              this.status = r.status;
+		 *              this.contentRange = r.contentRange;
+		 *              b = r.bytes;
+		 *            }
+		 */
+		{
+			URLConnection conn = url.openConnection();
+			conn.setRequestProperty("Range", range);
+			InputStream is = conn.getInputStream();
+			try {
+				status = (conn instanceof HttpURLConnection ? ((HttpURLConnection) conn).getResponseCode() : 200);
+				contentRange = conn.getHeaderField("Content-Range");
+				b = Rdr.getLimitedStreamBytes(is, -1);
+			} finally {
+				is.close();
+			}
+		}
+		if (b == null)
+			throw new IOException("RangeZipArchive could not read " + url);
+		nBytesFetched += b.length;
+		return b;
+	}
+
+	/**
+	 *
+	 * @return requests, bytesFetched, hits, misses, evictions, bytes (inflated
+	 *         bytes held), budget, ranged (1 if the server sent ranges)
+	 */
+	public Map<String, Long> getCacheStatistics() {
+		Map<String, Long> m = new LinkedHashMap<>();
+		synchronized (cache) {
+			m.put("requests", Long.valueOf(nRequests));
+			m.put("bytesFetched", Long.valueOf(nBytesFetched));
+			m.put("hits", Long.valueOf(nHits));
+			m.put("misses", Long.valueOf(nMisses));
+			m.put("evictions", Long.valueOf(nEvictions));
+			m.put("bytes", Long.valueOf(nCached));
+			m.put("budget", Long.valueOf(budget));
+			m.put("ranged", Long.valueOf(isPartial() ? 1 : 0));
+		}
+		return m;
+	}
+
+	@Override
+	public String toString() {
+		return "[RangeZipArchive " + url + " " + size() + " entries" + (isPartial() ? " ranged" : "") + "]";
+	}
+
+}
@@ -0,0 +1,522 @@
+package javajs.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
+
+/**
+ * A read-only, random-access zip file over a byte array, in the manner of
+ * java.util.zip.ZipFile.
+ *
+ * The central directory at the end of the file is read once, when the
+ * archive is created, and its entries are indexed by name. Nothing is inflated
+ * until the bytes of a particular entry are asked for, and then only that
+ * entry is inflated. This is much faster than ZipInputStream.getNextEntry()
+ * for large asset files, which must inflate or skip every entry in front of
+ * the one that is wanted.
+ *
+ * Data in front of the zip data (as in a PNGJ file or a self-extracting
+ * archive) and ZIP64 archives are allowed.
+ *
+ * Entries are ZipArchive.Entry, so in SwingJS ZipEntry.getBytes() (and so
+ * JSUtil.getZipBytes(ZipEntry)) works for them as well.
+ *
+ * A subclass may hold just the end of the file -- its central directory -- and
+ * read the rest as it is needed, through readRange. See RangeZipArchive.
+ *
+ */
+public class ZipArchive {
+
+	private final static int LOCSIG = 0x04034b50;
+	private final static int CENSIG = 0x02014b50;
+	private final static int ENDSIG = 0x06054b50;
+	private final static int ZIP64_ENDSIG = 0x06064b50;
+	private final static int ZIP64_LOCSIG = 0x07064b50;
+
+	private final static int LOCHDR = 30;
+	private final static int CENHDR = 46;
+	private final static int ENDHDR = 22;
+
+	/**
+	 * An entry that knows where its data is.
+	 */
+	public static class Entry extends ZipEntry {
+
+		ZipArchive archive;
+
+		/**
+		 * offset of the local header in the archive bytes
+		 */
+		int locOffset;
+
+		Entry(String name) {
+			super(name);
+		}
+
+		public ZipArchive getArchive() {
+			return archive;
+		}
+
+		/**
+		 * The inflated bytes of this entry; in SwingJS this overrides
+		 * ZipEntry.getBytes().
+		 *
+		 * @return the bytes, or null if they cannot be read
+		 */
+		public byte[] getBytes() {
+			try {
+				return archive.getBytes(this);
+			} catch (IOException e) {
+				System.out.println("ZipArchive could not read " + getName() + " " + e);
+				return null;
+			}
+		}
+	}
+
+	private byte[] bytes;
+	private final String name;
+	private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+
+	/**
+	 * the position of byte 0 of the zip data in bytes[]
+	 */
+	private int base;
+
+	/**
+	 * for a partial archive, the position of bytes[0] in the file; -1 if not
+	 * known yet
+	 */
+	private long start;
+
+	private boolean isPartial;
+
+	/**
+	 * sorted local header offsets and then the central directory offset, for
+	 * finding where the data of an entry ends in a partial archive
+	 */
+	private int[] locOffsets;
+
+	/**
+	 * the central directory offset, relative to the zip data
+	 */
+	private int cenOffset;
+
+	private long nBytesInflated;
+	private int nInflated;
+
+	/**
+	 * Read the central directory.
+	 *
+	 * @param bytes the full zip file
+	 * @param name  for messages; may be null
+	 * @throws IOException if this is not a zip file or its central directory is
+	 *                     damaged
+	 */
+	public ZipArchive(byte[] bytes, String name) throws IOException {
+		this.bytes = bytes;
+		this.name = (name == null ? "zip" : name);
+		readCentralDirectory();
+	}
+
+	/**
+	 * For a subclass, which calls readCentralDirectory(bytes, start) once it is
+	 * ready to read ranges.
+	 *
+	 * @param name
+	 */
+	protected ZipArchive(String name) {
+		this.name = (name == null ? "zip" : name);
+	}
+
+	/**
+	 * Read the central directory from the end of the file, reading more of it
+	 * with readRange if the central directory starts before these bytes.
+	 *
+	 * @param bytes the end of the file, or all of it
+	 * @param start the position of bytes[0] in the file: 0 for the full file, or
+	 *              -1 if not known, in which case there must be nothing in front
+	 *              of the zip data
+	 * @throws IOException
+	 */
+	protected void readCentralDirectory(byte[] bytes, long start) throws IOException {
+		this.bytes = bytes;
+		this.start = start;
+		isPartial = (start != 0);
+		readCentralDirectory();
+	}
+
+	/**
+	 * Read part of the file that this archive does not hold. Only a partial
+	 * archive needs this.
+	 *
+	 * @param pos position in the file
+	 * @param len
+	 * @return exactly len bytes
+	 * @throws IOException
+	 */
+	protected byte[] readRange(long pos, int len) throws IOException {
+		throw new ZipException("no data at " + pos + " in " + name);
+	}
+
+	/**
+	 *
+	 * @return true if this archive holds only the end of the file
+	 */
+	public boolean isPartial() {
+		return isPartial;
+	}
+
+	/**
+	 * Create an archive from the bytes if they look like zip data with a central
+	 * directory, or return null.
+	 *
+	 * @param bytes
+	 * @param name
+	 * @return the archive or null
+	 */
+	public static ZipArchive newArchive(byte[] bytes, String name) {
+		if (bytes == null || !Rdr.isZipB(bytes) && !Rdr.isPngZipB(bytes))
+			return null;
+		try {
+			return new ZipArchive(bytes, name);
+		} catch (IOException e) {
+			System.out.println("ZipArchive " + e.getMessage());
+			return null;
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 *
+	 * @return the size of the archive bytes held
+	 */
+	public int getByteCount() {
+		return bytes.length;
+	}
+
+	/**
+	 *
+	 * @return {number of entries inflated or copied, total bytes}
+	 */
+	public long[] getStatistics() {
+		return new long[] { nInflated, nBytesInflated };
+	}
+
+	public Entry getEntry(String name) {
+		return entries.get(name);
+	}
+
+	/**
+	 *
+	 * @return entries in central directory order
+	 */
+	public Enumeration<? extends ZipEntry> entries() {
+		return Collections.enumeration(entries.values());
+	}
+
+	/**
+	 *
+	 * @return entry names in central directory order
+	 */
+	public List<String> getEntryNames() {
+		return new ArrayList<String>(entries.keySet());
+	}
+
+	/**
+	 * Get the bytes of an entry.
+	 *
+	 * @param name
+	 * @return the bytes, or null if there is no such entry
+	 * @throws IOException
+	 */
+	public byte[] getBytes(String name) throws IOException {
+		Entry e = entries.get(name);
+		return (e == null ? null : getBytes(e));
+	}
+
+	/**
+	 * Get the bytes of an entry, inflating just this entry.
+	 *
+	 * @param ze an entry of this archive
+	 * @return the bytes
+	 * @throws IOException
+	 */
+	public byte[] getBytes(ZipEntry ze) throws IOException {
+		Entry e = (ze instanceof Entry && ((Entry) ze).archive == this ? (Entry) ze : entries.get(ze.getName()));
+		if (e == null)
+			throw new ZipException("no entry " + ze.getName() + " in " + name);
+		int size = (int) e.getSize();
+		if (e.isDirectory() || size == 0)
+			return new byte[0];
+		byte[] buf = bytes;
+		int pt = base + e.locOffset;
+		if (pt < 0 && isPartial) {
+			buf = readRange(start + pt, getLocalLength(e));
+			pt = 0;
+		}
+		if (pt < 0 || pt + LOCHDR > buf.length || get32(buf, pt) != LOCSIG)
+			throw new ZipException("bad local header for " + e.getName() + " in " + name);
+		int dataOffset = pt + LOCHDR + get16(buf, pt + 26) + get16(buf, pt + 28);
+		int csize = (int) e.getCompressedSize();
+		if (dataOffset + csize > buf.length)
+			throw new ZipException("truncated entry " + e.getName() + " in " + name);
+		byte[] b;
+		switch (e.getMethod()) {
+		case ZipEntry.STORED:
+			b = new byte[size];
+			System.arraycopy(buf, dataOffset, b, 0, size);
+			break;
+		case ZipEntry.DEFLATED:
+			b = inflate(buf, pt, size);
+			break;
+		default:
+			throw new ZipException("unsupported compression method " + e.getMethod() + " for " + e.getName());
+		}
+		nInflated++;
+		nBytesInflated += size;
+		return b;
+	}
+
+	/**
+	 * Get a stream for an entry, as ZipFile.getInputStream(ZipEntry).
+	 *
+	 * @param ze
+	 * @return the stream
+	 * @throws IOException
+	 */
+	public InputStream getInputStream(ZipEntry ze) throws IOException {
+		return new ByteArrayInputStream(getBytes(ze));
+	}
+
+	/**
+	 * The length of an entry from its local header to the next local header (or
+	 * the central directory), which includes the local extra field and any data
+	 * descriptor.
+	 *
+	 * @param e
+	 * @return the length
+	 */
+	private int getLocalLength(Entry e) {
+		if (locOffsets == null) {
+			int[] a = new int[entries.size() + 1];
+			int i = 0;
+			for (Entry en : entries.values())
+				a[i++] = en.locOffset;
+			a[i] = cenOffset;
+			Arrays.sort(a);
+			locOffsets = a;
+		}
+		int i = Arrays.binarySearch(locOffsets, e.locOffset);
+		while (i + 1 < locOffsets.length && locOffsets[i + 1] == e.locOffset)
+			i++;
+		return (i + 1 < locOffsets.length ? locOffsets[i + 1] : cenOffset) - e.locOffset;
+	}
+
+	/**
+	 * Inflate one entry, reading from its local header. ZipInputStream is used
+	 * rather than Inflater because it is the same in Java and in SwingJS.
+	 *
+	 * @param buf
+	 * @param pt   the local header
+	 * @param size
+	 * @return the inflated bytes
+	 * @throws IOException
+	 */
+	private byte[] inflate(byte[] buf, int pt, int size) throws IOException {
+		ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(buf, pt, buf.length - pt));
+		try {
+			if (zis.getNextEntry() == null)
+				throw new ZipException("no local header at " + pt + " in " + name);
+			byte[] b = new byte[size];
+			int n = 0, len;
+			while (n < size && (len = zis.read(b, n, size - n)) > 0)
+				n += len;
+			if (n != size)
+				throw new ZipException("expected " + size + " bytes but found " + n + " in " + name);
+			return b;
+		} finally {
+			zis.close();
+		}
+	}
+
+	private void readCentralDirectory() throws IOException {
+		int end = findEnd();
+		if (end < 0)
+			throw new ZipException("no central directory in " + name);
+		long nEntries = get16(end + 10);
+		long cenSize = get32(end + 12) & 0xFFFFFFFFL;
+		long cenOffset = get32(end + 16) & 0xFFFFFFFFL;
+		int cenEnd = end;
+		if (nEntries == 0xFFFF || cenSize == 0xFFFFFFFFL || cenOffset == 0xFFFFFFFFL) {
+			// ZIP64: the locator is just before the end record
+			int loc = end - 20;
+			if (loc >= 0 && get32(loc) == ZIP64_LOCSIG) {
+				int end64 = loc - 56;
+				while (end64 >= 0 && get32(end64) != ZIP64_ENDSIG)
+					end64--; // there may be an extensible data sector
+				if (end64 < 0)
+					throw new ZipException("no ZIP64 end record in " + name);
+				nEntries = get64(end64 + 32);
+				cenSize = get64(end64 + 40);
+				cenOffset = get64(end64 + 48);
+				cenEnd = end64;
+			}
+		}
+		if (cenSize > Integer.MAX_VALUE || cenOffset > Integer.MAX_VALUE)
+			throw new ZipException("bad central directory in " + name);
+		int cenStart = (int) (cenEnd - cenSize);
+		if (isPartial) {
+			if (start < 0)
+				start = cenOffset - cenStart;
+			if (cenStart < 0) {
+				// the central directory starts in front of the bytes we have
+				byte[] b = new byte[bytes.length - cenStart];
+				System.arraycopy(readRange(start + cenStart, -cenStart), 0, b, 0, -cenStart);
+				System.arraycopy(bytes, 0, b, -cenStart, bytes.length);
+				bytes = b;
+				start += cenStart;
+				cenEnd -= cenStart;
+				cenStart = 0;
+			}
+		}
+		// allow for data in front of the zip data
+		base = (int) (cenStart - cenOffset);
+		if ((isPartial ? start + base : base) < 0)
+			throw new ZipException("bad central directory in " + name);
+		this.cenOffset = (int) cenOffset;
+		int pt = cenStart;
+		for (long i = 0; i < nEntries; i++) {
+			if (pt + CENHDR > cenEnd || get32(pt) != CENSIG)
+				throw new ZipException("bad central directory entry " + i + " in " + name);
+			int nameLen = get16(pt + 28);
+			int extraLen = get16(pt + 30);
+			int commentLen = get16(pt + 32);
+			Entry e = new Entry(getString(pt + CENHDR, nameLen));
+			e.archive = this;
+			e.setMethod(get16(pt + 10));
+			e.setTime(dosToJavaTime(get32(pt + 12) & 0xFFFFFFFFL));
+			e.setCrc(get32(pt + 16) & 0xFFFFFFFFL);
+			long csize = get32(pt + 20) & 0xFFFFFFFFL;
+			long size = get32(pt + 24) & 0xFFFFFFFFL;
+			long off = get32(pt + 42) & 0xFFFFFFFFL;
+			if (extraLen > 0) {
+				byte[] extra = new byte[extraLen];
+				System.arraycopy(bytes, pt + CENHDR + nameLen, extra, 0, extraLen);
+				e.setExtra(extra);
+				if (size == 0xFFFFFFFFL || csize == 0xFFFFFFFFL || off == 0xFFFFFFFFL) {
+					long[] v = new long[] { size, csize, off };
+					readZip64Extra(pt + CENHDR + nameLen, extraLen, v);
+					size = v[0];
+					csize = v[1];
+					off = v[2];
+				}
+			}
+			if (size > Integer.MAX_VALUE || csize > Integer.MAX_VALUE || off > Integer.MAX_VALUE)
+				throw new ZipException("entry " + e.getName() + " is too large in " + name);
+			e.setSize(size);
+			e.setCompressedSize(csize);
+			e.locOffset = (int) off;
+			if (commentLen > 0)
+				e.setComment(getString(pt + CENHDR + nameLen + extraLen, commentLen));
+			entries.put(e.getName(), e);
+			pt += CENHDR + nameLen + extraLen + commentLen;
+		}
+	}
+
+	/**
+	 * Find the end of central directory record, which is followed only by the
+	 * archive comment.
+	 *
+	 * @return its position or -1
+	 */
+	private int findEnd() {
+		int min = Math.max(0, bytes.length - ENDHDR - 0xFFFF);
+		for (int pt = bytes.length - ENDHDR; pt >= min; pt--) {
+			if (get32(pt) == ENDSIG && pt + ENDHDR + get16(pt + 20) == bytes.length)
+				return pt;
+		}
+		return -1;
+	}
+
+	/**
+	 * Replace 0xFFFFFFFF values with those from the ZIP64 extra field, in order.
+	 *
+	 * @param pt
+	 * @param len
+	 * @param v   {size, csize, offset}
+	 */
+	private void readZip64Extra(int pt, int len, long[] v) {
+		int end = pt + len;
+		while (pt + 4 <= end) {
+			int tag = get16(pt);
+			int n = get16(pt + 2);
+			pt += 4;
+			if (tag == 1) {
+				int p = pt;
+				for (int i = 0; i < 3; i++) {
+					if (v[i] == 0xFFFFFFFFL && p + 8 <= pt + n) {
+						v[i] = get64(p);
+						p += 8;
+					}
+				}
+				return;
+			}
+			pt += n;
+		}
+	}
+
+	private String getString(int pt, int len) throws IOException {
+		// UTF-8 whatever flag bit 11 says, as ZipInputStream does
+		return new String(bytes, pt, len, "UTF-8");
+	}
+
+	private int get16(int pt) {
+		return get16(bytes, pt);
+	}
+
+	private int get32(int pt) {
+		return get32(bytes, pt);
+	}
+
+	private static int get16(byte[] b, int pt) {
+		return (b[pt] & 0xFF) | ((b[pt + 1] & 0xFF) << 8);
+	}
+
+	private static int get32(byte[] b, int pt) {
+		return get16(b, pt) | (get16(b, pt + 2) << 16);
+	}
+
+	private long get64(int pt) {
+		return (get32(pt) & 0xFFFFFFFFL) | ((long) get32(pt + 4) << 32);
+	}
+
+	@SuppressWarnings("deprecation")
+	private static long dosToJavaTime(long dtime) {
+		return new java.util.Date((int) (((dtime >> 25) & 0x7f) + 80), (int) (((dtime >> 21) & 0x0f) - 1),
+				(int) ((dtime >> 16) & 0x1f), (int) ((dtime >> 11) & 0x1f), (int) ((dtime >> 5) & 0x3f),
+				(int) ((dtime << 1) & 0x3e)).getTime();
+	}
+
+	@Override
+	public String toString() {
+		return "[ZipArchive " + name + " " + entries.size() + " entries " + bytes.length + " bytes]";
+	}
+
+}
@@ -29,6 +29,7 @@
 package javajs.util;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -161,15 +162,25 @@ public class ZipTools {
       if (Rdr.isTar(bis))
         return getTarContents(bis, fileName, null);
       bis = getPngZipStream(bis, true);
-      ZipInputStream zis = newZIS(bis);
-      ZipEntry ze;
-      while ((ze = zis.getNextEntry()) != null) {
-        if (!fileName.equals(ze.getName()))
-          continue;
-        byte[] bytes = Rdr.getLimitedStreamBytes(zis, ze.getSize());
+      // read the central directory and inflate just this entry
+      byte[] zipBytes = Rdr.getLimitedStreamBytes(bis, -1);
+      ZipArchive zip = ZipArchive.newArchive(zipBytes, fileName);
+      byte[] bytes = null;
+      if (zip != null) {
+        bytes = zip.getBytes(fileName);
+      } else {
+        ZipInputStream zis = newZIS(Rdr.getBIS(zipBytes));
+        ZipEntry ze;
+        while ((ze = zis.getNextEntry()) != null) {
+          if (fileName.equals(ze.getName())) {
+            bytes = Rdr.getLimitedStreamBytes(zis, ze.getSize());
+            break;
+          }
+        }
+      }
+      if (bytes != null)
         return ((Rdr.isZipB(bytes) || Rdr.isPngZipB(bytes)) && ++listPtr < list.length ? getZipFileContentsAsBytes(
             Rdr.getBIS(bytes), list, listPtr) : bytes);
-      }
     } catch (Exception e) {
     }
     return ret;
@@ -541,6 +552,52 @@ public class ZipTools {
     return listing.toString();
   }
 
+  /**
+   * Read the central directory of a zip file and put its entries into a cache
+   * without inflating them. The cache values are ZipArchive.Entry, which
+   * (in SwingJS) the user of the cache inflates with ZipEntry.getBytes() when
+   * it is needed.
+   * 
+   * @param is
+   *        the zip data, which is read and closed
+   * @param prefix
+   *        added to each entry name, as "/" or "swingjs/j2s/"; may be null
+   * @param cache
+   * @return the listing, one name per line, or null if this is not a zip file
+   *         with a central directory, in which case the data is cached
+   *         using cacheZipContents
+   */
+  public static String cacheZipContentsLazily(InputStream is, String prefix,
+                                              Map<String, Object> cache) {
+    byte[] bytes;
+    try {
+      bytes = Rdr.getLimitedStreamBytes(is, -1);
+      is.close();
+    } catch (IOException e) {
+      return null;
+    }
+    ZipArchive zip = ZipArchive.newArchive(bytes, prefix);
+    if (zip == null)
+      return cacheZipContentsStatic(
+          new BufferedInputStream(new ByteArrayInputStream(bytes)), prefix,
+          cache, false);
+    if (prefix == null)
+      prefix = "";
+    SB listing = new SB();
+    int n = 0;
+    for (String name : zip.getEntryNames()) {
+      ZipEntry ze = zip.getEntry(name);
+      if (ze.isDirectory())
+        continue;
+      cache.put(prefix + name, ze);
+      listing.append(name).appendC('\n');
+      n++;
+    }
+    System.out.println("ZipTools indexed " + n + " entries (" + bytes.length
+        + " bytes) from " + prefix);
+    return listing.toString();
+  }
+
   /**
    * 
    * @param bis
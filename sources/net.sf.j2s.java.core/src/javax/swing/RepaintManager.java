@@ -46,6 +46,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -183,6 +184,49 @@ public class RepaintManager {
 	 */
 	private final ProcessingRunnable processingRunnable;
 
+	/**
+	 * SwingJS: Dirty regions are painted at the next animation frame, however
+	 * many repaint requests come in before it, rather than by an event of their
+	 * own. Revalidation still goes through processingRunnable, in order with
+	 * other events. J2S._syncPaint (j2ssyncpaint in the URL) or
+	 * setPaintOnAnimationFrame(false) turns this off.
+	 */
+	private boolean paintOnFrame = !JSToolkit.checkJ2SFlag("_syncPaint");
+
+	private boolean framePending;
+
+	private final Runnable frameRunnable = new Runnable() {
+
+		@Override
+		public void run() {
+			framePending = false;
+			int paints = nPaints;
+			long pixels = nPixels;
+			scheduleHeavyWeightPaints();
+			validateInvalidComponents();
+			prePaintDirtyRegions();
+			paints = nPaints - paints;
+			pixels = nPixels - pixels;
+			nFrames++;
+			lastFramePaints = paints;
+			lastFramePixels = pixels;
+			if (paints > maxFramePaints)
+				maxFramePaints = paints;
+			if (pixels > maxFramePixels)
+				maxFramePixels = pixels;
+			if (JSToolkit.checkJ2SFlag("_debugPaint"))
+				System.out.println("RepaintManager frame " + nFrames + ": " + paints + " paints, " + pixels + " pixels");
+		}
+
+	};
+
+	/**
+	 * SwingJS: repaint requests, components painted, pixels painted, and frames
+	 */
+	private int nRequests, nPaints, nFrames, lastFramePaints, maxFramePaints;
+
+	private long nPixels, lastFramePixels, maxFramePixels;
+
 	Component myComponent;
 
 	// private final static JavaSecurityAccess javaSecurityAccess = SharedSecrets
@@ -456,6 +500,7 @@ public class RepaintManager {
 				|| c.getWidth() <= 0 || c.getHeight() <= 0)
 			return;
 
+		nRequests++;
 		if (extendDirtyRegion(c, x, y, w, h)) {
 			// Component was already marked as dirty, region has been
 			// extended, no need to continue.
@@ -504,7 +549,10 @@ public class RepaintManager {
 		// Queue a Runnable to invoke paintDirtyRegions and
 		// validateInvalidComponents.
 
-		scheduleProcessingRunnable(c);
+		if (paintOnFrame)
+			schedulePaintOnFrame();
+		else
+			scheduleProcessingRunnable(c);
 	}
 
 	/**
@@ -855,6 +903,8 @@ public class RepaintManager {
 				int localBoundsW = dirtyComponent.getWidth();
 				SwingUtilities.computeIntersection(0, 0, localBoundsW, localBoundsH,
 						rect);
+				nPaints++;
+				nPixels += rect.width * rect.height;
 				if (isStandardJComponent(dirtyComponent)) {
 					((JComponent) dirtyComponent).paintImmediately(rect.x, rect.y,
 							rect.width, rect.height);
@@ -1423,6 +1473,53 @@ public class RepaintManager {
 		scheduleProcessingRunnable(c.getAppContext());
 	}
 
+	private void schedulePaintOnFrame() {
+		if (framePending)
+			return;
+		framePending = true;
+		JSToolkit.dispatchOnFrame(frameRunnable);
+	}
+
+	/**
+	 * SwingJS: Paint dirty regions at the next animation frame (the default), or
+	 * as soon as possible, in order with other events, as Java does.
+	 * 
+	 * @param b
+	 */
+	public void setPaintOnAnimationFrame(boolean b) {
+		paintOnFrame = b;
+	}
+
+	public boolean isPaintOnAnimationFrame() {
+		return paintOnFrame;
+	}
+
+	/**
+	 * SwingJS: for tuning painting.
+	 * 
+	 * @return requests (calls adding dirty regions), paints (components
+	 *         painted), pixels, frames (animation frames painted), and
+	 *         lastFramePaints, lastFramePixels, maxFramePaints, and
+	 *         maxFramePixels
+	 */
+	public Map<String, Number> getPaintStatistics() {
+		Map<String, Number> m = new LinkedHashMap<>();
+		m.put("requests", Integer.valueOf(nRequests));
+		m.put("paints", Integer.valueOf(nPaints));
+		m.put("pixels", Long.valueOf(nPixels));
+		m.put("frames", Integer.valueOf(nFrames));
+		m.put("lastFramePaints", Integer.valueOf(lastFramePaints));
+		m.put("lastFramePixels", Long.valueOf(lastFramePixels));
+		m.put("maxFramePaints", Integer.valueOf(maxFramePaints));
+		m.put("maxFramePixels", Long.valueOf(maxFramePixels));
+		return m;
+	}
+
+	public void resetPaintStatistics() {
+		nRequests = nPaints = nFrames = lastFramePaints = maxFramePaints = 0;
+		nPixels = lastFramePixels = maxFramePixels = 0;
+	}
+
 	private void scheduleProcessingRunnable(AppContext context) {
 		if (processingRunnable.markPending()) {
 			if (JSToolkit.checkJ2SFlag("_debugPaint"))
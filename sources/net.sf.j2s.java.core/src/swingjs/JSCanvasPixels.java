@@ -0,0 +1,134 @@
+package swingjs;
+
+import swingjs.api.js.HTML5Canvas;
+import swingjs.api.js.HTML5CanvasContext2D;
+import swingjs.api.js.HTML5CanvasContext2D.ImageData;
+
+/**
+ * A canvas holding the pixels of a TYPE_INT_RGB or TYPE_INT_ARGB
+ * BufferedImage, for JSGraphics2D.drawImage.
+ *
+ * Pixels are written into the canvas ImageData through a 32-bit view of its
+ * buffer, one word per pixel rather than four bytes. Java's ARGB and the
+ * canvas's R G B A bytes differ in channel order, so each word is swizzled for
+ * the platform byte order; neither is premultiplied. Only the rectangle of
+ * pixels that changed since the last update is put back into the canvas, which
+ * is then drawn like any other image, with the current transform, clip, and
+ * composite.
+ *
+ */
+public class JSCanvasPixels {
+
+	/**
+	 * true if canvas bytes R G B A read as the word 0xAABBGGRR; not final, so
+	 * that it is not taken for a constant
+	 */
+	private static boolean isLittleEndian = /** @j2sNative new Uint8Array(new Uint32Array([1]).buffer)[0] == 1 || */
+			true;
+
+	private final int width, height;
+
+	private final HTML5Canvas canvas;
+
+	private final HTML5CanvasContext2D ctx;
+
+	private final ImageData imageData;
+
+	/**
+	 * the ImageData buffer, one int per pixel
+	 */
+	private final int[] words;
+
+	public JSCanvasPixels(int width, int height) {
+		this.width = width;
+		this.height = height;
+		canvas = HTML5Canvas.createCanvas(width, height, null);
+		ctx = canvas.getContext("2d");
+		imageData = ctx.getImageData(0, 0, width, height);
+		words = getWords(imageData.data);
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Copy pixels into the canvas, putting only the rectangle that changed.
+	 *
+	 * @param argb     width * height pixels
+	 * @param isOpaque true to ignore alpha, as for TYPE_INT_RGB
+	 * @return the canvas
+	 */
+	public HTML5Canvas update(int[] argb, boolean isOpaque) {
+		int[] words = this.words;
+		int w = width;
+		int alpha = (isOpaque ? 0xFF000000 : 0);
+		boolean isLittle = isLittleEndian;
+		int x0 = w, x1 = -1, y0 = -1, y1 = -1;
+		for (int y = 0, pt = 0; y < height; y++) {
+			boolean changed = false;
+			for (int x = 0; x < w; x++, pt++) {
+				int p = argb[pt] | alpha;
+				int v = (isLittle ? (p & 0xFF00FF00) | ((p >> 16) & 0xFF) | ((p & 0xFF) << 16) : (p << 8) | (p >>> 24));
+				if (words[pt] != v) {
+					words[pt] = v;
+					if (x < x0)
+						x0 = x;
+					if (x > x1)
+						x1 = x;
+					changed = true;
+				}
+			}
+			if (changed) {
+				if (y0 < 0)
+					y0 = y;
+				y1 = y;
+			}
+		}
+		if (y0 >= 0)
+			ctx.putImageData(imageData, 0, 0, x0, y0, x1 - x0 + 1, y1 - y0 + 1);
+		return canvas;
+	}
+
+	/**
+	 * Convert canvas [r g b a r g b a ...] into [argb argb argb ...] a word at a
+	 * time. As for BufferedImage.toIntARGB, a pixel with alpha 0 is 0, and other
+	 * pixels take their alpha from the alpha mask only.
+	 *
+	 * @param rgba  HTML5 canvas.context.imageData.data
+	 * @param argb  int[] data buffer
+	 * @param alpha alpha mask
+	 * @return false if rgba cannot be read as words, and nothing was done
+	 */
+	public static boolean toARGB(byte[] rgba, int[] argb, int alpha) {
+		int[] words = getWords(rgba);
+		if (words == null)
+			return false;
+		if (isLittleEndian) {
+			for (int i = 0, n = words.length; i < n; i++) {
+				int v = words[i];
+				argb[i] = ((v & 0xFF000000) == 0 ? 0 : ((v & 0xFF) << 16) | (v & 0xFF00) | ((v >> 16) & 0xFF) | alpha);
+			}
+		} else {
+			for (int i = 0, n = words.length; i < n; i++) {
+				int v = words[i];
+				argb[i] = ((v & 0xFF) == 0 ? 0 : (v >>> 8) | alpha);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param bytes canvas ImageData data
+	 * @return the same buffer as int[], or null if it is not word-aligned or this
+	 *         is not JavaScript
+	 */
+	private static int[] getWords(Object bytes) {
+		return /** @j2sNative bytes.buffer && bytes.byteOffset % 4 == 0 ? new Int32Array(bytes.buffer, bytes.byteOffset, bytes.length >> 2) : */null;
+	}
+
+}
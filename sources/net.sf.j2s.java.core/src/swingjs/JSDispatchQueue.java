@@ -0,0 +1,224 @@
+package swingjs;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The run queue behind JSToolkit.dispatch(f, 0, id) and
+ * JSToolkit.startThread: AWT events, invokeLater runnables, and starting
+ * threads.
+ *
+ * Rather than each getting its own setTimeout(f, 0) -- which browsers clamp to
+ * 4 ms once timeouts nest, so that a burst of 200 invokeLater calls takes most
+ * of a second -- they are queued here and run in the order queued, as many as
+ * fit in a time slice per macrotask (setImmediate, MessageChannel, or, failing
+ * those, setTimeout). Whatever is left, including anything queued while the
+ * slice ran, waits for the next macrotask, so that input and painting still get
+ * their turn.
+ *
+ * The slice is 10 ms by default. A page can set another with
+ * J2S._dispatchSliceMs (or j2sdispatchslicems=n in its URL), and an application
+ * with setSliceMs. A slice of 0 goes back to one setTimeout per runnable.
+ *
+ */
+public class JSDispatchQueue {
+
+	public final static int DEFAULT_SLICE_MS = 10;
+
+	private static int sliceMs = -1;
+
+	/**
+	 * JavaScript array of {f, t, id}, waiting from head on
+	 */
+	private static Object queue;
+
+	private static int head;
+
+	/**
+	 * JavaScript function starting a macrotask that runs the queue
+	 */
+	private static Object poster;
+
+	/**
+	 * set from post until the queue has been run empty
+	 */
+	private static boolean posted;
+
+	private static int lastID;
+
+	private static int nQueued, nRun, nCancelled, nBatches, nSlicesFull, maxDepth;
+
+	private static double latencyTotal, latencyMax;
+
+	public static int getSliceMs() {
+		if (sliceMs < 0) {
+			String ms = /** @j2sNative J2S._dispatchSliceMs == null ? null : "" + J2S._dispatchSliceMs || */null;
+			sliceMs = (ms == null ? DEFAULT_SLICE_MS : Math.max(0, (int) Double.parseDouble(ms)));
+		}
+		return sliceMs;
+	}
+
+	/**
+	 *
+	 * @param ms 0 for one setTimeout per runnable
+	 */
+	public static void setSliceMs(int ms) {
+		sliceMs = Math.max(0, ms);
+	}
+
+	/**
+	 * Queue a function to run after what is already queued.
+	 *
+	 * @param f a JavaScript function
+	 * @return an id for cancel: negative if queued here, or a setTimeout id
+	 */
+	@SuppressWarnings("unused")
+	public static int add(Object f) {
+		if (getSliceMs() == 0)
+			return /** @j2sNative setTimeout(f, 0) || */0;
+		int id = -(++lastID);
+		int depth = 0;
+		/**
+		 * @j2sNative
+		 *
+		 *            var q = C$.queue || (C$.queue = []);
+		 *            q.push({f: f, t: performance.now(), id: id});
+		 *            depth = q.length - C$.head;
+		 */
+		nQueued++;
+		if (depth > maxDepth)
+			maxDepth = depth;
+		if (!posted)
+			post();
+		return id;
+	}
+
+	/**
+	 *
+	 * @param id as returned by add
+	 * @return true if the function was still waiting
+	 */
+	public static boolean cancel(int id) {
+		if (id >= 0) {
+			/**
+			 * @j2sNative clearTimeout(id);
+			 */
+			return false;
+		}
+		/**
+		 * @j2sNative
+		 *
+		 *            var q = C$.queue;
+		 *            for (var i = (q ? q.length : 0); --i >= C$.head;) {
+		 *              if (q[i].id == id) {
+		 *                if (!q[i].f)
+		 *                  return false;
+		 *                q[i].f = null;
+		 *                C$.nCancelled++;
+		 *                return true;
+		 *              }
+		 *            }
+		 */
+		return false;
+	}
+
+	private static void post() {
+		posted = true;
+		/**
+		 * @j2sNative
+		 *
+		 *            if (!C$.poster) {
+		 *              var run = function() { C$.runQueue$() };
+		 *              if (typeof setImmediate == "function") {
+		 *                C$.poster = function() { setImmediate(run) };
+		 *              } else if (typeof MessageChannel == "function") {
+		 *                var ch = new MessageChannel();
+		 *                ch.port1.onmessage = run;
+		 *                C$.poster = function() { ch.port2.postMessage(0) };
+		 *              } else {
+		 *                C$.poster = function() { setTimeout(run, 0) };
+		 *              }
+		 *            }
+		 *            C$.poster();
+		 */
+	}
+
+	/**
+	 * Run queued functions, in order, until the queue is empty or the slice is
+	 * used up.
+	 */
+	static void runQueue() {
+		nBatches++;
+		/**
+		 * @j2sNative
+		 *
+		 *            var q = C$.queue, t0 = performance.now(), t = t0, e;
+		 *            while (C$.head < q.length) {
+		 *              e = q[C$.head];
+		 *              q[C$.head++] = null;
+		 *              if (!e.f)
+		 *                continue;
+		 *              var dt = t - e.t;
+		 *              C$.latencyTotal += dt;
+		 *              if (dt > C$.latencyMax)
+		 *                C$.latencyMax = dt;
+		 *              C$.nRun++;
+		 *              try {
+		 *                e.f();
+		 *              } catch (ex) {
+		 *                System.err.println("JSDispatchQueue " + ex + "\n" + ex.stack);
+		 *              }
+		 *              t = performance.now();
+		 *              if (t - t0 >= C$.sliceMs && C$.head < q.length) {
+		 *                C$.nSlicesFull++;
+		 *                break;
+		 *              }
+		 *            }
+		 *            if (C$.head == q.length) {
+		 *              q.length = C$.head = 0;
+		 *              C$.posted = false;
+		 *              return;
+		 *            }
+		 *            if (C$.head >= 1024) {
+		 *              C$.queue = q.slice(C$.head);
+		 *              C$.head = 0;
+		 *            }
+		 */
+		post();
+	}
+
+	/**
+	 *
+	 * @return functions waiting now
+	 */
+	public static int getDepth() {
+		return /** @j2sNative C$.queue ? C$.queue.length - C$.head : */0;
+	}
+
+	/**
+	 *
+	 * @return queued, run, cancelled, batches, slicesFull (batches that ran out
+	 *         of time), depth, maxDepth, meanLatencyMs and maxLatencyMs (from
+	 *         queued to run), sliceMs
+	 */
+	public static Map<String, Number> getStatistics() {
+		Map<String, Number> m = new LinkedHashMap<>();
+		m.put("queued", Integer.valueOf(nQueued));
+		m.put("run", Integer.valueOf(nRun));
+		m.put("cancelled", Integer.valueOf(nCancelled));
+		m.put("batches", Integer.valueOf(nBatches));
+		m.put("slicesFull", Integer.valueOf(nSlicesFull));
+		m.put("depth", Integer.valueOf(getDepth()));
+		m.put("maxDepth", Integer.valueOf(maxDepth));
+		m.put("meanLatencyMs", Double.valueOf(nRun == 0 ? 0 : latencyTotal / nRun));
+		m.put("maxLatencyMs", Double.valueOf(latencyMax));
+		m.put("sliceMs", Integer.valueOf(getSliceMs()));
+		return m;
+	}
+
+	public static void resetStatistics() {
+		nQueued = nRun = nCancelled = nBatches = nSlicesFull = maxDepth = 0;
+		latencyTotal = latencyMax = 0;
+	}
+
+}
@@ -0,0 +1,211 @@
+package swingjs;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+
+/**
+ * J2S._javaFileCache, as used by JSUtil: file data by path, with a byte
+ * budget.
+ *
+ * When the byte[] and String data held add up to more than the budget, the
+ * least recently used entries are dropped until they fit. The entry just
+ * added is never dropped, so a single file larger than the budget is still
+ * cached. Temporary files (/TEMP/...) are never dropped, since the cache is
+ * the only copy of them, and neither are paths that have been pinned, either
+ * exactly or by a prefix ending in "/". An entry that came from
+ * JSUtil.loadJavaResourcesFromZip goes back to its (uninflated) ZipEntry
+ * rather than being removed.
+ *
+ * A budget of 0 means no limit. The default is 64 MB; a page can set another
+ * with J2S._fileCacheMB (or j2sfilecachemb=n in its URL), and an application
+ * with JSUtil.setFileCacheBudget.
+ *
+ */
+@SuppressWarnings("serial")
+public class JSFileCache extends Hashtable<String, Object> {
+
+	public final static long DEFAULT_BUDGET = 64L << 20;
+
+	private long budget = DEFAULT_BUDGET;
+
+	/**
+	 * sizes of entries holding data, least recently used first
+	 */
+	private final LinkedHashMap<String, Integer> sizes = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * entries from loadJavaResourcesFromZip, to go back to when dropped
+	 */
+	private final Map<String, ZipEntry> zipEntries = new HashMap<>();
+
+	private final Map<String, Boolean> pinned = new HashMap<>();
+
+	private long nBytes, nHits, nMisses, nEvictions, nBytesEvicted;
+
+	public JSFileCache() {
+		super();
+	}
+
+	/**
+	 *
+	 * @param map the cache to replace, possibly null
+	 */
+	public JSFileCache(Map<String, Object> map) {
+		super();
+		if (map != null)
+			putAll(map);
+	}
+
+	/**
+	 *
+	 * @param bytes 0 for no limit
+	 */
+	public synchronized void setBudget(long bytes) {
+		budget = Math.max(0, bytes);
+		trim(null);
+	}
+
+	public long getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Keep (or no longer keep) a path, or all paths starting with a prefix ending
+	 * in "/", whatever the budget.
+	 *
+	 * @param path
+	 * @param pin
+	 */
+	public synchronized void pin(String path, boolean pin) {
+		if (pin) {
+			pinned.put(path, Boolean.TRUE);
+		} else {
+			pinned.remove(path);
+			trim(null);
+		}
+	}
+
+	private boolean isPinned(String path) {
+		if (pinned.isEmpty())
+			return false;
+		if (pinned.containsKey(path))
+			return true;
+		for (int pt = path.lastIndexOf('/'); pt >= 0; pt = path.lastIndexOf('/', pt - 1)) {
+			if (pinned.containsKey(path.substring(0, pt + 1)))
+				return true;
+			if (pt == 0)
+				break;
+		}
+		return false;
+	}
+
+	private static boolean isTemporary(String path) {
+		return ("/" + path).startsWith(File.temporaryDirectory) || path.startsWith(File.temporaryDirectory);
+	}
+
+	private static int sizeOf(Object value) {
+		return (value instanceof byte[] ? ((byte[]) value).length
+				: value instanceof String ? ((String) value).length() * 2 : 0);
+	}
+
+	@Override
+	public synchronized Object get(Object key) {
+		Object o = super.get(key);
+		if (o == null || o == Boolean.FALSE) {
+			nMisses++;
+		} else {
+			nHits++;
+			sizes.get(key); // most recently used now
+		}
+		return o;
+	}
+
+	@Override
+	public synchronized Object put(String key, Object value) {
+		Object old = super.put(key, value);
+		Integer size = sizes.remove(key);
+		if (size != null)
+			nBytes -= size.intValue();
+		if (value instanceof ZipEntry)
+			zipEntries.put(key, (ZipEntry) value);
+		int n = sizeOf(value);
+		if (n > 0) {
+			sizes.put(key, Integer.valueOf(n));
+			nBytes += n;
+			trim(key);
+		}
+		return old;
+	}
+
+	@Override
+	public synchronized Object remove(Object key) {
+		Integer size = sizes.remove(key);
+		if (size != null)
+			nBytes -= size.intValue();
+		zipEntries.remove(key);
+		return super.remove(key);
+	}
+
+	@Override
+	public synchronized void clear() {
+		super.clear();
+		sizes.clear();
+		zipEntries.clear();
+		nBytes = 0;
+	}
+
+	/**
+	 * Drop least recently used entries until the cache is within its budget.
+	 *
+	 * @param keep the entry just added, or null
+	 */
+	private void trim(String keep) {
+		if (budget == 0 || nBytes <= budget)
+			return;
+		for (Iterator<Map.Entry<String, Integer>> it = sizes.entrySet().iterator(); it.hasNext()
+				&& nBytes > budget;) {
+			Map.Entry<String, Integer> e = it.next();
+			String key = e.getKey();
+			if (key.equals(keep) || isPinned(key) || isTemporary(key))
+				continue;
+			int n = e.getValue().intValue();
+			it.remove();
+			nBytes -= n;
+			nEvictions++;
+			nBytesEvicted += n;
+			ZipEntry ze = zipEntries.get(key);
+			if (ze == null)
+				super.remove(key);
+			else
+				super.put(key, ze);
+			if (JSUtil.debugging)
+				System.out.println("JSFileCache dropped " + n + " bytes for " + key);
+		}
+	}
+
+	/**
+	 *
+	 * @return hits, misses, evictions, evictedBytes, bytes, budget, entries
+	 */
+	public synchronized Map<String, Long> getStatistics() {
+		Map<String, Long> m = new LinkedHashMap<>();
+		m.put("hits", Long.valueOf(nHits));
+		m.put("misses", Long.valueOf(nMisses));
+		m.put("evictions", Long.valueOf(nEvictions));
+		m.put("evictedBytes", Long.valueOf(nBytesEvicted));
+		m.put("bytes", Long.valueOf(nBytes));
+		m.put("budget", Long.valueOf(budget));
+		m.put("entries", Long.valueOf(size()));
+		return m;
+	}
+
+	public synchronized void resetStatistics() {
+		nHits = nMisses = nEvictions = nBytesEvicted = 0;
+	}
+
+}
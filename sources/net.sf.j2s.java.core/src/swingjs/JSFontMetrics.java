@@ -20,12 +20,40 @@ public class JSFontMetrics extends FontMetrics {
 	private int[] iwidths;
 	private int FIRST_PRINTABLE = 32;
 
+	/**
+	 * shared with all metrics for the same CSS font
+	 */
+	private JSStringWidthCache widthCache;
+
+	/**
+	 * JSStringWidthCache.getGeneration() when widthCache was set
+	 */
+	private int widthGeneration;
+
 	public JSFontMetrics() {
 		super(null);
 	}
 
 	public void setFont(Font f) {
 		font = f;
+		widthCache = null;
+		fwidths = null;
+		iwidths = null;
+	}
+
+	/**
+	 * Get the shared width cache, dropping widths taken from an earlier one
+	 * that has since been cleared (as when a web font loads).
+	 */
+	private JSStringWidthCache getWidthCache() {
+		int g = JSStringWidthCache.getGeneration();
+		if (widthCache == null || g != widthGeneration) {
+			widthGeneration = g;
+			fwidths = null;
+			iwidths = null;
+			widthCache = JSStringWidthCache.getCache(font);
+		}
+		return widthCache;
 	}
 
 	/**
@@ -109,15 +137,15 @@ public class JSFontMetrics extends FontMetrics {
 
 	@Override
 	public int stringWidth(String s) {
-		return (int) JSToolkit.getStringWidth(null, font, s);
+		return (s == null || s.length() == 0 ? 0 : (int) getWidthCache().getWidth(s));
 	}
 
 	@Override
 	public int[] getWidths() {
+		getWidthsFloat();
 		if (iwidths != null)
 			return iwidths;
 		iwidths = new int[256];
-		getWidthsFloat();
 		for (int ch = FIRST_PRINTABLE; ch < 256; ch++) {
 			iwidths[ch] = (int) fwidths[ch];
 		}
@@ -125,13 +153,8 @@ public class JSFontMetrics extends FontMetrics {
 	}
 
 	public float[] getWidthsFloat() {
-		if (fwidths != null)
-			return fwidths;
-		fwidths = new float[256];
-		for (int ch = FIRST_PRINTABLE; ch < 256; ch++) {
-			fwidths[ch] = JSToolkit.getStringWidth(null, font, "" + (char) ch);
-		}
-		return fwidths;
+		JSStringWidthCache c = getWidthCache();
+		return (fwidths == null ? fwidths = c.getCharWidths() : fwidths);
 	}
 
 	public float getFloatWidth(int ch) {
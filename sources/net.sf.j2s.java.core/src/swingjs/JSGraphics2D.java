@@ -700,6 +700,9 @@ public class JSGraphics2D implements
 	 * them directly. If we don't or this a scaled or skewed transform, we must draw the canvas
 	 * object corresponding to this image instead. 
 	 * 
+	 * int[] ARGB or RGB pixels go through the image's JSCanvasPixels, which puts
+	 * only what changed into a canvas of its own that is then drawn here.
+	 * 
 	 * @param img
 	 * @param x
 	 * @param y
@@ -718,6 +721,9 @@ public class JSGraphics2D implements
 			imgNode = (img == observer ? canvas : ((BufferedImage) img).秘getImageNode(BufferedImage.GET_IMAGE_FROM_RASTER));
 			if (imgNode != null)
 				ctx.drawImage(imgNode, x, y, width, height);
+		} else if (!isToSelf && pixels.length == width * height && width == img.getWidth(null)) {
+			// int[] ARGB or RGB, drawn as a canvas so that alpha is composited
+			ctx.drawImage(((BufferedImage) img).秘getCanvasFromPixels(pixels), x, y, width, height);
 		} else {
 			boolean isPerPixel = (pixels.length == width * height);
 			if (!isOpaque)
@@ -0,0 +1,251 @@
+package swingjs;
+
+import java.awt.Font;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * String widths for one CSS font, as measured by JSToolkit.getStringWidth,
+ * shared by every Font and JSFontMetrics that comes to the same canvas font.
+ *
+ * Each font keeps up to maxStrings widths, least recently used dropped first;
+ * strings longer than MAX_LENGTH are measured but not kept. Up to MAX_FONTS
+ * fonts are kept the same way.
+ *
+ * For a monospaced font without layout attributes, the width of an ASCII
+ * string is the sum of the advances of its characters, each measured once.
+ * Canvas and CSS text kern by default, so for a proportional font that sum
+ * would not be the width drawn ("AV"); there, and for all other strings, the
+ * string is measured whole with canvas measureText. A font counts as
+ * monospaced when 'i', 'W', and '.' measure the same, so this works for web
+ * fonts too.
+ *
+ * Widths measured before a web font has loaded are those of a fallback font,
+ * so everything is cleared when document.fonts reports that fonts have
+ * loaded.
+ *
+ * JSToolkit.getStringWidthStatistics reports hits, misses, and sums.
+ *
+ */
+public class JSStringWidthCache {
+
+	public final static int DEFAULT_MAX_STRINGS = 1000;
+
+	private final static int MAX_FONTS = 64;
+
+	private final static int MAX_LENGTH = 128;
+
+	private static int maxStrings = DEFAULT_MAX_STRINGS;
+
+	private static long nHits, nMisses, nSums, nEvictions;
+
+	/**
+	 * incremented by clear(), so that JSFontMetrics can drop what it holds
+	 */
+	private static int generation;
+
+	static {
+		/**
+		 * @j2sNative
+		 *
+		 * try {
+		 *   document.fonts && document.fonts.addEventListener("loadingdone", function() { C$.clear$(); });
+		 * } catch (e) {}
+		 */
+	}
+
+	/**
+	 * caches by CSS font, least recently used first
+	 */
+	private final static LinkedHashMap<String, JSStringWidthCache> caches = new LinkedHashMap<>(16, 0.75f, true);
+
+	private final String cssFont;
+
+	/**
+	 * ASCII strings may be summed from advances: 1 yes, 0 no, -1 not yet known
+	 */
+	private int canSum;
+
+	private final LinkedHashMap<String, Float> widths = new LinkedHashMap<>(64, 0.75f, true);
+
+	/**
+	 * unrounded widths of characters 0-127, 0 until measured
+	 */
+	private final float[] advances = new float[128];
+
+	/**
+	 * rounded widths of characters 0-255, for JSFontMetrics.getWidthsFloat
+	 */
+	private float[] charWidths;
+
+	private JSStringWidthCache(String cssFont, boolean hasLayout) {
+		this.cssFont = cssFont;
+		canSum = (hasLayout ? 0 : -1);
+	}
+
+	/**
+	 * Get the cache for a font, creating it if necessary.
+	 *
+	 * @param font
+	 * @return the cache for the font's CSS
+	 */
+	public static JSStringWidthCache getCache(Font font) {
+		String css = JSToolkit.getCanvasFont(font);
+		boolean hasLayout = font.hasLayoutAttributes();
+		String key = (hasLayout ? css + "\0layout" : css);
+		synchronized (caches) {
+			JSStringWidthCache c = caches.get(key);
+			if (c == null) {
+				caches.put(key, c = new JSStringWidthCache(css, hasLayout));
+				if (caches.size() > MAX_FONTS) {
+					caches.remove(caches.keySet().iterator().next());
+					nEvictions++;
+				}
+			}
+			return c;
+		}
+	}
+
+	/**
+	 * @param text not null or empty
+	 * @return the width, rounded up, as canvas measureText would give it
+	 */
+	public float getWidth(String text) {
+		int n = text.length();
+		if (canSum < 0) {
+			float a = getAdvance('i');
+			canSum = (a == getAdvance('W') && a == getAdvance('.') ? 1 : 0);
+		}
+		if (canSum == 1) {
+			float w = 0;
+			for (int i = 0; i < n; i++) {
+				char ch = text.charAt(i);
+				if (ch >= 128) {
+					w = -1;
+					break;
+				}
+				w += getAdvance(ch);
+			}
+			if (w >= 0) {
+				synchronized (caches) {
+					nSums++;
+				}
+				return (float) Math.ceil(w);
+			}
+		}
+		if (n > MAX_LENGTH) {
+			synchronized (caches) {
+				nMisses++;
+			}
+			return (float) Math.ceil(JSToolkit.measureText(cssFont, text));
+		}
+		synchronized (caches) {
+			Float f = widths.get(text);
+			if (f != null) {
+				nHits++;
+				return f.floatValue();
+			}
+			nMisses++;
+		}
+		float w = (float) Math.ceil(JSToolkit.measureText(cssFont, text));
+		synchronized (caches) {
+			widths.put(text, Float.valueOf(w));
+			if (widths.size() > maxStrings) {
+				widths.remove(widths.keySet().iterator().next());
+				nEvictions++;
+			}
+		}
+		return w;
+	}
+
+	/**
+	 * @param ch less than 128
+	 * @return the unrounded width of ch, measured the first time
+	 */
+	private float getAdvance(char ch) {
+		float a = advances[ch];
+		return (a == 0 ? advances[ch] = JSToolkit.measureText(cssFont, "" + ch) : a);
+	}
+
+	/**
+	 * @return widths of characters 0-255, rounded up; 0 for control characters
+	 */
+	public float[] getCharWidths() {
+		if (charWidths == null) {
+			float[] w = new float[256];
+			for (int ch = 32; ch < 256; ch++)
+				w[ch] = getWidth("" + (char) ch);
+			charWidths = w;
+		}
+		return charWidths;
+	}
+
+	/**
+	 * @param n strings to keep per font, at least 1
+	 */
+	public static void setMaxStrings(int n) {
+		synchronized (caches) {
+			maxStrings = Math.max(1, n);
+			for (JSStringWidthCache c : caches.values()) {
+				while (c.widths.size() > maxStrings) {
+					c.widths.remove(c.widths.keySet().iterator().next());
+					nEvictions++;
+				}
+			}
+		}
+	}
+
+	public static int getMaxStrings() {
+		return maxStrings;
+	}
+
+	/**
+	 * Forget all widths, as after a web font has loaded.
+	 */
+	public static void clear() {
+		synchronized (caches) {
+			caches.clear();
+			generation++;
+		}
+	}
+
+	/**
+	 * @return a number that changes whenever the caches are cleared
+	 */
+	static int getGeneration() {
+		return generation;
+	}
+
+	/**
+	 *
+	 * @return hits, misses (measured whole), sums (ASCII summed from advances),
+	 *         evictions (strings and fonts), fonts, strings
+	 */
+	public static Map<String, Long> getStatistics() {
+		Map<String, Long> m = new LinkedHashMap<>();
+		synchronized (caches) {
+			long n = 0;
+			for (JSStringWidthCache c : caches.values())
+				n += c.widths.size();
+			m.put("hits", Long.valueOf(nHits));
+			m.put("misses", Long.valueOf(nMisses));
+			m.put("sums", Long.valueOf(nSums));
+			m.put("evictions", Long.valueOf(nEvictions));
+			m.put("fonts", Long.valueOf(caches.size()));
+			m.put("strings", Long.valueOf(n));
+		}
+		return m;
+	}
+
+	public static void resetStatistics() {
+		synchronized (caches) {
+			nHits = nMisses = nSums = nEvictions = 0;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "[JSStringWidthCache " + cssFont + " " + widths.size() + " strings]";
+	}
+
+}
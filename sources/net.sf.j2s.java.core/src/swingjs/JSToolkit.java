@@ -239,10 +239,10 @@ public class JSToolkit extends SunToolkit
 			String text) {
 		if (text == null || text.length() == 0)
 			return 0;
+		if (context == null)
+			return JSStringWidthCache.getCache(font).getWidth(text);
 		@SuppressWarnings("unused")
 		String fontInfo = getCanvasFont(font);
-		if (context == null)
-			context = getDefaultCanvasContext2d();
 		int w = 0;
 		/**
 		 * @j2sNative
@@ -254,6 +254,46 @@ public class JSToolkit extends SunToolkit
 		return w;
 	}
 
+	/**
+	 * the CSS font last set on the default context
+	 */
+	private static String defaultContextFont;
+
+	/**
+	 * Measure text with the default canvas context, without rounding; for
+	 * JSStringWidthCache.
+	 * 
+	 * @param fontInfo CSS font
+	 * @param text
+	 * @return the width
+	 */
+	static float measureText(String fontInfo, String text) {
+		HTML5CanvasContext2D context = getDefaultCanvasContext2d();
+		if (fontInfo != defaultContextFont) {
+			defaultContextFont = fontInfo;
+			/**
+			 * @j2sNative context.font = fontInfo;
+			 */
+			{}
+		}
+		float w = 0;
+		/**
+		 * @j2sNative
+		 * w = context.measureText(text).width;
+		 */
+		{
+		}
+		return w;
+	}
+
+	/**
+	 * 
+	 * @return counters of the string width cache; see JSStringWidthCache
+	 */
+	public static Map<String, Long> getStringWidthStatistics() {
+		return JSStringWidthCache.getStatistics();
+	}
+
 	/**
 	 * Used as a stratch pad for determining text string dimensions.
 	 *  
@@ -329,17 +369,32 @@ public class JSToolkit extends SunToolkit
 		}
 	}
 
+	/**
+	 * Dispatch f just before the browser next paints the page, from
+	 * requestAnimationFrame, or, if there is none, as dispatch(f, 0, id) would.
+	 * 
+	 * @param f a function or Runnable
+	 */
+	public static void dispatchOnFrame(Object f) {
+		int id = ++dispatchID;
+		/**
+		 * @j2sNative if (typeof requestAnimationFrame == "function") {
+		 *            requestAnimationFrame(function() { C$.dispatch$O$I$I(f, -1, id) });
+		 *            return; }
+		 */
+		dispatch(f, 0, id);
+	}
+
 	public static boolean isMouseEvent(int id) {
 		return (id >= MouseEvent.MOUSE_FIRST && id <= MouseEvent.MOUSE_LAST);
 	}
 	
+	/**
+	 * 
+	 * @param html5Id as returned by dispatch
+	 */
 	public static void killDispatched(int html5Id) {
-		/**
-		 * @j2sNative
-		 * 
-		 * clearTimeout(html5Id);
-		 * 
-		 */		
+		JSDispatchQueue.cancel(html5Id);
 	}
 
 	/**
@@ -390,18 +445,30 @@ public class JSToolkit extends SunToolkit
 			getCurrentThread(thread0);
 		SwingJS.eventID = id0;
 		/**
-		 * @j2sNative }; setTimeout(ff, 0);
+		 * @j2sNative }; C$.queue$O(ff);
 		 */
 	}
 
+	/**
+	 * 
+	 * @param f a JavaScript function
+	 * @return an id for killDispatched
+	 */
+	@SuppressWarnings("unused")
+	private static int queue(Object f) {
+		return JSDispatchQueue.add(f);
+	}
+
 	/**
 	 * encapsulate timeout with an anonymous function that re-instates the "current
 	 * thread" prior to execution. This is in case of multiple applets.
 	 * 
 	 * @param f       a function or Runnable
 	 * @param msDelay a time to wait for, in milliseconds. If this is < 0, just run
-	 *                without the dispatch (debugging)
+	 *                without the dispatch (debugging); if 0, run in order after
+	 *                anything else dispatched with 0 (see JSDispatchQueue)
 	 * @param id      an event id or 0 if not via EventQueue
+	 * @return an id for killDispatched
 	 */
 	public static int dispatch(Object f, int msDelay, int id) {
 		JSThread thread0 = getCurrentThread(null);
@@ -433,7 +500,7 @@ public class JSToolkit extends SunToolkit
 		getCurrentThread(thread0);
 		SwingJS.eventID = id0;
 		/**
-		 * @j2sNative }; ret = (msDelay == -1 ? ff() :
+		 * @j2sNative }; ret = (msDelay == -1 ? ff() : msDelay == 0 ? C$.queue$O(ff) :
 		 *            setTimeout(ff, msDelay));
 		 */
 		return ret;
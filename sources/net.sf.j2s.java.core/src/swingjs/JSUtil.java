@@ -87,13 +87,52 @@ public class JSUtil implements JSUtilI {
 	 */
 	public static boolean debugging;
 	public static J2SInterface J2S;
-	private static Hashtable<String, Object> fileCache;
+	private static JSFileCache fileCache;
 	private static boolean useCache = true;
 
 	
 	public static Map<String, Object> getFileCache() {
-		return (fileCache == null ?
-			fileCache = J2S.getSetJavaFileCache(null) : fileCache);
+		if (fileCache == null) {
+			Hashtable<String, Object> map = J2S.getSetJavaFileCache(null);
+			fileCache = (map instanceof JSFileCache ? (JSFileCache) map : new JSFileCache(map));
+			J2S.getSetJavaFileCache(fileCache);
+			String mb = /** @j2sNative J2S._fileCacheMB == null ? null : "" + J2S._fileCacheMB || */null;
+			if (mb != null)
+				fileCache.setBudget((long) (Double.parseDouble(mb) * (1 << 20)));
+		}
+		return fileCache;
+	}
+
+	/**
+	 * Set the byte budget of the file cache; the least recently used files are
+	 * dropped from the cache when it holds more than this.
+	 * 
+	 * @param bytes 0 for no limit
+	 */
+	public static void setFileCacheBudget(long bytes) {
+		getFileCache();
+		fileCache.setBudget(bytes);
+	}
+
+	/**
+	 * Keep a file in the cache whatever its budget, or stop keeping it.
+	 * 
+	 * @param path a cached path or a prefix ending in "/"
+	 * @param pin
+	 */
+	public static void pinCachedFile(String path, boolean pin) {
+		getFileCache();
+		fileCache.pin(fixCachePath(path), pin);
+	}
+
+	/**
+	 * 
+	 * @return hits, misses, evictions, evictedBytes, bytes, budget, and entries
+	 *         of the file cache
+	 */
+	public static Map<String, Long> getFileCacheStatistics() {
+		getFileCache();
+		return fileCache.getStatistics();
 	}
 
 	/**
@@ -114,7 +153,15 @@ public class JSUtil implements JSUtilI {
 	 * @return  byte[] or null or (if !asBytes) Boolean.FALSE
 	 */
 	public static Object getCachedFileData(String path, boolean asBytes) {
-		Object o = (getFileCache() != null ? fileCache.get(fixCachePath(path)) : null);
+		getFileCache();
+		path = fixCachePath(path);
+		Object o = fileCache.get(path);
+		if (o instanceof ZipEntry) {
+			// from loadJavaResourcesFromZip; inflated only now
+			o = ((ZipEntry) o).getBytes();
+			if (o != null)
+				fileCache.put(path, o);
+		}
 		return (o instanceof byte[] ? (byte[]) o : null);
 	}
 
@@ -401,6 +448,9 @@ public class JSUtil implements JSUtilI {
 	 * Load a Hashtable with resource files, which may be binary;
 	 * called by JSAppletViewer upon loading and finding Info.resourceZip not null.
 	 * 
+	 * Only the zip file's central directory is read here. Each entry is cached as
+	 * a ZipEntry and inflated by getCachedFileData the first time it is used.
+	 * 
 	 * @param zipFileName originating file
 	 * @param mapByteData map to fill or null for the default file cache
 	 */
@@ -410,9 +460,9 @@ public class JSUtil implements JSUtilI {
 			mapByteData = getFileCache();
 		String fileList = "";
 		try {
-			BufferedInputStream bis = new BufferedInputStream(cl.getResourceAsStream(zipFileName));
+			InputStream is = cl.getResourceAsStream(zipFileName);
 			String prefix = J2S.getResourcePath(null, true); // will end with /
-			fileList = getZipTools().cacheZipContents(bis, prefix, mapByteData, false);
+			fileList = getZipTools().cacheZipContentsLazily(is, prefix, mapByteData);
 		} catch (Throwable e) {
 			System.out.println("JSUtil could not cache files from " + zipFileName);
 			return;
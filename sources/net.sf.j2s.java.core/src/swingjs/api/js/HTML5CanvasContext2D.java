@@ -71,6 +71,9 @@ public abstract class HTML5CanvasContext2D {
 
 	public abstract void putImageData(Object imageData, double x, double y);
 
+	public abstract void putImageData(Object imageData, double x, double y, double dirtyX, double dirtyY,
+			double dirtyWidth, double dirtyHeight);
+
 	public abstract void transform(double d, double shx, double e, double shy, double f, double g);
 
 
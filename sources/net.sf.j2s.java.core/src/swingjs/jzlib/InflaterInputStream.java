@@ -113,6 +113,11 @@ public class InflaterInputStream extends FilterInputStream {
     } else if (eof) {
       return -1;
     }
+    if (nativeOut == null && inflater.total_in == 0 && inflater.avail_in == 0
+        && !inflater.finished())
+      inflateNative();
+    if (nativeOut != null)
+      return readNative(b, off, len);
 
     int n = 0;
     inflater.setOutput(b, off, len);
@@ -139,6 +144,143 @@ public class InflaterInputStream extends FilterInputStream {
     return n;
   }
 
+  /**
+   * SwingJS: the output of a native inflate, being read out
+   */
+  private byte[] nativeOut;
+
+  private int nativeOutPos;
+
+  /**
+   * SwingJS: When J2S._inflate(bytes, zlib) is set, a raw deflate or zlib
+   * stream that can be seen in full in memory is inflated by it in one go, and
+   * the inflater is left as jzlib would leave it at the end of the stream: the
+   * compressed bytes read from in, total_in and total_out set, and finished.
+   * Reads are then served from the output. Anything else -- a GZIP or
+   * partially read stream, an input stream that is not simply a
+   * ByteArrayInputStream, or an inflater that returns null -- is left to
+   * jzlib.
+   * 
+   * J2S._inflate(bytes, zlib) is given a byte array view of all the input
+   * remaining and returns {out: Uint8Array, consumed: n}, or null to decline.
+   * In a page it is J2S._jsInflate, from j2sApplet.js: browsers have no
+   * synchronous native inflater (DecompressionStream is asynchronous, and every
+   * SwingJS zip reader is synchronous). j2sHost.js sets it to node's zlib, or
+   * to J2SHost.inflate when embedded. J2S._inflate = false (?j2sjzlib) leaves
+   * everything to jzlib.
+   * 
+   * @throws IOException
+   */
+  private void inflateNative() throws IOException {
+    int wrap = inflater.istate.wrap;
+    if (wrap > 1)
+      return;
+    int consumed = -1;
+    /**
+     * @j2sNative
+     * 
+     *            if (!J2S._inflate) return; 
+     *            var src = this.peekInput$();
+     *            if (!src) return;
+     *            var ret = null; 
+     *            try {
+     *              ret = J2S._inflate(src, wrap == 1);
+     *            } catch (e) {
+     *              ret = null; // corrupt data; jzlib will say so
+     *            }
+     *            if (ret) {
+     *              var out = ret.out;
+     *              this.nativeOut = new Int8Array(out.buffer, out.byteOffset, out.length);
+     *              this.nativeOutPos = 0; 
+     *              consumed = ret.consumed;
+     *            }
+     */
+    if (consumed < 0)
+      return;
+    for (int n = consumed; n > 0;) {
+      long skipped = in.skip(n);
+      if (skipped <= 0)
+        break;
+      n -= skipped;
+    }
+    inflater.total_in = consumed;
+    inflater.total_out = nativeOut.length;
+    inflater.avail_in = 0;
+    inflater.istate.mode = 12; // DONE
+  }
+
+  /**
+   * SwingJS: all the input not yet read, if in (or what it buffers) is a
+   * ByteArrayInputStream, without reading it.
+   * 
+   * @return a byte array, possibly a view into a buffer, or null
+   */
+  protected byte[] peekInput() {
+    /**
+     * @j2sNative
+     * 
+     *            var parts = [], len = 0, s = this.$in;
+     *            while (s) {
+     *              var b = null;
+     *              switch (s.__CLASS_NAME__) {
+     *              case "java.io.ByteArrayInputStream":
+     *                b = s.buf.subarray(s.pos, s.count);
+     *                s = null;
+     *                break;
+     *              case "java.io.BufferedInputStream":
+     *                b = (s.buf && s.pos < s.count ? s.buf.subarray(s.pos, s.count) : null);
+     *                s = s.$in;
+     *                break;
+     *              case "java.io.PushbackInputStream":
+     *                b = s.buf.subarray(s.pos);
+     *                s = s.$in;
+     *                break;
+     *              case "java.io.FileInputStream":
+     *                if (s.channel)
+     *                  return null;
+     *                s = s.秘is;
+     *                break;
+     *              default:
+     *                return null;
+     *              }
+     *              if (b && b.length) {
+     *                parts.push(b);
+     *                len += b.length;
+     *              }
+     *            }
+     *            if (parts.length == 1)
+     *              return parts[0];
+     *            var a = new Int8Array(len);
+     *            for (var i = 0, pt = 0; i < parts.length; i++) {
+     *              a.set(parts[i], pt);
+     *              pt += parts[i].length;
+     *            }
+     *            return a;
+     */
+    {
+      return null;
+    }
+  }
+
+  private int readNative(byte[] b, int off, int len) {
+    int n = Math.min(len, nativeOut.length - nativeOutPos);
+    if (n <= 0) {
+      nativeOut = null;
+      eof = true;
+      return -1;
+    }
+    /**
+     * @j2sNative
+     * 
+     *            b.set(this.nativeOut.subarray(this.nativeOutPos, this.nativeOutPos + n), off);
+     */
+    {
+      System.arraycopy(nativeOut, nativeOutPos, b, off, n);
+    }
+    nativeOutPos += n;
+    return n;
+  }
+
   @Override
   public int available() throws IOException {
     if (closed) {
@@ -22,13 +22,15 @@ public abstract class CellHolder {
 	static DOMNode createCellOuterNode(JSComponentUI tableOrHeader, int row, int col) {
 		String rcID = getRowColumnID(tableOrHeader, row, col);
 		DOMNode td = findCellNode(null, rcID, row, col);
-		if (td == null) {
-			td = DOMNode.createElement("div", rcID);
-			DOMNode.setStyles(td, "overflow", "hidden", "background", "transparent");
-			tableOrHeader.$(td).addClass("swing-td");
-			DOMNode.setAttrs(td, "data-table-ui", tableOrHeader, "data-row", "" + row, "data-col", "" + col);
-			DOMNode.setStyles(td, "position", "absolute", "overflow", "hidden", "background", "transparent");
-		}
+		return (td == null ? newCellNode(tableOrHeader, rcID, row, col) : td);
+	}
+
+	static DOMNode newCellNode(JSComponentUI tableOrHeader, String rcID, int row, int col) {
+		DOMNode td = DOMNode.createElement("div", rcID);
+		DOMNode.setStyles(td, "overflow", "hidden", "background", "transparent");
+		tableOrHeader.$(td).addClass("swing-td");
+		DOMNode.setAttrs(td, "data-table-ui", tableOrHeader, "data-row", "" + row, "data-col", "" + col);
+		DOMNode.setStyles(td, "position", "absolute", "overflow", "hidden", "background", "transparent");
 		return td;
 	}
 
@@ -267,6 +267,7 @@ public class JSComponentUI extends ComponentUI
 				valueNode,
 		};	
 		DOMNode.setAttr(td, "data-nodes", nodes);
+		DOMNode.setAttr(td, "data-cell-ui", this);
 		
 		//System.err.println("JSCUI td saved " + tableID);
 		
@@ -299,7 +300,8 @@ public class JSComponentUI extends ComponentUI
 
 	protected void restoreCellNodes(DOMNode td) {
 		DOMNode[] nodes = (DOMNode[]) DOMNode.getAttr(td, "data-nodes");
-		if (nodes == null)
+		// a recycled table cell may hold the nodes of some other renderer
+		if (nodes == null || DOMNode.getAttr(td, "data-cell-ui") != this)
 			return;
 		domNode 		= nodes[0];
 		innerNode		= nodes[1];
@@ -78,7 +78,6 @@ import swingjs.JSUtil;
 //import javax.swing.TransferHandler;
 //import javax.swing.plaf.ComponentUI;
 import swingjs.api.js.DOMNode;
-import swingjs.api.js.JQueryObject;
 
 /**
  * An extensible implementation of {@code ListUI}.
@@ -178,6 +177,11 @@ public class JSListUI extends JSLightweightUI //true, but unnecessary implements
 	protected JList list = null;
 	protected CellRendererPane rendererPane;
 
+	/**
+	 * the item divs in view and a few more, recycled as the list scrolls
+	 */
+	private final RowPool itemPool = new RowPool(this, "_item");
+
 	// Listeners that this UI attaches to the JList
 	protected FocusListener focusListener;
 	protected MouseInputListener mouseInputListener;
@@ -356,29 +360,35 @@ public class JSListUI extends JSLightweightUI //true, but unnecessary implements
 			c.setSize(width, height);
 	    node = c.秘getUI().getListNode();
 	  }
-		String myid = id + "_" + index;
-		JQueryObject jnode = $((DOMNode) (Object) ("#" + myid));
-		if (((DOMNode[]) (Object) jnode)[0] == null) {
-			if (node != null) {
-				DOMNode div = newDOMObject("div", myid);
-				DOMNode.setTopLeftAbsolute(div, top, left);
-				div.appendChild(node);
-				innerNode.appendChild(div);
-			}
-		} else {
-			jnode.empty();
-			if (node != null)
-				jnode.append(node);
+		DOMNode div = itemPool.get(index);
+		if (div == null) {
+			if (node == null)
+				return;
+			div = itemPool.acquire(index, innerNode);
 		}
+		$(div).empty();
+		if (node == null)
+			return;
+		DOMNode.setTopLeftAbsolute(div, top, left);
+		div.appendChild(node);
 		//Rectangle r = getCellBounds1(list, index);
 		DOMNode.setSize(node, width, height);
 //		DOMNode.setTopLeftAbsolute(node, r.y, r.x);
 	}
 
 	protected void removeItemHTML(int i0, int i1) {
-		int n = list.getModel().getSize();
-		for (int i = i0; i <= i1; i++)
-			updateItemHTML(null, n++, 0, 0, 0, 0);
+		// the items removed are now past the end of the list
+		itemPool.removeFrom(list.getModel().getSize());
+	}
+
+	/**
+	 * @param r
+	 * @return the number of items from the upper left to the lower right of r
+	 */
+	private int getItemSpan(Rectangle r) {
+		int i0 = locationToIndex(list, new Point(r.x, r.y));
+		int i1 = locationToIndex(list, new Point(r.x + r.width - 1, r.y + r.height - 1));
+		return Math.abs(i1 - i0) + 1;
 	}
 
 	/**
@@ -428,11 +438,14 @@ public class JSListUI extends JSLightweightUI //true, but unnecessary implements
 		ListSelectionModel selModel = list.getSelectionModel();
 		int size;
 
+		itemPool.removeFrom(dataModel.getSize());
 		if ((renderer == null) || (size = dataModel.getSize()) == 0) {
 			return;
 		}
 		// Determine how many columns we need to paint
 		Rectangle paintBounds = g.getClipBounds();
+		if (itemPool.ensureCapacity(Math.max(getItemSpan(list.getVisibleRect()), getItemSpan(paintBounds))))
+			list.repaint();
 		int startColumn, endColumn;
 		if (c.getComponentOrientation().isLeftToRight()) {
 			startColumn = convertLocationToColumn(paintBounds.x, paintBounds.y);
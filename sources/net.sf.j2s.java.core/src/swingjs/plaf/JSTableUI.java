@@ -118,6 +118,15 @@ public class JSTableUI extends JSPanelUI {
 	
 	private DOMNode tableNode;
 
+	/**
+	 * Row divs for the rows in view and a few more, recycled as the table
+	 * scrolls, and the cell divs of each row by pool slot and column. A cell
+	 * div's data-row says which row it was last rendered for.
+	 */
+	private final RowPool rowPool = new RowPool(this, "_tab_row");
+
+	private DOMNode[][] cellNodes = new DOMNode[0][];
+
 	public void setScrolling() {
 		// from JSScrollPane
 		isScrolling = true;
@@ -361,6 +370,8 @@ public class JSTableUI extends JSPanelUI {
 			}
 
 			$(tableNode).empty();
+			rowPool.clear(false);
+			ensureRowPool(tmpRect.height, h);
 			addLocalCanvas(true);
 			rminy = tmpRect.y;
 			rmaxy = tmpRect.y + tmpRect.height;
@@ -371,6 +382,33 @@ public class JSTableUI extends JSPanelUI {
 		}
 	}
 
+	/**
+	 * Size the row pool for the rows in view -- all of them if the table is not
+	 * in a scroll pane and fits on the page.
+	 * 
+	 * @return true if the pool has grown and all rows must be painted again
+	 */
+	private boolean ensureRowPool(int viewHeight, int h) {
+		if (!rowPool.ensureCapacity(h <= 0 ? 1 : (viewHeight + h - 1) / h + 1))
+			return false;
+		cellNodes = new DOMNode[rowPool.getCapacity()][];
+		return true;
+	}
+
+	/**
+	 * @param row
+	 * @param col
+	 * @return the cell div now showing this row and column, or null if it must
+	 *         be created or taken over and rendered
+	 */
+	private DOMNode getCellNode(int row, int col) {
+		if (rowPool.get(row) == null)
+			return null;
+		DOMNode[] cells = cellNodes[rowPool.getSlot(row)];
+		DOMNode td = (cells == null || col >= cells.length ? null : cells[col]);
+		return (td == null || DOMNode.getAttrInt(td, "data-row") != row ? null : td);
+	}
+
 	private void setHidden(boolean b) {
 		DOMNode.setStyle(domNode, "visibility", b ? "hidden" : "visible");
 		if (b && outerNode != null && DOMNode.getStyle(outerNode, "width") == null)
@@ -418,6 +456,7 @@ public class JSTableUI extends JSPanelUI {
 	 */
 	private DOMNode addElements(int rminx, int rminy, int rmaxx, int rmaxy, int h, int row1, int row2,
 			int col1, int col2) {
+		ensureRowPool(0, h);
 		int col, tx0;
 		for (col = 0, tx0 = 0; col < col1; tx0 += cw[col++]) {
 			// loop to first column
@@ -425,22 +464,35 @@ public class JSTableUI extends JSPanelUI {
 		for (int row = row1, ty = row1 * h; row < row2 && ty < rmaxy; row++, ty += h) {
 			if (ty + h < rminy)
 				continue;
-			String rid = id + "_tab_row" + row;
 			// Note that rows will end up in unpredictable order, but that does not matter.
 			// All that matters is that they have the right y and height value.
-			DOMNode tr = DOMNode.getElement(rid);
-			boolean rowExists = (tr != null);
-			if (!rowExists) {
-				tr = DOMNode.createElement("div", rid);
-				tableNode.appendChild(tr);
-			}
+			// A row div taken over from a row now out of view keeps that row's cells,
+			// which are moved and rendered again here as they are reached.
+			int slot = rowPool.getSlot(row);
+			if (!rowPool.hasNode(slot))
+				cellNodes[slot] = null;
+			DOMNode tr = rowPool.acquire(row, tableNode);
 			DOMNode.setStyle(tr, "height", h + "px");
+			DOMNode[] cells = cellNodes[slot];
+			int ncols = Math.max(col2, table.getColumnCount());
+			if (cells == null || cells.length < ncols) {
+				DOMNode[] a = new DOMNode[ncols];
+				if (cells != null)
+					System.arraycopy(cells, 0, a, 0, cells.length);
+				cells = cellNodes[slot] = a;
+			}
 			col = col1;
 			for (int w, tx = tx0; col < col2 && tx < rmaxx; col++, tx += w) {
 				w = cw[col];
 				if (tx + w < rminx)
 					continue;
-				DOMNode td = CellHolder.findOrCreateNode((JSComponentUI) this, row, col, tx, ty, w, tr); 
+				DOMNode td = cells[col];
+				if (td == null) {
+					td = cells[col] = CellHolder.newCellNode(this, CellHolder.getRowColumnID(this, slot, col), row, col);
+					tr.appendChild(td);
+				}
+				DOMNode.setAttrInt(td, "data-row", row);
+				DOMNode.setStyles(td, "left", tx + "px", "width", w + "px", "height", "inherit", "top", ty + "px");
 				updateCellNode(td, row, col, w, h);
 				if (rminx < 0)
 					return td;
@@ -486,7 +538,7 @@ public class JSTableUI extends JSPanelUI {
 			col = table.getEditingColumn();
 			if (col >= table.getColumnCount())
 				return;
-			DOMNode td = CellHolder.findCellNode(this, null, row, col);
+			DOMNode td = getCellNode(row, col);
 			if (td == null) {
 				td = addElement(row, col, table.getRowHeight());
 			}
@@ -2207,6 +2259,8 @@ public class JSTableUI extends JSPanelUI {
 		if (rMax == -1) {
 			rMax = rc - 1;
 		}
+		if (ensureRowPool(tmpRect.height, rh))
+			table.repaint();
 		resized = (tmpRect.width != lastWidth);
 		if (resized) {
 			// table has been resized
@@ -2286,23 +2340,16 @@ public class JSTableUI extends JSPanelUI {
 	private void checkRemoveCells(int nrows, int ncols) {
 		if (nrows < lastRowCount) {
 			// remove all missing rows
-			for (int r = nrows; r < lastRowCount; r++) {
-				DOMNode node = CellHolder.findCellNode(this, null, r, -1);
-				if (node != null) {
-					DOMNode.remove(node);
-				}
-			}
+			rowPool.removeFrom(nrows);
 		}
 		if (ncols < lastColCount) {
-			// remove all extra columns for visible rows only
-			for (int r = 0; r < nrows; r++) {
-				for (int c = ncols; c < lastColCount; c++) {
-					DOMNode node = CellHolder.findCellNode(this, null, r, c);
-					if (node != null) {
-						DOMNode.remove(node);
-//						if (j == 0)
-//							bsRowTainted.set(i);
-//						DOMNode.setVisible(node, false);
+			// remove all extra columns from the pooled rows
+			for (int s = cellNodes.length; --s >= 0;) {
+				DOMNode[] cells = cellNodes[s];
+				for (int c = ncols, n = (cells == null ? 0 : Math.min(lastColCount, cells.length)); c < n; c++) {
+					if (cells[c] != null) {
+						DOMNode.remove(cells[c]);
+						cells[c] = null;
 					}
 				}
 			}
@@ -2349,7 +2396,7 @@ public class JSTableUI extends JSPanelUI {
 			for (int row = rMin0; row <= rMax0; row++) {
 				table._getCellRect(row, cMin, false, cellRect);
 				boolean colTainted = bsRowTainted.get(row);
-				DOMNode tr = DOMNode.getElement(id + "_tab_row" + row);
+				DOMNode tr = rowPool.get(row);
 				for (int column = cMin; column <= cMax; column++) {
 					columnWidth = cw[column];
 					cellRect.width = columnWidth - columnMargin;
@@ -2370,7 +2417,7 @@ public class JSTableUI extends JSPanelUI {
 //					cellRect.width = columnWidth - columnMargin;
 //					paintCell(g, cellRect, row, cMin, cw, h);
 //				}
-				DOMNode tr = DOMNode.getElement(id + "_tab_row" + row);
+				DOMNode tr = rowPool.get(row);
 				boolean colTainted = bsRowTainted.get(row);
 				for (int column = cMin; column <= cMax; column++) {
 					columnWidth = cw[column];
@@ -2417,7 +2464,7 @@ public class JSTableUI extends JSPanelUI {
 		// and switch its ui domNode to the one for the
 		// given row and column. Painting the component
 		// then modifies this particular cell. and switch it back
-		DOMNode td = (forceNew || tr == null ? null : CellHolder.findCellNode(this, null, row, col));
+		DOMNode td = (forceNew || tr == null ? null : getCellNode(row, col));
 		boolean newtd = (td == null);
 		if (newtd) {
 			td = addElement(row, col, h);
@@ -101,7 +101,6 @@ import sun.swing.DefaultLookup;
 import sun.swing.SwingUtilities2;
 import sun.swing.UIAction;
 import swingjs.api.js.DOMNode;
-import swingjs.api.js.JQueryObject;
 
 /**
  * SwingJS starting point was BasicTreeUI;
@@ -181,6 +180,11 @@ public class JSTreeUI extends JSPanelUI {
 	/** Used to paint the TreeCellRenderer. */
 	protected CellRendererPane rendererPane;
 
+	/**
+	 * the row divs in view and a few more, recycled as the tree scrolls
+	 */
+	private final RowPool rowPool = new RowPool(this, "_row");
+
 	/** Size needed to completely display all the nodes. */
 	protected Dimension preferredSize;
 
@@ -1269,6 +1273,9 @@ public class JSTreeUI extends JSPanelUI {
 		}
 
 		Rectangle paintBounds = g.getClipBounds();
+		if (rowPool.ensureCapacity(Math.max(getRowSpan(tree.getVisibleRect()), getRowSpan(paintBounds))))
+			tree.repaint();
+		rowPool.removeFrom(getRowCount(tree));
 		Insets insets = tree.getInsets();
 		TreePath initialPath = getClosestPathForLocation(tree, 0, paintBounds.y);
 		Enumeration paintingEnumerator = treeState.getVisiblePathsFrom(initialPath);
@@ -1296,9 +1303,6 @@ public class JSTreeUI extends JSPanelUI {
 			TreePath path = null;
 			boolean rootVisible = isRootVisible();
 
-			if (rootVisible)
-				displayJSPath(initialPath, false);
-
 			while (paintingEnumerator.hasMoreElements()) {
 				
 				if (paintLines)
@@ -1306,8 +1310,6 @@ public class JSTreeUI extends JSPanelUI {
 				
 				drawingCache.put(parentPath, Boolean.TRUE);
 				
-				if (row == 1) // only reveal the rest if there is more than one row
-					displayJSPath(initialPath, true);
 				if ((path = (TreePath) paintingEnumerator.nextElement()) == null) {
 					break;
 				}
@@ -1358,17 +1360,12 @@ public class JSTreeUI extends JSPanelUI {
 		drawingCache.clear();
 	}
 
-	private String getPathID(TreePath path) {
-		String s = "";
-		while (path != null) {
-			s = "_" + getNodeId(path) + s;
-			path = path.getParentPath();
-		}
-		return id + s;
-	}
-
-	private String getNodeId(TreePath path) {
-		return (path == null ? "" : "" + path.hashCode());
+	/**
+	 * @param r
+	 * @return the number of rows from the top to the bottom of r
+	 */
+	private int getRowSpan(Rectangle r) {
+		return tree.getClosestRowForLocation(r.x, r.y + r.height - 1) - tree.getClosestRowForLocation(r.x, r.y) + 1;
 	}
 
 	/**
@@ -1588,15 +1585,8 @@ public class JSTreeUI extends JSPanelUI {
 				if (collapsedIcon != null)
 					drawCentered(tree, g, collapsedIcon, middleXOfKnob, middleYOfKnob);
 			}
-			displayJSPath(path, isExpanded);
 		}
 	}
-
-	private void displayJSPath(TreePath path, boolean isExpanded) {
-		String myid = getPathID(path);		
-//		System.out.println("displayjspath " + isExpanded + " " + path);
-		$("[id^=" + myid + "_]").css("display",isExpanded ? "block" : "none");
-	}
 //
 //	private void hideCollapsedPath(TreePath path) {
 //		String myid = getPathID(path);
@@ -1650,34 +1640,29 @@ public class JSTreeUI extends JSPanelUI {
 		int ch = bounds.height;
 		if (isVisible)
 			rendererPane.paintComponent(g, component, tree, cx, cy, cw, ch, true);
-		updateItemHTML(component, path, cx, cy, cw, tree.getRowHeight());
+		updateItemHTML(component, path, row, cx, cy, cw, tree.getRowHeight());
 	}
 
-	private void updateItemHTML(JSComponent c, TreePath path, int left, int top, int width, int height) {
+	private void updateItemHTML(JSComponent c, TreePath path, int row, int left, int top, int width, int height) {
 		c.setSize(width, height);
 		c.setVisible(true);
 		JSComponentUI ui = c.秘getUI();
 		DOMNode node = ui.getListNode();
+		// still the text span of node, until updateDOMNode makes a new one
+		DOMNode txt = ui.textNode;
 		ui.updateDOMNode();
-		String myid = getPathID(path);
-		JQueryObject jnode = $((DOMNode) (Object) ("#" + myid));
-		DOMNode div = JQueryObject.getDOMNode(jnode);
-		if (div == null) {
-			div = newDOMObject("div", myid);
-			div.appendChild(node);			
-			domNode.appendChild(div);
-		} else {
-			jnode.empty();
-			if (node != null)
-				jnode.append(node);
-		}
+		DOMNode div = rowPool.acquire(row, domNode);
+		$(div).empty();
 		if (node == null)
 			return;
+		div.appendChild(node);
 		// Rectangle r = getCellBounds1(list, index);
 		DOMNode.setSize(node, width, height);
 		DOMNode.setTopLeftAbsolute(node, top, left);
 		DOMNode.setStyle(node, "display", null);
-		$("#" + DOMNode.getAttrInt(node,"id") + "_txt").css("background", tree.isPathSelected(path) ? selectionBackground : null);		
+		if (txt != null && tree.isPathSelected(path)
+				&& (DOMNode.getAttr(node, "id") + "_txt").equals(DOMNode.getAttr(txt, "id")))
+			DOMNode.setStyle(txt, "background", selectionBackground);
 	}
 
 	/**
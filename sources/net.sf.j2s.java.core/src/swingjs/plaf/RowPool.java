@@ -0,0 +1,159 @@
+package swingjs.plaf;
+
+import swingjs.api.js.DOMNode;
+
+/**
+ * A fixed set of row divs for JSTableUI, JSListUI, and JSTreeUI, enough for
+ * the rows in view plus OVERSCAN rows above and below.
+ *
+ * Row r always goes in slot r % capacity, so any run of rows no longer than
+ * the capacity fits without collisions, and a row scrolled far enough out of
+ * view simply gives its div to the row that now needs its slot. No element is
+ * ever looked up by id or selector.
+ *
+ * Callers keep whatever else belongs to a row (cell divs, for a table) by
+ * slot, and must render a row from scratch when get(row) has returned null.
+ *
+ */
+final class RowPool {
+
+	final static int OVERSCAN = 8;
+
+	private final JSComponentUI ui;
+
+	private final String suffix;
+
+	private DOMNode[] nodes = new DOMNode[0];
+
+	/**
+	 * the row each slot now holds, or -1
+	 */
+	private int[] rows = new int[0];
+
+	private int nCreated, nRecycled;
+
+	/**
+	 * @param ui     the table, list, or tree
+	 * @param suffix added to the id of the ui, and then the slot, for the id of
+	 *               each row div
+	 */
+	RowPool(JSComponentUI ui, String suffix) {
+		this.ui = ui;
+		this.suffix = suffix;
+	}
+
+	int getCapacity() {
+		return nodes.length;
+	}
+
+	int getSlot(int row) {
+		return row % nodes.length;
+	}
+
+	/**
+	 * Make room for this many rows in view, plus overscan.
+	 *
+	 * @param nVisible
+	 * @return true if the pool was resized, in which case all of its rows have
+	 *         been removed from the DOM
+	 */
+	boolean ensureCapacity(int nVisible) {
+		int n = Math.max(1, nVisible) + 2 * OVERSCAN;
+		if (n <= nodes.length)
+			return false;
+		clear(true);
+		nodes = new DOMNode[n];
+		rows = new int[n];
+		for (int i = 0; i < n; i++)
+			rows[i] = -1;
+		return true;
+	}
+
+	/**
+	 * @param slot
+	 * @return true if the slot has a div, which may hold some other row
+	 */
+	boolean hasNode(int slot) {
+		return nodes[slot] != null;
+	}
+
+	/**
+	 * @param row
+	 * @return the div now holding this row, or null if there is none
+	 */
+	DOMNode get(int row) {
+		int n = nodes.length;
+		return (n == 0 || row < 0 || rows[row % n] != row ? null : nodes[row % n]);
+	}
+
+	/**
+	 * Get the div for this row, creating it in parent or taking it over from
+	 * the row that last used its slot.
+	 *
+	 * @param row
+	 * @param parent
+	 * @return the div
+	 */
+	DOMNode acquire(int row, DOMNode parent) {
+		int s = row % nodes.length;
+		DOMNode node = nodes[s];
+		if (node == null) {
+			node = nodes[s] = DOMNode.createElement("div", ui.id + suffix + s);
+			parent.appendChild(node);
+			nCreated++;
+		} else if (rows[s] != row) {
+			nRecycled++;
+		}
+		rows[s] = row;
+		return node;
+	}
+
+	/**
+	 * Remove the divs of rows at or beyond count, after rows have been deleted.
+	 *
+	 * @param count
+	 */
+	void removeFrom(int count) {
+		for (int s = nodes.length; --s >= 0;) {
+			if (rows[s] >= count) {
+				DOMNode.remove(nodes[s]);
+				nodes[s] = null;
+				rows[s] = -1;
+			}
+		}
+	}
+
+	/**
+	 * Forget all rows.
+	 *
+	 * @param detach true to remove the divs from the DOM; false if their parent
+	 *               has already been emptied
+	 */
+	void clear(boolean detach) {
+		for (int s = nodes.length; --s >= 0;) {
+			if (detach && nodes[s] != null)
+				DOMNode.remove(nodes[s]);
+			nodes[s] = null;
+			rows[s] = -1;
+		}
+	}
+
+	/**
+	 *
+	 * @return the number of rows holding a div
+	 */
+	int getNodeCount() {
+		int n = 0;
+		for (int s = nodes.length; --s >= 0;)
+			if (nodes[s] != null)
+				n++;
+		return n;
+	}
+
+	@Override
+	public String toString() {
+		return "[RowPool " + ui.id + suffix + " capacity=" + nodes.length + " nodes=" + getNodeCount() + " created=" + nCreated
+				+ " recycled=" + nRecycled + "]";
+	}
+
+}
@@ -0,0 +1,173 @@
+package test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmarks for runtime hot paths, run the same way in Java and in
+ * JavaScript. Each prints one line:
+ *
+ * BENCH [tab] name [tab] operations per second
+ *
+ * j2s.swingjs.Java2ScriptBenchmarkRunner (in j2s.core.jar) runs this class on
+ * the JVM and, with site/swingjs/js/j2sHost.js, in node or an embedded
+ * JavaScript engine, and compares the two and earlier results.
+ *
+ * Each benchmark is first called with more and more operations until one call
+ * takes at least 20 ms, then run for the warm-up time, and then timed.
+ *
+ * Arguments: [-time ms] [-warmup ms] [name...] (default 1000 and 300 ms,
+ * all benchmarks)
+ *
+ */
+public class Test_Bench extends Test_ {
+
+	interface Op {
+		/**
+		 * @param n the number of operations
+		 * @return anything depending on the work, so it cannot be skipped
+		 */
+		int run(int n);
+	}
+
+	static class Base {
+		int x;
+
+		Base(int x) {
+			this.x = x;
+		}
+	}
+
+	static class Derived extends Base implements Comparable<Derived> {
+		int y;
+
+		Derived(int x, int y) {
+			super(x);
+			this.y = y;
+		}
+
+		@Override
+		public int compareTo(Derived o) {
+			return x - o.x;
+		}
+	}
+
+	static int timeMs = 1000, warmupMs = 300;
+	static List<String> only = new ArrayList<>();
+	static int sink;
+
+	public static void main(String[] args) {
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "-time":
+				timeMs = Integer.parseInt(args[++i]);
+				break;
+			case "-warmup":
+				warmupMs = Integer.parseInt(args[++i]);
+				break;
+			default:
+				only.add(args[i]);
+			}
+		}
+
+		Base[] objs = new Base[1024];
+		bench("new", (n) -> {
+			for (int i = 0; i < n; i++)
+				objs[i & 1023] = new Derived(i, 1);
+			return objs[n & 1023] == null ? 0 : objs[n & 1023].x;
+		});
+
+		Object[] objects = new Object[] { "s", Integer.valueOf(1), new Derived(1, 2), new Base(3), new ArrayList<String>(),
+				new int[1] };
+		bench("instanceof", (n) -> {
+			int s = 0;
+			for (int i = 0; i < n; i++) {
+				Object o = objects[i % objects.length];
+				if (o instanceof Base)
+					s++;
+				if (o instanceof Comparable)
+					s += 2;
+				if (o instanceof List)
+					s += 4;
+			}
+			return s;
+		});
+
+		bench("long", (n) -> {
+			long x = n;
+			for (int i = 0; i < n; i++)
+				x = x * 6364136223846793005L + 1442695040888963407L;
+			return (int) (x >>> 32);
+		});
+
+		String[] keys = new String[1000];
+		for (int i = 0; i < keys.length; i++)
+			keys[i] = "key" + i;
+		bench("HashMap", (n) -> {
+			Map<String, Integer> map = new HashMap<>();
+			int s = 0;
+			for (int i = 0; i < n; i++) {
+				String key = keys[i % keys.length];
+				Integer v = map.get(key);
+				map.put(key, Integer.valueOf(v == null ? 1 : v.intValue() + 1));
+				s += map.size();
+			}
+			return s;
+		});
+
+		bench("String.format", (n) -> {
+			int s = 0;
+			for (int i = 0; i < n; i++)
+				s += String.format("%5.2f %d %s", Double.valueOf(i / 3.0), Integer.valueOf(i), "x").length();
+			return s;
+		});
+
+		Pattern p = Pattern.compile("(\\w+)@(\\w+)\\.com");
+		String text = "write to bob@example.com or to alice@test.com, not to carol at example dot com";
+		bench("Matcher", (n) -> {
+			int s = 0;
+			for (int i = 0; i < n; i++) {
+				Matcher m = p.matcher(text);
+				while (m.find())
+					s += m.group(2).length();
+			}
+			return s;
+		});
+
+		System.out.println("Test_Bench OK " + sink);
+	}
+
+	static void bench(String name, Op op) {
+		if (only.size() > 0 && !only.contains(name))
+			return;
+		int n = 1;
+		while (time(op, n) < 20 && n < (1 << 30))
+			n *= 2;
+		run(op, n, warmupMs);
+		long[] counts = run(op, n, timeMs);
+		System.out.println("BENCH\t" + name + "\t" + Math.round(counts[0] * 1000.0 / counts[1]));
+	}
+
+	/**
+	 * @return {operations, ms}
+	 */
+	static long[] run(Op op, int n, int ms) {
+		long ops = 0, t = 0;
+		while (t < ms) {
+			t += time(op, n);
+			ops += n;
+		}
+		return new long[] { ops, t };
+	}
+
+	static long time(Op op, int n) {
+		long t = System.currentTimeMillis();
+		sink += op.run(n);
+		return System.currentTimeMillis() - t;
+	}
+
+}
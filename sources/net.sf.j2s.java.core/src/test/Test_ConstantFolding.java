@@ -0,0 +1,88 @@
+package test;
+
+/**
+ * Transpile-time constant folding (j2s.compiler.fold.constants): if and ?:
+ * branches ruled out by static final flags are dropped, and so are private
+ * methods that only those branches called. Conditions that must still
+ * evaluate something, and branches holding @j2sNative, are kept.
+ *
+ * The transpiler logs what it dropped for this class. In JavaScript, the
+ * native section checks which private methods are left.
+ *
+ */
+public class Test_ConstantFolding extends Test_ {
+
+	static final boolean DEBUG = false;
+
+	static final boolean TRACE = true;
+
+	static final int LEVEL = 2;
+
+	static int nChecks;
+
+	static boolean check() {
+		nChecks++;
+		return true;
+	}
+
+	private static String debugOnly(String s) {
+		return "debug " + format(s);
+	}
+
+	private static String format(String s) {
+		return "[" + s + "]";
+	}
+
+	private static String traceOnly(String s) {
+		return s;
+	}
+
+	private static String namedOnly() {
+		return "named";
+	}
+
+	public static void main(String[] args) {
+		String s = "";
+		if (DEBUG)
+			s += debugOnly("a");
+		if (!DEBUG)
+			s += "b";
+		if (DEBUG && check())
+			s += "x";
+		else
+			s += "c";
+		if (LEVEL > 1 || check())
+			s += "d";
+		if (check() && DEBUG)
+			s += "x";
+		s += (TRACE ? traceOnly("e") : debugOnly("f"));
+		for (int i = 0; i < 2; i++)
+			if (DEBUG)
+				s += "x";
+			else if (TRACE)
+				s += i;
+		if (DEBUG) {
+		} else if (DEBUG)
+			s += "x";
+		if (DEBUG) {
+			/**
+			 * @j2sNative s += "n";
+			 */
+		}
+		assert (s.equals("bcde01"));
+		assert (nChecks == 1);
+		System.out.println(s + " checks=" + nChecks);
+
+		/**
+		 * @j2sNative
+		 *
+		 * // not naming the private methods here, which would keep them
+		 * var kept = Object.keys(C$).filter(function(k) { return /Only|^for/.test(k) }).sort();
+		 * System.out.println("kept " + kept);
+		 * if (kept.join() != "namedOnly$,traceOnly$S")
+		 *   System.out.println("wrong private methods kept");
+		 */
+		System.out.println("Test_ConstantFolding OK");
+	}
+
+}
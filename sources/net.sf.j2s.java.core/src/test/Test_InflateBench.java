@@ -0,0 +1,190 @@
+package test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import javajs.util.ZipArchive;
+
+/**
+ * Inflate throughput on large gzip and zip payloads: GZIPInputStream,
+ * ZipInputStream reading every entry, and ZipArchive.getBytes for every entry.
+ *
+ * In JavaScript, the native section runs the same three with jzlib only
+ * (J2S._inflate = false), with j2sApplet.js's J2S._jsInflate, and with the
+ * host's J2S._inflate if it has its own (node's zlib, in j2sHost.js), and checks
+ * that all give the same bytes.
+ *
+ */
+public class Test_InflateBench extends Test_ {
+
+	final static int NENTRIES = 16, ENTRY_SIZE = 256 << 10;
+
+	static byte[] gzipBytes, zipBytes;
+
+	static int check;
+
+	static byte[] makeText(int n, int seed) {
+		byte[] b = new byte[n];
+		String[] words = { "inflate ", "deflate ", "stream ", "entry ", "swingjs ", "buffer\n", "0123 ", "zip " };
+		for (int i = 0, r = seed; i < n;) {
+			r = (r * 69069 + 1) & 0x7FFFFFFF;
+			String w = words[(r >>> 16) & 7];
+			for (int j = 0; j < w.length() && i < n; j++)
+				b[i++] = (byte) w.charAt(j);
+		}
+		return b;
+	}
+
+	static void makePayloads() throws IOException {
+		// SwingJS has no java.util.zip.GZIPOutputStream
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		bos.write(new byte[] { 0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff });
+		DeflaterOutputStream dos = new DeflaterOutputStream(bos, new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+		CRC32 crc = new CRC32();
+		for (int i = 0; i < NENTRIES; i++) {
+			byte[] b = makeText(ENTRY_SIZE, i);
+			crc.update(b, 0, b.length);
+			dos.write(b);
+		}
+		dos.close();
+		long c = crc.getValue(), n = NENTRIES * ENTRY_SIZE;
+		for (int i = 0; i < 4; i++)
+			bos.write((int) (c >> (i * 8)));
+		for (int i = 0; i < 4; i++)
+			bos.write((int) (n >> (i * 8)));
+		gzipBytes = bos.toByteArray();
+		bos = new ByteArrayOutputStream();
+		ZipOutputStream zos = new ZipOutputStream(bos);
+		for (int i = 0; i < NENTRIES; i++) {
+			zos.putNextEntry(new ZipEntry("data/e" + i + ".txt"));
+			zos.write(makeText(ENTRY_SIZE, i));
+			zos.closeEntry();
+		}
+		zos.close();
+		zipBytes = bos.toByteArray();
+	}
+
+	static int sum(byte[] b, int n, int s) {
+		for (int i = 0; i < n; i++)
+			s = s * 31 + b[i];
+		return s;
+	}
+
+	/**
+	 * Read a stream to its end in chunks, as applications do.
+	 */
+	static long readAll(InputStream is, byte[] buf) throws IOException {
+		long n = 0;
+		for (int len; (len = is.read(buf, 0, buf.length)) > 0; n += len)
+			check = sum(buf, Math.min(len, 16), check);
+		return n;
+	}
+
+	static long gzip() throws IOException {
+		GZIPInputStream gis = new GZIPInputStream(new ByteArrayInputStream(gzipBytes), 512);
+		long n = readAll(gis, new byte[8192]);
+		gis.close();
+		return n;
+	}
+
+	static long zip() throws IOException {
+		ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(zipBytes));
+		byte[] buf = new byte[8192];
+		long n = 0;
+		while (zis.getNextEntry() != null)
+			n += readAll(zis, buf);
+		zis.close();
+		return n;
+	}
+
+	static long archive() throws IOException {
+		ZipArchive zip = new ZipArchive(zipBytes, "test.zip");
+		long n = 0;
+		for (int i = 0; i < NENTRIES; i++) {
+			byte[] b = zip.getBytes("data/e" + i + ".txt");
+			check = sum(b, 16, check);
+			n += b.length;
+		}
+		return n;
+	}
+
+	/**
+	 * @return ms for gzip, zip, and archive, then the check sum
+	 */
+	static long[] run() throws IOException {
+		long[] t = new long[4];
+		check = 0;
+		long n = NENTRIES * ENTRY_SIZE;
+		long t0 = System.currentTimeMillis();
+		long ngzip = gzip();
+		t[0] = System.currentTimeMillis() - t0;
+		t0 = System.currentTimeMillis();
+		long nzip = zip();
+		t[1] = System.currentTimeMillis() - t0;
+		t0 = System.currentTimeMillis();
+		long narchive = archive();
+		t[2] = System.currentTimeMillis() - t0;
+		t[3] = check;
+		if (ngzip != n || nzip != n || narchive != n)
+			System.out.println("wrong length: gzip " + ngzip + " zip " + nzip + " archive " + narchive);
+		return t;
+	}
+
+	static String report(long[] t) {
+		double mb = NENTRIES * ENTRY_SIZE / 1048576.0;
+		return "gzip " + t[0] + " ms (" + rate(mb, t[0]) + " MB/s)\tzip " + t[1] + " ms (" + rate(mb, t[1])
+				+ " MB/s)\tarchive " + t[2] + " ms (" + rate(mb, t[2]) + " MB/s)";
+	}
+
+	static long rate(double mb, long ms) {
+		return Math.round(mb * 1000 / Math.max(ms, 1));
+	}
+
+	public static void main(String[] args) {
+		try {
+			makePayloads();
+			System.out.println("payload " + (NENTRIES * ENTRY_SIZE) + " bytes: gzip " + gzipBytes.length + " bytes, zip "
+					+ zipBytes.length + " bytes");
+			long[] t = run();
+			System.out.println(report(t));
+			long check0 = t[3];
+
+			/**
+			 * @j2sNative
+			 *
+			 * var f = J2S._inflate;
+			 * var names = ["jzlib", "js"], fs = [false, J2S._jsInflate];
+			 * if (f && f != J2S._jsInflate) {
+			 *   names.push("native");
+			 *   fs.push(f);
+			 * }
+			 * var times = [];
+			 * // twice each, reporting the second
+			 * for (var pass = 0; pass < 2 * fs.length; pass++) {
+			 *   var i = pass % fs.length;
+			 *   J2S._inflate = fs[i];
+			 *   times[i] = C$.run$();
+			 *   if (times[i][3] != check0)
+			 *     System.out.println("wrong bytes with " + names[i]);
+			 * }
+			 * J2S._inflate = f;
+			 * for (var i = 0; i < fs.length; i++)
+			 *   System.out.println(names[i] + "\t" + C$.report$JA(times[i]));
+			 */
+
+			System.out.println("Test_InflateBench OK");
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+
+}
@@ -0,0 +1,106 @@
+package test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.TreeMap;
+
+/**
+ * instanceof and checked casts on interfaces, as in collection-heavy code.
+ *
+ * In JavaScript, the native section times the same loop with the type ancestry
+ * bit sets (Clazz._ancestry = true, the default) and with the older knownInst
+ * cache (false), and checks that the two agree for every pair of classes
+ * loaded.
+ *
+ */
+public class Test_InstanceOfBench extends Test_ {
+
+	final static int N = 1000000;
+
+	static Object[] objects = new Object[] { new ArrayList<String>(), new LinkedList<String>(),
+			new HashMap<String, String>(), new TreeMap<String, String>(), new HashSet<String>(),
+			new ArrayDeque<String>(), "s", Integer.valueOf(1), new Object() };
+
+	static int count(int n) {
+		int s = 0;
+		for (int i = 0; i < n; i++) {
+			Object o = objects[i % objects.length];
+			if (o instanceof Collection)
+				s += ((Collection<?>) o).size() + 1;
+			if (o instanceof List)
+				s += 2;
+			if (o instanceof RandomAccess)
+				s += 3;
+			if (o instanceof Deque)
+				s += 4;
+			if (o instanceof Map)
+				s += ((Map<?, ?>) o).size() + 5;
+			if (o instanceof CharSequence)
+				s += 6;
+			if (o instanceof Comparable)
+				s += 7;
+			if (o instanceof Iterable)
+				s += 8;
+		}
+		return s;
+	}
+
+	public static void main(String[] args) {
+		long t = System.currentTimeMillis();
+		int r = count(N);
+		System.out.println("count " + (System.currentTimeMillis() - t) + " ms " + r);
+		assert (r == 9000005);
+
+		/**
+		 * @j2sNative
+		 *
+		 * var times = [];
+		 * for (var pass = 0; pass < 4; pass++) {
+		 *   Clazz._ancestry = (pass % 2 == 0);
+		 *   var t0 = Date.now();
+		 *   r = C$.count$I(1000000);
+		 *   times[pass] = Date.now() - t0;
+		 *   if (r != 9000005)
+		 *     System.out.println("wrong count " + r + " ancestry=" + Clazz._ancestry);
+		 * }
+		 * Clazz._ancestry = true;
+		 * System.out.println("ancestry " + Math.min(times[0], times[2]) + " ms\tknownInst "
+		 *   + Math.min(times[1], times[3]) + " ms");
+		 *
+		 * var names = Object.keys(Clazz.allClasses), nPairs = 0, nBad = 0;
+		 * for (var i = names.length; --i >= 0;) {
+		 *   var a = Clazz.allClasses[names[i]];
+		 *   // the knownInst path finds a class by its name
+		 *   if (typeof a != "function" || Clazz._getDeclared(a.__CLASS_NAME__ || "?") !== a)
+		 *     continue;
+		 *   for (var j = names.length; --j >= 0;) {
+		 *     var b = Clazz.allClasses[names[j]];
+		 *     if (typeof b != "function" || !b.__CLASS_NAME__)
+		 *       continue;
+		 *     Clazz._ancestry = true;
+		 *     var isA = Clazz.instanceOf(a, b);
+		 *     Clazz._ancestry = false;
+		 *     nPairs++;
+		 *     if (isA != !!Clazz.instanceOf(a, b)) {
+		 *       nBad++;
+		 *       System.out.println("mismatch " + names[i] + " " + names[j] + " " + isA);
+		 *     }
+		 *   }
+		 * }
+		 * Clazz._ancestry = true;
+		 * System.out.println(nPairs + " class pairs checked, " + nBad + " mismatches");
+		 * if (nBad) throw new Error("mismatch");
+		 */
+
+		System.out.println("Test_InstanceOfBench OK");
+	}
+
+}
@@ -0,0 +1,123 @@
+package test;
+
+/**
+ * Micro-benchmarks for 64-bit long arithmetic in JavaScript.
+ *
+ * The "Java" timings are for whatever long mode this class was transpiled
+ * with. Run it once with the default .j2s setting and once with
+ * j2s.compiler.long=bigint to compare the two modes in real code. The
+ * checksums must be the same in Java and in both JavaScript modes.
+ *
+ * The "native" timings call Long.$add etc. (the [r,m,s] array
+ * implementation) and Long.$b.$add etc. (the BigInt implementation) directly on
+ * the same values in the same run, so they need only one build.
+ *
+ */
+public class Test_LongBench extends Test_ {
+
+	final static int N = 1000000;
+
+	/**
+	 * the 64-bit linear congruential generator from Knuth's MMIX
+	 */
+	static long lcg(int n) {
+		long x = 1;
+		long sum = 0;
+		for (int i = 0; i < n; i++) {
+			x = x * 6364136223846793005L + 1442695040888963407L;
+			sum ^= x >>> 33;
+		}
+		return sum;
+	}
+
+	/**
+	 * 64-bit FNV-1a hash of n bytes
+	 */
+	static long fnv1a(int n) {
+		long h = 0xcbf29ce484222325L;
+		for (int i = 0; i < n; i++) {
+			h ^= (i & 0xFF);
+			h *= 0x100000001b3L;
+		}
+		return h;
+	}
+
+	/**
+	 * xorshift64*; shifts, xor, and multiply
+	 */
+	static long xorshift(int n) {
+		long x = 88172645463325252L;
+		long sum = 0;
+		for (int i = 0; i < n; i++) {
+			x ^= x >>> 12;
+			x ^= x << 25;
+			x ^= x >>> 27;
+			sum += x * 2685821657736338717L;
+		}
+		return sum;
+	}
+
+	/**
+	 * mostly small values, as in counters and time stamps
+	 */
+	static long small(int n) {
+		long sum = 0;
+		for (int i = 0; i < n; i++) {
+			sum += (long) i * i / 3 - (i % 7);
+		}
+		return sum;
+	}
+
+	public static void main(String[] args) {
+		long t;
+
+		t = System.currentTimeMillis();
+		long r = lcg(N);
+		System.out.println("lcg      " + (System.currentTimeMillis() - t) + " ms " + r);
+		assert (r == 943804315L);
+
+		t = System.currentTimeMillis();
+		r = fnv1a(N);
+		System.out.println("fnv1a    " + (System.currentTimeMillis() - t) + " ms " + r);
+		assert (r == -7700743444143061787L);
+
+		t = System.currentTimeMillis();
+		r = xorshift(N);
+		System.out.println("xorshift " + (System.currentTimeMillis() - t) + " ms " + r);
+		assert (r == -1411527713070287887L);
+
+		t = System.currentTimeMillis();
+		r = small(N);
+		System.out.println("small    " + (System.currentTimeMillis() - t) + " ms " + r);
+		assert (r == 111110944441277781L);
+
+		/**
+		 * @j2sNative
+		 *
+		 * if (!self.BigInt) { System.out.println("no BigInt"); return; }
+		 * var n = 1024, big = [], arr = [];
+		 * for (var i = 0; i < n; i++) {
+		 *   // half large, half small
+		 *   big[i] = (i % 2 ? Long.$b.$mul(i + 1, BigInt("-7046029254386353131")) : i * 1000003);
+		 *   arr[i] = Clazz.toLong(big[i]);
+		 * }
+		 * var ops = ["$add", "$sub", "$mul", "$div", "$xor", "$sr", "$usr", "$sl", "$cmp"];
+		 * for (var j = 0; j < ops.length; j++) {
+		 *   var op = ops[j], isShift = (op.indexOf("s") == 1);
+		 *   var times = [];
+		 *   for (var pass = 0; pass < 2; pass++) {
+		 *     var f = (pass == 0 ? Long[op] : Long.$b[op]), d = (pass == 0 ? arr : big);
+		 *     var t0 = Date.now(), x;
+		 *     for (var k = 0; k < 200000; k++)
+		 *       x = f(d[k & 1023], isShift ? k & 63 : d[(k + 1) & 1023] || 1);
+		 *     times[pass] = Date.now() - t0;
+		 *   }
+		 *   System.out.println("native " + op + "\tarray " + times[0] + " ms\tBigInt " + times[1] + " ms\tspeedup "
+		 *     + (times[1] ? Math.round(times[0] * 10 / times[1]) / 10 : "-"));
+		 * }
+		 */
+
+		System.out.println("Test_LongBench OK");
+	}
+
+}
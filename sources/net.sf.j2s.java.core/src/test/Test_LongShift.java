@@ -0,0 +1,127 @@
+package test;
+
+/**
+ * long shifts and xor, against values from the JVM. Run it transpiled with the
+ * default .j2s setting and with j2s.compiler.long=bigint; both must pass.
+ *
+ * The native section checks the values the two modes hand each other: BigInt
+ * arguments to the array functions Long.$sl etc. and [r,m,s] arrays to
+ * Long.$b.$sl etc., against native BigInt.
+ *
+ */
+public class Test_LongShift extends Test_ {
+
+	// not constants, so that nothing here is folded at compile time
+	static long[] values = { 0L, 1L, -1L, 211L, -211L, 0x7FFFFFFFL, 0x80000000L, -0x80000000L, 0xFFFFFFL,
+			0x1000000L, 0x1FFFFFFFFFFFFFL, 0x20000000000000L, -0x20000000000001L, 88172645463325252L,
+			0x123456789ABCDEF0L, 0xFEDCBA9876543210L, Long.MAX_VALUE, Long.MIN_VALUE };
+
+	// Java uses only the low 6 bits of a long shift count
+	static int[] counts = { 0, 1, 12, 23, 24, 25, 27, 28, 31, 32, 33, 47, 48, 52, 53, 63, 64, 65, 127, -1, -33 };
+
+	/**
+	 * every value shifted by every count, folded with xor and a rotate
+	 */
+	static long shiftSum() {
+		long sum = 0;
+		for (int i = 0; i < values.length; i++) {
+			long v = values[i];
+			for (int j = 0; j < counts.length; j++) {
+				int n = counts[j];
+				sum ^= v << n;
+				sum = (sum << 7) | (sum >>> 57);
+				sum ^= v >> n;
+				sum = (sum << 7) | (sum >>> 57);
+				sum ^= v >>> n;
+				sum = (sum << 7) | (sum >>> 57);
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * the xorshift64 steps alone, with no multiply
+	 */
+	static long xorshift(int n) {
+		long x = 88172645463325252L;
+		long sum = 0;
+		for (int i = 0; i < n; i++) {
+			x ^= x >>> 12;
+			x ^= x << 25;
+			x ^= x >>> 27;
+			sum ^= x;
+		}
+		return sum ^ x;
+	}
+
+	public static void main(String[] args) {
+		long one = values[1], m1 = values[2], a = values[3];
+
+		assert ((a << 28) == 56639881216L);
+		assert ((a << 60) == 3458764513820540928L);
+		assert ((-a << 40) == -231996953460736L);
+		assert ((one << 63) == Long.MIN_VALUE);
+		assert ((one << 64) == 1L);
+		assert ((one << -1) == Long.MIN_VALUE);
+		assert ((m1 >>> 1) == Long.MAX_VALUE);
+		assert ((m1 >>> 64) == -1L);
+		assert ((m1 >> 63) == -1L);
+		assert ((Long.MIN_VALUE >> 63) == -1L);
+		assert ((values[17] >>> 63) == 1L);
+		assert ((values[15] >> 4) == 0xFFEDCBA987654321L);
+		assert ((values[15] >>> 4) == 0x0FEDCBA987654321L);
+		assert ((values[14] ^ values[15]) == 0xECE8ECE0ECE8ECE0L);
+		assert ((values[10] ^ values[11]) == 0x3FFFFFFFFFFFFFL);
+		assert ((values[12] ^ m1) == 0x20000000000000L);
+		System.out.println("shift and xor cases OK");
+
+		long r = shiftSum();
+		System.out.println("shiftSum " + r);
+		assert (r == 4394940060736411101L);
+
+		r = xorshift(10000);
+		System.out.println("xorshift " + r);
+		assert (r == 7382854145241999784L);
+
+		int nbad = 0;
+
+		/**
+		 * @j2sNative
+		 *
+		 * if (!self.BigInt) { System.out.println("no BigInt"); return; }
+		 * var N = function(v) { return BigInt.asIntN(64, v); };
+		 * var ops = {
+		 *   $sl: function(a, n) { return N(a << BigInt(n & 63)); },
+		 *   $sr: function(a, n) { return N(a >> BigInt(n & 63)); },
+		 *   $usr: function(a, n) { return N(BigInt.asUintN(64, a) >> BigInt(n & 63)); },
+		 *   $xor: function(a, b) { return N(a ^ b); }
+		 * };
+		 * var vals = C$.values, counts = C$.counts;
+		 * var big = function(v) { return BigInt(Long.$b.$s(v)); };
+		 * for (var op in ops) {
+		 *   for (var i = 0; i < vals.length; i++) {
+		 *     var a = big(vals[i]);
+		 *     var args = (op == "$xor" ? vals.map(big) : counts);
+		 *     for (var j = 0; j < args.length; j++) {
+		 *       var b = args[j], want = "" + ops[op](a, b);
+		 *       var bArr = (op == "$xor" ? Clazz.toLong(b) : b);
+		 *       // a BigInt into the array functions; an array into the BigInt ones
+		 *       var got = [Long.$s(Long[op](a, b)), Long.$s(Long[op](Clazz.toLong(a), bArr)),
+		 *         Long.$b.$s(Long.$b[op](Clazz.toLong(a), bArr)), Long.$b.$s(Long.$b[op](a, b))];
+		 *       for (var k = 0; k < got.length; k++) {
+		 *         if (got[k] != want) {
+		 *           nbad++ < 10 && System.out.println("native " + op + " " + k + " " + a + " " + b + " " + got[k] + " != " + want);
+		 *         }
+		 *       }
+		 *     }
+		 *   }
+		 * }
+		 * System.out.println("native mixed BigInt and array " + (nbad == 0 ? "OK" : nbad + " bad"));
+		 */
+
+		assert (nbad == 0);
+
+		System.out.println("Test_LongShift OK");
+	}
+
+}
@@ -34,7 +34,8 @@ import java.util.function.Function;
  * Chrome exceeds the speed of Java for map sizes in the 100K to 1M range.
  * 
  * SwingJS falls back to standard Java "unoptimized" behavior only for
- * non-string keys and HashMap Spliterator.
+ * keys other than String, Integer, Short, Byte, Character, and Long, for keys
+ * of mixed classes, and for HashMap Spliterator. See test.Test_MapNumbers.
  * 
  * It is important to make sure the browser's developer console is closed during
  * these tests, especially for Firefox.
@@ -45,7 +46,8 @@ import java.util.function.Function;
  * The overall switch for optimization or not is java.util.Map.USE_SIMPLE, set
  * to true for using the simple JavaScript Map and false for not.
  * 
- * For this first round, LinkedHashMap is not enabled for use of JavaScript Map.
+ * LinkedHashMap uses JavaScript Map only in insertion order, and not for
+ * subclasses.
  * 
  * @author hansonr
  *
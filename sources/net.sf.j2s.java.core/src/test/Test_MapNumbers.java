@@ -0,0 +1,181 @@
+package test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * HashMap, HashSet, and LinkedHashMap with Integer, Short, Byte, Character,
+ * and Long keys, checked, then timed with HashMap.USE_SIMPLE_NUMBERS on (a
+ * JavaScript Map keyed by primitive values) and off (the Java hash table).
+ *
+ */
+public class Test_MapNumbers extends Test_ {
+
+	static int nFailed;
+
+	static void check(boolean ok, String what) {
+		if (!ok) {
+			nFailed++;
+			System.out.println("failed: " + what);
+		}
+	}
+
+	static boolean isSimple(Map<?, ?> map) {
+		return (/** @j2sNative !!map.秘m || */false);
+	}
+
+	/**
+	 * HashMap.USE_SIMPLE_NUMBERS, which Java's own HashMap does not have
+	 */
+	static void setSimpleNumbers(boolean b) {
+		/**
+		 * @j2sNative java.util.HashMap.USE_SIMPLE_NUMBERS = b;
+		 */
+	}
+
+	static void testIntegers(Map<Integer, String> map, boolean isLinked) {
+		String name = map.getClass().getSimpleName();
+		for (int i = 0; i < 100; i++)
+			map.put(i * 7 % 100, "v" + i);
+		boolean isJS = /** @j2sNative true || */false;
+		check(!isJS || isSimple(map), name + " simple");
+		check(map.size() == 100, name + " size");
+		check("v3".equals(map.get(Integer.valueOf(21))), name + " get");
+		check(map.get(new Integer(21)) == map.get(21), name + " get new Integer");
+		check(map.get(1000) == null && !map.containsKey(1000), name + " missing");
+		check(map.containsValue("v99"), name + " containsValue");
+		check(map.keySet().contains(7) && map.entrySet().size() == 100, name + " views");
+		check("v1".equals(map.remove(7)) && map.size() == 99, name + " remove");
+		map.put(7, "v1");
+		int sum = 0;
+		for (Entry<Integer, String> e : map.entrySet()) {
+			Integer k = e.getKey();
+			sum += k.intValue();
+			check(e.getValue().equals(map.get(k)), name + " entry " + k);
+			if (k.intValue() == 14)
+				e.setValue("fourteen");
+		}
+		check(sum == 4950, name + " keys");
+		check("fourteen".equals(map.get(14)), name + " setValue");
+		if (isLinked) {
+			Iterator<Integer> it = map.keySet().iterator();
+			check(it.next().intValue() == 0 && it.next().intValue() == 14, name + " insertion order");
+		}
+		for (Iterator<Integer> it = map.keySet().iterator(); it.hasNext();)
+			if (it.next().intValue() % 2 == 0)
+				it.remove();
+		check(map.size() == 50 && !map.containsKey(14) && map.containsKey(21), name + " iterator remove");
+		// a String key goes back to Java
+		map.put(Integer.valueOf(1000), "x");
+		((Map) map).put("s", "y");
+		check(!isSimple(map) && map.size() == 52, name + " mixed");
+		check("x".equals(map.get(1000)) && "y".equals(map.get("s")) && "v3".equals(map.get(21)), name + " mixed get");
+		map.clear();
+		map.put(5, "five");
+		check(!isJS || isSimple(map), name + " simple after clear");
+	}
+
+	static void testKeys() {
+		HashMap<Object, String> map = new HashMap<>();
+		map.put(Short.valueOf((short) 3), "s");
+		check(map.containsKey(Short.valueOf((short) 3)) && !map.containsKey(Integer.valueOf(3)), "Short");
+		check(map.keySet().iterator().next() instanceof Short, "Short key");
+		map = new HashMap<>();
+		map.put(Byte.valueOf((byte) -3), "b");
+		check("b".equals(map.get(Byte.valueOf((byte) -3))) && map.get(Short.valueOf((short) -3)) == null, "Byte");
+		map = new HashMap<>();
+		map.put(Character.valueOf('一'), "c");
+		map.put(Character.valueOf('a'), "a");
+		check("c".equals(map.get(new Character('一'))) && map.get(Character.valueOf('b')) == null, "Character");
+		check(map.keySet().iterator().next() instanceof Character, "Character key");
+		map = new HashMap<>();
+		map.put(null, "null");
+		map.put(Long.valueOf(3), "3");
+		check("null".equals(map.get(null)) && "3".equals(map.get(3L)), "null key");
+
+		HashSet<Long> set = new HashSet<>();
+		set.add(Long.valueOf(1L << 40));
+		set.add(Long.valueOf(-5));
+		check(set.contains(1L << 40) && set.contains(-5L) && !set.contains(5L) && set.size() == 2, "Long");
+		set.add(Long.MAX_VALUE);
+		set.add(Long.MIN_VALUE);
+		check(set.contains(Long.MAX_VALUE) && set.contains(Long.MIN_VALUE) && set.contains(-5L) && set.size() == 4, "large Long");
+
+		// putAll of Strings into a map of Integers
+		HashMap<Object, String> a = new HashMap<>(), b = new HashMap<>();
+		a.put(1, "1");
+		b.put("2", "2");
+		a.putAll(b);
+		check(a.size() == 2 && "1".equals(a.get(1)) && "2".equals(a.get("2")), "putAll");
+
+		// access order and subclasses keep their linked entries
+		LinkedHashMap<Integer, String> lru = new LinkedHashMap<Integer, String>(16, 0.75f, true);
+		lru.put(1, "1");
+		lru.put(2, "2");
+		lru.get(1);
+		check(lru.keySet().iterator().next().intValue() == 2, "access order");
+		LinkedHashMap<Integer, String> bounded = new LinkedHashMap<Integer, String>() {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+				return size() > 2;
+			}
+		};
+		for (int i = 0; i < 5; i++)
+			bounded.put(i, "" + i);
+		check(bounded.size() == 2 && bounded.containsKey(4) && !bounded.containsKey(2), "removeEldestEntry");
+	}
+
+	static String time(int n) {
+		long t = System.currentTimeMillis();
+		HashMap<Integer, Integer> map = new HashMap<>();
+		for (int i = 0; i < n; i++)
+			map.put(i * 31, i);
+		long tPut = System.currentTimeMillis();
+		int sum = 0;
+		for (int j = 0; j < 5; j++)
+			for (int i = 0; i < n; i++)
+				sum += map.get(i * 31).intValue();
+		long tGet = System.currentTimeMillis();
+		for (int j = 0; j < 5; j++)
+			for (Integer k : map.keySet())
+				sum -= k.intValue() / 31;
+		long tKeys = System.currentTimeMillis();
+		for (int j = 0; j < 5; j++)
+			for (Entry<Integer, Integer> e : map.entrySet())
+				sum += e.getKey().intValue() / 31 - e.getValue().intValue();
+		long tIter = System.currentTimeMillis();
+		HashSet<Long> set = new HashSet<>();
+		for (int i = 0; i < n; i++)
+			set.add(Long.valueOf(i * 1000003L));
+		int nFound = 0;
+		for (int i = 0; i < 2 * n; i++)
+			if (set.contains(Long.valueOf(i * 1000003L)))
+				nFound++;
+		long tSet = System.currentTimeMillis();
+		check(sum == 0 && nFound == n, "timed");
+		return "put " + (tPut - t) + " get " + (tGet - tPut) + " keySet " + (tKeys - tGet) + " entrySet "
+				+ (tIter - tKeys) + " HashSet<Long> " + (tSet - tIter) + " ms";
+	}
+
+	public static void main(String[] args) {
+		testIntegers(new HashMap<Integer, String>(), false);
+		testIntegers(new LinkedHashMap<Integer, String>(), true);
+		testKeys();
+
+		int n = 100000;
+		if (/** @j2sNative false && */true)
+			System.out.println("not JavaScript: both runs use the Java hash table");
+		for (int i = 0; i < 3; i++) {
+			setSimpleNumbers(false);
+			System.out.println(n + " keys, Java hash table: " + time(n));
+			setSimpleNumbers(true);
+			System.out.println(n + " keys, JavaScript Map:  " + time(n));
+		}
+		System.out.println(nFailed == 0 ? "Test_MapNumbers OK" : "Test_MapNumbers FAILED " + nFailed);
+	}
+
+}
@@ -0,0 +1,126 @@
+package test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javajs.async.Assets;
+import javajs.util.RangeZipArchive;
+import javajs.util.ZipArchive;
+
+/**
+ * javajs.util.RangeZipArchive and Assets lazy loading, against a zip file on a
+ * web server.
+ *
+ * Make the zip file with
+ *
+ * java test.Test_RangeZipArchive -make dir/test-assets.zip
+ *
+ * and serve dir from a server that does Range requests and from one that does
+ * not (python3 -m http.server, for one). Then run
+ *
+ * Test_RangeZipArchive http://localhost:port/test-assets.zip
+ *
+ * for each. Every entry must be the same as in the zip file built in memory.
+ * With ranges, reading a few entries must fetch much less than the file, and
+ * the cache must keep within its budget.
+ *
+ */
+public class Test_RangeZipArchive extends Test_ {
+
+	final static int N = 200, SIZE = 50000;
+
+	static byte[] makeZip() throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		ZipOutputStream zos = new ZipOutputStream(bos);
+		byte[] b = new byte[SIZE];
+		for (int i = 0; i < N; i++) {
+			for (int j = 0, r = i; j < SIZE; j++) {
+				r = (r * 69069 + 1) & 0x7FFFFFFF;
+				b[j] = (byte) ('a' + ((r >>> 16) & 7));
+			}
+			zos.putNextEntry(new ZipEntry("assets/e" + i + ".txt"));
+			zos.write(b, 0, SIZE);
+			zos.closeEntry();
+		}
+		zos.close();
+		return bos.toByteArray();
+	}
+
+	static int sum(byte[] b) {
+		int s = 0;
+		for (int i = 0; i < b.length; i++)
+			s = s * 31 + b[i];
+		return s;
+	}
+
+	public static void main(String[] args) {
+		try {
+			byte[] zipBytes = makeZip();
+			if (args.length == 2 && args[0].equals("-make")) {
+				FileOutputStream fos = new FileOutputStream(args[1]);
+				fos.write(zipBytes);
+				fos.close();
+				System.out.println(args[1] + " " + zipBytes.length + " bytes");
+				return;
+			}
+			ZipArchive local = new ZipArchive(zipBytes, "test.zip");
+			URL url = new URL(args[0]);
+
+			RangeZipArchive zip = new RangeZipArchive(url, 0);
+			System.out.println(zip + " " + zip.getCacheStatistics());
+			assert (zip.size() == N);
+			String[] names = { "assets/e0.txt", "assets/e" + (N / 2) + ".txt", "assets/e" + (N - 1) + ".txt" };
+			for (int i = 0; i < names.length; i++) {
+				byte[] b = zip.getBytes(names[i]);
+				assert (sum(b) == sum(local.getBytes(names[i])));
+			}
+			zip.getBytes(names[0]);
+			Map<String, Long> stats = zip.getCacheStatistics();
+			System.out.println("3 entries of " + zipBytes.length + " bytes: " + stats);
+			assert (stats.get("hits").longValue() == 1 && stats.get("misses").longValue() == 3);
+			if (zip.isRanged()) {
+				// the last entry may be in the end of the file fetched first
+				assert (stats.get("requests").longValue() <= 4);
+				assert (stats.get("bytesFetched").longValue() < zipBytes.length / 10);
+			} else {
+				assert (stats.get("bytesFetched").longValue() == zipBytes.length);
+			}
+
+			zip.setBudget(SIZE * 5);
+			for (int i = 0; i < N; i++) {
+				String name = "assets/e" + i + ".txt";
+				byte[] b = zip.getBytes(name);
+				assert (sum(b) == sum(local.getBytes(name)));
+			}
+			stats = zip.getCacheStatistics();
+			System.out.println("all entries, budget " + (SIZE * 5) + ": " + stats);
+			assert (stats.get("bytes").longValue() <= SIZE * 5 && stats.get("evictions").longValue() >= N - 5);
+
+			Assets.setLazyLoading(true);
+			Assets.add("test", args[0], "assets");
+			String name = "assets/e" + (N - 2) + ".txt";
+			byte[] b = Assets.getAssetBytes(name);
+			assert (b != null && sum(b) == sum(local.getBytes(name)));
+			InputStream is = Assets.getAssetStream("/" + name);
+			int c = is.read();
+			is.close();
+			assert (c == (local.getBytes(name)[0] & 0xFF));
+			b = Assets.getAssetBytesFromZip("assets/none.txt");
+			assert (b == null);
+			ZipEntry ze = Assets.findZipEntry(args[0], name);
+			assert (ze instanceof ZipArchive.Entry && ((ZipArchive.Entry) ze).getArchive() instanceof RangeZipArchive);
+			System.out.println("Assets " + ((RangeZipArchive) ((ZipArchive.Entry) ze).getArchive()).getCacheStatistics());
+
+			System.out.println("Test_RangeZipArchive OK");
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+
+}
@@ -0,0 +1,204 @@
+package test;
+
+import java.awt.Point;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.Arrays;
+
+import javax.swing.AbstractListModel;
+import javax.swing.JComponent;
+import javax.swing.JFrame;
+import javax.swing.JList;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTree;
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.TreeModelListener;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+
+/**
+ * Scroll a JTable, a JList, and a JTree of NROWS rows end to end and report
+ * frame times: JUMPS jumps through the whole model, then STEPS single-row
+ * steps. Each frame is one setViewPosition and paintImmediately of the view.
+ *
+ * In JavaScript, the number of DOM elements in each view is reported after
+ * scrolling. With the row pools in JSTableUI, JSListUI, and JSTreeUI it stays
+ * proportional to the rows in view, not to the rows scrolled past.
+ *
+ */
+public class Test_ScrollBench extends Test_ {
+
+	final static int NROWS = 100000, NCOLS = 8, JUMPS = 200, STEPS = 200;
+
+	static JFrame frame;
+
+	static JComponent makeTable() {
+		return new JTable(new AbstractTableModel() {
+
+			@Override
+			public int getRowCount() {
+				return NROWS;
+			}
+
+			@Override
+			public int getColumnCount() {
+				return NCOLS;
+			}
+
+			@Override
+			public Object getValueAt(int row, int col) {
+				return "r" + row + " c" + col;
+			}
+
+		});
+	}
+
+	static JComponent makeList() {
+		return new JList<String>(new AbstractListModel<String>() {
+
+			@Override
+			public int getSize() {
+				return NROWS;
+			}
+
+			@Override
+			public String getElementAt(int index) {
+				return "item " + index;
+			}
+
+		});
+	}
+
+	static JComponent makeTree() {
+		final String root = "root";
+		JTree tree = new JTree(new TreeModel() {
+
+			@Override
+			public Object getRoot() {
+				return root;
+			}
+
+			@Override
+			public Object getChild(Object parent, int index) {
+				return Integer.valueOf(index);
+			}
+
+			@Override
+			public int getChildCount(Object parent) {
+				return (parent == root ? NROWS - 1 : 0);
+			}
+
+			@Override
+			public boolean isLeaf(Object node) {
+				return node != root;
+			}
+
+			@Override
+			public void valueForPathChanged(TreePath path, Object newValue) {
+			}
+
+			@Override
+			public int getIndexOfChild(Object parent, Object child) {
+				return ((Integer) child).intValue();
+			}
+
+			@Override
+			public void addTreeModelListener(TreeModelListener l) {
+			}
+
+			@Override
+			public void removeTreeModelListener(TreeModelListener l) {
+			}
+
+		});
+		tree.setRowHeight(18);
+		tree.setLargeModel(true);
+		tree.expandRow(0);
+		return tree;
+	}
+
+	static String report(String name, long[] t, int from, int to) {
+		long[] a = Arrays.copyOfRange(t, from, to);
+		Arrays.sort(a);
+		long sum = 0;
+		for (int i = 0; i < a.length; i++)
+			sum += a[i];
+		int n = a.length;
+		return name + " " + n + " frames: mean " + ms(sum / n) + " median " + ms(a[n / 2]) + " p95 "
+				+ ms(a[n * 95 / 100]) + " max " + ms(a[n - 1]) + " ms";
+	}
+
+	static String ms(long ns) {
+		return "" + Math.round(ns / 1e4) / 100.0;
+	}
+
+	/**
+	 * Scroll one view with a timer, so that the page can update between frames,
+	 * then go on to the next.
+	 */
+	static void run(final JComponent[] views, final String[] names, final int iview) {
+		if (iview == views.length) {
+			System.out.println("Test_ScrollBench OK");
+			return;
+		}
+		final JComponent view = views[iview];
+		final JScrollPane sp = new JScrollPane(view);
+		frame.setContentPane(sp);
+		frame.validate();
+		final JViewport vp = sp.getViewport();
+		final long[] t = new long[JUMPS + STEPS];
+		final int rowHeight = (view instanceof JTable ? ((JTable) view).getRowHeight()
+				: view instanceof JTree ? ((JTree) view).getRowHeight() : view.getPreferredSize().height / NROWS);
+		Timer timer = new Timer(1, null);
+		timer.addActionListener(new ActionListener() {
+
+			int frame;
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				int maxY = Math.max(0, view.getHeight() - vp.getHeight());
+				int y = (frame < JUMPS ? (int) ((long) maxY * (frame + 1) / JUMPS)
+						: Math.min(maxY, (frame - JUMPS + 1) * rowHeight));
+				long t0 = System.nanoTime();
+				vp.setViewPosition(new Point(0, y));
+				view.paintImmediately(view.getVisibleRect());
+				t[frame] = System.nanoTime() - t0;
+				if (++frame < t.length)
+					return;
+				((Timer) e.getSource()).stop();
+				System.out.println(report(names[iview] + " jumps", t, 0, JUMPS));
+				System.out.println(report(names[iview] + " steps", t, JUMPS, t.length));
+				int nodes = -1;
+				/**
+				 * @j2sNative nodes = view.ui.domNode.getElementsByTagName("*").length;
+				 */
+				if (nodes >= 0)
+					System.out.println(names[iview] + " DOM elements after scrolling: " + nodes);
+				run(views, names, iview + 1);
+			}
+
+		});
+		timer.start();
+	}
+
+	public static void main(String[] args) {
+		SwingUtilities.invokeLater(new Runnable() {
+
+			@Override
+			public void run() {
+				frame = new JFrame("Test_ScrollBench");
+				frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+				frame.setSize(600, 400);
+				frame.setVisible(true);
+				Test_ScrollBench.run(new JComponent[] { makeTable(), makeList(), makeTree() },
+						new String[] { "JTable", "JList", "JTree" }, 0);
+			}
+
+		});
+	}
+
+}
@@ -0,0 +1,121 @@
+package test;
+
+import java.util.Random;
+
+/**
+ * In-place StringBuilder edits, checked against a plain char[] model, then
+ * timed: setCharAt over a long builder, and a mix of edits and appends.
+ *
+ */
+public class Test_StringBuilderEdit extends Test_ {
+
+	static int nFailed;
+
+	static void check(boolean ok, String what) {
+		if (!ok) {
+			nFailed++;
+			System.out.println("failed: " + what);
+		}
+	}
+
+	static char[] model = new char[0];
+
+	static int n;
+
+	static void modelReplace(int start, int end, String s) {
+		char[] m = new char[n - (end - start) + s.length()];
+		System.arraycopy(model, 0, m, 0, start);
+		s.getChars(0, s.length(), m, start);
+		System.arraycopy(model, end, m, start + s.length(), n - end);
+		model = m;
+		n = m.length;
+	}
+
+	public static void main(String[] args) {
+		StringBuilder sb = new StringBuilder();
+		Random r = new Random(7);
+		for (int i = 0; i < 5000; i++) {
+			int len = sb.length();
+			int a = r.nextInt(len + 1), b = a + r.nextInt(len - a + 1);
+			String s = "" + (char) ('a' + r.nextInt(26)) + (i % 3 == 0 ? "xy" : "");
+			switch (r.nextInt(9)) {
+			case 0:
+				sb.append(s);
+				modelReplace(n, n, s);
+				break;
+			case 1:
+				sb.insert(a, s);
+				modelReplace(a, a, s);
+				break;
+			case 2:
+				sb.delete(a, b);
+				modelReplace(a, b, "");
+				break;
+			case 3:
+				if (a < len) {
+					sb.deleteCharAt(a);
+					modelReplace(a, a + 1, "");
+				}
+				break;
+			case 4:
+				sb.replace(a, b, s);
+				modelReplace(a, b, s);
+				break;
+			case 5:
+				if (a < len) {
+					sb.setCharAt(a, s.charAt(0));
+					model[a] = s.charAt(0);
+				}
+				break;
+			case 6:
+				sb.insert(a, s.charAt(0));
+				modelReplace(a, a, s.substring(0, 1));
+				break;
+			case 7:
+				check(sb.substring(a, b).equals(new String(model, a, b - a)), "substring " + i);
+				check(len == 0 || sb.charAt(a % len) == model[a % len], "charAt " + i);
+				break;
+			case 8:
+				sb.append(i);
+				modelReplace(n, n, "" + i);
+				break;
+			}
+			if (i % 500 == 0)
+				check(sb.toString().equals(new String(model, 0, n)), "toString " + i);
+		}
+		check(sb.toString().equals(new String(model, 0, n)), "final");
+		check(sb.indexOf("xy") == new String(model, 0, n).indexOf("xy"), "indexOf");
+		char[] rev = new char[n];
+		for (int i = 0; i < n; i++)
+			rev[i] = model[n - 1 - i];
+		check(sb.reverse().toString().equals(new String(rev)), "reverse");
+		sb.setLength(3);
+		sb.setLength(5);
+		check(sb.length() == 5 && sb.charAt(4) == '\0', "setLength");
+
+		int len = 200000;
+		sb = new StringBuilder();
+		for (int i = 0; i < len; i++)
+			sb.append('a');
+		long t = System.currentTimeMillis();
+		for (int i = 0; i < len; i++)
+			sb.setCharAt(i, (char) ('a' + i % 26));
+		System.out.println(len + " setCharAt: " + (System.currentTimeMillis() - t) + " ms");
+		check(sb.charAt(27) == 'b' && sb.toString().length() == len, "setCharAt");
+
+		t = System.currentTimeMillis();
+		for (int i = 0; i < len / 10; i++) {
+			sb.deleteCharAt(len / 2);
+			sb.append('z');
+			sb.insert(len / 3, 'q');
+			sb.deleteCharAt(len / 3 + 1);
+		}
+		System.out.println(len / 10 + " edits and appends: " + (System.currentTimeMillis() - t) + " ms");
+		check(sb.length() == len, "length");
+		sb.reverse();
+		check(sb.charAt(0) == 'z' && sb.charAt(len - 1) == 'a', "reverse after edits");
+
+		System.out.println(nFailed == 0 ? "Test_StringBuilderEdit OK" : "Test_StringBuilderEdit FAILED " + nFailed);
+	}
+
+}
@@ -0,0 +1,126 @@
+package test;
+
+import java.awt.Font;
+import java.util.Map;
+
+import swingjs.JSFontMetrics;
+import swingjs.JSStringWidthCache;
+import swingjs.JSToolkit;
+
+/**
+ * swingjs.JSStringWidthCache, in JavaScript only. The canvas is replaced by a
+ * stand-in that counts measureText calls. For proportional fonts it kerns
+ * "AV" by one pixel, as a real canvas would, so that summed and measured
+ * widths can be told apart; monospace is 7.25 pixels a character.
+ *
+ */
+public class Test_StringWidthCache extends Test_ {
+
+	static int nMeasured, nFailed;
+
+	static void check(boolean ok, String what) {
+		if (!ok) {
+			nFailed++;
+			System.out.println("failed: " + what);
+		}
+	}
+
+	static float width(Font f, String s) {
+		return JSToolkit.getStringWidth(null, f, s);
+	}
+
+	/**
+	 * what the stand-in measures, rounded up
+	 */
+	static float expected(String s) {
+		double w = 0;
+		for (int i = 0; i < s.length(); i++)
+			w += (s.charAt(i) % 7) + 5.25 - (i > 0 && s.charAt(i - 1) == 'A' && s.charAt(i) == 'V' ? 1 : 0);
+		return (float) Math.ceil(w);
+	}
+
+	static float expectedMono(String s) {
+		return (float) Math.ceil(7.25 * s.length());
+	}
+
+	public static void main(String[] args) {
+		boolean isJS = /** @j2sNative true || */false;
+		if (!isJS) {
+			System.out.println("Test_StringWidthCache is for JavaScript only");
+			return;
+		}
+		/**
+		 * @j2sNative
+		 *
+		 * swingjs.JSToolkit.defaultContext = { font: "", measureText: function(s) {
+		 *   C$.nMeasured++;
+		 *   if (this.font.indexOf("monospace") >= 0)
+		 *     return { width: 7.25 * s.length };
+		 *   var w = 0;
+		 *   for (var i = 0; i < s.length; i++)
+		 *     w += (s.charCodeAt(i) % 7) + 5.25 - (i > 0 && s[i - 1] == "A" && s[i] == "V" ? 1 : 0);
+		 *   return { width: w };
+		 * }};
+		 */
+		JSStringWidthCache.clear();
+		JSStringWidthCache.resetStatistics();
+		Font f = new Font("SansSerif", Font.PLAIN, 12);
+
+		// proportional: 'i' and 'W' differ, so strings are measured whole,
+		// kerned just as they are drawn, and kept
+		check(width(f, "Hello") == expected("Hello"), "Hello");
+		check(nMeasured == 3, "i, W and Hello measured, not " + nMeasured);
+		check(width(f, "Hello") == expected("Hello") && nMeasured == 3, "Hello again");
+		check(width(f, "AVA") == expected("AVA"), "AVA kerned");
+		String s = "héllo AV";
+		check(width(f, s) == expected(s), s);
+		int n = nMeasured;
+		check(width(f, s) == expected(s) && nMeasured == n, s + " again");
+
+		// another Font for the same CSS font shares the cache
+		Font f2 = new Font("SansSerif", Font.PLAIN, 12);
+		JSFontMetrics fm = (JSFontMetrics) f2.getFontMetrics();
+		check(fm.stringWidth("Hello") == (int) expected("Hello") && nMeasured == n, "shared");
+		check(fm.charWidth('e') == (int) expected("e"), "charWidth");
+
+		// monospaced ASCII: summed from advances, each character measured once
+		Font m = new Font("Monospaced", Font.PLAIN, 12);
+		n = nMeasured;
+		check(width(m, "Hello") == expectedMono("Hello") && nMeasured == n + 7, "mono Hello");
+		check(width(m, "hello") == expectedMono("hello") && nMeasured == n + 8, "mono hello");
+		check(width(m, "héllo") == expectedMono("héllo") && nMeasured == n + 9, "mono not ASCII");
+
+		// a different size is a different font
+		Font f3 = f.deriveFont(14f);
+		n = nMeasured;
+		width(f3, "Hello");
+		check(nMeasured == n + 3, "new font measured");
+
+		Map<String, Long> stats = JSToolkit.getStringWidthStatistics();
+		System.out.println(stats);
+		check(stats.get("hits").longValue() == 3, "3 hits");
+		check(stats.get("sums").longValue() == 2, "2 sums");
+		check(stats.get("fonts").longValue() == 3, "3 fonts");
+
+		// as when a web font loads: metrics measure again
+		float[] w0 = fm.getWidthsFloat();
+		JSStringWidthCache.clear();
+		n = nMeasured;
+		check(fm.getWidthsFloat() != w0 && nMeasured > n, "widths measured again after clear");
+		n = nMeasured;
+		check(fm.stringWidth("Hello") == (int) expected("Hello") && nMeasured == n + 1, "strings measured again after clear");
+
+		// bounded
+		JSStringWidthCache.setMaxStrings(2);
+		for (int i = 0; i < 5; i++)
+			width(f, "é" + i);
+		stats = JSToolkit.getStringWidthStatistics();
+		System.out.println(stats);
+		check(stats.get("strings").longValue() == 2, "2 strings kept");
+		check(stats.get("evictions").longValue() >= 4, "evicted");
+		JSStringWidthCache.setMaxStrings(JSStringWidthCache.DEFAULT_MAX_STRINGS);
+
+		System.out.println(nFailed == 0 ? "Test_StringWidthCache OK" : "Test_StringWidthCache FAILED " + nFailed);
+	}
+
+}
@@ -0,0 +1,121 @@
+package test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import javajs.util.ZipArchive;
+import javajs.util.ZipTools;
+
+/**
+ * javajs.util.ZipArchive (random access through the central directory)
+ * against ZipInputStream (reading every entry in order).
+ *
+ * A zip file of 400 entries of 20000 bytes each is built in memory. Every
+ * entry must be the same both ways. Then the last entry is read both ways, and
+ * the bytes held by a lazy cache (the zip file itself) are compared with those
+ * of a full cache (every entry inflated).
+ *
+ */
+public class Test_ZipArchive extends Test_ {
+
+	final static int N = 400, SIZE = 20000;
+
+	static byte[] makeZip() throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		ZipOutputStream zos = new ZipOutputStream(bos);
+		zos.putNextEntry(new ZipEntry("dir/"));
+		zos.closeEntry();
+		byte[] b = new byte[SIZE];
+		for (int i = 0; i < N; i++) {
+			for (int j = 0; j < SIZE; j++)
+				b[j] = (byte) ("entry " + i).charAt(j % 5 + (j * i) % 3);
+			zos.putNextEntry(new ZipEntry("dir/e" + i + ".txt"));
+			zos.write(b, 0, SIZE);
+			zos.closeEntry();
+		}
+		zos.close();
+		return bos.toByteArray();
+	}
+
+	static int sum(byte[] b) {
+		int s = 0;
+		for (int i = 0; i < b.length; i++)
+			s = s * 31 + b[i];
+		return s;
+	}
+
+	public static void main(String[] args) {
+		try {
+			byte[] zipBytes = makeZip();
+			System.out.println("zip " + zipBytes.length + " bytes");
+
+			long t = System.currentTimeMillis();
+			ZipArchive zip = new ZipArchive(zipBytes, "test.zip");
+			System.out.println("central directory " + (System.currentTimeMillis() - t) + " ms " + zip);
+			assert (zip.size() == N + 1);
+			assert (zip.getEntry("dir/").isDirectory());
+
+			ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(zipBytes));
+			ZipEntry ze;
+			int n = 0;
+			long total = 0;
+			while ((ze = zis.getNextEntry()) != null) {
+				if (ze.isDirectory())
+					continue;
+				byte[] b = new byte[SIZE];
+				int len = 0, pt = 0;
+				while (pt < SIZE && (len = zis.read(b, pt, SIZE - pt)) > 0)
+					pt += len;
+				byte[] b2 = zip.getBytes(ze.getName());
+				assert (b2.length == SIZE && sum(b2) == sum(b));
+				total += b2.length;
+				n++;
+			}
+			zis.close();
+			assert (n == N);
+
+			String last = "dir/e" + (N - 1) + ".txt";
+			t = System.currentTimeMillis();
+			byte[] b1 = null;
+			for (int i = 0; i < 5; i++) {
+				zis = new ZipInputStream(new ByteArrayInputStream(zipBytes));
+				while ((ze = zis.getNextEntry()) != null && !ze.getName().equals(last)) {
+				}
+				b1 = new byte[SIZE];
+				int len = 0, pt = 0;
+				while (pt < SIZE && (len = zis.read(b1, pt, SIZE - pt)) > 0)
+					pt += len;
+				zis.close();
+			}
+			long tStream = System.currentTimeMillis() - t;
+			t = System.currentTimeMillis();
+			byte[] b2 = null;
+			for (int i = 0; i < 5; i++)
+				b2 = new ZipArchive(zipBytes, "test.zip").getBytes(last);
+			long tArchive = System.currentTimeMillis() - t;
+			assert (sum(b1) == sum(b2));
+			System.out.println("last entry x 5: ZipInputStream " + tStream + " ms, ZipArchive " + tArchive + " ms");
+
+			Map<String, Object> cache = new HashMap<>();
+			String list = ZipTools.cacheZipContentsLazily(new ByteArrayInputStream(zipBytes), "/", cache);
+			assert (list.split("\n").length == N && cache.size() == N);
+			assert (cache.get("/" + last) instanceof ZipArchive.Entry);
+			System.out.println("cache held: lazy " + zipBytes.length + " bytes, full " + total + " bytes");
+
+			b2 = ZipTools.getZipFileContentsAsBytes(new java.io.BufferedInputStream(new ByteArrayInputStream(zipBytes)),
+					new String[] { last }, 0);
+			assert (sum(b1) == sum(b2));
+
+			System.out.println("Test_ZipArchive OK");
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+
+}
@@ -56,15 +56,22 @@ J2S || (J2S = {
 		_debugCode: false,
 		_debugCore: false,
 		_debugPaint: false,
+		_lazyAssets: false, // true to fetch only the central directory of javajs.async.Assets zip files, then entries as needed
 		_loadcore: true,  
 		_nozcore: false,
 		_nooutput: false, 
+		_prefetch: false,
 		_strict: false,
+		_syncPaint: false, // true to paint dirty regions as soon as possible rather than at the next animation frame
 		_trace: null, // =xxx to stop on message containing xxx; ="xxx" to stop on message equal to xxx
 		_traceEvents: false,
 		_traceMouse: false,
 		_traceMouseMove: false,
 		_startProfiling: false,
+		_startMethodProfiling: false,
+		_fileCacheMB: null, // byte budget of J2S._javaFileCache, in MB; 0 for no limit; see swingjs.JSFileCache
+		_inflate: null, // function(bytes, zlib) {return {out: Uint8Array, consumed: n} or null}; null for J2S._jsInflate, false for jzlib only; see swingjs.jzlib.InflaterInputStream
+		_dispatchSliceMs: null, // ms of queued events and invokeLater runnables per macrotask; 0 for a setTimeout each; see swingjs.JSDispatchQueue
 		_useEval: true, // false here uses new Function() in j2sClazz.js, but then that totally messes up debugging
 		_verbose: false,
 		_lang: null,
@@ -108,14 +115,21 @@ if (getFlag("j2s")) {
 	J2S._debugCode = getFlag("j2sdebugcode");    // same as j2snocore?
 	J2S._debugCore = getFlag("j2sdebugcore");    // same as j2snozcore?
 	J2S._debugPaint = getFlag("j2sdebugpaint");  // repaint manager information
+	J2S._fileCacheMB = getURIField("j2sfilecachemb", J2S._fileCacheMB); // file cache budget, in MB
+	J2S._dispatchSliceMs = getURIField("j2sdispatchslicems", J2S._dispatchSliceMs); // dispatch queue time slice, in ms
 	J2S._headless = getFlag("j2sheadless");      // run headlessly
+	J2S._inflate = (getFlag("j2sjzlib") ? false : J2S._inflate); // inflate with jzlib, not J2S._jsInflate
 	J2S._lang = getURIField("j2slang", null);    // preferred language; application should check
+	J2S._lazyAssets = getFlag("j2slazyassets") || J2S._lazyAssets; // Range requests for Assets zip entries
 	 // will alert in system.out.println with a message when events occur
 	J2S._loadcore = !getFlag("j2snocore");		 // no core files 
 	J2S._nooutput = getFlag("j2snooutput");      // no System.out, only System.err message
 	J2S._nozcore = getFlag("j2snozcore");        // no compressed core.z.js files
+	J2S._prefetch = getFlag("j2sprefetch");      // fetch imported class files asynchronously ahead of need
 	J2S._strict = getFlag("j2sstrict");          // strict mode -- experimental
+	J2S._syncPaint = getFlag("j2ssyncpaint") || J2S._syncPaint; // no requestAnimationFrame for RepaintManager
 	J2S._startProfiling = getFlag("j2sprofile"); // track object creation
+	J2S._startMethodProfiling = getFlag("j2smethodprofile"); // time Java methods; see J2S.getMethodProfile
 	J2S._traceEvents = getFlag("j2sevents");     // reports ComponentEvent instances 
 	J2S._traceMouse = getFlag("j2smouse");       // mouse events, but not move
 	J2S._traceMouseMove = getFlag("j2smousemove"); // mouse messages including move
@@ -784,7 +798,12 @@ if (database == "_" && J2S._serverUrl.indexOf("//your.server.here/") >= 0) {
 		if (!J2S._javaFileCache) return null;
 		var data = J2S._javaFileCache.get$O(key);
 		if (data == null && key.indexOf("file:/") == 0)
-			data = J2S._javaFileCache.get$O(key.substring(6));
+			data = J2S._javaFileCache.get$O(key = key.substring(6));
+		if (data && data.getArchive$) {
+			// a javajs.util.ZipArchive.Entry from JSUtil.loadJavaResourcesFromZip
+			data = data.getBytes$();
+			data && J2S._javaFileCache.put$O$O(key, data);
+		}
 		return data;
 	}
 
@@ -1134,6 +1153,237 @@ if (database == "_" && J2S._serverUrl.indexOf("//your.server.here/") >= 0) {
 		return b;
 	}
 
+	/**
+	 * A synchronous inflater in plain JavaScript, for pages, where there is no
+	 * synchronous native one; it is J2S._inflate unless the page or host sets
+	 * its own, or sets J2S._inflate = false to leave everything to jzlib. See
+	 * swingjs.jzlib.InflaterInputStream.
+	 * 
+	 * bytes is a raw deflate stream, or a zlib stream if isZlib, possibly
+	 * followed by other data.
+	 * 
+	 * @return {out: Uint8Array, consumed: n}, or null for anything it does not
+	 *         handle -- a preset dictionary, or corrupt or truncated data -- so
+	 *         that jzlib can deal with it and report the error
+	 */
+	J2S._jsInflate = (function() {
+		// RFC 1951 3.2.5-7
+		var LBASE = new Uint16Array([3,4,5,6,7,8,9,10,11,13,15,17,19,23,27,31,35,43,51,59,67,83,99,115,131,163,195,227,258]);
+		var LEXT = new Uint8Array([0,0,0,0,0,0,0,0,1,1,1,1,2,2,2,2,3,3,3,3,4,4,4,4,5,5,5,5,0]);
+		var DBASE = new Uint16Array([1,2,3,4,5,7,9,13,17,25,33,49,65,97,129,193,257,385,513,769,1025,1537,2049,3073,4097,6145,8193,12289,16385,24577]);
+		var DEXT = new Uint8Array([0,0,0,0,1,1,2,2,3,3,4,4,5,5,6,6,7,7,8,8,9,9,10,10,11,11,12,12,13,13]);
+		var CLORDER = new Uint8Array([16,17,18,0,8,7,9,6,10,5,11,4,12,3,13,2,14,1,15]);
+		var fixedL = null, fixedD = null;
+
+		// t[next bits of input] is symbol << 4 | code length, or 0 for no code
+		var makeTable = function(lens) {
+			var count = new Int32Array(16), next = new Int32Array(16), bits = 0, left = 1, i, code;
+			for (i = 0; i < lens.length; i++)
+				count[lens[i]]++;
+			for (i = 1; i < 16; i++) {
+				if ((left = (left << 1) - count[i]) < 0)
+					return null; // oversubscribed
+				count[i] && (bits = i);
+			}
+			for (code = 0, i = 1; i < 16; i++) {
+				next[i] = code;
+				code = (code + count[i]) << 1;
+			}
+			var size = 1 << bits, t = new Uint16Array(size);
+			for (i = 0; i < lens.length; i++) {
+				var len = lens[i];
+				if (!len)
+					continue;
+				// codes are packed starting with their most significant bit
+				for (var c = next[len]++, r = 0, k = len; k > 0; k--, c >>= 1)
+					r = (r << 1) | (c & 1);
+				for (; r < size; r += 1 << len)
+					t[r] = (i << 4) | len;
+			}
+			return {t: t, mask: size - 1};
+		};
+
+		var grow = function(out, size) {
+			var b = new Uint8Array(Math.max(out.length * 2, size));
+			b.set(out);
+			return b;
+		};
+
+		var adler32 = function(b, n) {
+			for (var i = 0, s1 = 1, s2 = 0; i < n;) {
+				for (var end = Math.min(i + 5552, n); i < end; i++)
+					s2 += (s1 += b[i]);
+				s1 %= 65521;
+				s2 %= 65521;
+			}
+			return ((s2 << 16) | s1) >>> 0;
+		};
+
+		return function(bytes, isZlib) {
+			var src = new Uint8Array(bytes.buffer, bytes.byteOffset, bytes.length), n = src.length, pos = 0;
+			if (isZlib) {
+				if (n < 2 || (src[0] & 15) != 8 || ((src[0] << 8) | src[1]) % 31 || (src[1] & 32))
+					return null;
+				pos = 2;
+			}
+			var out = new Uint8Array(Math.max(n * 4, 1024)), op = 0;
+			// bit buffer; reading past the end gives undefined, that is, zero bits
+			var bb = 0, bc = 0, last, type, lt, dt, e, k, sym, len, dist, i;
+			do {
+				for (; bc < 3; bc += 8)
+					bb |= src[pos++] << bc;
+				last = bb & 1;
+				type = (bb >>> 1) & 3;
+				bb >>>= 3;
+				bc -= 3;
+				if (type == 0) {
+					// stored: from the next byte boundary, LEN, NLEN, and LEN bytes
+					pos -= bc >> 3;
+					bb = bc = 0;
+					if (pos + 4 > n)
+						return null;
+					len = src[pos] | (src[pos + 1] << 8);
+					if ((len ^ (src[pos + 2] | (src[pos + 3] << 8))) != 0xFFFF || (pos += 4) + len > n)
+						return null;
+					if (op + len > out.length)
+						out = grow(out, op + len);
+					out.set(src.subarray(pos, pos + len), op);
+					op += len;
+					pos += len;
+					continue;
+				}
+				if (type == 1) {
+					if (!fixedL) {
+						var fl = new Uint8Array(288);
+						fl.fill(8, 0, 144);
+						fl.fill(9, 144, 256);
+						fl.fill(7, 256, 280);
+						fl.fill(8, 280, 288);
+						fixedL = makeTable(fl);
+						fixedD = makeTable(new Uint8Array(30).fill(5));
+					}
+					lt = fixedL;
+					dt = fixedD;
+				} else if (type == 2) {
+					for (; bc < 14; bc += 8)
+						bb |= src[pos++] << bc;
+					var nlen = (bb & 31) + 257, ndist = ((bb >>> 5) & 31) + 1, ncode = ((bb >>> 10) & 15) + 4;
+					bb >>>= 14;
+					bc -= 14;
+					if (nlen > 286 || ndist > 30)
+						return null;
+					var cl = new Uint8Array(19);
+					for (i = 0; i < ncode; i++) {
+						for (; bc < 3; bc += 8)
+							bb |= src[pos++] << bc;
+						cl[CLORDER[i]] = bb & 7;
+						bb >>>= 3;
+						bc -= 3;
+					}
+					var ct = makeTable(cl), lens = new Uint8Array(nlen + ndist);
+					if (!ct)
+						return null;
+					for (i = 0; i < lens.length;) {
+						for (; bc < 14; bc += 8)
+							bb |= src[pos++] << bc;
+						if (!(e = ct.t[bb & ct.mask]))
+							return null;
+						k = e & 15;
+						sym = e >> 4;
+						bb >>>= k;
+						bc -= k;
+						if (sym < 16) {
+							lens[i++] = sym;
+							continue;
+						}
+						var v = 0, rep;
+						if (sym == 16) {
+							if (i == 0)
+								return null;
+							v = lens[i - 1];
+							rep = 3 + (bb & 3);
+							k = 2;
+						} else if (sym == 17) {
+							rep = 3 + (bb & 7);
+							k = 3;
+						} else {
+							rep = 11 + (bb & 127);
+							k = 7;
+						}
+						bb >>>= k;
+						bc -= k;
+						if (i + rep > lens.length)
+							return null;
+						while (rep-- > 0)
+							lens[i++] = v;
+					}
+					if (!lens[256] || !(lt = makeTable(lens.subarray(0, nlen)))
+							|| !(dt = makeTable(lens.subarray(nlen))))
+						return null;
+				} else {
+					return null;
+				}
+				var ltab = lt.t, lmask = lt.mask, dtab = dt.t, dmask = dt.mask;
+				for (;;) {
+					for (; bc < 15; bc += 8)
+						bb |= src[pos++] << bc;
+					if (pos > n + 4 || !(e = ltab[bb & lmask]))
+						return null; // past the end, or no such code
+					k = e & 15;
+					sym = e >> 4;
+					bb >>>= k;
+					bc -= k;
+					if (sym < 256) {
+						if (op == out.length)
+							out = grow(out, op + 1);
+						out[op++] = sym;
+						continue;
+					}
+					if (sym == 256)
+						break;
+					if ((sym -= 257) >= 29)
+						return null;
+					for (; bc < 20; bc += 8)
+						bb |= src[pos++] << bc;
+					k = LEXT[sym];
+					len = LBASE[sym] + (bb & ((1 << k) - 1));
+					bb >>>= k;
+					bc -= k;
+					if (!(e = dtab[bb & dmask]))
+						return null;
+					k = e & 15;
+					sym = e >> 4;
+					bb >>>= k;
+					bc -= k;
+					for (; bc < 13; bc += 8)
+						bb |= src[pos++] << bc;
+					k = DEXT[sym];
+					dist = DBASE[sym] + (bb & ((1 << k) - 1));
+					bb >>>= k;
+					bc -= k;
+					if (dist > op)
+						return null;
+					if (op + len > out.length)
+						out = grow(out, op + len);
+					for (var from = op - dist, end = op + len; op < end;)
+						out[op++] = out[from++];
+				}
+			} while (!last);
+			// give back whole bytes read ahead
+			pos -= bc >> 3;
+			if (pos > n)
+				return null;
+			if (isZlib) {
+				if (pos + 4 > n || ((src[pos] << 24 | src[pos + 1] << 16 | src[pos + 2] << 8 | src[pos + 3]) >>> 0) != adler32(out, op))
+					return null;
+				pos += 4;
+			}
+			return {out: out.subarray(0, op), consumed: pos};
+		};
+	})();
+
+	J2S._inflate == null && (J2S._inflate = J2S._jsInflate);
+
 	/**
 	 * fDone: callback function, in the form of fDone(data, fileName). Note that
 	 * this can be a Java Runnable.run(), as a j2sNative call can still read the
@@ -1344,6 +1594,25 @@ if (database == "_" && J2S._serverUrl.indexOf("//your.server.here/") >= 0) {
 		return b;
 	}
 
+	J2S.getRange = function(url, range) {
+		// synchronous GET with a Range header, for javajs.util.RangeZipArchive
+		// returns {status, contentRange, bytes}, or null on a network error;
+		// a server that does not do ranges sends status 200 and the whole file.
+		// Content-Range must be in Access-Control-Expose-Headers for another origin.
+		try {
+			var xhr = new window.XMLHttpRequest();
+			xhr.open("GET", url, false);
+			xhr.overrideMimeType('text/plain; charset=x-user-defined');
+			xhr.setRequestHeader("Range", range);
+			xhr.send(null);
+			return {status: xhr.status, contentRange: xhr.getResponseHeader("Content-Range"),
+				bytes: J2S._strToBytes(xhr.responseText)};
+		} catch (e) {
+			System.out.println("J2S.getRange " + url + " " + e);
+			return null;
+		}
+	}
+
 	// //////////// applet start-up functionality //////////////
 
 	J2S.findApplet = function(name) {
@@ -1391,6 +1660,8 @@ if (database == "_" && J2S._serverUrl.indexOf("//your.server.here/") >= 0) {
 			applet._applet = javaApplet;
 			!applet.getApp && (applet.getApp = function(){ applet._setThread();return javaApplet });
 			J2S.$css(J2S.$(applet, 'appletdiv'), { 'background-image': '' });
+			// startup is over; see Clazz.getClassTrace
+			Clazz._classTierMarks.length || Clazz.markClassTier();
 		} else {
 			applet.getApp = null;
 			applet._applet = null;
@@ -2336,6 +2607,33 @@ if (ev.keyCode == 9 && ev.target["data-focuscomponent"]) {
 		Clazz.startProfiling(__profiling = (seconds || arguments.length == 0 || doProfile));
 	}
 
+	/**
+	 * Start method profiling, or stop it and report.
+	 * 
+	 * @param format
+	 *            "text" (the default) shows the methods with the most self time;
+	 *            "cpuprofile" saves swingjs.cpuprofile for Chrome DevTools;
+	 *            "collapsed" saves swingjs-collapsed.txt for flame graph tools
+	 */
+	J2S.getMethodProfile = function(format) {
+		if (!Clazz._isMethodProfiling()) {
+			return Clazz.startMethodProfiling();
+		}
+		var s = Clazz.getMethodProfile(format);
+		switch (format) {
+		case "cpuprofile":
+			J2S.saveFile("swingjs.cpuprofile", s, "application/json");
+			break;
+		case "collapsed":
+			J2S.saveFile("swingjs-collapsed.txt", s, "text/plain");
+			break;
+		default:
+			System.out.println(s);
+			break;
+		}
+		return s;
+	}
+
 	J2S._getAttr = function(s, a) {
 		var pt = s.indexOf(a + "=");
 		return (pt >= 0 && (pt = s.indexOf('"', pt)) >= 0 ? s.substring(pt + 1,
@@ -2503,6 +2801,8 @@ if (ev.keyCode == 9 && ev.target["data-focuscomponent"]) {
 				System.err.println("j2sApplet j2sstrict - 'use strict' will be used - this is experimental");
 			if (J2S._startProfiling) 
 				J2S.getProfile();
+			if (J2S._startMethodProfiling)
+				Clazz.startMethodProfiling();
 			if (applet._noMonitor)
 				Clazz._LoaderProgressMonitor.showStatus = function() {
 				}
@@ -78,6 +78,10 @@ Clazz.setConsoleDiv = function(d) {
 
 Clazz.ClassFilesLoaded = [];
 
+// indexes into ClassFilesLoaded where a new tier of loading (startup, first
+// interaction, ...) began; see Clazz.getClassTrace
+Clazz._classTierMarks = [];
+
 Clazz.popup = Clazz.log = Clazz.error = window.alert;
 
 /* can be set by page JavaScript */
@@ -433,7 +437,12 @@ Clazz.instanceOf = function (obj, clazz) {
       return obj.__ARRAYTYPE && clazz.__ARRAYTYPE && obj.__NDIM == clazz.__NDIM 
                && isInstanceOf(obj.__BASECLASS, clazz.__BASECLASS); 
   }
-  return (obj instanceof clazz || isInstanceOf(getClassName(obj, true), clazz, true));
+  if (obj instanceof clazz)
+    return true;
+  var a;
+  if (Clazz._ancestry && (typeof obj == "object" || typeof obj == "function") && (a = obj.$anc$))
+    return hasAncestor(a, clazz);
+  return isInstanceOf(getClassName(obj, true), clazz, true);
 };
 
 var initStatic = function(cl, impls) {
@@ -639,6 +648,23 @@ var getFields = function(c, data, andDefaults) {
 }
 Clazz._newCount = 0;
 
+/**
+ * When true, new Foo(...) in classes transpiled with C$.$new$ factories skips
+ * Clazz.new_ once Foo has been initialized. Set to false to route every new
+ * through Clazz.new_; profiling (Clazz.startProfiling) does that while it runs.
+ */
+Clazz._fastNew = true;
+
+/**
+ * The default C$.$new$(constructor, args) for classes that have no factory of
+ * their own: the visitor adds one to each class it can, replacing this.
+ * 
+ */
+var new$ = function(c, args) {
+  // Clazz.new_ counts its arguments
+  return (args ? Clazz.new_(c, args) : Clazz.new_(c || this));
+}
+
 /**
  * Create a new instance of a class. Accepts: a string
  * Clazz.new_("java.util.Hashtable") a clazz (has .__CLASS_NAME__ and a default
@@ -726,6 +752,7 @@ Clazz.newClass = function (prefix, name, clazz, clazzSuper, interfacez, type) {
   clazz || (clazz = function () {Clazz.newInstance(this,arguments,0,clazz)});  
   
   clazz.__NAME__ = name;
+  clazz.$new$ = new$;
   // prefix class means this is an inner class, and $this$0 refers to the
 	// outer class.
   // no prefix class but a super class that is an inner class, then $this$0
@@ -735,6 +762,7 @@ Clazz.newClass = function (prefix, name, clazz, clazzSuper, interfacez, type) {
 
   
   clazz.$load$ = [clazzSuper, interfacez];
+  J2S._prefetch && prefetchLoadList && prefetchLoadList(clazz.$load$);
   clazz.$isEnum = clazzSuper == 'Enum';
   // get qualifed name, and for inner classes, the name to use to refer to
 	// this
@@ -970,6 +998,8 @@ Clazz.newMeth = function (clazzThis, funName, funBody, modifiers) {
   funBody.exName = funName; // mark it as one of our methods
   funBody.exClazz = clazzThis; // make it traceable
   funBody.isPrivate = isPrivate;
+  var f0 = funBody;
+  methodProfile && (funBody = profileWrap(funBody));
   var f;
   if (isStatic || funName == "c$")
     clazzThis[funName] = funBody;
@@ -979,6 +1009,10 @@ Clazz.newMeth = function (clazzThis, funName, funBody, modifiers) {
 	modifiers[funName] = funBody;
   else 
 	clazzThis.prototype[funName] = funBody;
+  if (funBody !== f0) {
+    (isStatic || funName == "c$") && profileWrapped.push([clazzThis, funName, funBody, f0]);
+    profileWrapped.push([isPrivate && modifiers ? modifiers : clazzThis.prototype, funName, funBody, f0]);
+  }
   return funBody; // allow static calls as though they were not static
 };
 
@@ -1096,12 +1130,14 @@ var _jsid0 = 0;
 
 Clazz.startProfiling = function(doProfile) {
   _profileNew = {};
+  Clazz._fastNew = false;
   if (typeof doProfile == "number") {
     _jsid0 = _jsid;
     setTimeout(function() { var s = "total wall time: " + doProfile + " sec\n" + Clazz.getProfile(); console.log(s); System.out.println(s)}, doProfile * 1000);
   } else if (doProfile === false) {
 	_jsid = 0;
 	_profileNew = null;
+	Clazz._fastNew = true;
   }
   return (_profileNew ? "use Clazz.getProfile() to show results" : "profiling stopped and cleared")
 }
@@ -1131,6 +1167,7 @@ Clazz.getProfile = function() {
       s+= tabN(totalcount)+tabN(Math.round(totaltime)) + "\n";
     }
   _profileNew = null;
+  Clazz._fastNew = true;
   return s; // + __signatures;
 }
 
@@ -1151,6 +1188,281 @@ var addProfileNew = function(c, t) {
   p[1]+=t;
 }
 
+// Method profiling
+//
+// Clazz.startMethodProfiling() wraps every Java method of every class loaded
+// so far, and every method defined after that, in a function that keeps a
+// call tree with the time spent in each method itself, aggregated by Java
+// class and method using the exClazz and exName tags set by Clazz.newMeth.
+// Clazz.stopMethodProfiling() puts the original methods back. Either way,
+// Clazz.getMethodProfile() reports what was collected:
+//
+//   "text" (default)  the methods with the most self time
+//   "cpuprofile"      JSON for the Performance panel of Chrome DevTools
+//                     (Load profile...) and other .cpuprofile viewers
+//   "collapsed"       one "frame;frame;frame microseconds" line per stack,
+//                     for flamegraph.pl, speedscope, and the like
+//
+// The .cpuprofile timeline is synthetic: one sample per call tree node, as
+// long as that node's self time. The call tree and bottom-up views are exact.
+// Time spent outside any Java method goes to "(root)".
+//
+// Instrumentation is not free; expect code that makes many small calls to
+// run several times slower while profiling. ?j2smethodprofile starts
+// profiling as soon as Clazz is loaded; J2S.getMethodProfile() shows or saves
+// the result.
+
+var methodProfile = null; // current profile, or null when not profiling
+var lastMethodProfile = null;
+var profileWrapped = []; // [holder, name, wrapper, original]
+
+var newProfileNode = function(p, parent, f) {
+  var node = {id: p.nodes.length + 1, f: f, parent: parent, self: 0, calls: 0, children: new Map()};
+  p.nodes.push(node);
+  parent && parent.children.set(f, node);
+  return node;
+}
+
+var profileEnter = function(p, f) {
+  var now = window.performance.now();
+  var top = p.top;
+  top.self += now - p.last;
+  p.last = now;
+  var node = top.children.get(f) || newProfileNode(p, top, f);
+  node.calls++;
+  return p.top = node;
+}
+
+var profileExit = function(p, node) {
+  if (p !== methodProfile)
+    return;
+  var now = window.performance.now();
+  node.self += now - p.last;
+  p.last = now;
+  p.top = node.parent;
+}
+
+var profileWrap = function(f) {
+  if (f.$profiled$ || !f.exName)
+    return f;
+  var w = function() {
+    var p = methodProfile;
+    if (!p)
+      return f.apply(this, arguments);
+    var node = profileEnter(p, f);
+    try {
+      return f.apply(this, arguments);
+    } finally {
+      profileExit(p, node);
+    }
+  };
+  w.exName = f.exName;
+  w.exClazz = f.exClazz;
+  w.isPrivate = f.isPrivate;
+  w.$profiled$ = f;
+  return w;
+}
+
+var profileWrapAll = function(holder) {
+  if (!holder || typeof holder != "object" && typeof holder != "function")
+    return;
+  var names = Object.getOwnPropertyNames(holder);
+  for (var i = names.length; --i >= 0;) {
+    var name = names[i];
+    var d = Object.getOwnPropertyDescriptor(holder, name);
+    var f = d.value;
+    if (typeof f != "function" || !f.exName || f.$profiled$ || !d.writable)
+      continue;
+    var w = profileWrap(f);
+    holder[name] = w;
+    profileWrapped.push([holder, name, w, f]);
+  }
+}
+
+// JavaScript's own classes can have primitive "this" values; leave them alone
+var isNativeClass = function(c) {
+  return c === String || c === Number || c === Boolean || c === Date || c === Array
+    || c === Integer || c === Long || c === Short || c === Byte || c === Float || c === Double;
+}
+
+/**
+ * Wrap all methods of all classes loaded so far; methods defined later are
+ * wrapped by Clazz.newMeth.
+ */
+/* public */
+Clazz.startMethodProfiling = function() {
+  Clazz.stopMethodProfiling();
+  var p = methodProfile = {nodes: [], startTime: window.performance.now()};
+  p.top = p.root = newProfileNode(p, null, null);
+  p.last = p.startTime;
+  for (var name in Clazz.allClasses) {
+    var c = Clazz.allClasses[name];
+    if (!c || isNativeClass(c))
+      continue;
+    profileWrapAll(c);
+    typeof c == "function" && profileWrapAll(c.prototype);
+    c.$P$ && profileWrapAll(c.$P$);
+  }
+  return "use Clazz.getMethodProfile() to show results";
+}
+
+Clazz._isMethodProfiling = function() {
+  return !!methodProfile;
+}
+
+/**
+ * Stop profiling and restore the original methods. The results are kept for
+ * Clazz.getMethodProfile().
+ */
+/* public */
+Clazz.stopMethodProfiling = function() {
+  var p = methodProfile;
+  if (!p)
+    return;
+  methodProfile = null;
+  p.endTime = window.performance.now();
+  p.top.self += p.endTime - p.last;
+  lastMethodProfile = p;
+  for (var i = profileWrapped.length; --i >= 0;) {
+    var a = profileWrapped[i];
+    a[0][a[1]] === a[2] && (a[0][a[1]] = a[3]);
+  }
+  profileWrapped = [];
+}
+
+/**
+ * C$.c$$I$S to "pkg.C.<init>(int,String)"; foo$I to "pkg.C.foo(int)"
+ */
+Clazz._getJavaMethodName = function(f) {
+  var c = f.exClazz;
+  var cname = (c && (c.__CLASS_NAME__ || c.__NAME__)) || "?";
+  var name = f.exName;
+  var pt = (name.indexOf("c$") == 0 ? 1 : name.indexOf("$", 1));
+  if (pt < 0 || name.charAt(0) == "$")
+    return cname + "." + name;
+  var params = name.substring(pt + 1);
+  params = (params ? params.split("$") : []);
+  for (var i = params.length; --i >= 0;) {
+    var t = params[i], dims = "";
+    var a = /^([ZBCDFIJHSO])(A+)$/.exec(t);
+    if (a) {
+      t = a[1];
+      dims = a[2].replace(/A/g, "[]");
+    }
+    switch (t) {
+    case "Z": t = "boolean"; break;
+    case "B": t = "byte"; break;
+    case "C": t = "char"; break;
+    case "D": t = "double"; break;
+    case "F": t = "float"; break;
+    case "I": t = "int"; break;
+    case "J": t = "long"; break;
+    case "H": t = "short"; break;
+    case "S": t = "String"; break;
+    case "O": t = "Object"; break;
+    default:
+      // generic type variable TK or class name java_util_List
+      t = (/^T[A-Z]\w*$/.test(t) && t.length <= 3 ? t.substring(1) : t.replace(/_/g, "."));
+      break;
+    }
+    params[i] = t + dims;
+  }
+  return cname + "." + (name.indexOf("c$") == 0 ? "<init>" : name.substring(0, pt)) + "(" + params.join(",") + ")";
+}
+
+var getProfileNodeName = function(node) {
+  return (node.name || (node.name = (node.f ? Clazz._getJavaMethodName(node.f) : "(root)")));
+}
+
+var getMethodProfileText = function(p, n) {
+  // self and total by method; total counts a recursive method only once
+  var methods = new Map();
+  var active = new Map();
+  var walk = function(node) {
+    var total = node.self;
+    var f = node.f;
+    var m = f && (methods.get(f) || (methods.set(f, {name: getProfileNodeName(node), self: 0, total: 0, calls: 0}), methods.get(f)));
+    f && active.set(f, (active.get(f) || 0) + 1);
+    node.children.forEach(function(child) { total += walk(child) });
+    if (m) {
+      m.self += node.self;
+      m.calls += node.calls;
+      active.set(f, active.get(f) - 1);
+      active.get(f) || (m.total += total);
+    }
+    return total;
+  };
+  var totalTime = walk(p.root);
+  var rows = [];
+  methods.forEach(function(m) { rows.push(m) });
+  rows.sort(function(a, b) { return b.self - a.self });
+  var s = "\n Method profile: " + Math.round(totalTime) + " ms, " + rows.length + " methods\n"
+    + "\ncalls   \tself(ms)\ttotal(ms)\n"
+    + "--------\t--------\t--------\t------------------------------\n";
+  for (var i = 0, nr = Math.min(n || 50, rows.length); i < nr; i++) {
+    var m = rows[i];
+    s += tabN(m.calls) + tabN(Math.round(m.self)) + tabN(Math.round(m.total)) + "\t" + m.name + "\n";
+  }
+  return s;
+}
+
+var getCollapsedStacks = function(p) {
+  var lines = [];
+  var walk = function(node, path) {
+    path = (node.f ? (path ? path + ";" : "") + getProfileNodeName(node) : path);
+    var us = Math.round(node.self * 1000);
+    us > 0 && lines.push((path || "(root)") + " " + us);
+    node.children.forEach(function(child) { walk(child, path) });
+  };
+  walk(p.root, "");
+  return lines.join("\n") + "\n";
+}
+
+var getCpuProfile = function(p) {
+  var nodes = [], samples = [], timeDeltas = [0];
+  for (var i = 0; i < p.nodes.length; i++) {
+    var node = p.nodes[i];
+    var c = node.f && node.f.exClazz;
+    var children = [];
+    node.children.forEach(function(child) { children.push(child.id) });
+    var us = Math.round(node.self * 1000);
+    nodes.push({id: node.id, callFrame: {functionName: getProfileNodeName(node), scriptId: "0",
+      url: (c && c.__CLASS_NAME__ ? c.__CLASS_NAME__.replace(/\./g, "/") + ".java" : ""), lineNumber: -1, columnNumber: -1},
+      hitCount: (us > 0 ? 1 : 0), children: children});
+    if (us > 0) {
+      samples.push(node.id);
+      timeDeltas.push(us);
+    }
+  }
+  // each sample lasts until the next one
+  samples.push(p.root.id);
+  var startTime = Math.round(p.startTime * 1000);
+  return JSON.stringify({nodes: nodes, startTime: startTime, endTime: Math.round(p.endTime * 1000),
+    samples: samples, timeDeltas: timeDeltas});
+}
+
+/**
+ * @param format "text" (default), "cpuprofile", or "collapsed"
+ * @param n for text, the number of methods to list (default 50)
+ */
+/* public */
+Clazz.getMethodProfile = function(format, n) {
+  if (methodProfile) {
+    Clazz.stopMethodProfiling();
+  }
+  var p = lastMethodProfile;
+  if (!p)
+    return "run Clazz.startMethodProfiling() first";
+  switch (format) {
+  case "cpuprofile":
+    return getCpuProfile(p);
+  case "collapsed":
+    return getCollapsedStacks(p);
+  default:
+    return getMethodProfileText(p, n);
+  }
+}
+
 // /////////////////// method creation ////////////////////////////////
 
 var doDebugger = function() { debugger }
@@ -1542,6 +1854,9 @@ var excludeSuper = function(o) {
       || o == "$classes$"
       || o == "$fields$"
       || o == "$load$"
+      || o == "$new$"
+      || o == "$tid$"
+      || o == "$anc$"
       || o == "$Class$"
       || o == "$getMembers$"
       || o == "$getAnn$"
@@ -1669,6 +1984,48 @@ var equalsOrExtendsLevel = function (clazzThis, clazzAncestor) {
   return false;
 };
 
+// Type ancestry
+//
+// Each class that is a superclass or interface of another gets a small id,
+// C$.$tid$. Each class that has a superclass or interfaces gets a bit set of
+// the ids of all of its ancestors, C$.$anc$ (an array of 32-bit ints), built at
+// setSuperclass and addInterface time from its parents' sets. The same set is
+// C$.prototype.$anc$ (not enumerable), so for an instance it is just
+// obj.$anc$. An instanceof or isAssignableFrom check is then a bit test, with
+// no string keys and nothing cached.
+//
+// Clazz._ancestry = false goes back to the knownInst cache, for comparison.
+
+Clazz._ancestry = true;
+
+var nTypeIds = 0;
+
+var getTypeId = function(c) {
+  return c.$tid$ || (c.$tid$ = ++nTypeIds);
+}
+
+/**
+ * Add p and all of p's ancestors to c's ancestors.
+ */
+var addAncestor = function(c, p) {
+  var a = c.$anc$, pa = p.$anc$, id = getTypeId(p);
+  if (!a) {
+    c.$anc$ = a = [];
+    Object.defineProperty(c.prototype, "$anc$", {value: a, writable: true, configurable: true});
+  }
+  for (var i = a.length, n = Math.max(pa ? pa.length : 0, (id >> 5) + 1); i < n; i++)
+    a[i] = 0;
+  if (pa)
+    for (var i = pa.length; --i >= 0;)
+      a[i] |= pa[i];
+  a[id >> 5] |= 1 << (id & 31);
+}
+
+var hasAncestor = function(a, c) {
+  var id = c.$tid$;
+  return (id ? (a[id >> 5] >>> (id & 31) & 1) == 1 : c === Clazz._O || c === Object);
+}
+
 var knownInst = {};
 
 var isInstanceOf = function (clazzTarget, clazzBase, isTgtStr, isBaseStr) {
@@ -1696,6 +2053,13 @@ var isInstanceOf = function (clazzTarget, clazzBase, isTgtStr, isBaseStr) {
   var b = (isBaseStr ? clazzBase : clazzBase.__CLASS_NAME__ || clazzBase.type);
   if (t && t == b)
 	return true;
+  if (Clazz._ancestry) {
+    var ct = (isTgtStr ? Clazz._getDeclared(clazzTarget) : clazzTarget);
+    var cb = (isBaseStr ? Clazz._getDeclared(clazzBase) : clazzBase);
+    var a = ct && cb && ct.$anc$;
+    if (a)
+      return ct === cb || hasAncestor(a, cb);
+  }
   var key = t + "|" + b;
   var val = knownInst[key];
   if (val)
@@ -1951,6 +2315,11 @@ var setSuperclass = function(clazzThis, clazzSuper){
     }      
   }
   clazzThis.prototype.__CLASS_NAME__ = clazzThis.__CLASS_NAME__;
+  if (clazzSuper) {
+    // the prototype is new
+    clazzThis.$anc$ && Object.defineProperty(clazzThis.prototype, "$anc$", {value: clazzThis.$anc$, writable: true, configurable: true});
+    addAncestor(clazzThis, clazzSuper);
+  }
 };
 
 /**
@@ -1986,6 +2355,7 @@ var addInterface = function (clazzThis, interfacez) {
     }
   }
   (clazzThis.implementz || (clazzThis.implementz = [])).push(interfacez);
+  interfacez && addAncestor(clazzThis, interfacez);
   copyStatics(interfacez, clazzThis, true);
 };
 
@@ -2778,6 +3148,170 @@ Clazz._4Name = function(clazzName, applet, state, asClazz, initialize, isQuiet)
   return (asClazz ? cl : Clazz.getClass(cl));
 };
 
+// Class-file prefetching (J2S._prefetch = true, or ?j2sprefetch)
+//
+// Class files are still evaluated one at a time, synchronously, at exactly
+// the point Java needs them, so static initialization order is unchanged.
+// But as each class file is evaluated, the classes in its I$ import table and
+// its superclass and interfaces are fetched asynchronously, several at a time,
+// and held as text, as are their own imports, to _Loader.prefetchDepth levels.
+// When one of them is needed, loadScript uses that text instead of making a
+// synchronous request. Anything not yet arrived, including Class.forName of a
+// class no one imports, is loaded synchronously as before.
+
+_Loader.prefetchDepth = 2;
+_Loader.prefetchMax = 6; // concurrent requests
+
+// path -> null while in flight, text when arrived, false once loaded
+var prefetched = {};
+var prefetchQueue = [];
+var nPrefetching = 0;
+
+Clazz._prefetchStats = {requested: 0, used: 0, missed: 0, failed: 0};
+
+/**
+ * Prefetch the given classes and, to the given depth, the classes they import.
+ * 
+ * @param names a class name or array of names; inner class names (".Inner")
+ *        are ignored, as they are in their outer class's file
+ * @param depth optional; defaults to _Loader.prefetchDepth
+ */
+/* public */
+Clazz.prefetchClasses = function(names, depth) {
+  if (!self.fetch)
+    return;
+  (names instanceof Array) || (names = [names]);
+  for (var i = 0; i < names.length; i++)
+	prefetchClass(names[i], depth || _Loader.prefetchDepth);
+}
+
+var prefetchClass = function(name, depth) {
+  if (typeof name != "string" || name.charAt(0) == ".")
+    return;
+  (name.indexOf(".") < 0) && (name = "java.lang." + name);
+  // core classes are loaded from their .z.js bundle
+  if (classpathMap["#" + name] || Clazz.allClasses[name] || Clazz._isClassDefined(name))
+    return;
+  prefetchFile(_Loader.getClasspathFor(name), depth);
+}
+
+var prefetchFile = function(path, depth) {
+  if (J2S._nozcore)
+    path = path.replace(/\.z\.js/,".js");
+  if (path in prefetched)
+    return;
+  prefetched[path] = null;
+  prefetchQueue.push([path, depth]);
+  nextPrefetch();
+}
+
+var nextPrefetch = function() {
+  while (nPrefetching < _Loader.prefetchMax && prefetchQueue.length) {
+    var a = prefetchQueue.shift();
+    if (prefetched[a[0]] === null)
+      fetchClassFile(a[0], a[1]);
+  }
+}
+
+var fetchClassFile = function(path, depth) {
+  nPrefetching++;
+  Clazz._prefetchStats.requested++;
+  fetch(path).then(function(r) {
+    return (r.ok ? r.text() : null);
+  }).then(function(js) {
+    if (js == null) {
+      Clazz._prefetchStats.failed++;
+      delete prefetched[path];
+    } else if (prefetched[path] === null) {
+      // not loaded synchronously in the meantime
+      prefetched[path] = js;
+      depth > 1 && prefetchImports(js, depth - 1);
+    }
+  }, function(e) {
+    // file:// pages, for example; leave it to getFileData
+    Clazz._prefetchStats.failed++;
+    delete prefetched[path];
+  }).then(function() {
+    nPrefetching--;
+    nextPrefetch();
+  });
+}
+
+/**
+ * Prefetch the classes in a class file's I$ import table:
+ * 
+ * ...,I$=[[0,'pkg.A',['pkg.B','.Inner'],'String']],I$0=I$[0],...
+ */
+var prefetchImports = function(js, depth) {
+  var i = js.indexOf(",I$=[[0,");
+  var j = (i < 0 ? -1 : js.indexOf("]],I$0=", i));
+  var names = (j < 0 ? null : js.substring(i + 8, j).match(/'[^']+'/g));
+  if (names)
+    for (i = 0; i < names.length; i++)
+      prefetchClass(names[i].substring(1, names[i].length - 1), depth);
+}
+
+/**
+ * The superclass and interfaces of a class just declared, from
+ * Clazz.newClass. These may be names, nested name arrays, or classes.
+ */
+var prefetchLoadList = function(ld) {
+  if (!self.fetch)
+    return;
+  for (var i = 0; i < 2; i++) {
+    var a = ld[i];
+    if (!a)
+      continue;
+    (a instanceof Array) || (a = [a]);
+    for (var j = 0; j < a.length; j++)
+      (a[j] instanceof Array) ? prefetchClass(a[j][0], _Loader.prefetchDepth)
+        : prefetchClass(a[j], _Loader.prefetchDepth);
+  }
+}
+
+// Profile-guided core files
+//
+// Clazz.getClassTrace() lists the class files loaded so far, in load order,
+// with a "#tier" line wherever Clazz.markClassTier() was called. The first mark
+// is made automatically when the applet or application reports that it is
+// ready, so a trace from a session run with Info.core = "NONE" separates
+// startup classes from those loaded on first interaction. Traces are turned
+// into core file lists by j2s.swingjs.Java2ScriptCoreListBuilder (see
+// build-SwingJS-site.xml, target core-from-trace).
+
+/* public */
+Clazz.markClassTier = function() {
+  Clazz._classTierMarks.push(Clazz.ClassFilesLoaded.length);
+}
+
+/* public */
+Clazz.getClassTrace = function() {
+  var a = Clazz.ClassFilesLoaded.slice();
+  for (var i = Clazz._classTierMarks.length; --i >= 0;)
+    a.splice(Clazz._classTierMarks[i], 0, "#tier");
+  return a.join("\n");
+}
+
+_Loader.lazyCoreDelay = 1000; // ms
+
+/**
+ * Called from the end of a startup core file to register the classes of its
+ * "first interaction" core file, core[name].z.js, in the same directory. That
+ * file is fetched in the background after a delay and evaluated all at once
+ * when the first of its classes is needed.
+ * 
+ * Only underscored Clazz names survive in core files.
+ * 
+ * @param name for example, "myapp2"
+ * @param classes class names
+ */
+Clazz._registerLazyCore = function(name, classes) {
+  var path = Clazz.currentPath;
+  path = path.substring(0, path.lastIndexOf("/") + 1) + "core" + name + ".z.js";
+  _Loader.jarClasspath(path, classes);
+  self.fetch && setTimeout(function() { prefetchFile(path, 1) }, _Loader.lazyCoreDelay);
+}
+
 // BH: possibly useful for debugging
 Clazz.currentPath= "";
 
@@ -2796,7 +3330,16 @@ Clazz.loadScript = function(file, nameForList) {
   var data = "";
   try{
     _Loader.onScriptLoading(file);
-    data = J2S.getFileData(file);
+    var js = prefetched[file];
+    if (typeof js == "string") {
+      data = js;
+      Clazz._prefetchStats.used++;
+    } else {
+      (js === null) && Clazz._prefetchStats.missed++;
+      data = J2S.getFileData(file);
+    }
+    (js !== undefined || J2S._prefetch) && (prefetched[file] = false);
+    J2S._prefetch && self.fetch && prefetchImports(data, _Loader.prefetchDepth);
     evaluate(file, data);
     if (nameForList)
     	Clazz.ClassFilesLoaded.push(nameForList.replace(/\./g,"/") + ".js");
@@ -3847,6 +4390,8 @@ var decorateAsNumber = function (clazz, qClazzName, type, PARAMCODE, hcOffset) {
 };
 
 Clazz.toLong = function(v) {
+	if (typeof v == "bigint")
+		return toLongRMS(v);
 	if (typeof v == "string") {
 		v = parseInt(v);
 		if (isNaN(v))
@@ -4186,6 +4731,9 @@ var toLongRMS = function(s0, noOver) {
 		s0 = "" + s0;
 	} else if (Array.isArray(s0)) {
 		return s0;
+	} else if (typeof s0 == "bigint") {
+		// from code transpiled with j2s.compiler.long=bigint
+		s0 = "" + s0;
 	}
 	var isNeg = (s0.indexOf("-") == 0);
 	var s = (isNeg ? s0.substring(1) : s0);
@@ -4288,6 +4836,15 @@ var checkLong = function(rms, limit) {
 		rms[0] = rl
 		rms[1] += rh;
 	}
+	if (rms[1] < 0) {
+		// r + m*MAXR crossed zero, as from addAB; flip the sign
+		if (rms[0] > 0) {
+			rms[1]++;
+			rms[0] = MAXR - rms[0];
+		}
+		rms[1] = -rms[1];
+		rms[2] = -rms[2];
+	}
 	if (rms[1] >= MSIGNB) {
 		if (limit >= 0) {
 			return (rms[2] > 0 ? LONG_MAX_VALUE : LONG_MIN_VALUE);
@@ -4308,6 +4865,7 @@ var checkLong = function(rms, limit) {
 }
 
 Long.$sign = function(a) {
+	typeof a == "bigint" && (a = toLongRMS(a));
 	return (a.length ? a[2] : Math.signum(a));
 }
 
@@ -4318,6 +4876,7 @@ Long.$n = function(a) {
 Long.$s = function(a, radix, unsigned) { 
 	// todo radix
 	radix || (radix = 10);
+	typeof a == "bigint" && (a = toLongRMS(a));
 	if (!a.length) {
 		if (radix == 10 && !unsigned)
 			return "" + a;
@@ -4385,6 +4944,8 @@ var longFill = function(s, zeros) {
 }
 
 Long.$dup=function(a,b){ 
+	if (typeof a == "bigint")
+		return Long.$b.$dup(a);
 	if (!a.length) {
 		return a;
 	}
@@ -4397,6 +4958,7 @@ Long.$dup=function(a,b){
 Long.$inc = function(x,n) {
 	// n +/-1 only;
 	var ret;
+	typeof x == "bigint" && (x = toLongRMS(x));
 	if (!x.length) {
 		ret = x + n;
 		if (ret != x) {
@@ -4407,19 +4969,21 @@ Long.$inc = function(x,n) {
     return checkLong([x[2] == -1 ? x[0] - n : x[0] + n, x[1], x[2]], -1);
 }
 
-Long.$neg=function(a){ return (a.length ? checkLong([a[0],a[1],-a[2]]) : -a); }
+Long.$neg=function(a){ typeof a == "bigint" && (a = toLongRMS(a)); return (a.length ? checkLong([a[0],a[1],-a[2]]) : -a); }
 
 
 Long.$ival=function(a){ return Long.$lval(a)|0; }
 
-Long.$lval=function(a){ return (a.length ? a[2] * (a[0] + (a[1]%MAXR)*MAXR) : a); }
+Long.$lval=function(a){ typeof a == "bigint" && (a = toLongRMS(a)); return (a.length ? a[2] * (a[0] + (a[1]%MAXR)*MAXR) : a); }
 
 Long.$fval=function(a){ 
+	typeof a == "bigint" && (a = toLongRMS(a));
 	geta32()[0] = (a.length ? a[2] * (a[0] + a[1]*MAXR) : a); 
 	return a32[0];
 }
 
 Long.$dval=function(a){ 	
+	typeof a == "bigint" && (a = toLongRMS(a));
 	geta64()[0] = (a.length ? a[2] * (a[0] + a[1]*MAXR) : a); 
 	return a64[0];
 }
@@ -4433,6 +4997,8 @@ var longTest = function(a,b) {
 var ab = [0,0];
 
 var fixLongAB = function(a,b) {
+	typeof a == "bigint" && (a = toLongRMS(a));
+	typeof b == "bigint" && (b = toLongRMS(b));
 	switch (longTest(a,b)) {
 	case 0:
 		return true;
@@ -4506,7 +5072,9 @@ Long.$lt=function(a,b){
 
 
 Long.$not=function(a){
-	return (a.length ? checkLong([a[0]+a[2],a[1],-a[2]]) : -a - 1);
+	typeof a == "bigint" && (a = toLongRMS(a));
+	// ~0 == -1; toLongRMS(0n) is [0,0,0]
+	return (!a.length ? -a - 1 : a[2] == 0 ? -1 : checkLong([a[0]+a[2],a[1],-a[2]]));
 }
 
 var m2 = [0,1,3,7
@@ -4530,20 +5098,24 @@ Long.$usr=function(a,n){
 	return shiftLong(a, n, 1);
 }
 
+// as in Java, only the low 6 bits of a shift count are used
+var shiftCountRMS = function(rms) {
+	return toLongRLH(rms)[0] & 63;
+}
+
 var shiftLong = function(a, n, unsigned) {
 	if (fixLongAB(a,n)) {
+		n &= 63;
 		if (a >= 0 && a == (a|0)) 
 			return (n > 31 ? 0 : a>>n);
-		if (n >= 64) 
-			return (a > 0 || unsigned ? 0 : -1);
 		if (n == 0)
 			return a;
 		a = toLongRMS(a);
 	} else {
 		a = ab[0];
-		n = (ab[1][1] > 0 ? 64 : ab[1][0]);
+		n = shiftCountRMS(ab[1]);
 	}
-	if (n >= 64 || a[2] == 0) {
+	if (a[2] == 0) {
 		return (a[2] >= 0 || unsigned ? 0 : -1);
 	} else if (n == 0) {
 		return Long.$dup(a);
@@ -4578,19 +5150,19 @@ Long.$sl = function(a, n){
 	if (arguments.length > 2)
 		return doLong(Long.$sl,arguments);
 	if (fixLongAB(a,n)) {
-		var c;
+		n &= 63;
 		if (a == 0 || n == 0)
 			return a;
-		if (n < 32 && (a < 0 ? (c = a<<n) < a : (c = a<<n) > a))
+		// a power of 2 multiplier is exact
+		var c = a * 2**n;
+		if (c >= -JSSAFE && c <= JSSAFE)
 			return c;
-		if (n >= 64) 
-			return 0;
 		a = toLongRMS(a);
 	} else {
 		a = ab[0];
-		n = (ab[1][1] > 0 ? 64 : ab[1][0]);
+		n = shiftCountRMS(ab[1]);
 	}
-	if (n >= 64 || a[2] == 0) {
+	if (a[2] == 0) {
 		return 0;
 	} 
 	if (n == 0) {
@@ -4603,9 +5175,10 @@ Long.$sl = function(a, n){
 		a[1] && (a[2]|=a[1]>>(24-n),a[1]<<=n);
 		a[0] && (a[1]|=a[0]>>(24-n),a[0]<<=n,a[0]&=RMASK);		
 	} else if (n < 48) {
-		a[2] = (a[0]?a[0]>>(48-n):0);
-		a[1] && (a[2]|=a[1]<<(n-24));
-		a[0] && (a[1]=a[0]<<(n-24),a[0]=0);
+		// every word is assigned, even when a[0] == 0
+		a[2] = a[0]>>(48-n)|a[1]<<(n-24);
+		a[1] = a[0]<<(n-24);
+		a[0] = 0;
 	} else {
 		a[1] = 0;
 		a[2] = (a[0]?a[0]<<(n-48):0);
@@ -4751,8 +5324,8 @@ Long.$div=function(a,b){
 	if (b[2] < 0)
 		b = [b[0], b[1], 1];
 	if (b[1] == a[1]) {
-		// the result will only depend upon r, not m
-		return  (isNeg ? -1 : 1)*(a[0]/b[0])|0;
+		// a[0] >= b[0]; with the same m > 0, a < 2b
+		return (isNeg ? -1 : 1) * (a[1] ? 1 : Math.floor(a[0]/b[0]));
 	}
 	var d = NaN;
 	if (b[1] == 0) {
@@ -4773,6 +5346,7 @@ Long.$div=function(a,b){
 		var aBm = f(a[1]);
 		var bBr = f(b[0]);
 		var bBm = f(b[1]);
+		var ret;
 		if (bi) {
 			ret = Number((aBr + m * aBm)/(bBr + m * bBm));
 		} else {
@@ -4787,20 +5361,13 @@ Long.$div=function(a,b){
 	var rf = r%1;
 	m -= mf;
 	r -= rf;
-	// rounding could be no more than +/-1 off
-	switch (Long.$cmp(a,Long.$mul([r, m, 1],d))) {
-	case 0:
-		break;
-	case -1:// a < b*d -- too high
-		r -= 1;
-		break;
-	case 1:
-		if (Long.$cmp(a,Long.$mul([r+1, m, 1],d)) >= 0) {
-			r += 1;
-		}
-		break;
-	}
-	return checkLong([r, m, isNeg ? -1 : 1]);
+	// mf*MAXR carries the rounding error of a[1]/d, so q can be off by more
+	// than 1; step it by the exact remainder, which is small, until 0 <= rem < d
+	var q = checkLong([r, m, 1]);
+	var rem;
+	while ((rem = Long.$sub(a, Long.$mul(q, d))) < 0 || rem >= d)
+		q = Long.$add(q, Math.floor(rem / d) || (rem < 0 ? -1 : 1));
+	return (isNeg ? Long.$neg(q) : q);
 }
 
 Long.$mod=function(a,n){
@@ -4810,7 +5377,7 @@ Long.$mod=function(a,n){
 		return a%n;
 	}
 	// a mod n = a - (a/n)*n
-	return Long.sub(a,Long.mul(Long.div(a,n),n));
+	return Long.$sub(a,Long.$mul(Long.$div(a,n),n));
 }
 
 var doLong = function(f,args) {
@@ -4859,6 +5426,264 @@ var fromLongRLH = function(rlh) {
 	return checkLong([r,m, !r&&!m ? 0 : isNeg ? -1 : 1]);
 }
 
+// 64-bit long methods using native BigInt (j2s.compiler.long=bigint)
+//
+// Classes transpiled with j2s.compiler.long=bigint call Long.$b.$add etc.
+// in place of Long.$add. A long is then a number if it is within +/-JSSAFE
+// and a BigInt otherwise -- never an [r,m,s] array -- so most operations
+// are plain arithmetic, and only large values ever involve BigInt. Wrapping
+// is BigInt.asIntN(64, ...), just as in Java.
+//
+// Arrays from classes transpiled in the default mode are accepted here, and
+// the array methods above accept BigInt values, so the two can be mixed.
+//
+// See test.Test_LongBench for timings of both.
+
+Long.$b = {};
+
+if (self.BigInt) {
+
+var BJSSAFE = BigInt(JSSAFE);
+var BMJSSAFE = -BJSSAFE;
+var BMAXR = BigInt(MAXR);
+var B63 = BigInt(63);
+
+var toBig = function(a) {
+	return (typeof a == "bigint" ? a
+		: a.length ? BigInt(a[2]) * (BigInt(a[1]) * BMAXR + BigInt(a[0]))
+		: BigInt(a % 1 ? a - a % 1 : a));
+}
+
+var fromBig = function(n) {
+	n = BigInt.asIntN(64, n);
+	return (n >= BMJSSAFE && n <= BJSSAFE ? Number(n) : n);
+}
+
+var shiftCount = function(n) {
+	return (typeof n == "number" ? n & 63 : Number(toBig(n) & B63));
+}
+
+var isInt = function(a, b) {
+	return typeof a == "number" && typeof b == "number" && (a|0) === a && (b|0) === b;
+}
+
+var isZero = function(b) {
+	return (typeof b == "number" ? b == 0 : b.length && !b[2]);
+}
+
+var doLongB = function(f, args) {
+	var a = args[0];
+	for (var i = 1; i < args.length; i++) {
+		a = f(a, args[i]);
+	}
+	return a;
+}
+
+Long.$b.$sign = function(a) {
+	return (a.length ? a[2] : a > 0 ? 1 : a < 0 ? -1 : 0);
+}
+
+Long.$b.$n = function(a) {
+	return toBig(a);
+}
+
+Long.$b.$s = function(a, radix, unsigned) {
+	radix || (radix = 10);
+	if (unsigned) 
+		return BigInt.asUintN(64, toBig(a)).toString(radix);
+	return (typeof a == "number" ? a.toString(radix) : toBig(a).toString(radix));
+}
+
+Long.$b.$dup = function(a) {
+	return (typeof a == "number" ? a : fromBig(toBig(a)));
+}
+
+Long.$b.$inc = function(x, n) {
+	if (typeof x == "number") {
+		var r = x + n;
+		if (r >= -JSSAFE && r <= JSSAFE)
+			return r;
+	}
+	return fromBig(toBig(x) + BigInt(n));
+}
+
+Long.$b.$neg = function(a) {
+	return (typeof a == "number" ? 0 - a : fromBig(-toBig(a)));
+}
+
+Long.$b.$not = function(a) {
+	return (typeof a == "number" ? -1 - a : fromBig(~toBig(a)));
+}
+
+Long.$b.$ival = function(a) {
+	return (typeof a == "number" ? a|0 : Number(BigInt.asIntN(32, toBig(a))));
+}
+
+Long.$b.$lval = function(a) {
+	return (typeof a == "number" ? a : Number(toBig(a)));
+}
+
+Long.$b.$fval = function(a) {
+	return Math.fround(typeof a == "number" ? a : Number(toBig(a)));
+}
+
+Long.$b.$dval = function(a) {
+	return (typeof a == "number" ? a : Number(toBig(a)));
+}
+
+Long.$b.$cmp = function(a, b, unsigned) {
+	if (unsigned) {
+		a = BigInt.asUintN(64, toBig(a));
+		b = BigInt.asUintN(64, toBig(b));
+	} else {
+		// number and BigInt compare exactly
+		a.length && (a = toBig(a));
+		b.length && (b = toBig(b));
+	}
+	return (a < b ? -1 : a > b ? 1 : 0);
+}
+
+Long.$b.$eq = function(a, b) {
+	return (a.length || b.length ? Long.$b.$cmp(a, b) == 0 : a == b);
+}
+
+Long.$b.$ne = function(a, b) {
+	return (a.length || b.length ? Long.$b.$cmp(a, b) != 0 : a != b);
+}
+
+Long.$b.$ge = function(a, b) {
+	return (a.length || b.length ? Long.$b.$cmp(a, b) >= 0 : a >= b);
+}
+
+Long.$b.$gt = function(a, b) {
+	return (a.length || b.length ? Long.$b.$cmp(a, b) > 0 : a > b);
+}
+
+Long.$b.$le = function(a, b) {
+	return (a.length || b.length ? Long.$b.$cmp(a, b) <= 0 : a <= b);
+}
+
+Long.$b.$lt = function(a, b) {
+	return (a.length || b.length ? Long.$b.$cmp(a, b) < 0 : a < b);
+}
+
+Long.$b.$add = function(a, b) {
+	if (arguments.length > 2)
+		return doLongB(Long.$b.$add, arguments);
+	if (typeof a == "number" && typeof b == "number") {
+		var r = a + b;
+		if (r >= -JSSAFE && r <= JSSAFE)
+			return r;
+	}
+	return fromBig(toBig(a) + toBig(b));
+}
+
+Long.$b.$sub = function(a, b) {
+	if (arguments.length > 2)
+		return doLongB(Long.$b.$sub, arguments);
+	if (typeof a == "number" && typeof b == "number") {
+		var r = a - b;
+		if (r >= -JSSAFE && r <= JSSAFE)
+			return r;
+	}
+	return fromBig(toBig(a) - toBig(b));
+}
+
+Long.$b.$mul = function(a, b) {
+	if (arguments.length > 2)
+		return doLongB(Long.$b.$mul, arguments);
+	if (typeof a == "number" && typeof b == "number") {
+		var r = a * b;
+		if (r >= -JSSAFE && r <= JSSAFE)
+			return r || 0;
+	}
+	return fromBig(toBig(a) * toBig(b));
+}
+
+Long.$b.$div = function(a, b) {
+	if (arguments.length > 2)
+		return doLongB(Long.$b.$div, arguments);
+	if (isZero(b))
+		arex("/ by zero");
+	if (typeof a == "number" && typeof b == "number") {
+		// exact for |a| and |b| <= JSSAFE
+		var r = a / b;
+		return (r - r % 1) || 0;
+	}
+	return fromBig(toBig(a) / toBig(b));
+}
+
+Long.$b.$mod = function(a, b) {
+	if (arguments.length > 2)
+		return doLongB(Long.$b.$mod, arguments);
+	if (isZero(b))
+		arex("/ by zero");
+	if (typeof a == "number" && typeof b == "number")
+		return (a % b) || 0;
+	return fromBig(toBig(a) % toBig(b));
+}
+
+Long.$b.$and = function(a, b) {
+	if (arguments.length > 2)
+		return doLongB(Long.$b.$and, arguments);
+	if (isInt(a, b))
+		return a & b;
+	return fromBig(toBig(a) & toBig(b));
+}
+
+Long.$b.$or = function(a, b) {
+	if (arguments.length > 2)
+		return doLongB(Long.$b.$or, arguments);
+	if (isInt(a, b))
+		return a | b;
+	return fromBig(toBig(a) | toBig(b));
+}
+
+Long.$b.$xor = function(a, b) {
+	if (arguments.length > 2)
+		return doLongB(Long.$b.$xor, arguments);
+	if (isInt(a, b))
+		return a ^ b;
+	return fromBig(toBig(a) ^ toBig(b));
+}
+
+Long.$b.$sl = function(a, n) {
+	if (arguments.length > 2)
+		return doLongB(Long.$b.$sl, arguments);
+	n = shiftCount(n);
+	if (typeof a == "number") {
+		// a power of 2 multiplier is exact
+		var r = a * 2**n;
+		if (r >= -JSSAFE && r <= JSSAFE)
+			return r;
+	}
+	return fromBig(toBig(a) << BigInt(n));
+}
+
+Long.$b.$sr = function(a, n) {
+	if (arguments.length > 2)
+		return doLongB(Long.$b.$sr, arguments);
+	n = shiftCount(n);
+	if (typeof a == "number")
+		return ((a|0) === a ? a >> (n > 31 ? 31 : n) : Math.floor(a / 2**n));
+	return fromBig(toBig(a) >> BigInt(n));
+}
+
+Long.$b.$usr = function(a, n) {
+	if (arguments.length > 2)
+		return doLongB(Long.$b.$usr, arguments);
+	n = shiftCount(n);
+	if (typeof a == "number" && a >= 0)
+		return (a <= 0x7FFFFFFF ? a >> (n > 31 ? 31 : n) : Math.floor(a / 2**n));
+	return fromBig(BigInt.asUintN(64, toBig(a)) >> BigInt(n));
+}
+
+} else {
+	// no BigInt in this browser; bigint-mode code then can only run 
+	// without long literals beyond +/-JSSAFE
+	Long.$b = Long;
+}
+
 // Long.TYPE=Long.prototype.TYPE=Long;
 // Note that the largest usable "Long" in JavaScript is 53 digits:
 
@@ -6738,6 +7563,7 @@ Integer.sum$I$I = Long.sum$J$J = Float.sum$F$F = Double.sum$D$D = 		function(a,b
 Clazz._setDeclared("java.util.Date", java.util.Date=Date);
 // Date.TYPE="java.util.Date";
 Date.__CLASS_NAME__="Date";
+Date.$new$ = new$;
 addInterface(Date,[java.io.Serializable,java.lang.Comparable]);
 
 Date.parse$S = Date.parse;
@@ -6746,6 +7572,11 @@ m$(java.util.Date, ["c$", "c$$S", "c$$J"], function(t) {
   this.setTime$J(typeof t == "string" ? Date.parse(t) : t ? t : System.currentTimeMillis$())
 }, 1);
 
+// deprecated, but used by ZipEntry for DOS times
+m$(java.util.Date, ["c$$I$I$I", "c$$I$I$I$I$I", "c$$I$I$I$I$I$I"], function(y, mo, d, h, mi, s) {
+  this.setTime$J(new Date(y + 1900, mo, d, h || 0, mi || 0, s || 0).getTime());
+}, 1);
+
 m$(java.util.Date, ["getClass$", "getClass"], function () { return Clazz.getClass(this); }, 1);
 
 m$(java.util.Date,["clone$","clone"],
@@ -0,0 +1,171 @@
+// j2sHost.js
+//
+// Runs a SwingJS main class with no browser: in node, or in a JavaScript
+// engine embedded in Java (GraalJS, through javax.script). There is no DOM,
+// so only code that does not need one (such as test.Test_Bench) will work.
+// Class files are read synchronously from the local file system.
+//
+// node:
+//
+//   node site/swingjs/js/j2sHost.js [-j2s site/swingjs/j2s] [-profile file] test.Test_Bench [args...]
+//
+// -profile runs main with Clazz.startMethodProfiling() and writes the method
+// profile to file: Chrome .cpuprofile JSON if the name ends with .cpuprofile,
+// otherwise collapsed stacks. A summary goes to stderr.
+//
+// node's zlib is used as J2S._inflate (see swingjs.jzlib.InflaterInputStream);
+// -nozlib leaves it to J2S._jsInflate, as in a page.
+//
+// embedded: define J2SHost before evaluating this file:
+//
+//   J2SHost.jsPath    directory holding j2sApplet.js and j2sClazz.js
+//   J2SHost.j2sPath   directory holding java/lang/..., test/...
+//   J2SHost.main      main class name
+//   J2SHost.args      main arguments, as an array or a newline-separated string
+//   J2SHost.read(path)   file contents as a string, or null
+//   J2SHost.print(s), J2SHost.printErr(s)   one line of output each
+//   J2SHost.profile, J2SHost.write(path, s)  optional; as for -profile
+//   J2SHost.inflate(bytes, zlib)  optional; becomes J2S._inflate in place of
+//                                 J2S._jsInflate
+//
+// See j2s.swingjs.Java2ScriptBenchmarkRunner.
+
+;(function(g) {
+
+var timers = null;
+
+if (typeof J2SHost == "undefined" && typeof require == "function") {
+	// node
+	var fs = require("fs"), path = require("path");
+	var argv = process.argv.slice(2);
+	var j2sPath = path.join(__dirname, "../j2s");
+	var profile = null, zlib = require("zlib");
+	while (argv[0] == "-j2s" || argv[0] == "-profile" || argv[0] == "-nozlib") {
+		if (argv[0] == "-nozlib") {
+			zlib = null;
+			argv = argv.slice(1);
+			continue;
+		}
+		argv[0] == "-j2s" ? (j2sPath = argv[1]) : (profile = argv[1]);
+		argv = argv.slice(2);
+	}
+	g.J2SHost = {
+		jsPath: __dirname,
+		j2sPath: j2sPath,
+		main: argv[0],
+		args: argv.slice(1),
+		profile: profile,
+		write: function(f, s) { fs.writeFileSync(f, s) },
+		read: function(f) {
+			try {
+				return fs.readFileSync(f.replace(/^file:\/\//, ""), "utf8");
+			} catch (e) {
+				return null;
+			}
+		},
+		print: function(s) { process.stdout.write(s + "\n") },
+		printErr: function(s) { process.stderr.write(s + "\n") },
+		inflate: zlib && function(bytes, isZlib) {
+			// stops at the end of the stream; engine.bytesWritten is the input used
+			var ret = (isZlib ? zlib.inflateSync : zlib.inflateRawSync)(
+					Buffer.from(bytes.buffer, bytes.byteOffset, bytes.length), {info: true});
+			return {out: ret.buffer, consumed: ret.engine.bytesWritten};
+		}
+	}
+}
+
+var host = g.J2SHost;
+
+// just enough of a browser for j2sApplet.js and j2sClazz.js
+
+g.self = g.window = g;
+Object.defineProperty(g, "navigator", {value: {userAgent: "J2SHost (headless)",
+	appVersion: "J2SHost (headless)", platform: "j2shost", language: "en-US"}, configurable: true, writable: true});
+g.document = {
+	location: {href: "file:///j2shost/", protocol: "file:", host: ""},
+	body: null,
+	getElementById: function() { return null },
+	getElementsByTagName: function() { return [] },
+	createElement: function() { return {style: {}, appendChild: function() {}, setAttribute: function() {}} }
+};
+g.alert = function(s) { host.printErr("" + s) };
+g.performance || (g.performance = {now: function() { return Date.now() }});
+if (!g.setTimeout) {
+	// run after main returns, in order of due time
+	timers = [];
+	var nTimers = 0;
+	g.setTimeout = function(f, ms) {
+		timers.push({f: f, t: Date.now() + (ms || 0), id: ++nTimers});
+		return nTimers;
+	};
+	g.clearTimeout = function(id) {
+		timers = timers.filter(function(t) { return t.id != id });
+	};
+}
+
+var line = function(f) {
+	return function(s) {
+		s = "" + s;
+		f(s.replace(/\r?\n$/, ""));
+	}
+};
+
+var $ = function() { return {ready: function() {}, on: function() {}, bind: function() {}} };
+$.ajaxSetup = function() {};
+$.ajax = function(info) {
+	var data = host.read(info.url);
+	info.success && info.success(data);
+	return {responseText: data};
+};
+g.jQuery = $;
+
+var load = function(file) {
+	var js = host.read(file);
+	if (js == null)
+		throw new Error("J2SHost cannot read " + file);
+	(0, eval)(js + "\n//# sourceURL=" + file);
+};
+
+g.J2S = {_loadcore: false, _nozcore: true, _inflate: host.inflate || null};
+load(host.jsPath + "/j2sApplet.js");
+
+// System.out and System.err go to window.console
+g.console = {log: line(host.print), info: line(host.print), warn: line(host.printErr), error: line(host.printErr)};
+J2S.setGlobal("j2s.lib", {base: host.j2sPath + "/", alias: ".", console: g.console});
+
+J2S.getFileData = function(fileName, fWhenDone, doProcess, info) {
+	// text only
+	var data = host.read(fileName);
+	fWhenDone && fWhenDone(data);
+	return data;
+};
+
+load(host.jsPath + "/j2sClazz.js");
+J2S.LoadClazz(Clazz);
+
+var args = (typeof host.args == "string" ? (host.args ? host.args.split("\n") : []) : host.args || []);
+// a page gets java.lang.Class from the core files; here it must be loaded
+// before any static initializer reaches it, as Test_'s does through
+// ClassLoader.getSystemClassLoader()
+Clazz.load("java.lang.Class");
+var main = Clazz.loadClass(host.main);
+host.profile && Clazz.startMethodProfiling();
+main.main$SA(Array.prototype.slice.call(args));
+
+if (timers) {
+	var t;
+	while (timers.length) {
+		timers.sort(function(a, b) { return a.t - b.t || a.id - b.id });
+		t = timers.shift();
+		t.f();
+	}
+}
+
+if (host.profile) {
+	Clazz.stopMethodProfiling();
+	host.write(host.profile, Clazz.getMethodProfile(/\.cpuprofile$/.test(host.profile) ? "cpuprofile" : "collapsed"));
+	host.printErr(Clazz.getMethodProfile("text", 20));
+	host.printErr("J2SHost wrote " + host.profile);
+}
+
+})(typeof globalThis != "undefined" ? globalThis : this);